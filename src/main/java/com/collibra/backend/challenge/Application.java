@@ -1,11 +1,83 @@
 package com.collibra.backend.challenge;
 
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphJournal;
+import com.collibra.backend.challenge.persistence.GraphFileLoader;
+import com.collibra.backend.challenge.persistence.MutationLog;
+import com.collibra.backend.challenge.persistence.SnapshotWriter;
+import com.collibra.backend.challenge.replication.ReplicationFollower;
+import com.collibra.backend.challenge.replication.ReplicationLeader;
 import com.collibra.backend.challenge.server.MultiClientSocketServer;
+import com.collibra.backend.challenge.server.NioSocketServer;
+import com.collibra.backend.challenge.server.ServerConfiguration;
+import com.collibra.backend.challenge.server.trace.TraceRecorder;
+import com.collibra.backend.challenge.stats.ServerStats;
+import com.collibra.backend.challenge.stats.StatsHttpServer;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+@Slf4j
 public class Application {
 
-    public static void main(String[] args) {
-        final MultiClientSocketServer socketServer = new MultiClientSocketServer(50_000);
-        socketServer.start();
+    public static void main(String[] args) throws IOException {
+        final TraceRecorder traceRecorder = TraceRecorder.getInstance();
+        traceRecorder.registerMBean();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> close(traceRecorder)));
+        StatsHttpServer.fromSystemProperties(ServerStats.getInstance())
+                .forEach(statsServer -> Runtime.getRuntime().addShutdownHook(new Thread(statsServer::close)));
+        final DirectedGraph graph = DirectedGraph.getInstance();
+        final GraphFileLoader loader = GraphFileLoader.fromSystemProperties();
+        final String graphFile = System.getProperty(GraphFileLoader.FILE_PROPERTY);
+        final String logFile = System.getProperty(MutationLog.FILE_PROPERTY);
+        if (System.getProperty(ReplicationFollower.LEADER_PROPERTY) != null) {
+            checkArgument(graphFile == null && logFile == null && System.getProperty(ReplicationLeader.PORT_PROPERTY) == null,
+                    "A replication follower gets its graph from the leader, it can not load a graph file, "
+                            + "keep a mutation log or lead the replication itself");
+            ReplicationFollower.fromSystemProperties(graph)
+                    .forEach(follower -> Runtime.getRuntime().addShutdownHook(new Thread(() -> close(follower))));
+        }
+        final Option<Path> snapshot = logFile == null ? Option.none() : SnapshotWriter.latest(Paths.get(logFile));
+        if (snapshot.isDefined()) {
+            loader.load(snapshot.get(), graph);
+        } else if (graphFile != null) {
+            loader.load(Paths.get(graphFile), graph);
+        }
+        GraphJournal journal = GraphJournal.DISABLED;
+        if (logFile != null) {
+            final MutationLog mutationLog = MutationLog.fromSystemProperties(Paths.get(logFile));
+            mutationLog.recover(graph, snapshot.map(SnapshotWriter::sequenceOf).getOrElse(0L));
+            journal = mutationLog;
+            final SnapshotWriter snapshotWriter = SnapshotWriter.fromSystemProperties(Paths.get(logFile), mutationLog, graph);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                snapshotWriter.close();
+                close(mutationLog);
+            }));
+        }
+        ReplicationLeader.fromSystemProperties(graph, journal)
+                .forEach(leader -> Runtime.getRuntime().addShutdownHook(new Thread(() -> close(leader))));
+        final ServerConfiguration configuration = ServerConfiguration.fromSystemProperties();
+        switch (configuration.getMode()) {
+            case NIO:
+                new NioSocketServer(configuration).start();
+                break;
+            case BLOCKING:
+            default:
+                new MultiClientSocketServer(configuration).start();
+        }
+    }
+
+    private static void close(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.error("Can not close {}", closeable, e);
+        }
     }
 }
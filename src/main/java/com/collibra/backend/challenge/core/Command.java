@@ -0,0 +1,138 @@
+package com.collibra.backend.challenge.core;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Client message split into whitespace separated tokens in a single pass. Tokens are kept as offsets into the
+ * message and arguments are only materialized when a processor asks for them. One instance is reused for every
+ * message of a session, so parsing itself allocates nothing.
+ */
+@NotThreadSafe
+public final class Command {
+
+    private static final int MAX_TOKENS = 16;
+
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private String message;
+    private int tokenCount;
+    private CommandType type;
+
+    /**
+     * Tokenize the message and recognize its command. Tokens beyond {@value MAX_TOKENS} are ignored.
+     *
+     * @param message   single line sent by the client
+     * @return Command  this instance, describing the message until the next call
+     */
+    public Command parse(final String message) {
+        this.message = message;
+        tokenCount = 0;
+        final int length = message.length();
+        int position = 0;
+        while (tokenCount < MAX_TOKENS) {
+            while (position < length && isWhitespace(message.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                break;
+            }
+            tokenStart[tokenCount] = position;
+            while (position < length && !isWhitespace(message.charAt(position))) {
+                position++;
+            }
+            tokenEnd[tokenCount++] = position;
+        }
+        type = CommandType.match(this);
+        return this;
+    }
+
+    /**
+     * @return CommandType  recognized command, {@code null} if the message is not a known command
+     */
+    public CommandType getType() {
+        return type;
+    }
+
+    /**
+     * @return int  number of tokens following the command keywords
+     */
+    public int getArgumentCount() {
+        return type == null ? 0 : tokenCount - type.getKeywordCount();
+    }
+
+    /**
+     * @param index     zero based position of the argument after the command keywords
+     * @throws UnsupportedCommandException if the message has no such argument
+     * @return String   argument at the position
+     */
+    public String argument(final int index) {
+        final int token = tokenIndex(index);
+        return message.substring(tokenStart[token], tokenEnd[token]);
+    }
+
+    /**
+     * Parse an integer argument in place, without creating a substring. Accepts what {@link Integer#parseInt} does:
+     * an optional {@code -} or {@code +} sign followed by decimal digits.
+     *
+     * @param index     zero based position of the argument after the command keywords
+     * @throws UnsupportedCommandException if the message has no such argument or it is not an int
+     * @return int      value of the argument
+     */
+    public int intArgument(final int index) {
+        final int token = tokenIndex(index);
+        int position = tokenStart[token];
+        final int end = tokenEnd[token];
+        final char sign = message.charAt(position);
+        final boolean negative = sign == '-';
+        if (negative || sign == '+') {
+            position++;
+        }
+        if (position == end) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            final int digit = Character.digit(message.charAt(position), 10);
+            if (digit < 0) {
+                throw UnsupportedCommandException.INSTANCE;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw UnsupportedCommandException.INSTANCE;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        return (int) value;
+    }
+
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    char firstCharacter() {
+        return tokenCount == 0 ? 0 : message.charAt(tokenStart[0]);
+    }
+
+    boolean tokenEquals(final int token, final String keyword) {
+        final int length = tokenEnd[token] - tokenStart[token];
+        return length == keyword.length() && message.regionMatches(tokenStart[token], keyword, 0, length);
+    }
+
+    private int tokenIndex(final int argument) {
+        final int token = type == null ? -1 : type.getKeywordCount() + argument;
+        if (token < 0 || token >= tokenCount) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        return token;
+    }
+
+    /**
+     * Same characters as the {@code \s} regex class the protocol used to be split with
+     */
+    private static boolean isWhitespace(final char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\u000B' || character == '\f' || character == '\r';
+    }
+}
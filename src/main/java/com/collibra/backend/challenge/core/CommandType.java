@@ -0,0 +1,80 @@
+package com.collibra.backend.challenge.core;
+
+import java.util.Arrays;
+
+/**
+ * Commands of the protocol, identified by their leading keywords
+ */
+public enum CommandType {
+
+    GREETING("HI,", "I", "AM"),
+    GOODBYE("BYE", "MATE!"),
+    ADD_NODE("ADD", "NODE"),
+    REMOVE_NODE("REMOVE", "NODE"),
+    ADD_EDGE("ADD", "EDGE"),
+    REMOVE_EDGE("REMOVE", "EDGE"),
+    SHORTEST_PATH("SHORTEST", "PATH"),
+    CLOSER_THAN("CLOSER", "THAN"),
+    BEGIN_BATCH("BEGIN", "BATCH"),
+    END_BATCH("END", "BATCH"),
+    STATS("STATS"),
+    DISTANCES("DISTANCES", "FROM");
+
+    /**
+     * Candidates by the first character of the first keyword, so a message is compared with one or two commands only
+     */
+    private static final CommandType[][] BY_FIRST_CHARACTER = new CommandType[128][];
+
+    static {
+        for (CommandType type : values()) {
+            final char first = type.keywords[0].charAt(0);
+            final CommandType[] candidates = BY_FIRST_CHARACTER[first];
+            if (candidates == null) {
+                BY_FIRST_CHARACTER[first] = new CommandType[]{type};
+            } else {
+                final CommandType[] grown = Arrays.copyOf(candidates, candidates.length + 1);
+                grown[candidates.length] = type;
+                BY_FIRST_CHARACTER[first] = grown;
+            }
+        }
+    }
+
+    private final String[] keywords;
+
+    CommandType(final String... keywords) {
+        this.keywords = keywords;
+    }
+
+    int getKeywordCount() {
+        return keywords.length;
+    }
+
+    /**
+     * @param command   tokenized message
+     * @return CommandType  type whose keywords are the leading tokens of the message, {@code null} if there is none
+     */
+    static CommandType match(final Command command) {
+        final char first = command.firstCharacter();
+        if (first >= BY_FIRST_CHARACTER.length || BY_FIRST_CHARACTER[first] == null) {
+            return null;
+        }
+        for (CommandType candidate : BY_FIRST_CHARACTER[first]) {
+            if (candidate.matches(command)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(final Command command) {
+        if (command.getTokenCount() < keywords.length) {
+            return false;
+        }
+        for (int i = 0; i < keywords.length; i++) {
+            if (!command.tokenEquals(i, keywords[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
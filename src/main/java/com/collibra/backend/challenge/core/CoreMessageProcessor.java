@@ -1,31 +1,51 @@
 package com.collibra.backend.challenge.core;
 
+import com.collibra.backend.challenge.core.batch.Batch;
+import com.collibra.backend.challenge.core.batch.BeginBatchProcessor;
+import com.collibra.backend.challenge.core.batch.EndBatchProcessor;
 import com.collibra.backend.challenge.core.edge.CloserThanProcessor;
 import com.collibra.backend.challenge.core.edge.DeleteEdgeProcessor;
+import com.collibra.backend.challenge.core.edge.DistancesProcessor;
 import com.collibra.backend.challenge.core.edge.ShortestPathProcessor;
 import com.collibra.backend.challenge.core.io.GreetingsProcessor;
+import com.collibra.backend.challenge.core.io.StatsProcessor;
 import com.collibra.backend.challenge.core.node.AddNodeProcessor;
 import com.collibra.backend.challenge.core.node.DeleteNodeProcessor;
 import com.collibra.backend.challenge.core.edge.AddEdgeProcessor;
 import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.stats.CommandStats;
+import com.collibra.backend.challenge.stats.ServerStats;
 import io.vavr.collection.List;
-import io.vavr.control.Option;
 
+import javax.annotation.concurrent.ThreadSafe;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * Entry point of the protocol, shared by all sessions of a server. Processors are stateless,
+ * everything belonging to a connection lives in its {@link Session}. Processing time and error answers of every
+ * command are recorded in {@link ServerStats}.
+ */
+@ThreadSafe
 public final class CoreMessageProcessor {
 
-    private final List<MessageProcessor> processors;
-    private final UUID sessionId;
-    private final Instant timer;
-    private final int TIMEOUT_IN_MS = 30_000;
+    private static final String UNKNOWN_COMMAND = "UNKNOWN";
 
-    public CoreMessageProcessor(final DirectedGraph graph, final UUID sessionId, final Instant timer) {
-        this.sessionId = sessionId;
-        this.timer = timer;
-        this.processors = initProcessors(graph);
+    private final DirectedGraph graph;
+    private final Map<CommandType, MessageProcessor> processors = new EnumMap<>(CommandType.class);
+    private final CommandStats[] commandStats = new CommandStats[CommandType.values().length];
+    private final CommandStats unknownCommandStats;
+
+    public CoreMessageProcessor(final DirectedGraph graph) {
+        this.graph = graph;
+        initProcessors(graph).forEach(processor -> processors.put(processor.getCommandType(), processor));
+        final ServerStats stats = ServerStats.getInstance();
+        for (CommandType type : CommandType.values()) {
+            commandStats[type.ordinal()] = stats.command(type.name());
+        }
+        unknownCommandStats = stats.command(UNKNOWN_COMMAND);
     }
 
     private List<MessageProcessor> initProcessors(DirectedGraph graph) {
@@ -36,44 +56,106 @@ public final class CoreMessageProcessor {
                 new DeleteNodeProcessor(graph),
                 new CloserThanProcessor(graph),
                 new ShortestPathProcessor(graph),
-                new GreetingsProcessor(graph)
+                new DistancesProcessor(graph),
+                new GreetingsProcessor(graph),
+                new BeginBatchProcessor(graph),
+                new EndBatchProcessor(graph),
+                new StatsProcessor(graph, ServerStats.getInstance())
         );
     }
 
-    public String process(final String message) {
-        if (isLastMessage(message)) {
-            return String.format("BYE %s, WE SPOKE FOR %d MS", getClientName(), calculateConnectionTime());
+    /**
+     * Tokenize the message once and hand it to the processor of its command.
+     * Inside a batch every message except {@code END BATCH} and the goodbye is queued and answered when the batch ends,
+     * the goodbye discards the batch.
+     * On a read only replica (see {@link DirectedGraph#setReadOnly}) mutations and batches are rejected.
+     *
+     * @param session   session of the client which sent the message
+     * @param message   single line sent by the client
+     * @throws MessageProcessingException with the error answer if the message can not be processed
+     * @return String   answer for the client, {@code null} if the message was queued in a batch
+     */
+    public String process(final Session session, final String message) {
+        final long start = System.nanoTime();
+        CommandStats stats = unknownCommandStats;
+        try {
+            final Command command = session.parse(message);
+            final CommandType type = command.getType();
+            if (type != null) {
+                stats = commandStats[type.ordinal()];
+            }
+            if (graph.isReadOnly() && isWrite(type)) {
+                throw ReadOnlyException.INSTANCE;
+            }
+            final Batch batch = session.currentBatch();
+            final boolean goodbye = type == CommandType.GOODBYE && command.getArgumentCount() == 0;
+            if (batch != null && type != CommandType.END_BATCH && !goodbye) {
+                queue(batch, type, command);
+                return null;
+            }
+            if (type == null) {
+                throw UnsupportedCommandException.INSTANCE;
+            }
+            if (type == CommandType.GOODBYE) {
+                if (command.getArgumentCount() > 0) {
+                    throw UnsupportedCommandException.INSTANCE;
+                }
+                session.endBatch();
+                return "BYE " + getClientName(session) + ", WE SPOKE FOR " + calculateConnectionTime(session) + " MS";
+            }
+            return processors.get(type).process(command, session);
+        } catch (MessageProcessingException e) {
+            session.recordError();
+            stats.getErrors().increment();
+            throw e;
+        } finally {
+            stats.getLatency().recordSince(start);
         }
-        return processors.filter(processor -> processor.isApplicable(message))
-                .map(processor -> processor.process(message))
-                .getOrElseThrow(UnsupportedCommandException::new);
     }
 
-    private long calculateConnectionTime() {
-        return Duration.between(timer, Instant.now()).toMillis();
+    /**
+     * Batches are rejected as a whole, they can contain nothing but mutations
+     */
+    private boolean isWrite(final CommandType type) {
+        return type == CommandType.BEGIN_BATCH || type == CommandType.END_BATCH
+                || type != null && processors.get(type) instanceof MutationProcessor;
     }
 
-    private boolean isLastMessage(final String message) {
-        return "BYE MATE!".equals(message);
+    private void queue(final Batch batch, final CommandType type, final Command command) {
+        final MessageProcessor processor = type == null ? null : processors.get(type);
+        if (!(processor instanceof MutationProcessor)) {
+            batch.addFailure(UnsupportedCommandException.INSTANCE.getMessage());
+            return;
+        }
+        final MutationProcessor mutationProcessor = (MutationProcessor) processor;
+        try {
+            batch.add(mutationProcessor, mutationProcessor.toMutation(command));
+        } catch (MessageProcessingException e) {
+            batch.addFailure(e.getMessage());
+        }
     }
 
-    public String getWelcomeMessage() {
-        return "HI, I AM " + sessionId.toString();
+    private long calculateConnectionTime(final Session session) {
+        return Duration.between(session.getStartedAt(), Instant.now()).toMillis();
     }
 
-    public String getTimeoutMessage() {
-        String clientName = getClientName();
-        return "BYE " + clientName + ", WE SPOKE FOR " + TIMEOUT_IN_MS + " MS";
+    public String getWelcomeMessage(final Session session) {
+        return "HI, I AM " + session.getId().toString();
     }
 
-    public String getClientName() {
-        Option<String> clientName = processors.map(MessageProcessor::getClientName)
-                .filter(Option::isDefined)
-                .getOrElse(Option::none);
-        if (clientName.isEmpty()) {
-            throw new IllegalStateException("Can not generate timeout message without client name");
-        }
-        return clientName.get();
+    /**
+     * @param session       session closed for being idle
+     * @param timeoutInMs   idle timeout of the server the session was closed by
+     * @return String       goodbye message for the client
+     */
+    public String getTimeoutMessage(final Session session, final long timeoutInMs) {
+        String clientName = getClientName(session);
+        return "BYE " + clientName + ", WE SPOKE FOR " + timeoutInMs + " MS";
+    }
+
+    public String getClientName(final Session session) {
+        return session.getClientName()
+                .getOrElseThrow(() -> new IllegalStateException("Can not generate timeout message without client name"));
     }
 
 }
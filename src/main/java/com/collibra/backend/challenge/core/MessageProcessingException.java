@@ -1,8 +1,12 @@
 package com.collibra.backend.challenge.core;
 
+/**
+ * Answer to a message which could not be processed. Instances carry no stack trace and are preallocated,
+ * see {@code INSTANCE} of the subclasses, so an error answer costs no more than a regular one.
+ */
 public abstract class MessageProcessingException extends RuntimeException {
 
     public MessageProcessingException(final String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
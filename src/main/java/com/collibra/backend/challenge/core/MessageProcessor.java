@@ -1,15 +1,20 @@
 package com.collibra.backend.challenge.core;
 
-import io.vavr.control.Option;
-
+/**
+ * Stateless handler of one {@link CommandType}, shared by all sessions
+ */
 public interface MessageProcessor {
 
-    boolean isApplicable(final String message);
-
-    String process(final String message);
+    /**
+     * @return CommandType  command answered by this processor
+     */
+    CommandType getCommandType();
 
-    default Option<String> getClientName() {
-        return Option.none();
-    }
+    /**
+     * @param command   tokenized message of the processor's command type
+     * @param session   session of the client which sent the message
+     * @return String   answer for the client
+     */
+    String process(final Command command, final Session session);
 
 }
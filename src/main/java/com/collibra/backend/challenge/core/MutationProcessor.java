@@ -0,0 +1,24 @@
+package com.collibra.backend.challenge.core;
+
+import com.collibra.backend.challenge.graph.GraphMutation;
+
+/**
+ * Processor of a graph mutation, which can also be queued in a batch instead of being applied right away
+ */
+public interface MutationProcessor extends MessageProcessor {
+
+    /**
+     * Parse the command without touching the graph
+     *
+     * @throws MessageProcessingException if the command is malformed
+     * @return GraphMutation    mutation described by the command
+     */
+    GraphMutation toMutation(final Command command);
+
+    /**
+     * @param applied   result of the mutation returned by the graph
+     * @return String   answer the command gets when processed on its own
+     */
+    String answer(final boolean applied);
+
+}
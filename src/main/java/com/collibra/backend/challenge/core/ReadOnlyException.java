@@ -0,0 +1,15 @@
+package com.collibra.backend.challenge.core;
+
+/**
+ * Answer to a mutation sent to a replication follower, only its leader accepts mutations
+ */
+public class ReadOnlyException extends MessageProcessingException {
+
+    public static final ReadOnlyException INSTANCE = new ReadOnlyException();
+    private static final String DEFAULT_MESSAGE = "ERROR: READ ONLY REPLICA";
+
+    public ReadOnlyException() {
+        super(DEFAULT_MESSAGE);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.collibra.backend.challenge.core;
+
+import com.collibra.backend.challenge.core.batch.Batch;
+import io.vavr.control.Option;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Everything a single client connection needs while its messages are processed. Message processors are shared
+ * by all sessions, so this is the only object created per connection.
+ */
+@Getter
+@NotThreadSafe
+@RequiredArgsConstructor
+public final class Session {
+
+    private final UUID id;
+    private final Instant startedAt;
+    @Getter(AccessLevel.NONE)
+    private final Command command = new Command();
+    @Getter(AccessLevel.NONE)
+    private String clientName;
+    @Getter(AccessLevel.NONE)
+    private Batch batch;
+    private long messageCount;
+    private long errorCount;
+
+    public static Session start() {
+        return new Session(UUID.randomUUID(), Instant.now());
+    }
+
+    /**
+     * @return Option<String>   name the client introduced itself with, empty before the greeting
+     */
+    public Option<String> getClientName() {
+        return Option.of(clientName);
+    }
+
+    public void setClientName(final String clientName) {
+        this.clientName = clientName;
+    }
+
+    /**
+     * @return CommandType  command of the last processed message, {@code null} if it was not recognized
+     */
+    public CommandType getLastCommandType() {
+        return command.getType();
+    }
+
+    /**
+     * Queue following mutations in a new batch until {@link #endBatch}
+     *
+     * @param maxItems  items the batch may collect, see {@link Batch#isTooLarge}
+     */
+    public void startBatch(final boolean atomic, final int maxItems) {
+        batch = new Batch(atomic, maxItems);
+    }
+
+    /**
+     * @return Option<Batch>    batch collected since {@link #startBatch}, empty if there is none
+     */
+    public Option<Batch> endBatch() {
+        final Option<Batch> finished = Option.of(batch);
+        batch = null;
+        return finished;
+    }
+
+    /**
+     * @return Batch    batch being collected, {@code null} outside of a batch
+     */
+    Batch currentBatch() {
+        return batch;
+    }
+
+    /**
+     * Tokenize the next message with the command instance reused by this session
+     */
+    Command parse(final String message) {
+        messageCount++;
+        return command.parse(message);
+    }
+
+    void recordError() {
+        errorCount++;
+    }
+}
@@ -2,6 +2,7 @@ package com.collibra.backend.challenge.core;
 
 public class UnsupportedCommandException extends MessageProcessingException {
 
+    public static final UnsupportedCommandException INSTANCE = new UnsupportedCommandException();
     private static final String DEFAULT_MESSAGE = "SORRY, I DID NOT UNDERSTAND THAT";
 
     public UnsupportedCommandException() {
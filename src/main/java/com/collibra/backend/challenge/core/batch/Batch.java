@@ -0,0 +1,95 @@
+package com.collibra.backend.challenge.core.batch;
+
+import com.collibra.backend.challenge.core.MutationProcessor;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutations collected between {@code BEGIN BATCH} and {@code END BATCH}. Every message is parsed when it arrives,
+ * malformed ones are kept as failed items, so answers line up with the messages of the batch. Items beyond the limit
+ * drop everything collected, the batch is only counted until it ends and then rejected as a whole.
+ */
+@NotThreadSafe
+@RequiredArgsConstructor
+public final class Batch {
+
+    @Getter
+    private final boolean atomic;
+    private final int maxItems;
+    @Getter
+    private final List<GraphMutation> mutations = new ArrayList<>();
+    /**
+     * Processor of every item, {@code null} for items which could not be parsed
+     */
+    private final List<MutationProcessor> processors = new ArrayList<>();
+    private final Map<Integer, String> failures = new HashMap<>();
+    /**
+     * Set once the batch got more than {@link #maxItems} items
+     */
+    @Getter
+    private boolean tooLarge;
+
+    public void add(final MutationProcessor processor, final GraphMutation mutation) {
+        if (fits()) {
+            processors.add(processor);
+            mutations.add(mutation);
+        }
+    }
+
+    /**
+     * @param answer    error answer of the item
+     */
+    public void addFailure(final String answer) {
+        if (fits()) {
+            failures.put(processors.size(), answer);
+            processors.add(null);
+        }
+    }
+
+    private boolean fits() {
+        if (!tooLarge && processors.size() == maxItems) {
+            tooLarge = true;
+            processors.clear();
+            mutations.clear();
+            failures.clear();
+        }
+        return !tooLarge;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @param results   result of every parsed mutation, in order
+     * @return String   one answer line per item followed by a summary line
+     */
+    public String answer(final boolean[] results) {
+        final StringBuilder answer = new StringBuilder();
+        int succeeded = 0;
+        int result = 0;
+        for (int item = 0; item < processors.size(); item++) {
+            final MutationProcessor processor = processors.get(item);
+            if (processor == null) {
+                answer.append(failures.get(item));
+            } else {
+                final boolean applied = results[result++];
+                answer.append(processor.answer(applied));
+                succeeded += applied ? 1 : 0;
+            }
+            answer.append(System.lineSeparator());
+        }
+        final int failed = processors.size() - succeeded;
+        if (atomic && failed > 0) {
+            return answer.append("BATCH REJECTED, ").append(failed).append(" OF ").append(processors.size()).append(" FAILED").toString();
+        }
+        return answer.append("BATCH APPLIED, ").append(succeeded).append(" OF ").append(processors.size()).append(" SUCCEEDED").toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.collibra.backend.challenge.core.batch;
+
+import com.collibra.backend.challenge.core.MessageProcessingException;
+
+/**
+ * Answer to {@code END BATCH} of a batch with more items than allowed, none of them was applied
+ */
+public class BatchTooLargeException extends MessageProcessingException {
+
+    public static final BatchTooLargeException INSTANCE = new BatchTooLargeException();
+    private static final String DEFAULT_MESSAGE = "ERROR: BATCH TOO LARGE";
+
+    public BatchTooLargeException() {
+        super(DEFAULT_MESSAGE);
+    }
+
+}
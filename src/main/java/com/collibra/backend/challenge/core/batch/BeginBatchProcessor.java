@@ -0,0 +1,46 @@
+package com.collibra.backend.challenge.core.batch;
+
+import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.core.UnsupportedCommandException;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@code BEGIN BATCH [ATOMIC]}: following mutations are queued without answer until {@code END BATCH}
+ */
+public final class BeginBatchProcessor extends BaseMessageProcessor {
+
+    /**
+     * {@code -Dserver.batch.max-items=100000} items a batch may have, a larger batch is rejected as a whole
+     */
+    public static final String MAX_ITEMS_PROPERTY = "server.batch.max-items";
+    private static final int DEFAULT_MAX_ITEMS = 100_000;
+    private static final String ATOMIC = "ATOMIC";
+
+    private final int maxItems;
+
+    public BeginBatchProcessor(final DirectedGraph graph) {
+        super(graph);
+        maxItems = Integer.getInteger(MAX_ITEMS_PROPERTY, DEFAULT_MAX_ITEMS);
+        checkArgument(maxItems > 0, "Batch max items must be positive: %s", maxItems);
+    }
+
+    @Override
+    public CommandType getCommandType() {
+        return CommandType.BEGIN_BATCH;
+    }
+
+    @Override
+    public String process(final Command command, final Session session) {
+        final boolean atomic = command.getArgumentCount() > 0 && ATOMIC.equals(command.argument(0));
+        if (command.getArgumentCount() > (atomic ? 1 : 0)) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        session.startBatch(atomic, maxItems);
+        return "BATCH STARTED";
+    }
+}
@@ -0,0 +1,37 @@
+package com.collibra.backend.challenge.core.batch;
+
+import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.core.UnsupportedCommandException;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+
+/**
+ * {@code END BATCH}: apply the queued mutations under one graph lock and answer every item plus a summary.
+ * An atomic batch with malformed items is only checked against the graph, never applied. A batch with more items than
+ * allowed is answered by {@link BatchTooLargeException} without applying anything.
+ */
+public final class EndBatchProcessor extends BaseMessageProcessor {
+
+    public EndBatchProcessor(final DirectedGraph graph) {
+        super(graph);
+    }
+
+    @Override
+    public CommandType getCommandType() {
+        return CommandType.END_BATCH;
+    }
+
+    @Override
+    public String process(final Command command, final Session session) {
+        final Batch batch = session.endBatch().getOrElseThrow(() -> UnsupportedCommandException.INSTANCE);
+        if (batch.isTooLarge()) {
+            throw BatchTooLargeException.INSTANCE;
+        }
+        final boolean[] results = batch.isAtomic() && batch.hasFailures()
+                ? graph.checkBatch(batch.getMutations())
+                : graph.applyBatch(batch.getMutations(), batch.isAtomic());
+        return batch.answer(results);
+    }
+}
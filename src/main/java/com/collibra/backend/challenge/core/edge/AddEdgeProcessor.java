@@ -1,40 +1,56 @@
 package com.collibra.backend.challenge.core.edge;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.MutationProcessor;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.core.node.NodeNotFoundException;
 import com.collibra.backend.challenge.core.UnsupportedCommandException;
 import com.collibra.backend.challenge.graph.DirectedGraph;
 import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphMutation;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 
-public final class AddEdgeProcessor extends BaseMessageProcessor {
+public final class AddEdgeProcessor extends BaseMessageProcessor implements MutationProcessor {
+
+    private static final String ANSWER = "EDGE ADDED";
 
     public AddEdgeProcessor(final DirectedGraph graph) {
         super(graph);
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("ADD EDGE");
+    public CommandType getCommandType() {
+        return CommandType.ADD_EDGE;
     }
 
     @Override
-    public String process(final String message) {
-        final String source = StringUtils.phraseAtPosition(message, 3);
-        final String target = StringUtils.phraseAtPosition(message, 4);
-        final int weight = Integer.parseInt(StringUtils.phraseAtPosition(message, 5));
+    public String process(final Command command, final Session session) {
+        final String source = command.argument(0);
+        final String target = command.argument(1);
+        final int weight = command.intArgument(2);
         final Edge edge = buildEdge(source, target, weight);
         if (graph.addEdge(edge)) {
-            return "EDGE ADDED";
+            return ANSWER;
         } else {
-            throw new NodeNotFoundException();
+            throw NodeNotFoundException.INSTANCE;
         }
     }
 
+    @Override
+    public GraphMutation toMutation(final Command command) {
+        return GraphMutation.addEdge(buildEdge(command.argument(0), command.argument(1), command.intArgument(2)));
+    }
+
+    @Override
+    public String answer(final boolean applied) {
+        return applied ? ANSWER : NodeNotFoundException.INSTANCE.getMessage();
+    }
+
     private Edge buildEdge(String source, String target, int weight) {
-        if (weight < 0) {
-            throw new UnsupportedCommandException();
+        if (weight <= 0) {
+            throw UnsupportedCommandException.INSTANCE;
         }
         return Edge.builder()
                 .source(new Node(source))
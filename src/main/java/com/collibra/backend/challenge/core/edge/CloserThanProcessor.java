@@ -1,10 +1,12 @@
 package com.collibra.backend.challenge.core.edge;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.core.node.NodeNotFoundException;
 import com.collibra.backend.challenge.graph.DirectedGraph;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 import io.vavr.collection.List;
 
 public final class CloserThanProcessor extends BaseMessageProcessor {
@@ -14,14 +16,14 @@ public final class CloserThanProcessor extends BaseMessageProcessor {
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("CLOSER THAN");
+    public CommandType getCommandType() {
+        return CommandType.CLOSER_THAN;
     }
 
     @Override
-    public String process(final String message) {
-        final int weight = Integer.parseInt(StringUtils.phraseAtPosition(message, 3));
-        final String nodeName = StringUtils.phraseAtPosition(message, 4);
+    public String process(final Command command, final Session session) {
+        final int weight = command.intArgument(0);
+        final String nodeName = command.argument(1);
         try {
             final List<Node> nodes = graph.findAllCloserNodesThan(new Node(nodeName), weight);
             if (nodes.isEmpty()) {
@@ -32,7 +34,7 @@ public final class CloserThanProcessor extends BaseMessageProcessor {
                     .reduce((a, b) -> a + "," + b)
                     .trim();
         } catch (IllegalArgumentException e) {
-            throw new NodeNotFoundException();
+            throw NodeNotFoundException.INSTANCE;
         }
     }
 }
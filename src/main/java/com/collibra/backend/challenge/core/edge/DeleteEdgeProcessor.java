@@ -1,30 +1,46 @@
 package com.collibra.backend.challenge.core.edge;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.MutationProcessor;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.core.node.NodeNotFoundException;
 import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphMutation;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 
-public final class DeleteEdgeProcessor extends BaseMessageProcessor {
+public final class DeleteEdgeProcessor extends BaseMessageProcessor implements MutationProcessor {
+
+    private static final String ANSWER = "EDGE REMOVED";
 
     public DeleteEdgeProcessor(final DirectedGraph graph) {
         super(graph);
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("REMOVE EDGE");
+    public CommandType getCommandType() {
+        return CommandType.REMOVE_EDGE;
     }
 
     @Override
-    public String process(final String message) {
-        final String source = StringUtils.phraseAtPosition(message, 3);
-        final String target = StringUtils.phraseAtPosition(message, 4);
+    public String process(final Command command, final Session session) {
+        final String source = command.argument(0);
+        final String target = command.argument(1);
         if (graph.removeEdge(new Node(source), new Node(target))) {
-            return "EDGE REMOVED";
+            return ANSWER;
         } else {
-            throw new NodeNotFoundException();
+            throw NodeNotFoundException.INSTANCE;
         }
     }
+
+    @Override
+    public GraphMutation toMutation(final Command command) {
+        return GraphMutation.removeEdge(new Node(command.argument(0)), new Node(command.argument(1)));
+    }
+
+    @Override
+    public String answer(final boolean applied) {
+        return applied ? ANSWER : NodeNotFoundException.INSTANCE.getMessage();
+    }
 }
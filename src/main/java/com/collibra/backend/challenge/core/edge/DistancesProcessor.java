@@ -0,0 +1,70 @@
+package com.collibra.backend.challenge.core.edge;
+
+import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.core.UnsupportedCommandException;
+import com.collibra.backend.challenge.core.node.NodeNotFoundException;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Node;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+/**
+ * {@code DISTANCES FROM <source> TO <target>,<target>,...} answers the shortest path to every target in the given
+ * order, separated by commas, from a single search. {@code DISTANCES FROM <source>} answers
+ * {@code <node>:<distance>} of every node reachable from the source, sorted by name.
+ */
+public final class DistancesProcessor extends BaseMessageProcessor {
+
+    private static final String TO = "TO";
+
+    public DistancesProcessor(final DirectedGraph graph) {
+        super(graph);
+    }
+
+    @Override
+    public CommandType getCommandType() {
+        return CommandType.DISTANCES;
+    }
+
+    @Override
+    public String process(final Command command, final Session session) {
+        final Node source = new Node(command.argument(0));
+        if (command.getArgumentCount() == 1) {
+            return allDistances(source);
+        }
+        if (command.getArgumentCount() != 3 || !TO.equals(command.argument(1))) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        final List<Node> targets = List.of(command.argument(2).split(",")).map(Node::new);
+        if (targets.isEmpty()) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        final int[] distances = graph.findDistances(source, targets);
+        final StringBuilder answer = new StringBuilder();
+        for (int distance : distances) {
+            if (distance == -1) {
+                throw NodeNotFoundException.INSTANCE;
+            }
+            if (answer.length() > 0) {
+                answer.append(',');
+            }
+            answer.append(distance);
+        }
+        return answer.toString();
+    }
+
+    private String allDistances(final Node source) {
+        try {
+            final Map<Node, Integer> distances = graph.findAllDistances(source);
+            return distances.toList()
+                    .sortBy(distance -> distance._1)
+                    .map(distance -> distance._1.getName() + ":" + distance._2)
+                    .mkString(",");
+        } catch (IllegalArgumentException e) {
+            throw NodeNotFoundException.INSTANCE;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.collibra.backend.challenge.core.edge;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.core.node.NodeNotFoundException;
 import com.collibra.backend.challenge.graph.DirectedGraph;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 
 public final class ShortestPathProcessor extends BaseMessageProcessor {
 
@@ -13,17 +15,17 @@ public final class ShortestPathProcessor extends BaseMessageProcessor {
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("SHORTEST PATH");
+    public CommandType getCommandType() {
+        return CommandType.SHORTEST_PATH;
     }
 
     @Override
-    public String process(final String message) {
-        final String source = StringUtils.phraseAtPosition(message, 3);
-        final String target = StringUtils.phraseAtPosition(message, 4);
+    public String process(final Command command, final Session session) {
+        final String source = command.argument(0);
+        final String target = command.argument(1);
         final int shortestPath = graph.findTheShortestPath(new Node(source), new Node(target));
         if (shortestPath == -1) {
-            throw new NodeNotFoundException();
+            throw NodeNotFoundException.INSTANCE;
         }
         return String.valueOf(shortestPath);
     }
@@ -1,31 +1,26 @@
 package com.collibra.backend.challenge.core.io;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.graph.DirectedGraph;
-import com.collibra.backend.challenge.util.StringUtils;
-import io.vavr.control.Option;
 
 public final class GreetingsProcessor extends BaseMessageProcessor {
 
-    private Option<String> clientName = Option.none();
-
     public GreetingsProcessor(final DirectedGraph graph) {
         super(graph);
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("HI, I AM");
-    }
-
-    @Override
-    public String process(final String message) {
-        clientName = Option.of(StringUtils.phraseAtPosition(message, 4));
-        return "HI " + clientName.get();
+    public CommandType getCommandType() {
+        return CommandType.GREETING;
     }
 
     @Override
-    public Option<String> getClientName() {
-        return clientName;
+    public String process(final Command command, final Session session) {
+        final String clientName = command.argument(0);
+        session.setClientName(clientName);
+        return "HI " + clientName;
     }
 }
@@ -0,0 +1,35 @@
+package com.collibra.backend.challenge.core.io;
+
+import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.core.UnsupportedCommandException;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.stats.ServerStats;
+
+/**
+ * Answers {@code STATS} with a single line summary of {@link ServerStats}
+ */
+public final class StatsProcessor extends BaseMessageProcessor {
+
+    private final ServerStats stats;
+
+    public StatsProcessor(final DirectedGraph graph, final ServerStats stats) {
+        super(graph);
+        this.stats = stats;
+    }
+
+    @Override
+    public CommandType getCommandType() {
+        return CommandType.STATS;
+    }
+
+    @Override
+    public String process(final Command command, final Session session) {
+        if (command.getArgumentCount() > 0) {
+            throw UnsupportedCommandException.INSTANCE;
+        }
+        return stats.summary();
+    }
+}
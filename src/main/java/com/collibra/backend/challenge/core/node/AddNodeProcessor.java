@@ -1,29 +1,45 @@
 package com.collibra.backend.challenge.core.node;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.MutationProcessor;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphMutation;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 
-public final class AddNodeProcessor extends BaseMessageProcessor {
+public final class AddNodeProcessor extends BaseMessageProcessor implements MutationProcessor {
+
+    private static final String ANSWER = "NODE ADDED";
 
     public AddNodeProcessor(final DirectedGraph graph) {
         super(graph);
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("ADD NODE");
+    public CommandType getCommandType() {
+        return CommandType.ADD_NODE;
     }
 
     @Override
-    public String process(final String message) {
-        final String nodeName = StringUtils.phraseAtPosition(message, 3);
+    public String process(final Command command, final Session session) {
+        final String nodeName = command.argument(0);
         final Node node = new Node(nodeName);
         if (graph.addNode(node)) {
-            return "NODE ADDED";
+            return ANSWER;
         } else {
-            throw new NodeAlreadyExistsException();
+            throw NodeAlreadyExistsException.INSTANCE;
         }
     }
+
+    @Override
+    public GraphMutation toMutation(final Command command) {
+        return GraphMutation.addNode(new Node(command.argument(0)));
+    }
+
+    @Override
+    public String answer(final boolean applied) {
+        return applied ? ANSWER : NodeAlreadyExistsException.INSTANCE.getMessage();
+    }
 }
@@ -1,29 +1,45 @@
 package com.collibra.backend.challenge.core.node;
 
 import com.collibra.backend.challenge.core.BaseMessageProcessor;
+import com.collibra.backend.challenge.core.Command;
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.MutationProcessor;
+import com.collibra.backend.challenge.core.Session;
 import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphMutation;
 import com.collibra.backend.challenge.graph.Node;
-import com.collibra.backend.challenge.util.StringUtils;
 
-public final class DeleteNodeProcessor extends BaseMessageProcessor {
+public final class DeleteNodeProcessor extends BaseMessageProcessor implements MutationProcessor {
+
+    private static final String ANSWER = "NODE REMOVED";
 
     public DeleteNodeProcessor(final DirectedGraph graph) {
         super(graph);
     }
 
     @Override
-    public boolean isApplicable(final String message) {
-        return message.startsWith("REMOVE NODE");
+    public CommandType getCommandType() {
+        return CommandType.REMOVE_NODE;
     }
 
     @Override
-    public String process(final String message) {
-        final String nodeName = StringUtils.phraseAtPosition(message, 3);
+    public String process(final Command command, final Session session) {
+        final String nodeName = command.argument(0);
         final Node node = new Node(nodeName);
         if (graph.removeNode(node)) {
-            return "NODE REMOVED";
+            return ANSWER;
         } else {
-            throw new NodeNotFoundException();
+            throw NodeNotFoundException.INSTANCE;
         }
     }
+
+    @Override
+    public GraphMutation toMutation(final Command command) {
+        return GraphMutation.removeNode(new Node(command.argument(0)));
+    }
+
+    @Override
+    public String answer(final boolean applied) {
+        return applied ? ANSWER : NodeNotFoundException.INSTANCE.getMessage();
+    }
 }
@@ -4,6 +4,7 @@ import com.collibra.backend.challenge.core.MessageProcessingException;
 
 public class NodeAlreadyExistsException extends MessageProcessingException {
 
+    public static final NodeAlreadyExistsException INSTANCE = new NodeAlreadyExistsException();
     private static final String DEFAULT_MESSAGE = "ERROR: NODE ALREADY EXISTS";
 
     public NodeAlreadyExistsException() {
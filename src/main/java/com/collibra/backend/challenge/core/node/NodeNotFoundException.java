@@ -4,6 +4,7 @@ import com.collibra.backend.challenge.core.MessageProcessingException;
 
 public class NodeNotFoundException extends MessageProcessingException {
 
+    public static final NodeNotFoundException INSTANCE = new NodeNotFoundException();
     private static final String DEFAULT_MESSAGE = "ERROR: NODE NOT FOUND";
 
     public NodeNotFoundException() {
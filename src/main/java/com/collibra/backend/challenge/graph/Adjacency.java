@@ -0,0 +1,38 @@
+package com.collibra.backend.challenge.graph;
+
+/**
+ * Reusable cursor over the edges of one node: edge {@code i} for {@code from <= i < to}
+ * leads to node id {@code nodes[i]} with weight {@code weights[i]}.
+ * Filled by {@link GraphSnapshot} without copying where the edges are in arrays already, so iterating edges does not
+ * allocate; snapshots keeping edges elsewhere copy them into scratch arrays owned by the cursor.
+ */
+final class Adjacency {
+
+    private static final int[] NO_EDGES = new int[0];
+
+    int[] nodes;
+    int[] weights;
+    int from;
+    int to;
+    private int[] scratchNodes = NO_EDGES;
+    private int[] scratchWeights = NO_EDGES;
+
+    void set(final int[] nodes, final int[] weights, final int from, final int to) {
+        this.nodes = nodes;
+        this.weights = weights;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Point the cursor at its scratch arrays, grown to hold the given number of edges, to be filled by the caller
+     */
+    void reserve(final int size) {
+        if (scratchNodes.length < size) {
+            final int capacity = Math.max(size, 2 * scratchNodes.length);
+            scratchNodes = new int[capacity];
+            scratchWeights = new int[capacity];
+        }
+        set(scratchNodes, scratchWeights, 0, size);
+    }
+}
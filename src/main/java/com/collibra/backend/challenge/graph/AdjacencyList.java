@@ -0,0 +1,157 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable edge list of one node used by {@link PersistentGraphSnapshot}, one entry per neighbour.
+ * Updates copy the (small) list, everything else in the snapshot stays shared.
+ */
+@Immutable
+final class AdjacencyList {
+
+    static final AdjacencyList EMPTY = new AdjacencyList(new int[0], new int[0]);
+    /**
+     * Lists up to this size look for parallel edges by scanning, longer ones by a marker per node
+     */
+    static final int SCAN_LIMIT = 32;
+
+    private final int[] nodes;
+    private final int[] weights;
+
+    private AdjacencyList(final int[] nodes, final int[] weights) {
+        this.nodes = nodes;
+        this.weights = weights;
+    }
+
+    /**
+     * Lists of all nodes at once: edge {@code i} leads from node {@code from[i]} to node {@code to[i]},
+     * self loops are skipped and parallel edges collapsed into one entry with the lightest weight
+     *
+     * @param parallel          filled with the weights of every pair having more than one edge, keyed by
+     *                          {@link EdgeWeights#key}{@code (from, to)}, {@code null} to collapse only
+     * @return AdjacencyList[]  list of every node id below {@code nodeCount}
+     */
+    static AdjacencyList[] group(final int nodeCount, final int edgeCount, final int[] from, final int[] to, final int[] weights,
+                                 final Map<Long, EdgeWeights> parallel) {
+        final int[] sizes = new int[nodeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            if (from[i] != to[i]) {
+                sizes[from[i]]++;
+            }
+        }
+        final AdjacencyList[] lists = new AdjacencyList[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            lists[id] = sizes[id] == 0 ? EMPTY : new AdjacencyList(new int[sizes[id]], new int[sizes[id]]);
+            sizes[id] = 0;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            if (from[i] != to[i]) {
+                final AdjacencyList list = lists[from[i]];
+                list.nodes[sizes[from[i]]] = to[i];
+                list.weights[sizes[from[i]]++] = weights[i];
+            }
+        }
+        // seenFrom[node] == id once the long list of id has an entry of node, at index slot[node]
+        final int[] seenFrom = new int[nodeCount];
+        Arrays.fill(seenFrom, -1);
+        final int[] slot = sizes;
+        for (int id = 0; id < nodeCount; id++) {
+            final AdjacencyList list = lists[id];
+            final boolean scan = list.nodes.length <= SCAN_LIMIT;
+            int size = 0;
+            for (int i = 0; i < list.nodes.length; i++) {
+                final int node = list.nodes[i];
+                final int index = scan ? indexOf(list.nodes, size, node) : seenFrom[node] == id ? slot[node] : -1;
+                if (index < 0) {
+                    if (!scan) {
+                        seenFrom[node] = id;
+                        slot[node] = size;
+                    }
+                    list.nodes[size] = node;
+                    list.weights[size++] = list.weights[i];
+                } else {
+                    if (parallel != null) {
+                        EdgeWeights.merge(parallel, id, node, list.weights[index], list.weights[i]);
+                    }
+                    list.weights[index] = Math.min(list.weights[index], list.weights[i]);
+                }
+            }
+            if (size < list.nodes.length) {
+                lists[id] = new AdjacencyList(Arrays.copyOf(list.nodes, size), Arrays.copyOf(list.weights, size));
+            }
+        }
+        return lists;
+    }
+
+    int size() {
+        return nodes.length;
+    }
+
+    int node(final int index) {
+        return nodes[index];
+    }
+
+    int weight(final int index) {
+        return weights[index];
+    }
+
+    /**
+     * @return int  index of the entry of the node, {@code -1} if there is none
+     */
+    int indexOf(final int node) {
+        return indexOf(nodes, nodes.length, node);
+    }
+
+    boolean contains(final int node) {
+        return indexOf(node) >= 0;
+    }
+
+    AdjacencyList with(final int node, final int weight) {
+        final int[] newNodes = Arrays.copyOf(nodes, nodes.length + 1);
+        final int[] newWeights = Arrays.copyOf(weights, weights.length + 1);
+        newNodes[nodes.length] = node;
+        newWeights[weights.length] = weight;
+        return new AdjacencyList(newNodes, newWeights);
+    }
+
+    /**
+     * @return AdjacencyList    list with the weight of the entry at the index replaced, the node array is shared
+     */
+    AdjacencyList withWeight(final int index, final int weight) {
+        final int[] newWeights = weights.clone();
+        newWeights[index] = weight;
+        return new AdjacencyList(nodes, newWeights);
+    }
+
+    /**
+     * @return AdjacencyList    list without any edge leading to the node
+     */
+    AdjacencyList without(final int node) {
+        final int[] newNodes = new int[nodes.length];
+        final int[] newWeights = new int[weights.length];
+        int size = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] != node) {
+                newNodes[size] = nodes[i];
+                newWeights[size] = weights[i];
+                size++;
+            }
+        }
+        return size == 0 ? EMPTY : new AdjacencyList(Arrays.copyOf(newNodes, size), Arrays.copyOf(newWeights, size));
+    }
+
+    void fill(final Adjacency adjacency) {
+        adjacency.set(nodes, weights, 0, nodes.length);
+    }
+
+    private static int indexOf(final int[] nodes, final int size, final int node) {
+        for (int i = 0; i < size; i++) {
+            if (nodes[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
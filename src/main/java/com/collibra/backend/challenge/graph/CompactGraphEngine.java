@@ -0,0 +1,491 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Engine keeping the graph in primitive arrays indexed by interned node ids. Edges are appended to growable
+ * per node arrays of packed {@code (node id, weight)} longs, one entry per neighbour with the lightest weight;
+ * a parallel edge updates that entry and the {@link EdgeWeights} of the pair. The entry of a pair is found by a scan
+ * of short lists and through {@link PairSlots} in long ones, so adding an edge to a hub is no slower. Readers get a
+ * {@link CompactGraphSnapshot} which is frozen from these arrays on the first query after a mutation and reused
+ * until the next mutation.
+ */
+final class CompactGraphEngine implements GraphEngine {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long[] NO_EDGES = new long[0];
+
+    /**
+     * Guards the mutable arrays against a concurrent freeze
+     */
+    private final Lock lock = new ReentrantLock();
+    private NodeTable ids = new NodeTable();
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    private long[][] outgoing = new long[INITIAL_CAPACITY][];
+    private int[] outgoingSize = new int[INITIAL_CAPACITY];
+    private long[][] incoming = new long[INITIAL_CAPACITY][];
+    private int[] incomingSize = new int[INITIAL_CAPACITY];
+    /**
+     * {@link EdgeWeights#key} of the node pair -> weights, only for pairs with more than one edge.
+     * Persistent, so a freeze shares it instead of copying.
+     */
+    private Map<Long, EdgeWeights> parallel = HashMap.empty();
+    /**
+     * Entry indexes of the lists longer than {@link AdjacencyList#SCAN_LIMIT}, keyed by {@code (owner, node)}
+     */
+    private PairSlots outgoingSlots = new PairSlots();
+    private PairSlots incomingSlots = new PairSlots();
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int idBound;
+    private int edgeCount;
+    private long version;
+    /**
+     * Frozen view of the current version, {@code null} after a mutation until the next query freezes it.
+     * Kept while a batch is applied, so queries see the version before the batch.
+     */
+    private volatile CompactGraphSnapshot published;
+    /**
+     * Set between {@link #beginBatch} and {@link #endBatch}
+     */
+    private boolean batch;
+
+    @Override
+    public GraphSnapshot snapshot() {
+        final CompactGraphSnapshot snapshot = published;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        lock.lock();
+        try {
+            if (published == null) {
+                published = freeze();
+            }
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsNode(final Node node) {
+        lock.lock();
+        try {
+            return ids.find(node, nodes) >= 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int idOf(final Node node) {
+        lock.lock();
+        try {
+            return ids.find(node, nodes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addNode(final Node node) {
+        lock.lock();
+        try {
+            if (ids.find(node, nodes) >= 0) {
+                return false;
+            }
+            final int id = freeCount > 0 ? freeIds[--freeCount] : newId();
+            nodes[id] = node;
+            ids.insert(node, id, nodes);
+            outgoing[id] = NO_EDGES;
+            incoming[id] = NO_EDGES;
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addEdge(final Edge edge) {
+        lock.lock();
+        try {
+            final int source = ids.find(edge.getSource(), nodes);
+            final int target = ids.find(edge.getTarget(), nodes);
+            if (source < 0 || target < 0) {
+                return false;
+            }
+            if (source == target) {
+                return true;
+            }
+            final int weight = edge.getWeight();
+            final int index = indexOf(outgoing[source], outgoingSize[source], outgoingSlots, source, target);
+            if (index < 0) {
+                outgoing[source] = append(outgoing[source], outgoingSize[source]++, outgoingSlots, source, pack(target, weight));
+                incoming[target] = append(incoming[target], incomingSize[target]++, incomingSlots, target, pack(source, weight));
+                edgeCount++;
+            } else {
+                final int lightest = unpackWeight(outgoing[source][index]);
+                final long key = EdgeWeights.key(source, target);
+                parallel = parallel.put(key, parallel.get(key).getOrElse(() -> EdgeWeights.of(lightest)).with(weight));
+                if (weight < lightest) {
+                    outgoing[source][index] = pack(target, weight);
+                    incoming[target][indexOf(incoming[target], incomingSize[target], incomingSlots, target, source)]
+                            = pack(source, weight);
+                }
+            }
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeNode(final Node node) {
+        lock.lock();
+        try {
+            final int id = ids.find(node, nodes);
+            if (id < 0) {
+                return false;
+            }
+            ids.remove(node, nodes);
+            for (int i = 0; i < outgoingSize[id]; i++) {
+                final int target = unpackNode(outgoing[id][i]);
+                incomingSize[target] = remove(incoming[target], incomingSize[target], incomingSlots, target, id);
+                forgetParallel(id, target);
+            }
+            for (int i = 0; i < incomingSize[id]; i++) {
+                final int source = unpackNode(incoming[id][i]);
+                outgoingSize[source] = remove(outgoing[source], outgoingSize[source], outgoingSlots, source, id);
+                forgetParallel(source, id);
+            }
+            if (outgoingSize[id] > AdjacencyList.SCAN_LIMIT) {
+                unindex(outgoing[id], outgoingSize[id], outgoingSlots, id);
+            }
+            if (incomingSize[id] > AdjacencyList.SCAN_LIMIT) {
+                unindex(incoming[id], incomingSize[id], incomingSlots, id);
+            }
+            edgeCount -= outgoingSize[id] + incomingSize[id];
+            nodes[id] = null;
+            outgoing[id] = NO_EDGES;
+            incoming[id] = NO_EDGES;
+            outgoingSize[id] = 0;
+            incomingSize[id] = 0;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeEdge(final Node source, final Node target) {
+        lock.lock();
+        try {
+            final int sourceId = ids.find(source, nodes);
+            final int targetId = ids.find(target, nodes);
+            if (sourceId < 0 || targetId < 0) {
+                return false;
+            }
+            final int size = outgoingSize[sourceId];
+            outgoingSize[sourceId] = remove(outgoing[sourceId], size, outgoingSlots, sourceId, targetId);
+            if (outgoingSize[sourceId] != size) {
+                incomingSize[targetId] = remove(incoming[targetId], incomingSize[targetId], incomingSlots, targetId, sourceId);
+                forgetParallel(sourceId, targetId);
+                edgeCount--;
+                changed();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void load(final GraphImage image) {
+        final Node[] imageNodes = image.getNodes();
+        final int capacity = Math.max(INITIAL_CAPACITY, imageNodes.length);
+        final Node[] newNodes = Arrays.copyOf(imageNodes, capacity);
+        final NodeTable newIds = new NodeTable();
+        for (int id = 0; id < imageNodes.length; id++) {
+            checkArgument(newIds.find(newNodes[id], newNodes) < 0, "Graph image contains duplicate nodes");
+            newIds.insert(newNodes[id], id, newNodes);
+        }
+        final int[] sources = image.getSources();
+        final int[] targets = image.getTargets();
+        final int[] weights = image.getWeights();
+        final int[] newOutgoingSize = new int[capacity];
+        final int[] newIncomingSize = new int[capacity];
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            if (sources[i] != targets[i]) {
+                newOutgoingSize[sources[i]]++;
+                newIncomingSize[targets[i]]++;
+            }
+        }
+        final long[][] newOutgoing = new long[capacity][];
+        final long[][] newIncoming = new long[capacity][];
+        for (int id = 0; id < imageNodes.length; id++) {
+            newOutgoing[id] = newOutgoingSize[id] == 0 ? NO_EDGES : new long[newOutgoingSize[id]];
+            newIncoming[id] = newIncomingSize[id] == 0 ? NO_EDGES : new long[newIncomingSize[id]];
+            newOutgoingSize[id] = 0;
+            newIncomingSize[id] = 0;
+        }
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            final int source = sources[i];
+            final int target = targets[i];
+            if (source != target) {
+                newOutgoing[source][newOutgoingSize[source]++] = pack(target, weights[i]);
+                newIncoming[target][newIncomingSize[target]++] = pack(source, weights[i]);
+            }
+        }
+        final java.util.Map<Long, EdgeWeights> newParallel = new java.util.HashMap<>();
+        collapse(newOutgoing, newOutgoingSize, imageNodes.length, newParallel);
+        EdgeWeights.mergeCounts(newParallel, image);
+        collapse(newIncoming, newIncomingSize, imageNodes.length, null);
+        final PairSlots newOutgoingSlots = new PairSlots();
+        final PairSlots newIncomingSlots = new PairSlots();
+        int newEdgeCount = 0;
+        for (int id = 0; id < imageNodes.length; id++) {
+            newEdgeCount += newOutgoingSize[id];
+            if (newOutgoingSize[id] > AdjacencyList.SCAN_LIMIT) {
+                index(newOutgoing[id], newOutgoingSize[id], newOutgoingSlots, id);
+            }
+            if (newIncomingSize[id] > AdjacencyList.SCAN_LIMIT) {
+                index(newIncoming[id], newIncomingSize[id], newIncomingSlots, id);
+            }
+        }
+        lock.lock();
+        try {
+            ids = newIds;
+            nodes = newNodes;
+            outgoing = newOutgoing;
+            outgoingSize = newOutgoingSize;
+            incoming = newIncoming;
+            incomingSize = newIncomingSize;
+            outgoingSlots = newOutgoingSlots;
+            incomingSlots = newIncomingSlots;
+            parallel = HashMap.ofAll(newParallel);
+            freeCount = 0;
+            idBound = imageNodes.length;
+            edgeCount = newEdgeCount;
+            // at least one step, the image may replace a graph and cached answers of it must not be hit
+            version += 1 + idBound + edgeCount;
+            published = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Freezes the current version first unless a query did already, the batch must not be frozen half applied
+     */
+    @Override
+    public void beginBatch() {
+        lock.lock();
+        try {
+            if (published == null) {
+                published = freeze();
+            }
+            batch = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        lock.lock();
+        try {
+            batch = false;
+            if (published.getVersion() != version) {
+                published = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void changed() {
+        version++;
+        if (!batch) {
+            published = null;
+        }
+    }
+
+    private CompactGraphSnapshot freeze() {
+        final int[] offsets = new int[idBound + 1];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        toCompressedRows(outgoing, outgoingSize, offsets, targets, weights);
+        final int[] incomingOffsets = new int[idBound + 1];
+        final int[] sources = new int[edgeCount];
+        final int[] incomingWeights = new int[edgeCount];
+        toCompressedRows(incoming, incomingSize, incomingOffsets, sources, incomingWeights);
+        return new CompactGraphSnapshot(version, ids.size(), ids.copySlots(), Arrays.copyOf(nodes, idBound),
+                offsets, targets, weights, incomingOffsets, sources, incomingWeights, parallel);
+    }
+
+    private void forgetParallel(final int source, final int target) {
+        if (!parallel.isEmpty()) {
+            parallel = parallel.remove(EdgeWeights.key(source, target));
+        }
+    }
+
+    private void toCompressedRows(final long[][] edges, final int[] sizes, final int[] offsets, final int[] nodeIds, final int[] weights) {
+        int position = 0;
+        for (int id = 0; id < idBound; id++) {
+            offsets[id] = position;
+            for (int i = 0; i < sizes[id]; i++) {
+                nodeIds[position] = unpackNode(edges[id][i]);
+                weights[position] = unpackWeight(edges[id][i]);
+                position++;
+            }
+        }
+        offsets[idBound] = position;
+    }
+
+    private int newId() {
+        if (idBound == nodes.length) {
+            final int capacity = idBound * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            outgoing = Arrays.copyOf(outgoing, capacity);
+            outgoingSize = Arrays.copyOf(outgoingSize, capacity);
+            incoming = Arrays.copyOf(incoming, capacity);
+            incomingSize = Arrays.copyOf(incomingSize, capacity);
+        }
+        return idBound++;
+    }
+
+    /**
+     * Append the edge, a list growing beyond {@link AdjacencyList#SCAN_LIMIT} gets its entries indexed
+     */
+    private static long[] append(final long[] edges, final int size, final PairSlots slots, final int owner, final long edge) {
+        final long[] result = size < edges.length ? edges : Arrays.copyOf(edges, Math.max(4, size * 2));
+        result[size] = edge;
+        if (size == AdjacencyList.SCAN_LIMIT) {
+            index(result, size + 1, slots, owner);
+        } else if (size > AdjacencyList.SCAN_LIMIT) {
+            slots.put(EdgeWeights.key(owner, unpackNode(edge)), size);
+        }
+        return result;
+    }
+
+    /**
+     * Remove the entry of the node, the last entry takes its place. A list shrinking to
+     * {@link AdjacencyList#SCAN_LIMIT} is scanned again, its entries are taken out of the index.
+     *
+     * @return int  new size, unchanged if there is no entry
+     */
+    private static int remove(final long[] edges, final int size, final PairSlots slots, final int owner, final int node) {
+        final int index = indexOf(edges, size, slots, owner, node);
+        if (index < 0) {
+            return size;
+        }
+        final int last = size - 1;
+        edges[index] = edges[last];
+        if (size > AdjacencyList.SCAN_LIMIT) {
+            slots.remove(EdgeWeights.key(owner, node));
+            if (last == AdjacencyList.SCAN_LIMIT) {
+                unindex(edges, last, slots, owner);
+            } else if (index != last) {
+                slots.put(EdgeWeights.key(owner, unpackNode(edges[index])), index);
+            }
+        }
+        return last;
+    }
+
+    private static void index(final long[] edges, final int size, final PairSlots slots, final int owner) {
+        for (int i = 0; i < size; i++) {
+            slots.put(EdgeWeights.key(owner, unpackNode(edges[i])), i);
+        }
+    }
+
+    private static void unindex(final long[] edges, final int size, final PairSlots slots, final int owner) {
+        for (int i = 0; i < size; i++) {
+            slots.remove(EdgeWeights.key(owner, unpackNode(edges[i])));
+        }
+    }
+
+    /**
+     * Collapse parallel edges of every node into one with the lightest weight, arrays which shrink are trimmed
+     *
+     * @param parallel  filled with the weights of every pair having more than one edge, keyed by
+     *                  {@link EdgeWeights#key}{@code (id, node)}, {@code null} to collapse only
+     */
+    private static void collapse(final long[][] edges, final int[] sizes, final int nodeCount,
+                                 final java.util.Map<Long, EdgeWeights> parallel) {
+        // seenFrom[node] == id once the long list of id has an entry of node, at index slot[node]
+        final int[] seenFrom = new int[nodeCount];
+        Arrays.fill(seenFrom, -1);
+        final int[] slot = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            final long[] list = edges[id];
+            final boolean scan = sizes[id] <= AdjacencyList.SCAN_LIMIT;
+            int size = 0;
+            for (int i = 0; i < sizes[id]; i++) {
+                final int node = unpackNode(list[i]);
+                final int index = scan ? indexOf(list, size, node) : seenFrom[node] == id ? slot[node] : -1;
+                if (index < 0) {
+                    if (!scan) {
+                        seenFrom[node] = id;
+                        slot[node] = size;
+                    }
+                    list[size++] = list[i];
+                } else {
+                    final int lightest = unpackWeight(list[index]);
+                    if (parallel != null) {
+                        EdgeWeights.merge(parallel, id, node, lightest, unpackWeight(list[i]));
+                    }
+                    list[index] = pack(node, Math.min(lightest, unpackWeight(list[i])));
+                }
+            }
+            if (size < sizes[id]) {
+                edges[id] = Arrays.copyOf(list, size);
+                sizes[id] = size;
+            }
+        }
+    }
+
+    /**
+     * @return int  index of the edge leading to the node, {@code -1} if there is none
+     */
+    private static int indexOf(final long[] edges, final int size, final int node) {
+        for (int i = 0; i < size; i++) {
+            if (unpackNode(edges[i]) == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return int  index of the edge leading to the node, {@code -1} if there is none
+     */
+    private static int indexOf(final long[] edges, final int size, final PairSlots slots, final int owner, final int node) {
+        return size <= AdjacencyList.SCAN_LIMIT ? indexOf(edges, size, node) : slots.get(EdgeWeights.key(owner, node));
+    }
+
+    private static long pack(final int node, final int weight) {
+        return ((long) node << 32) | (weight & 0xFFFFFFFFL);
+    }
+
+    private static int unpackNode(final long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int unpackWeight(final long edge) {
+        return (int) edge;
+    }
+}
@@ -0,0 +1,89 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Snapshot in compressed sparse row layout: outgoing edges of node {@code id} are the entries
+ * {@code offsets[id] <= i < offsets[id + 1]} of the {@code targets} and {@code weights} arrays,
+ * incoming edges are stored the same way in the {@code incoming} arrays.
+ */
+@Immutable
+final class CompactGraphSnapshot extends GraphSnapshot {
+
+    private final long version;
+    private final int nodeCount;
+    /**
+     * Frozen {@link NodeTable} slots
+     */
+    private final int[] ids;
+    private final Node[] nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] incomingOffsets;
+    private final int[] sources;
+    private final int[] incomingWeights;
+    /**
+     * {@link EdgeWeights#key} of the node pair -> weights, only for pairs with more than one edge
+     */
+    private final Map<Long, EdgeWeights> parallel;
+
+    CompactGraphSnapshot(final long version, final int nodeCount, final int[] ids, final Node[] nodes,
+                         final int[] offsets, final int[] targets, final int[] weights,
+                         final int[] incomingOffsets, final int[] sources, final int[] incomingWeights,
+                         final Map<Long, EdgeWeights> parallel) {
+        this.version = version;
+        this.nodeCount = nodeCount;
+        this.ids = ids;
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.incomingOffsets = incomingOffsets;
+        this.sources = sources;
+        this.incomingWeights = incomingWeights;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    int idOf(final Node node) {
+        return NodeTable.find(ids, nodes, node);
+    }
+
+    @Override
+    Node nodeAt(final int id) {
+        return nodes[id];
+    }
+
+    @Override
+    int idBound() {
+        return nodes.length;
+    }
+
+    @Override
+    void outgoing(final int id, final Adjacency adjacency) {
+        adjacency.set(targets, weights, offsets[id], offsets[id + 1]);
+    }
+
+    @Override
+    void incoming(final int id, final Adjacency adjacency) {
+        adjacency.set(sources, incomingWeights, incomingOffsets[id], incomingOffsets[id + 1]);
+    }
+
+    @Override
+    EdgeWeights parallelEdges(final int source, final int target) {
+        return parallel.isEmpty() ? null : parallel.get(EdgeWeights.key(source, target)).getOrNull();
+    }
+}
@@ -0,0 +1,174 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Weakly connected components as a union-find over node ids, valid for every snapshot of {@link #getVersion()} or
+ * later as long as the ends of every edge are united before the edge is visible to queries. Removals are not
+ * reflected, they only leave the components coarser than the graph, so nodes in different components are never
+ * connected while nodes in one component may be.
+ * <p>
+ * Written by one thread at a time, which links roots by size and halves paths. Queries read without locking:
+ * roots never become children again, so the answer of {@link #connected} is checked against the root found first.
+ */
+@ThreadSafe
+final class ComponentIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long version;
+    /**
+     * Parent of every node id, roots are their own parent. Ids beyond the array are single node components.
+     * Replaced by a larger copy when an id beyond it is united.
+     */
+    private volatile AtomicIntegerArray parents;
+    /**
+     * Node ids in the component of every root, used by the writer only
+     */
+    private int[] sizes;
+    /**
+     * Nodes and edges of the snapshot the index was built from, the work of building it again
+     */
+    private long buildSize;
+
+    ComponentIndex(final long version, final int idBound) {
+        this.version = version;
+        this.parents = identity(new AtomicIntegerArray(Math.max(idBound, INITIAL_CAPACITY)), 0);
+        this.sizes = new int[parents.length()];
+        Arrays.fill(sizes, 1);
+    }
+
+    /**
+     * Unite the ends of every edge of the snapshot
+     *
+     * @return ComponentIndex   index valid for the snapshot and later versions
+     */
+    static ComponentIndex build(final GraphSnapshot graph) {
+        final int idBound = graph.idBound();
+        final ComponentIndex index = new ComponentIndex(graph.getVersion(), idBound);
+        final Adjacency adjacency = new Adjacency();
+        long size = 0;
+        for (int id = 0; id < idBound; id++) {
+            if (graph.nodeAt(id) != null) {
+                graph.outgoing(id, adjacency);
+                for (int i = adjacency.from; i < adjacency.to; i++) {
+                    index.union(id, adjacency.nodes[i]);
+                }
+                size += 1 + adjacency.to - adjacency.from;
+            }
+        }
+        index.buildSize = size;
+        return index;
+    }
+
+    /**
+     * @return long  version of the snapshot the index was built from, older snapshots must not use it
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return long  nodes and edges of the snapshot the index was built from
+     */
+    long getBuildSize() {
+        return buildSize;
+    }
+
+    /**
+     * Called by the writer before an edge between the nodes becomes visible
+     *
+     * @return boolean  {@code true} if two components were merged
+     */
+    boolean union(final int source, final int target) {
+        ensureCapacity(Math.max(source, target) + 1);
+        final AtomicIntegerArray current = parents;
+        int sourceRoot = compressingFind(current, source);
+        int targetRoot = compressingFind(current, target);
+        if (sourceRoot == targetRoot) {
+            return false;
+        }
+        if (sizes[sourceRoot] < sizes[targetRoot]) {
+            final int smaller = sourceRoot;
+            sourceRoot = targetRoot;
+            targetRoot = smaller;
+        }
+        sizes[sourceRoot] += sizes[targetRoot];
+        current.lazySet(targetRoot, sourceRoot);
+        return true;
+    }
+
+    /**
+     * @return boolean  {@code false} if no edge connects the components of the nodes in any valid snapshot,
+     *                  {@code true} if they may be connected
+     */
+    boolean connected(final int source, final int target) {
+        final AtomicIntegerArray current = parents;
+        while (true) {
+            final int sourceRoot = find(current, source);
+            final int targetRoot = find(current, target);
+            if (sourceRoot == targetRoot) {
+                return true;
+            }
+            // a concurrent union may have linked the source root below the target root after it was found
+            if (isRoot(current, sourceRoot)) {
+                return false;
+            }
+        }
+    }
+
+    private static int find(final AtomicIntegerArray parents, final int id) {
+        if (id >= parents.length()) {
+            return id;
+        }
+        int node = id;
+        int parent;
+        while ((parent = parents.get(node)) != node) {
+            node = parent;
+        }
+        return node;
+    }
+
+    private static boolean isRoot(final AtomicIntegerArray parents, final int id) {
+        return id >= parents.length() || parents.get(id) == id;
+    }
+
+    /**
+     * Path halving, every visited node is linked to its grandparent, which is an ancestor for the readers as well
+     */
+    private static int compressingFind(final AtomicIntegerArray parents, final int id) {
+        int node = id;
+        int parent;
+        while ((parent = parents.get(node)) != node) {
+            final int grandparent = parents.get(parent);
+            parents.lazySet(node, grandparent);
+            node = grandparent;
+        }
+        return node;
+    }
+
+    private void ensureCapacity(final int idBound) {
+        final AtomicIntegerArray current = parents;
+        if (idBound <= current.length()) {
+            return;
+        }
+        final int capacity = Math.max(idBound, current.length() + (current.length() >> 1));
+        final AtomicIntegerArray grown = new AtomicIntegerArray(capacity);
+        for (int id = 0; id < current.length(); id++) {
+            grown.lazySet(id, current.get(id));
+        }
+        final int oldCapacity = sizes.length;
+        sizes = Arrays.copyOf(sizes, capacity);
+        Arrays.fill(sizes, oldCapacity, capacity, 1);
+        parents = identity(grown, current.length());
+    }
+
+    private static AtomicIntegerArray identity(final AtomicIntegerArray parents, final int from) {
+        for (int id = from; id < parents.length(); id++) {
+            parents.lazySet(id, id);
+        }
+        return parents;
+    }
+}
@@ -0,0 +1,217 @@
+package com.collibra.backend.challenge.graph;
+
+import com.collibra.backend.challenge.stats.ComponentStats;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps the {@link ComponentIndex} of the graph up to date and answers with it whether two nodes can not be
+ * connected. Added edges are united right away under the mutation lock. Removals make the index coarser and less
+ * useful; once there were enough of them, the next query the index can not answer starts a rebuild from a snapshot on
+ * a background thread, so a graph nobody queries is not rebuilt over and over. Edges added during the rebuild are
+ * recorded and united into the new index when it replaces the old one under the mutation lock. Loading an image
+ * renumbers the nodes, so the index is dropped and built again the same way.
+ */
+@Slf4j
+@ThreadSafe
+final class ComponentIndexer {
+
+    private final GraphEngine engine;
+    private final Lock writeLock;
+    private final long minRemovals;
+    private final ComponentStats stats;
+    private final ExecutorService executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * {@code null} if disabled or until it is built after a load
+     */
+    private volatile ComponentIndex index;
+    /**
+     * Set once enough removals made the index worth rebuilding
+     */
+    private volatile boolean stale;
+    /**
+     * Removals since the index was built. Guarded by the mutation lock, like the fields below.
+     */
+    private long removals;
+    /**
+     * Incremented by every load, a rebuild started before must not replace the index
+     */
+    private long generation;
+    /**
+     * {@code (source, target)} id pairs of edges added during a build, {@code null} if none runs
+     */
+    private int[] pending;
+    private int pendingCount;
+
+    /**
+     * @param writeLock     mutation lock of the graph, every other method except {@link #separates} is called under it
+     * @param minRemovals   removals before a rebuild, at least half the nodes and edges the index was built from,
+     *                      so rebuilding costs no more than a few unions per removal
+     */
+    ComponentIndexer(final GraphEngine engine, final Lock writeLock, final boolean enabled, final long minRemovals,
+                     final ComponentStats stats) {
+        this.engine = engine;
+        this.writeLock = writeLock;
+        this.minRemovals = minRemovals;
+        this.stats = stats;
+        this.index = enabled ? ComponentIndex.build(engine.snapshot()) : null;
+        this.executor = enabled ? Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "component-indexer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Called before the edge is added to the engine, so no snapshot contains it before the index does
+     */
+    void beforeAddEdge(final Edge edge) {
+        final ComponentIndex current = index;
+        if (current == null && pending == null) {
+            return;
+        }
+        final int source = engine.idOf(edge.getSource());
+        final int target = engine.idOf(edge.getTarget());
+        if (source < 0 || target < 0 || source == target) {
+            return;
+        }
+        if (current != null) {
+            current.union(source, target);
+        }
+        if (pending != null) {
+            if (pendingCount + 2 > pending.length) {
+                pending = Arrays.copyOf(pending, 2 * pending.length);
+            }
+            pending[pendingCount++] = source;
+            pending[pendingCount++] = target;
+        }
+    }
+
+    /**
+     * Called after a node or edges were removed
+     */
+    void onRemoval() {
+        final ComponentIndex current = index;
+        if (current != null && !stale && ++removals >= Math.max(minRemovals, current.getBuildSize() / 2)) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Load the image into the engine and build the index for it in the background, queries meanwhile do not use it
+     */
+    void load(final GraphImage image) {
+        index = null;
+        generation++;
+        pending = null;
+        removals = 0;
+        stale = false;
+        try {
+            engine.load(image);
+        } finally {
+            if (executor != null) {
+                final long buildGeneration = startBuild();
+                executor.execute(() -> build(buildGeneration));
+            }
+        }
+    }
+
+    /**
+     * @param snapshot  snapshot read before calling, ids of the nodes are looked up in it
+     * @return boolean  {@code true} if the index proves there is no path between the nodes in the snapshot,
+     *                  {@code false} if a search is needed or one of the nodes does not exist
+     */
+    boolean separates(final GraphSnapshot snapshot, final Node source, final Node target) {
+        final ComponentIndex current = index;
+        if (current == null || current.getVersion() > snapshot.getVersion()) {
+            return false;
+        }
+        final int sourceId = snapshot.idOf(source);
+        final int targetId = snapshot.idOf(target);
+        if (sourceId < 0 || targetId < 0) {
+            return false;
+        }
+        stats.getChecks().increment();
+        if (current.connected(sourceId, targetId)) {
+            if (stale && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::rebuild);
+            }
+            return false;
+        }
+        stats.getShortCircuits().increment();
+        return true;
+    }
+
+    private void rebuild() {
+        try {
+            final long buildGeneration;
+            writeLock.lock();
+            try {
+                if (!stale || pending != null) {
+                    return;
+                }
+                stale = false;
+                removals = 0;
+                buildGeneration = startBuild();
+            } finally {
+                writeLock.unlock();
+            }
+            build(buildGeneration);
+        } finally {
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Start recording added edges, called under the mutation lock
+     *
+     * @return long     generation the build belongs to
+     */
+    private long startBuild() {
+        pending = new int[64];
+        pendingCount = 0;
+        return generation;
+    }
+
+    /**
+     * Build from a snapshot taken after recording started, so every edge missing in it is pending, and install
+     * the index unless the graph was loaded meanwhile
+     */
+    private void build(final long buildGeneration) {
+        final long start = System.nanoTime();
+        ComponentIndex built = null;
+        try {
+            built = ComponentIndex.build(engine.snapshot());
+        } catch (RuntimeException e) {
+            log.error("Can not build component index", e);
+        }
+        writeLock.lock();
+        try {
+            if (buildGeneration != generation) {
+                return;
+            }
+            if (built != null) {
+                for (int i = 0; i < pendingCount; i += 2) {
+                    built.union(pending[i], pending[i + 1]);
+                }
+                index = built;
+            }
+            pending = null;
+        } finally {
+            writeLock.unlock();
+        }
+        if (built != null) {
+            stats.getRebuilds().increment();
+            log.debug("Component index of version {} built in {} ms", built.getVersion(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
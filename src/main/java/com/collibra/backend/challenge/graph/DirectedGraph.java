@@ -1,25 +1,99 @@
 package com.collibra.backend.challenge.graph;
 
+import com.collibra.backend.challenge.stats.ServerStats;
+import com.collibra.backend.challenge.stats.TimedLock;
+import com.google.common.cache.CacheStats;
 import io.vavr.collection.List;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.graph.DirectedWeightedMultigraph;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkState;
 
 @ThreadSafe
 public class DirectedGraph {
 
+    /**
+     * {@code -Dgraph.lock.fair=true} makes the mutation lock fair, so mutations are applied in arrival order
+     */
+    public static final String FAIR_LOCK_PROPERTY = "graph.lock.fair";
+    /**
+     * {@code -Dgraph.engine=compact} selects the storage engine, see {@link GraphEngineType}
+     */
+    public static final String ENGINE_PROPERTY = "graph.engine";
+    /**
+     * {@code -Dgraph.off-heap.slab-bytes=67108864} size the slabs of the {@link GraphEngineType#OFF_HEAP} engine grow
+     * to, a power of two from 64 KB to 1 GB
+     */
+    public static final String OFF_HEAP_SLAB_BYTES_PROPERTY = "graph.off-heap.slab-bytes";
+    /**
+     * {@code -Dgraph.off-heap.dir=/var/tmp} maps the slabs of the {@link GraphEngineType#OFF_HEAP} engine from files
+     * in the directory instead of allocating direct buffers, the files are deleted right after mapping
+     */
+    public static final String OFF_HEAP_DIRECTORY_PROPERTY = "graph.off-heap.dir";
+    /**
+     * {@code -Dgraph.cache.max-bytes=0} disables the query result cache
+     */
+    public static final String CACHE_MAX_BYTES_PROPERTY = "graph.cache.max-bytes";
+    private static final long DEFAULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    /**
+     * {@code -Dgraph.landmarks=16} answers SHORTEST PATH with A* over a landmark index, {@code 0} (default) disables it
+     */
+    public static final String LANDMARKS_PROPERTY = "graph.landmarks";
+    /**
+     * {@code -Dgraph.landmarks.rebuild-delay=1000} quiet period in ms after the last mutation before the index is rebuilt
+     */
+    public static final String LANDMARKS_REBUILD_DELAY_PROPERTY = "graph.landmarks.rebuild-delay";
+    private static final long DEFAULT_LANDMARKS_REBUILD_DELAY_IN_MS = 1_000;
+    /**
+     * {@code -Dgraph.components=false} disables the connected component index answering SHORTEST PATH between
+     * separated nodes without a search
+     */
+    public static final String COMPONENTS_PROPERTY = "graph.components";
+    /**
+     * {@code -Dgraph.components.rebuild-removals=10000} node and edge removals before the component index is rebuilt,
+     * at least half of the node and edge count
+     */
+    public static final String COMPONENTS_REBUILD_REMOVALS_PROPERTY = "graph.components.rebuild-removals";
+    private static final long DEFAULT_COMPONENTS_REBUILD_REMOVALS = 10_000;
+
     private static volatile DirectedGraph instance;
-    private final DirectedWeightedMultigraph<Node, Edge> graph;
+    private final GraphEngine engine;
+    private final QueryCache queryCache;
+    private final LandmarkIndexer landmarkIndexer;
+    private final ComponentIndexer componentIndexer;
+    /**
+     * Guarded by the mutation lock
+     */
+    private GraphJournal journal = GraphJournal.DISABLED;
+    /**
+     * Serializes mutations only. Explicit lock instead of {@code synchronized},
+     * so virtual threads waiting for the graph do not pin their carrier. Wait and hold times go to {@link ServerStats}.
+     */
+    private final Lock writeLock;
+    /**
+     * Set on a replication follower, whose graph changes only through its leader
+     */
+    private volatile boolean readOnly;
 
     private DirectedGraph() {
         if (instance != null) {
             throw new IllegalStateException("Already initialized");
         }
-        graph = new DirectedWeightedMultigraph<>(Edge.class);
+        final ServerStats stats = ServerStats.getInstance();
+        writeLock = new TimedLock(new ReentrantLock(Boolean.getBoolean(FAIR_LOCK_PROPERTY)), stats.getLockWait(), stats.getLockHold());
+        engine = GraphEngineType.valueOf(System.getProperty(ENGINE_PROPERTY, GraphEngineType.PERSISTENT.name()).toUpperCase()).create();
+        queryCache = new QueryCache(Long.getLong(CACHE_MAX_BYTES_PROPERTY, DEFAULT_CACHE_MAX_BYTES));
+        landmarkIndexer = new LandmarkIndexer(engine, Integer.getInteger(LANDMARKS_PROPERTY, 0),
+                Long.getLong(LANDMARKS_REBUILD_DELAY_PROPERTY, DEFAULT_LANDMARKS_REBUILD_DELAY_IN_MS));
+        componentIndexer = new ComponentIndexer(engine, writeLock,
+                Boolean.parseBoolean(System.getProperty(COMPONENTS_PROPERTY, "true")),
+                Long.getLong(COMPONENTS_REBUILD_REMOVALS_PROPERTY, DEFAULT_COMPONENTS_REBUILD_REMOVALS), stats.getComponents());
     }
 
     public static DirectedGraph getInstance() {
@@ -35,8 +109,46 @@ public class DirectedGraph {
         return result;
     }
 
-    public synchronized boolean addNode(final Node node) {
-        return graph.addVertex(node);
+    /**
+     * Immutable view of the graph. Use it to run several queries against one consistent version.
+     *
+     * @return GraphSnapshot    the most recently published version of the graph
+     */
+    public GraphSnapshot getSnapshot() {
+        return engine.snapshot();
+    }
+
+    /**
+     * @return long  version (epoch) of the most recently published snapshot
+     */
+    public long getVersion() {
+        return engine.snapshot().getVersion();
+    }
+
+    /**
+     * @return CacheStats   hit, miss and eviction counts of the query result cache
+     */
+    public CacheStats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    /**
+     * @return boolean  {@code true} if clients must not change the graph, see {@link #setReadOnly}
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Mark the graph as a read only replica. The graph itself still accepts mutations, so the replication can apply
+     * them; the message processors reject mutations of clients.
+     */
+    public void setReadOnly(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean addNode(final Node node) {
+        return mutate(GraphMutation.addNode(node));
     }
 
     /**
@@ -46,30 +158,239 @@ public class DirectedGraph {
      * @return boolean  {@code true} if edge added correctly or if nodes of edge are the same
      *                  {@code false} if any of the edge nodes does not exist
      */
-    public synchronized boolean addEdge(final Edge edge) {
-        if (!graph.containsVertex(edge.getSource()) || !graph.containsVertex(edge.getTarget())) {
-            return false;
+    public boolean addEdge(final Edge edge) {
+        return mutate(GraphMutation.addEdge(edge));
+    }
+
+    public boolean removeNode(final Node node) {
+        return mutate(GraphMutation.removeNode(node));
+    }
+
+    public boolean removeEdge(final Node source, final Node target) {
+        return mutate(GraphMutation.removeEdge(source, target));
+    }
+
+    /**
+     * Write every following mutation to the journal. Attach it after the graph was restored, restoring must not
+     * be written again.
+     */
+    public void setJournal(final GraphJournal journal) {
+        writeLock.lock();
+        try {
+            this.journal = journal;
+        } finally {
+            writeLock.unlock();
         }
-        if (edge.getSource().equals(edge.getTarget())) {
-            return true;
+    }
+
+    /**
+     * Snapshot of the graph and the journal position it includes, taken together under the mutation lock.
+     * The journal starts a new part, everything before it is contained in the snapshot.
+     *
+     * @return GraphCheckpoint  snapshot with the sequence number of its last journaled mutation
+     */
+    public GraphCheckpoint checkpoint() {
+        writeLock.lock();
+        try {
+            return new GraphCheckpoint(journal.checkpoint(), engine.snapshot());
+        } finally {
+            writeLock.unlock();
         }
-        graph.addEdge(edge.getSource(), edge.getTarget(), edge);
-        graph.setEdgeWeight(edge, edge.getWeight());
-        return true;
     }
 
-    public synchronized boolean removeNode(final Node node) {
-        return graph.removeVertex(node);
+    /**
+     * Snapshot of the graph and a position in the journal, read together under the mutation lock. Unlike
+     * {@link #checkpoint} the journal does not start a new part.
+     *
+     * @param journalPosition   read under the mutation lock, e.g. the sequence number of the last journaled mutation
+     * @return GraphCheckpoint  snapshot with the position
+     */
+    public GraphCheckpoint snapshot(final LongSupplier journalPosition) {
+        writeLock.lock();
+        try {
+            return new GraphCheckpoint(journalPosition.getAsLong(), engine.snapshot());
+        } finally {
+            writeLock.unlock();
+        }
     }
 
-    public synchronized boolean removeEdge(final Node source, final Node target) {
-        if (!graph.containsVertex(source) || !graph.containsVertex(target)) {
-            return false;
+    private boolean mutate(final GraphMutation mutation) {
+        final GraphJournal currentJournal;
+        final long sequence;
+        writeLock.lock();
+        try {
+            if (!mutated(apply(mutation))) {
+                return false;
+            }
+            currentJournal = journal;
+            sequence = currentJournal.append(mutation);
+        } finally {
+            writeLock.unlock();
         }
-        graph.removeAllEdges(source, target);
+        currentJournal.awaitDurable(sequence);
         return true;
     }
 
+    /**
+     * Fill the empty graph with every node and edge of the image in one step, e.g. on a warm start from a file.
+     * Self loops are skipped like in {@link #addEdge}. The image is not journaled, load it before attaching one.
+     *
+     * @param image     nodes and edges to load
+     * @throws IllegalStateException if the graph is not empty or has a journal
+     * @throws IllegalArgumentException if the image contains a node twice
+     */
+    public void load(final GraphImage image) {
+        writeLock.lock();
+        try {
+            checkState(engine.snapshot().getNodeCount() == 0, "Graph is not empty");
+            replace(image);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replace everything in the graph by the image in one step, e.g. when a replication follower catches up from
+     * a snapshot of its leader. Queries see either the old or the new graph.
+     *
+     * @throws IllegalStateException if the graph has a journal
+     * @throws IllegalArgumentException if the image contains a node twice
+     */
+    public void replace(final GraphImage image) {
+        writeLock.lock();
+        try {
+            checkState(journal == GraphJournal.DISABLED, "Graph image can not be written to the journal");
+            componentIndexer.load(image);
+            mutated(true);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Apply mutations in order under a single acquisition of the mutation lock, so no other mutation interleaves,
+     * and publish them as one snapshot, so no query sees only part of them. The landmark index is rebuilt once for
+     * the whole batch.
+     *
+     * @param mutations     mutations to apply
+     * @param atomic        {@code true} to apply nothing unless every mutation succeeds
+     * @return boolean[]    result of every mutation, as the single mutation methods would return it;
+     *                      for a rejected atomic batch the results the mutations would have had
+     */
+    public boolean[] applyBatch(final Collection<GraphMutation> mutations, final boolean atomic) {
+        final boolean[] results = new boolean[mutations.size()];
+        final GraphJournal currentJournal;
+        boolean changed = false;
+        long sequence = 0;
+        writeLock.lock();
+        try {
+            if (atomic) {
+                final boolean[] checked = check(mutations);
+                for (boolean result : checked) {
+                    if (!result) {
+                        return checked;
+                    }
+                }
+            }
+            currentJournal = journal;
+            engine.beginBatch();
+            try {
+                int i = 0;
+                for (GraphMutation mutation : mutations) {
+                    results[i] = apply(mutation);
+                    if (results[i++]) {
+                        changed = true;
+                        sequence = currentJournal.append(mutation);
+                    }
+                }
+            } finally {
+                engine.endBatch();
+            }
+            mutated(changed);
+        } finally {
+            writeLock.unlock();
+        }
+        if (changed) {
+            currentJournal.awaitDurable(sequence);
+        }
+        return results;
+    }
+
+    /**
+     * Dry run of {@link #applyBatch}, nothing is applied
+     *
+     * @return boolean[]    result every mutation would have if the batch was applied now
+     */
+    public boolean[] checkBatch(final Collection<GraphMutation> mutations) {
+        writeLock.lock();
+        try {
+            return check(mutations);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean apply(final GraphMutation mutation) {
+        switch (mutation.getType()) {
+            case ADD_NODE:
+                return engine.addNode(mutation.getSource());
+            case REMOVE_NODE:
+                return removed(engine.removeNode(mutation.getSource()));
+            case ADD_EDGE:
+                componentIndexer.beforeAddEdge(mutation.getEdge());
+                return engine.addEdge(mutation.getEdge());
+            case REMOVE_EDGE:
+                return removed(engine.removeEdge(mutation.getSource(), mutation.getTarget()));
+            default:
+                throw new IllegalArgumentException("Unknown mutation: " + mutation.getType());
+        }
+    }
+
+    /**
+     * Results depend only on which nodes exist, so simulating node existence on top of the engine is exact
+     */
+    private boolean[] check(final Collection<GraphMutation> mutations) {
+        final Map<Node, Boolean> changedNodes = new HashMap<>();
+        final boolean[] results = new boolean[mutations.size()];
+        int i = 0;
+        for (GraphMutation mutation : mutations) {
+            final boolean sourceExists = exists(changedNodes, mutation.getSource());
+            switch (mutation.getType()) {
+                case ADD_NODE:
+                    results[i] = !sourceExists;
+                    changedNodes.put(mutation.getSource(), true);
+                    break;
+                case REMOVE_NODE:
+                    results[i] = sourceExists;
+                    changedNodes.put(mutation.getSource(), false);
+                    break;
+                default:
+                    results[i] = sourceExists && exists(changedNodes, mutation.getTarget());
+            }
+            i++;
+        }
+        return results;
+    }
+
+    private boolean exists(final Map<Node, Boolean> changedNodes, final Node node) {
+        final Boolean changed = changedNodes.get(node);
+        return changed != null ? changed : engine.containsNode(node);
+    }
+
+    private boolean removed(final boolean changed) {
+        if (changed) {
+            componentIndexer.onRemoval();
+        }
+        return changed;
+    }
+
+    private boolean mutated(final boolean changed) {
+        if (changed) {
+            landmarkIndexer.onMutation();
+        }
+        return changed;
+    }
+
     /**
      * Calculate the shortest path between two nodes in the directed graph
      *
@@ -77,24 +398,58 @@ public class DirectedGraph {
      * @param target    target node
      * @return int      sum of the the shortest weights
      *                  {@code -1} if node does not exist
-     *                  {@code Integer.MAX_VALUE} if not exists connection between nodes
+     *                  {@code Integer.MAX_VALUE} if not exists connection between nodes,
+     *                  right away if the nodes are in different components
      */
-    public synchronized int findTheShortestPath(final Node source, final Node target) {
-        return findTheShortestPath(graph, source, target);
+    public int findTheShortestPath(final Node source, final Node target) {
+        final GraphSnapshot snapshot = engine.snapshot();
+        if (componentIndexer.separates(snapshot, source, target)) {
+            return Integer.MAX_VALUE;
+        }
+        return queryCache.findTheShortestPath(snapshot, source, target);
     }
 
-    private int findTheShortestPath(final DirectedWeightedMultigraph<Node, Edge> graph, final Node source, final Node target) {
-        if (!graph.containsVertex(source) || !graph.containsVertex(target)) {
-            return -1;
+    /**
+     * Calculate the shortest paths from one source to many targets in the directed graph: a point to point search to
+     * the first target, a bounded forward search shared by the others and a backward search for each target it did not
+     * settle (see {@link GraphSnapshot#findDistances}). Targets in a different component than the source are left out
+     * of the searches. Results are not cached.
+     *
+     * @param source    source node
+     * @param targets   target nodes
+     * @return int[]    sum of the shortest weights of every target in the given order,
+     *                  {@code -1} if the target or the source does not exist
+     *                  {@code Integer.MAX_VALUE} if not exists connection between nodes
+     */
+    public int[] findDistances(final Node source, final List<Node> targets) {
+        final GraphSnapshot snapshot = engine.snapshot();
+        final boolean[] separated = new boolean[targets.size()];
+        List<Node> searched = List.empty();
+        int i = 0;
+        for (Node target : targets) {
+            separated[i] = componentIndexer.separates(snapshot, source, target);
+            if (!separated[i++]) {
+                searched = searched.prepend(target);
+            }
         }
-        GraphPath<Node, Edge> shortestPath = DijkstraShortestPath.findPathBetween(graph, source, target);
-        if (shortestPath == null) {
-            return Integer.MAX_VALUE;
+        final int[] searchedDistances = snapshot.findDistances(source, searched.reverse());
+        final int[] distances = new int[separated.length];
+        int next = 0;
+        for (i = 0; i < distances.length; i++) {
+            distances[i] = separated[i] ? Integer.MAX_VALUE : searchedDistances[next++];
         }
-        return shortestPath.getEdgeList()
-                           .stream()
-                           .map(Edge::getWeight)
-                           .reduce(0, Integer::sum);
+        return distances;
+    }
+
+    /**
+     * Method finds the shortest paths from node to every node reachable from it. Results are not cached.
+     *
+     * @param node                  source node
+     * @throws IllegalArgumentException if node does not exist
+     * @return Map<Node, Integer>   sum of the shortest weights of every node other than the source reachable from it
+     */
+    public io.vavr.collection.Map<Node, Integer> findAllDistances(final Node node) {
+        return engine.snapshot().findAllDistances(node);
     }
 
     /**
@@ -105,16 +460,7 @@ public class DirectedGraph {
      * @throws IllegalArgumentException if node does not exist
      * @return List<Node>   all nodes that are closer to node than the given weight
      */
-    public synchronized List<Node> findAllCloserNodesThan(final Node node, final int weight) {
-        if (!graph.containsVertex(node)) {
-            throw new IllegalArgumentException("Node does not exist");
-        }
-        final ConnectivityInspector<Node, Edge> inspector = new ConnectivityInspector<>(graph);
-        return List.ofAll(inspector.connectedSetOf(node)
-                                   .parallelStream()
-                                   .filter(n -> weight > findTheShortestPath(graph, node, n))
-                                   .filter(n -> !n.equals(node))
-                                   .collect(Collectors.toList()));
-
+    public List<Node> findAllCloserNodesThan(final Node node, final int weight) {
+        return queryCache.findAllCloserNodesThan(engine.snapshot(), node, weight);
     }
 }
@@ -0,0 +1,122 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Map;
+
+/**
+ * Weights of all parallel edges from one node to another as a multiset: distinct weights in ascending order with
+ * the number of edges of each. Engines keep a single adjacency entry per node pair carrying the lightest weight,
+ * which is all queries need, and an instance of this class only for pairs with more than one edge.
+ */
+@Immutable
+final class EdgeWeights {
+
+    /**
+     * {@code weight, count} pairs in ascending order of weight, in one array to keep small sets small.
+     * Counts saturate at {@code Long.MAX_VALUE} instead of wrapping around.
+     */
+    private final long[] entries;
+
+    private EdgeWeights(final long[] entries) {
+        this.entries = entries;
+    }
+
+    static EdgeWeights of(final int weight) {
+        return of(weight, 1);
+    }
+
+    static EdgeWeights of(final int weight, final long count) {
+        return new EdgeWeights(new long[]{weight, count});
+    }
+
+    /**
+     * Key of the node pair in the maps of parallel edges of the engines
+     */
+    static long key(final int source, final int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    EdgeWeights with(final int weight) {
+        return with(weight, 1);
+    }
+
+    /**
+     * @param count positive number of edges of the weight to add
+     */
+    EdgeWeights with(final int weight, final long count) {
+        int index = 0;
+        while (index < entries.length && entries[index] < weight) {
+            index += 2;
+        }
+        if (index < entries.length && entries[index] == weight) {
+            final long[] newEntries = entries.clone();
+            newEntries[index + 1] = GraphImage.saturatedAdd(newEntries[index + 1], count);
+            return new EdgeWeights(newEntries);
+        }
+        final long[] newEntries = new long[entries.length + 2];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        newEntries[index] = weight;
+        newEntries[index + 1] = count;
+        System.arraycopy(entries, index, newEntries, index + 2, entries.length - index);
+        return new EdgeWeights(newEntries);
+    }
+
+    /**
+     * @return int  number of distinct weights
+     */
+    int distinct() {
+        return entries.length / 2;
+    }
+
+    int weight(final int index) {
+        return (int) entries[2 * index];
+    }
+
+    long count(final int index) {
+        return entries[2 * index + 1];
+    }
+
+    /**
+     * @return long  number of edges
+     */
+    long size() {
+        long size = 0;
+        for (int i = 1; i < entries.length; i += 2) {
+            size = GraphImage.saturatedAdd(size, entries[i]);
+        }
+        return size;
+    }
+
+    /**
+     * Record one more edge of a pair whose adjacency entry already exists, e.g. while collapsing a loaded image
+     *
+     * @param lightest  weight of the adjacency entry of the pair before this edge
+     */
+    static void merge(final Map<Long, EdgeWeights> parallel, final int source, final int target, final int lightest,
+                      final int weight) {
+        final long key = key(source, target);
+        final EdgeWeights existing = parallel.get(key);
+        parallel.put(key, (existing == null ? of(lightest) : existing).with(weight));
+    }
+
+    /**
+     * Add the edges beyond the first one of every image entry counting several, after the entries were collapsed
+     * with {@link #merge} as one edge each. Only pairs with several entries are in the map by then.
+     */
+    static void mergeCounts(final Map<Long, EdgeWeights> parallel, final GraphImage image) {
+        if (image.getCounts() == null) {
+            return;
+        }
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            final int source = image.getSources()[i];
+            final int target = image.getTargets()[i];
+            final long count = image.count(i);
+            if (count > 1 && source != target) {
+                final long key = key(source, target);
+                final EdgeWeights existing = parallel.get(key);
+                final int weight = image.getWeights()[i];
+                parallel.put(key, existing == null ? of(weight, count) : existing.with(weight, count - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.collibra.backend.challenge.graph;
+
+import lombok.Value;
+
+/**
+ * Snapshot of {@link DirectedGraph} which contains exactly the journaled mutations up to {@link #sequence}
+ */
+@Value
+public class GraphCheckpoint {
+
+    private final long sequence;
+    private final GraphSnapshot snapshot;
+}
@@ -0,0 +1,61 @@
+package com.collibra.backend.challenge.graph;
+
+/**
+ * Storage of {@link DirectedGraph}. Mutations are always called by one thread at a time,
+ * {@link #snapshot()} may be called concurrently from any thread.
+ */
+interface GraphEngine {
+
+    /**
+     * @return GraphSnapshot    immutable view including every mutation applied so far
+     */
+    GraphSnapshot snapshot();
+
+    /**
+     * Cheaper than {@code snapshot().containsNode(node)} for engines publishing snapshots lazily
+     */
+    boolean containsNode(final Node node);
+
+    /**
+     * @return int  id the node has in the next snapshot, {@code -1} if it does not exist
+     */
+    int idOf(final Node node);
+
+    boolean addNode(final Node node);
+
+    /**
+     * @return boolean  {@code true} if edge added or if nodes of edge are the same,
+     *                  {@code false} if any of the edge nodes does not exist
+     */
+    boolean addEdge(final Edge edge);
+
+    boolean removeNode(final Node node);
+
+    /**
+     * Remove all edges from source to target
+     *
+     * @return boolean  {@code false} if any of the nodes does not exist
+     */
+    boolean removeEdge(final Node source, final Node target);
+
+    /**
+     * Replace everything in the engine by the image, self loops are skipped and parallel edges collapsed like in
+     * {@link #addEdge}.
+     * The version of the next snapshot is higher than any before.
+     *
+     * @throws IllegalArgumentException if the image contains a node twice
+     */
+    void load(final GraphImage image);
+
+    /**
+     * Apply the following mutations without publishing them until {@link #endBatch}, so no query sees only part of
+     * them. {@link #snapshot()} keeps answering the version current before.
+     */
+    void beginBatch();
+
+    /**
+     * Publish the mutations applied since {@link #beginBatch} as one version
+     */
+    void endBatch();
+
+}
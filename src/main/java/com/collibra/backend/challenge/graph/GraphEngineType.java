@@ -0,0 +1,39 @@
+package com.collibra.backend.challenge.graph;
+
+import java.util.function.Supplier;
+
+/**
+ * Storage engines of {@link DirectedGraph}, selected with {@code -Dgraph.engine=<name>}
+ */
+public enum GraphEngineType {
+
+    /**
+     * Persistent (structurally shared) snapshot per mutation. Cheap mutations, queries never wait for writers.
+     */
+    PERSISTENT(PersistentGraphEngine::new),
+
+    /**
+     * Growable primitive arrays for mutations, frozen into a compressed sparse row snapshot on the first query
+     * after a change. Smallest footprint and fastest queries for read-mostly graphs, every freeze costs O(V + E).
+     */
+    COMPACT(CompactGraphEngine::new),
+
+    /**
+     * Adjacency lists and node names in slabs outside the Java heap, reused after removals. For graphs too large for
+     * a sensible heap: the heap holds about 60 bytes per node and nothing per edge, so the garbage collector has little
+     * to trace. Snapshots are frozen like {@link #COMPACT} but share everything unchanged, edges are copied out on
+     * every visit. Direct buffers count against {@code -XX:MaxDirectMemorySize}, see
+     * {@link DirectedGraph#OFF_HEAP_DIRECTORY_PROPERTY} to map files instead.
+     */
+    OFF_HEAP(OffHeapGraphEngine::new);
+
+    private final Supplier<GraphEngine> factory;
+
+    GraphEngineType(final Supplier<GraphEngine> factory) {
+        this.factory = factory;
+    }
+
+    GraphEngine create() {
+        return factory.get();
+    }
+}
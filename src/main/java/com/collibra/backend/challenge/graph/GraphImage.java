@@ -0,0 +1,82 @@
+package com.collibra.backend.challenge.graph;
+
+import lombok.Getter;
+
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Whole graph as plain arrays, used to fill an empty {@link DirectedGraph} in one step instead of one mutation
+ * per node and edge. Edge entry {@code i} leads from {@code nodes[sources[i]]} to {@code nodes[targets[i]]} and
+ * stands for {@link #count(int)} parallel edges of the same weight, so a graph with more parallel edges than an array
+ * can hold still has an image. Arrays are not copied, they must not be changed once the image is created.
+ */
+@Getter
+@Immutable
+public final class GraphImage {
+
+    private final Node[] nodes;
+    private final int edgeCount;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] weights;
+    /**
+     * Number of edges of every entry, {@code null} if every entry is a single edge
+     */
+    private final long[] counts;
+
+    /**
+     * @param nodes     distinct nodes, indexed by the edge arrays
+     * @param edgeCount number of edge entries of one edge each, the edge arrays may be longer
+     */
+    public GraphImage(final Node[] nodes, final int edgeCount, final int[] sources, final int[] targets, final int[] weights) {
+        this(nodes, edgeCount, sources, targets, weights, null);
+    }
+
+    /**
+     * @param nodes     distinct nodes, indexed by the edge arrays
+     * @param edgeCount number of edge entries, the edge arrays may be longer
+     * @param counts    positive number of parallel edges of every entry, {@code null} for one each
+     */
+    public GraphImage(final Node[] nodes, final int edgeCount, final int[] sources, final int[] targets, final int[] weights,
+                      final long[] counts) {
+        checkArgument(edgeCount <= sources.length && edgeCount <= targets.length && edgeCount <= weights.length
+                && (counts == null || edgeCount <= counts.length), "Edge arrays shorter than edge count: %s", edgeCount);
+        this.nodes = nodes;
+        this.edgeCount = edgeCount;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+        this.counts = counts;
+    }
+
+    /**
+     * @return long  number of parallel edges the entry stands for
+     */
+    public long count(final int entry) {
+        return counts == null ? 1 : counts[entry];
+    }
+
+    /**
+     * @return long  number of edges of all entries
+     */
+    public long totalEdgeCount() {
+        if (counts == null) {
+            return edgeCount;
+        }
+        long total = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            total = saturatedAdd(total, counts[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Counts of parallel edges saturate instead of wrapping around, no graph fits that many edges anyway
+     */
+    static long saturatedAdd(final long a, final long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -0,0 +1,46 @@
+package com.collibra.backend.challenge.graph;
+
+/**
+ * Receives every mutation which changed {@link DirectedGraph}, e.g. to make it durable. {@link #append} is called
+ * under the mutation lock in the order mutations are applied, {@link #awaitDurable} after the lock is released,
+ * so waiting for the disk does not block other writers.
+ */
+public interface GraphJournal {
+
+    GraphJournal DISABLED = new GraphJournal() {
+        @Override
+        public long append(final GraphMutation mutation) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(final long sequence) {
+        }
+
+        @Override
+        public long checkpoint() {
+            return 0;
+        }
+    };
+
+    /**
+     * @param mutation  mutation which was just applied
+     * @return long     sequence number of the mutation in the journal
+     */
+    long append(final GraphMutation mutation);
+
+    /**
+     * Return once the mutation is as durable as the journal promises, before the client gets its answer
+     *
+     * @param sequence  sequence number returned by {@link #append}
+     */
+    void awaitDurable(final long sequence);
+
+    /**
+     * Called under the mutation lock by {@link DirectedGraph#checkpoint}: close the current part of the journal,
+     * so it can be deleted once the graph at this point is stored elsewhere
+     *
+     * @return long     sequence number of the last mutation in the journal
+     */
+    long checkpoint();
+}
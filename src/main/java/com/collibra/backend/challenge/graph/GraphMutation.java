@@ -0,0 +1,48 @@
+package com.collibra.backend.challenge.graph;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Single mutation of {@link DirectedGraph}, applied in a batch by {@link DirectedGraph#applyBatch} or written to
+ * a {@link GraphJournal}
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class GraphMutation {
+
+    public enum Type {
+        ADD_NODE,
+        REMOVE_NODE,
+        ADD_EDGE,
+        REMOVE_EDGE
+    }
+
+    private final Type type;
+    private final Node source;
+    /**
+     * {@code null} for node mutations
+     */
+    private final Node target;
+    /**
+     * {@code null} unless {@link Type#ADD_EDGE}
+     */
+    private final Edge edge;
+
+    public static GraphMutation addNode(final Node node) {
+        return new GraphMutation(Type.ADD_NODE, node, null, null);
+    }
+
+    public static GraphMutation removeNode(final Node node) {
+        return new GraphMutation(Type.REMOVE_NODE, node, null, null);
+    }
+
+    public static GraphMutation addEdge(final Edge edge) {
+        return new GraphMutation(Type.ADD_EDGE, edge.getSource(), edge.getTarget(), edge);
+    }
+
+    public static GraphMutation removeEdge(final Node source, final Node target) {
+        return new GraphMutation(Type.REMOVE_EDGE, source, target, null);
+    }
+}
@@ -0,0 +1,211 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Immutable version of the graph published by {@link DirectedGraph} after mutations. Queries run without any lock
+ * against the snapshot which was current when they started. Nodes are addressed by dense int ids internally,
+ * ids are only meaningful within one snapshot.
+ */
+@Immutable
+public abstract class GraphSnapshot {
+
+    /**
+     * Derived data only: attached once by the background indexer after it was built from this very snapshot
+     */
+    private volatile LandmarkIndex landmarks;
+
+    /**
+     * @return long  number of mutations applied to the graph before this snapshot was published
+     */
+    public abstract long getVersion();
+
+    public abstract int getNodeCount();
+
+    public boolean containsNode(final Node node) {
+        return idOf(node) >= 0;
+    }
+
+    /**
+     * @return int  id of the node, {@code -1} if node does not exist
+     */
+    abstract int idOf(final Node node);
+
+    abstract Node nodeAt(final int id);
+
+    /**
+     * @return int  upper bound (exclusive) of node ids of this snapshot
+     */
+    abstract int idBound();
+
+    /**
+     * Point the cursor at the outgoing edges of the node
+     */
+    abstract void outgoing(final int id, final Adjacency adjacency);
+
+    /**
+     * Point the cursor at the incoming edges of the node, {@link Adjacency#nodes} are the sources
+     */
+    abstract void incoming(final int id, final Adjacency adjacency);
+
+    /**
+     * Adjacency lists hold one entry per node pair with the lightest weight, the other parallel edges are only
+     * needed to write the graph out
+     *
+     * @return EdgeWeights  weights of all edges from source to target, {@code null} if there is at most one
+     */
+    abstract EdgeWeights parallelEdges(final int source, final int target);
+
+    /**
+     * Copy nodes and edges of this snapshot into an image with dense node indexes, e.g. to write it to a file.
+     * Parallel edges of one weight become a single entry counting them, so loading the image restores them all
+     * however many there are. Runs without any lock like a query, the graph keeps accepting mutations meanwhile.
+     *
+     * @return GraphImage   image which {@link DirectedGraph#load} turns into an equal graph
+     */
+    public GraphImage toImage() {
+        final int bound = idBound();
+        final int[] indexes = new int[bound];
+        final Adjacency adjacency = new Adjacency();
+        int nodeCount = 0;
+        long entryCount = 0;
+        boolean counted = false;
+        for (int id = 0; id < bound; id++) {
+            if (nodeAt(id) == null) {
+                indexes[id] = -1;
+            } else {
+                indexes[id] = nodeCount++;
+                outgoing(id, adjacency);
+                for (int i = adjacency.from; i < adjacency.to; i++) {
+                    final EdgeWeights parallel = parallelEdges(id, adjacency.nodes[i]);
+                    entryCount += parallel == null ? 1 : parallel.distinct();
+                    counted |= parallel != null;
+                }
+            }
+        }
+        // one entry per node pair and distinct weight, as many as the engines themselves hold
+        checkState(entryCount <= Integer.MAX_VALUE, "Too many edges for an image: %s", entryCount);
+        final Node[] nodes = new Node[nodeCount];
+        final int[] sources = new int[(int) entryCount];
+        final int[] targets = new int[(int) entryCount];
+        final int[] weights = new int[(int) entryCount];
+        final long[] counts = counted ? new long[(int) entryCount] : null;
+        int entry = 0;
+        for (int id = 0; id < bound; id++) {
+            if (indexes[id] >= 0) {
+                nodes[indexes[id]] = nodeAt(id);
+                outgoing(id, adjacency);
+                for (int i = adjacency.from; i < adjacency.to; i++) {
+                    final EdgeWeights parallel = parallelEdges(id, adjacency.nodes[i]);
+                    final int distinct = parallel == null ? 1 : parallel.distinct();
+                    for (int j = 0; j < distinct; j++) {
+                        sources[entry] = indexes[id];
+                        targets[entry] = indexes[adjacency.nodes[i]];
+                        weights[entry] = parallel == null ? adjacency.weights[i] : parallel.weight(j);
+                        if (counts != null) {
+                            counts[entry] = parallel == null ? 1 : parallel.count(j);
+                        }
+                        entry++;
+                    }
+                }
+            }
+        }
+        return new GraphImage(nodes, entry, sources, targets, weights, counts);
+    }
+
+    LandmarkIndex landmarks() {
+        return landmarks;
+    }
+
+    void attach(final LandmarkIndex landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Calculate the shortest path between two nodes of this snapshot.
+     * A* over the landmark index once it was built for this snapshot, bidirectional Dijkstra until then.
+     *
+     * @param source    source node
+     * @param target    target node
+     * @return int      sum of the the shortest weights
+     *                  {@code -1} if node does not exist
+     *                  {@code Integer.MAX_VALUE} if not exists connection between nodes
+     */
+    public int findTheShortestPath(final Node source, final Node target) {
+        final int sourceId = idOf(source);
+        final int targetId = idOf(target);
+        if (sourceId < 0 || targetId < 0) {
+            return -1;
+        }
+        final LandmarkIndex index = landmarks;
+        final long distance = index == null
+                ? ShortestPaths.distance(this, sourceId, targetId)
+                : ShortestPaths.guidedDistance(this, sourceId, targetId, index);
+        return (int) Math.min(distance, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Calculate the shortest paths from one source to many targets of this snapshot. A point to point search to the
+     * first target sizes a forward search shared by the others, which stops once every target is settled; each target
+     * it did not settle within its size is found by a backward search meeting it (see {@link ShortestPaths#distancesTo}).
+     *
+     * @param source    source node
+     * @param targets   target nodes
+     * @return int[]    sum of the shortest weights of every target in the given order,
+     *                  {@code -1} if the target or the source does not exist
+     *                  {@code Integer.MAX_VALUE} if not exists connection between nodes
+     */
+    public int[] findDistances(final Node source, final List<Node> targets) {
+        final int sourceId = idOf(source);
+        final int[] distances = new int[targets.size()];
+        if (sourceId < 0) {
+            Arrays.fill(distances, -1);
+            return distances;
+        }
+        final int[] targetIds = targets.map(this::idOf).toJavaStream().mapToInt(Integer::intValue).toArray();
+        final long[] found = ShortestPaths.distancesTo(this, sourceId, targetIds, landmarks);
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = targetIds[i] < 0 ? -1 : (int) Math.min(found[i], Integer.MAX_VALUE);
+        }
+        return distances;
+    }
+
+    /**
+     * Method finds the shortest paths from node to every node of this snapshot reachable from it
+     *
+     * @param node                  source node
+     * @throws IllegalArgumentException if node does not exist
+     * @return Map<Node, Integer>   sum of the shortest weights of every node other than the source reachable from it
+     */
+    public Map<Node, Integer> findAllDistances(final Node node) {
+        final int id = idOf(node);
+        if (id < 0) {
+            throw new IllegalArgumentException("Node does not exist");
+        }
+        return ShortestPaths.reachable(this, id).mapValues(distance -> (int) Math.min(distance, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Method finds all the nodes of this snapshot that are closer to node than the given weight.
+     * Single source search bounded by the weight: nodes at or beyond the limit are never expanded,
+     * so the cost depends only on the neighbourhood within range.
+     *
+     * @param node          node
+     * @param weight        weight
+     * @throws IllegalArgumentException if node does not exist
+     * @return List<Node>   all nodes that are closer to node than the given weight
+     */
+    public List<Node> findAllCloserNodesThan(final Node node, final int weight) {
+        final int id = idOf(node);
+        if (id < 0) {
+            throw new IllegalArgumentException("Node does not exist");
+        }
+        return ShortestPaths.withinRadius(this, id, weight);
+    }
+}
@@ -0,0 +1,137 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * ALT (A*, landmarks, triangle inequality) index of one {@link GraphSnapshot}: exact distances from and to a few
+ * landmark nodes. For any landmark {@code L} the triangle inequality gives
+ * {@code d(v, t) >= d(L, t) - d(L, v)} and {@code d(v, t) >= d(v, L) - d(t, L)}, the maximum over all landmarks is a
+ * consistent A* potential. Distances are stored per node, landmark after landmark, so one bound reads two short
+ * contiguous runs.
+ */
+@Immutable
+final class LandmarkIndex {
+
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    /**
+     * Largest array length every JVM allocates
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final long version;
+    private final int[] landmarks;
+    private final long[] fromLandmark;
+    private final long[] toLandmark;
+
+    private LandmarkIndex(final long version, final int[] landmarks, final long[] fromLandmark, final long[] toLandmark) {
+        this.version = version;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Choose landmarks by farthest selection and run two complete searches per landmark.
+     * The next landmark is the node farthest from all chosen ones, nodes no landmark reaches in either direction
+     * first, so every weakly separated part of the graph gets a landmark while there are some left.
+     *
+     * @param graph     snapshot to index
+     * @param count     wanted number of landmarks, at most the number of nodes is used
+     * @throws IllegalArgumentException if the distances of all nodes to that many landmarks do not fit in an array
+     * @return LandmarkIndex    index valid for this snapshot only
+     */
+    static LandmarkIndex build(final GraphSnapshot graph, final int count) {
+        final int idBound = graph.idBound();
+        final int size = Math.min(count, graph.getNodeCount());
+        final long cells = (long) idBound * size;
+        checkArgument(cells <= MAX_ARRAY_LENGTH, "Too many nodes for %s landmarks: %s", size, idBound);
+        final int[] landmarks = new int[size];
+        final long[] fromLandmark = new long[(int) cells];
+        final long[] toLandmark = new long[(int) cells];
+        final long[] forward = new long[idBound];
+        final long[] backward = new long[idBound];
+        final long[] closest = new long[idBound];
+        Arrays.fill(closest, UNREACHABLE);
+        int next = firstNode(graph);
+        for (int k = 0; k < size; k++) {
+            landmarks[k] = next;
+            ShortestPaths.distances(graph, next, true, forward);
+            ShortestPaths.distances(graph, next, false, backward);
+            next = -1;
+            for (int id = 0; id < idBound; id++) {
+                fromLandmark[id * size + k] = forward[id];
+                toLandmark[id * size + k] = backward[id];
+                closest[id] = Math.min(closest[id], Math.min(forward[id], backward[id]));
+                if (graph.nodeAt(id) != null && (next < 0 || closest[id] > closest[next])) {
+                    next = id;
+                }
+            }
+        }
+        return new LandmarkIndex(graph.getVersion(), landmarks, fromLandmark, toLandmark);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * @return long  heap used by the distances of a single landmark
+     */
+    long getBytesPerLandmark() {
+        return landmarks.length == 0 ? 0 : 2L * Long.BYTES * fromLandmark.length / landmarks.length;
+    }
+
+    /**
+     * @return long  lower bound of the distance from node to target,
+     *               {@code Long.MAX_VALUE} if the landmarks prove target is not reachable from node
+     */
+    long lowerBound(final int node, final int target) {
+        long bound = 0;
+        for (int k = 0; k < landmarks.length && bound != UNREACHABLE; k++) {
+            bound = Math.max(bound, landmarkBound(node, target, k));
+        }
+        return bound;
+    }
+
+    /**
+     * Both triangle inequalities of landmark {@code k}. A landmark reaching node but not target, or reached from
+     * target but not from node, proves target is not reachable from node.
+     */
+    private long landmarkBound(final int node, final int target, final int k) {
+        final int nodeOffset = node * landmarks.length;
+        final int targetOffset = target * landmarks.length;
+        long bound = 0;
+        final long landmarkToNode = fromLandmark[nodeOffset + k];
+        if (landmarkToNode != UNREACHABLE) {
+            final long landmarkToTarget = fromLandmark[targetOffset + k];
+            if (landmarkToTarget == UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            bound = landmarkToTarget - landmarkToNode;
+        }
+        final long targetToLandmark = toLandmark[targetOffset + k];
+        if (targetToLandmark != UNREACHABLE) {
+            final long nodeToLandmark = toLandmark[nodeOffset + k];
+            if (nodeToLandmark == UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            bound = Math.max(bound, nodeToLandmark - targetToLandmark);
+        }
+        return bound;
+    }
+
+    private static int firstNode(final GraphSnapshot graph) {
+        int id = 0;
+        while (id < graph.idBound() && graph.nodeAt(id) == null) {
+            id++;
+        }
+        return id;
+    }
+}
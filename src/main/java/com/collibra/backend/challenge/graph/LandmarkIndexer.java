@@ -0,0 +1,74 @@
+package com.collibra.backend.challenge.graph;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds the {@link LandmarkIndex} on a background thread once no mutation arrived for the rebuild delay and
+ * attaches it to the snapshot it was built from. Every mutation while a rebuild is pending pushes it back, so a burst
+ * of mutations is indexed once after it is over; mutations arriving during a build schedule the next one.
+ * Queries on snapshots without index stay exact, they just use the plain search.
+ */
+@Slf4j
+@ThreadSafe
+final class LandmarkIndexer {
+
+    private final GraphEngine engine;
+    private final int landmarkCount;
+    private final long delayInMs;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long lastMutationNanos;
+
+    LandmarkIndexer(final GraphEngine engine, final int landmarkCount, final long delayInMs) {
+        this.engine = engine;
+        this.landmarkCount = landmarkCount;
+        this.delayInMs = delayInMs;
+        this.executor = landmarkCount > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "landmark-indexer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Called after every mutation, restarts the quiet period and schedules a rebuild unless one is pending already
+     */
+    void onMutation() {
+        if (executor == null) {
+            return;
+        }
+        lastMutationNanos = System.nanoTime();
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, delayInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild() {
+        final long remainingInNanos = TimeUnit.MILLISECONDS.toNanos(delayInMs) - (System.nanoTime() - lastMutationNanos);
+        if (remainingInNanos > 0) {
+            executor.schedule(this::rebuild, remainingInNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        scheduled.set(false);
+        final GraphSnapshot snapshot = engine.snapshot();
+        if (snapshot.landmarks() != null) {
+            return;
+        }
+        try {
+            final long start = System.nanoTime();
+            final LandmarkIndex index = LandmarkIndex.build(snapshot, landmarkCount);
+            snapshot.attach(index);
+            log.info("Landmark index of version {} built in {} ms: {} landmarks, {} bytes per landmark",
+                    index.getVersion(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    index.getLandmarkCount(), index.getBytesPerLandmark());
+        } catch (RuntimeException e) {
+            log.error("Can not build landmark index", e);
+        }
+    }
+}
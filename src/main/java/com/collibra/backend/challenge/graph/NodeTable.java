@@ -0,0 +1,102 @@
+package com.collibra.backend.challenge.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table interning nodes to int ids. Slots hold ids only, the node of an id is looked up
+ * in the node array of the owner, so the table costs one int per slot instead of an entry object per node.
+ */
+final class NodeTable {
+
+    private static final int EMPTY = -1;
+    private static final int DELETED = -2;
+    private static final int INITIAL_CAPACITY = 32;
+
+    private int[] slots = newSlots(INITIAL_CAPACITY);
+    private int size;
+    private int tombstones;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return int  id of the node, {@code -1} if node is not in the table
+     */
+    int find(final Node node, final Node[] nodes) {
+        return find(slots, nodes, node);
+    }
+
+    /**
+     * @param node  node which is not in the table yet
+     */
+    void insert(final Node node, final int id, final Node[] nodes) {
+        if ((size + tombstones + 1) * 2 > slots.length) {
+            rehash(nodes);
+        }
+        final int mask = slots.length - 1;
+        int slot = spread(node.hashCode()) & mask;
+        while (slots[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (slots[slot] == DELETED) {
+            tombstones--;
+        }
+        slots[slot] = id;
+        size++;
+    }
+
+    void remove(final Node node, final Node[] nodes) {
+        final int mask = slots.length - 1;
+        for (int slot = spread(node.hashCode()) & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            final int id = slots[slot];
+            if (id >= 0 && nodes[id].equals(node)) {
+                slots[slot] = DELETED;
+                size--;
+                tombstones++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return int[]    copy of the slots for a frozen snapshot, see {@link #find(int[], Node[], Node)}
+     */
+    int[] copySlots() {
+        return Arrays.copyOf(slots, slots.length);
+    }
+
+    static int find(final int[] slots, final Node[] nodes, final Node node) {
+        final int mask = slots.length - 1;
+        for (int slot = spread(node.hashCode()) & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            final int id = slots[slot];
+            if (id >= 0 && nodes[id].equals(node)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(final Node[] nodes) {
+        final int capacity = size * 4 > slots.length ? slots.length * 2 : slots.length;
+        final int[] oldSlots = slots;
+        slots = newSlots(capacity);
+        size = 0;
+        tombstones = 0;
+        for (int id : oldSlots) {
+            if (id >= 0) {
+                insert(nodes[id], id, nodes);
+            }
+        }
+    }
+
+    private static int[] newSlots(final int capacity) {
+        final int[] result = new int[capacity];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
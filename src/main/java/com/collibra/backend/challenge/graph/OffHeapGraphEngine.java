@@ -0,0 +1,857 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Engine keeping adjacency lists and node names outside the Java heap, in blocks of a {@link SlabAllocator}, so
+ * large graphs neither need a large heap nor add to the work of the garbage collector. The heap holds four longs per
+ * node id, the addresses of its blocks and the sizes of its lists, and a hash table of node ids, both in
+ * {@link SharedLongArray}s, plus the {@link PairSlots} of the lists longer than {@link AdjacencyList#SCAN_LIMIT},
+ * which find the entry of a pair without scanning the list like in the compact engine. Readers get an {@link OffHeapGraphSnapshot} which is frozen on the first query after a
+ * mutation like in the compact engine, but freezing copies chunk references only.
+ * <p>
+ * Blocks are copied on write as well. Edge blocks carry the epoch they were allocated in; a block of the current
+ * epoch is not visible to any snapshot and is changed in place. Older blocks may still get edges appended, beyond the
+ * sizes the snapshots know, anything else copies them. Replaced blocks and the blocks of removed nodes are freed once
+ * the garbage collector found every snapshot which could read them unreachable, and are reused by later allocations.
+ * <p>
+ * Edge block: {@code [long epoch][capacity node ids][capacity weights]}.
+ * Name block: {@code [int length << 1 | coder][chars]}, one byte per char if all are Latin-1, two otherwise.
+ */
+final class OffHeapGraphEngine implements GraphEngine {
+
+    static final int OUTGOING = 0;
+    static final int INCOMING = 1;
+    static final int NAME = 2;
+    static final int SIZES = 3;
+    static final int RECORD_LONGS = 4;
+    /**
+     * Free slots of the name hash table, live slots hold {@code spread(hash) << 32 | id}
+     */
+    static final long EMPTY = -1;
+    private static final long DELETED = -2;
+    private static final int INITIAL_SLOTS = 256;
+    private static final int DEFAULT_MAX_SLAB_BYTES = 64 << 20;
+    private static final int EDGE_HEADER_BYTES = Long.BYTES;
+    private static final int NAME_HEADER_BYTES = Integer.BYTES;
+
+    /**
+     * Guards everything below against a concurrent freeze
+     */
+    private final Lock lock = new ReentrantLock();
+    private final int maxSlabBytes;
+    private final Path directory;
+    private SlabAllocator store;
+    /**
+     * {@link #RECORD_LONGS} per node id: outgoing block, incoming block, name block or {@link SlabAllocator#NONE},
+     * and {@code outgoing size << 32 | incoming size}. Nodes without a name block are free ids.
+     */
+    private SharedLongArray records = new SharedLongArray(SlabAllocator.NONE);
+    private SharedLongArray slots = newSlots(INITIAL_SLOTS);
+    private int tombstones;
+    private int nodeCount;
+    private int[] freeIds = new int[INITIAL_SLOTS];
+    private int freeCount;
+    private int idBound;
+    /**
+     * {@link EdgeWeights#key} of the node pair -> weights, only for pairs with more than one edge
+     */
+    private Map<Long, EdgeWeights> parallel = HashMap.empty();
+    /**
+     * Entry indexes of the lists longer than {@link AdjacencyList#SCAN_LIMIT} per side, keyed by {@code (owner, node)}
+     */
+    private PairSlots[] entrySlots = {new PairSlots(), new PairSlots()};
+    private long version;
+    /**
+     * Incremented by every freeze, blocks allocated in the current epoch are owned by the writer
+     */
+    private long epoch;
+    /**
+     * Epoch -> reference of every snapshot not collected yet
+     */
+    private final TreeMap<Long, SnapshotReference> live = new TreeMap<>();
+    private final ReferenceQueue<OffHeapGraphSnapshot> collected = new ReferenceQueue<>();
+    /**
+     * {@code (address, epoch allocated, epoch retired)} of replaced or removed blocks which live snapshots may read,
+     * the snapshots of the epochs in between
+     */
+    private long[] retired = new long[3 * INITIAL_SLOTS];
+    private int retiredLength;
+    /**
+     * Frozen view of the current version, {@code null} after a mutation until the next query freezes it.
+     * Kept while a batch is applied, so queries see the version before the batch.
+     */
+    private volatile OffHeapGraphSnapshot published;
+    /**
+     * Set between {@link #beginBatch} and {@link #endBatch}
+     */
+    private boolean batch;
+
+    OffHeapGraphEngine() {
+        this(Integer.getInteger(DirectedGraph.OFF_HEAP_SLAB_BYTES_PROPERTY, DEFAULT_MAX_SLAB_BYTES),
+                System.getProperty(DirectedGraph.OFF_HEAP_DIRECTORY_PROPERTY) == null
+                        ? null : Paths.get(System.getProperty(DirectedGraph.OFF_HEAP_DIRECTORY_PROPERTY)));
+    }
+
+    /**
+     * @param maxSlabBytes  size slabs grow to, a power of two
+     * @param directory     directory for memory mapped slab files, {@code null} for direct buffers
+     */
+    OffHeapGraphEngine(final int maxSlabBytes, final Path directory) {
+        this.maxSlabBytes = maxSlabBytes;
+        this.directory = directory;
+        this.store = new SlabAllocator(maxSlabBytes, directory);
+    }
+
+    @Override
+    public GraphSnapshot snapshot() {
+        final OffHeapGraphSnapshot snapshot = published;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        lock.lock();
+        try {
+            if (published == null) {
+                published = freeze();
+            }
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsNode(final Node node) {
+        return idOf(node) >= 0;
+    }
+
+    @Override
+    public int idOf(final Node node) {
+        lock.lock();
+        try {
+            return find(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addNode(final Node node) {
+        lock.lock();
+        try {
+            if (find(node) >= 0) {
+                return false;
+            }
+            final int id = freeCount > 0 ? freeIds[--freeCount] : newId();
+            setRecord(id, NAME, writeName(store, node.getName()));
+            setRecord(id, OUTGOING, SlabAllocator.NONE);
+            setRecord(id, INCOMING, SlabAllocator.NONE);
+            setRecord(id, SIZES, 0);
+            if ((nodeCount + tombstones + 1) * 2 > slots.length()) {
+                rehash();
+            }
+            if (insert(slots, spread(node.hashCode()), id) == DELETED) {
+                tombstones--;
+            }
+            nodeCount++;
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addEdge(final Edge edge) {
+        lock.lock();
+        try {
+            final int source = find(edge.getSource());
+            final int target = find(edge.getTarget());
+            if (source < 0 || target < 0) {
+                return false;
+            }
+            if (source == target) {
+                return true;
+            }
+            final int weight = edge.getWeight();
+            final int index = indexOf(source, OUTGOING, target);
+            if (index < 0) {
+                append(source, OUTGOING, target, weight);
+                append(target, INCOMING, source, weight);
+            } else {
+                final int lightest = weight(store.slabs(), record(source, OUTGOING), index);
+                final long key = EdgeWeights.key(source, target);
+                parallel = parallel.put(key, parallel.get(key).getOrElse(() -> EdgeWeights.of(lightest)).with(weight));
+                if (weight < lightest) {
+                    putWeight(owned(source, OUTGOING), index, weight);
+                    final int incoming = indexOf(target, INCOMING, source);
+                    putWeight(owned(target, INCOMING), incoming, weight);
+                }
+            }
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeNode(final Node node) {
+        lock.lock();
+        try {
+            final int id = find(node);
+            if (id < 0) {
+                return false;
+            }
+            final long outgoing = record(id, OUTGOING);
+            for (int i = 0; i < size(id, OUTGOING); i++) {
+                final int target = node(store.slabs(), outgoing, i);
+                removeEntry(target, INCOMING, id);
+                forgetParallel(id, target);
+            }
+            final long incoming = record(id, INCOMING);
+            for (int i = 0; i < size(id, INCOMING); i++) {
+                final int source = node(store.slabs(), incoming, i);
+                removeEntry(source, OUTGOING, id);
+                forgetParallel(source, id);
+            }
+            for (int side = OUTGOING; side <= INCOMING; side++) {
+                if (size(id, side) > AdjacencyList.SCAN_LIMIT) {
+                    unindex(id, side, size(id, side));
+                }
+            }
+            release(outgoing);
+            release(incoming);
+            // name blocks do not record their epoch, any live snapshot may read it
+            retire(record(id, NAME), 0);
+            remove(spread(node.hashCode()), id);
+            setRecord(id, OUTGOING, SlabAllocator.NONE);
+            setRecord(id, INCOMING, SlabAllocator.NONE);
+            setRecord(id, NAME, SlabAllocator.NONE);
+            setRecord(id, SIZES, 0);
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+            nodeCount--;
+            changed();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeEdge(final Node source, final Node target) {
+        lock.lock();
+        try {
+            final int sourceId = find(source);
+            final int targetId = find(target);
+            if (sourceId < 0 || targetId < 0) {
+                return false;
+            }
+            if (removeEntry(sourceId, OUTGOING, targetId)) {
+                removeEntry(targetId, INCOMING, sourceId);
+                forgetParallel(sourceId, targetId);
+                changed();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds the new graph in a new allocator beside the old one, which is released with the last snapshot of it
+     */
+    @Override
+    public void load(final GraphImage image) {
+        final long loadEpoch;
+        lock.lock();
+        try {
+            loadEpoch = epoch;
+        } finally {
+            lock.unlock();
+        }
+        final Node[] imageNodes = image.getNodes();
+        final int count = imageNodes.length;
+        final SlabAllocator newStore = new SlabAllocator(maxSlabBytes, directory);
+        final SharedLongArray newRecords = new SharedLongArray(SlabAllocator.NONE);
+        newRecords.ensureLength(count * RECORD_LONGS);
+        final SharedLongArray newSlots = newSlots(slotCapacity(count));
+        for (int id = 0; id < count; id++) {
+            final Node node = imageNodes[id];
+            checkArgument(find(newSlots.chunks(), newRecords.chunks(), newStore.slabs(), node) < 0,
+                    "Graph image contains duplicate nodes");
+            newRecords.set(id * RECORD_LONGS + NAME, writeName(newStore, node.getName()));
+            insert(newSlots, spread(node.hashCode()), id);
+        }
+        // counting sort of the edges by source, parallel edges of a source collapsed at the front of its range
+        final int[] sources = image.getSources();
+        final int[] targets = image.getTargets();
+        final int[] weights = image.getWeights();
+        final int[] offsets = new int[count + 1];
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            if (sources[i] != targets[i]) {
+                offsets[sources[i] + 1]++;
+            }
+        }
+        for (int id = 0; id < count; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        final int[] sortedTargets = new int[offsets[count]];
+        final int[] sortedWeights = new int[offsets[count]];
+        final int[] sizes = Arrays.copyOf(offsets, count);
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            if (sources[i] != targets[i]) {
+                sortedTargets[sizes[sources[i]]] = targets[i];
+                sortedWeights[sizes[sources[i]]++] = weights[i];
+            }
+        }
+        final java.util.Map<Long, EdgeWeights> newParallel = new java.util.HashMap<>();
+        final int[] incomingSizes = new int[count];
+        // seenFrom[node] == id once the list of id has an entry of node, at index slot[node]
+        final int[] seenFrom = new int[count];
+        Arrays.fill(seenFrom, -1);
+        final int[] slot = new int[count];
+        long edgeCount = 0;
+        for (int id = 0; id < count; id++) {
+            int size = offsets[id];
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                final int node = sortedTargets[i];
+                if (seenFrom[node] != id) {
+                    seenFrom[node] = id;
+                    slot[node] = size;
+                    sortedTargets[size] = node;
+                    sortedWeights[size++] = sortedWeights[i];
+                    incomingSizes[node]++;
+                } else {
+                    final int lightest = sortedWeights[slot[node]];
+                    EdgeWeights.merge(newParallel, id, node, lightest, sortedWeights[i]);
+                    sortedWeights[slot[node]] = Math.min(lightest, sortedWeights[i]);
+                }
+            }
+            sizes[id] = size - offsets[id];
+            edgeCount += sizes[id];
+        }
+        EdgeWeights.mergeCounts(newParallel, image);
+        for (int id = 0; id < count; id++) {
+            final long outgoing = sizes[id] == 0 ? SlabAllocator.NONE : allocateEdges(newStore, sizes[id], loadEpoch);
+            final long incoming = incomingSizes[id] == 0 ? SlabAllocator.NONE : allocateEdges(newStore, incomingSizes[id], loadEpoch);
+            newRecords.set(id * RECORD_LONGS + OUTGOING, outgoing);
+            newRecords.set(id * RECORD_LONGS + INCOMING, incoming);
+            newRecords.set(id * RECORD_LONGS + SIZES, (long) sizes[id] << 32 | incomingSizes[id]);
+            incomingSizes[id] = 0;
+        }
+        final ByteBuffer[] slabs = newStore.slabs();
+        final PairSlots[] newEntrySlots = {new PairSlots(), new PairSlots()};
+        for (int id = 0; id < count; id++) {
+            final long outgoing = newRecords.get(id * RECORD_LONGS + OUTGOING);
+            for (int i = 0; i < sizes[id]; i++) {
+                final int target = sortedTargets[offsets[id] + i];
+                final int weight = sortedWeights[offsets[id] + i];
+                putEdge(slabs, outgoing, i, target, weight);
+                if (sizes[id] > AdjacencyList.SCAN_LIMIT) {
+                    newEntrySlots[OUTGOING].put(EdgeWeights.key(id, target), i);
+                }
+                if (size(newRecords.get(target * RECORD_LONGS + SIZES), INCOMING) > AdjacencyList.SCAN_LIMIT) {
+                    newEntrySlots[INCOMING].put(EdgeWeights.key(target, id), incomingSizes[target]);
+                }
+                putEdge(slabs, newRecords.get(target * RECORD_LONGS + INCOMING), incomingSizes[target]++, id, weight);
+            }
+        }
+        lock.lock();
+        try {
+            store = newStore;
+            records = newRecords;
+            slots = newSlots;
+            tombstones = 0;
+            nodeCount = count;
+            freeCount = 0;
+            idBound = count;
+            parallel = HashMap.ofAll(newParallel);
+            entrySlots = newEntrySlots;
+            live.clear();
+            retiredLength = 0;
+            // at least one step, the image may replace a graph and cached answers of it must not be hit
+            version += 1 + idBound + edgeCount;
+            published = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return long  bytes of the blocks in use, including blocks waiting for snapshots to be collected
+     */
+    long usedBytes() {
+        lock.lock();
+        try {
+            reclaim();
+            return store.getUsedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return long  bytes of all slabs
+     */
+    long reservedBytes() {
+        lock.lock();
+        try {
+            return store.getReservedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Freezes the current version first unless a query did already, the batch must not be frozen half applied
+     */
+    @Override
+    public void beginBatch() {
+        lock.lock();
+        try {
+            if (published == null) {
+                published = freeze();
+            }
+            batch = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void endBatch() {
+        lock.lock();
+        try {
+            batch = false;
+            if (published.getVersion() != version) {
+                published = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void changed() {
+        version++;
+        if (!batch) {
+            published = null;
+        }
+        reclaim();
+    }
+
+    private OffHeapGraphSnapshot freeze() {
+        final OffHeapGraphSnapshot snapshot = new OffHeapGraphSnapshot(version, nodeCount, idBound, slots.freeze(),
+                records.freeze(), store.slabs(), parallel);
+        live.put(epoch, new SnapshotReference(snapshot, epoch, collected));
+        epoch++;
+        return snapshot;
+    }
+
+    /**
+     * Forget the collected snapshots and free the retired blocks no live snapshot can read. The garbage collector
+     * finds many snapshots unreachable at once, so the retired blocks are checked about once per collection.
+     */
+    private void reclaim() {
+        boolean forgotten = false;
+        Reference<? extends OffHeapGraphSnapshot> reference;
+        while ((reference = collected.poll()) != null) {
+            final long snapshotEpoch = ((SnapshotReference) reference).epoch;
+            if (live.get(snapshotEpoch) == reference) {
+                live.remove(snapshotEpoch);
+                forgotten = true;
+            }
+        }
+        if (!forgotten) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < retiredLength; i += 3) {
+            if (readable(retired[i + 1], retired[i + 2])) {
+                retired[kept++] = retired[i];
+                retired[kept++] = retired[i + 1];
+                retired[kept++] = retired[i + 2];
+            } else {
+                store.free(retired[i]);
+            }
+        }
+        retiredLength = kept;
+    }
+
+    /**
+     * @return boolean  {@code true} if a live snapshot frozen after the block was allocated and before it was
+     *                  retired may read it
+     */
+    private boolean readable(final long allocated, final long retiredIn) {
+        final Long reader = live.ceilingKey(allocated);
+        return reader != null && reader < retiredIn;
+    }
+
+    /**
+     * Free the block once no snapshot can read it, right away if none can. A snapshot promoted to the old generation
+     * of the heap only keeps the blocks it can read.
+     */
+    private void retire(final long block, final long allocated) {
+        if (!readable(allocated, epoch)) {
+            store.free(block);
+            return;
+        }
+        if (retiredLength == retired.length) {
+            retired = Arrays.copyOf(retired, retired.length * 2);
+        }
+        retired[retiredLength++] = block;
+        retired[retiredLength++] = allocated;
+        retired[retiredLength++] = epoch;
+    }
+
+    /**
+     * Retire the edge block, if there is one
+     */
+    private void release(final long block) {
+        if (block != SlabAllocator.NONE) {
+            retire(block, epochOf(store.slabs(), block));
+        }
+    }
+
+    private void forgetParallel(final int source, final int target) {
+        if (!parallel.isEmpty()) {
+            parallel = parallel.remove(EdgeWeights.key(source, target));
+        }
+    }
+
+    private int newId() {
+        records.ensureLength((idBound + 1) * RECORD_LONGS);
+        return idBound++;
+    }
+
+    private long record(final int id, final int field) {
+        return records.get(id * RECORD_LONGS + field);
+    }
+
+    private void setRecord(final int id, final int field, final long value) {
+        records.set(id * RECORD_LONGS + field, value);
+    }
+
+    private int size(final int id, final int side) {
+        return size(record(id, SIZES), side);
+    }
+
+    private void setSize(final int id, final int side, final int size) {
+        final long sizes = record(id, SIZES);
+        setRecord(id, SIZES, side == OUTGOING
+                ? (long) size << 32 | (sizes & 0xFFFFFFFFL)
+                : (sizes & 0xFFFFFFFF00000000L) | size);
+    }
+
+    private int indexOf(final int id, final int side, final int node) {
+        final int size = size(id, side);
+        if (size > AdjacencyList.SCAN_LIMIT) {
+            return entrySlots[side].get(EdgeWeights.key(id, node));
+        }
+        final ByteBuffer[] slabs = store.slabs();
+        final long block = record(id, side);
+        for (int i = 0; i < size; i++) {
+            if (node(slabs, block, i) == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Append in place while the block has room, snapshots sharing it do not read beyond their sizes.
+     * A list growing beyond {@link AdjacencyList#SCAN_LIMIT} gets its entries indexed.
+     */
+    private void append(final int id, final int side, final int node, final int weight) {
+        long block = record(id, side);
+        final int size = size(id, side);
+        if (block == SlabAllocator.NONE || size == capacity(block)) {
+            final long grown = allocateEdges(store, size + 1, epoch);
+            copyEdges(block, grown, size);
+            release(block);
+            block = grown;
+            setRecord(id, side, block);
+        }
+        putEdge(store.slabs(), block, size, node, weight);
+        setSize(id, side, size + 1);
+        if (size == AdjacencyList.SCAN_LIMIT) {
+            index(id, side, size + 1);
+        } else if (size > AdjacencyList.SCAN_LIMIT) {
+            entrySlots[side].put(EdgeWeights.key(id, node), size);
+        }
+    }
+
+    private void index(final int id, final int side, final int size) {
+        final ByteBuffer[] slabs = store.slabs();
+        final long block = record(id, side);
+        for (int i = 0; i < size; i++) {
+            entrySlots[side].put(EdgeWeights.key(id, node(slabs, block, i)), i);
+        }
+    }
+
+    private void unindex(final int id, final int side, final int size) {
+        final ByteBuffer[] slabs = store.slabs();
+        final long block = record(id, side);
+        for (int i = 0; i < size; i++) {
+            entrySlots[side].remove(EdgeWeights.key(id, node(slabs, block, i)));
+        }
+    }
+
+    /**
+     * Remove the entry of the node, the last entry takes its place. A list shrinking to
+     * {@link AdjacencyList#SCAN_LIMIT} is scanned again, its entries are taken out of the index.
+     *
+     * @return boolean  {@code false} if there is none
+     */
+    private boolean removeEntry(final int id, final int side, final int node) {
+        final int index = indexOf(id, side, node);
+        if (index < 0) {
+            return false;
+        }
+        final int last = size(id, side) - 1;
+        if (last == 0) {
+            release(record(id, side));
+            setRecord(id, side, SlabAllocator.NONE);
+        } else {
+            // copied even to drop the last entry, an append in place would overwrite it for snapshots sharing the block
+            final long block = owned(id, side);
+            final ByteBuffer[] slabs = store.slabs();
+            final int moved = node(slabs, block, last);
+            putEdge(slabs, block, index, moved, weight(slabs, block, last));
+            if (last >= AdjacencyList.SCAN_LIMIT) {
+                entrySlots[side].remove(EdgeWeights.key(id, node));
+                if (last == AdjacencyList.SCAN_LIMIT) {
+                    unindex(id, side, last);
+                } else if (index != last) {
+                    entrySlots[side].put(EdgeWeights.key(id, moved), index);
+                }
+            }
+        }
+        setSize(id, side, last);
+        return true;
+    }
+
+    /**
+     * @return long     edge block of the node which no snapshot reads, copied if needed
+     */
+    private long owned(final int id, final int side) {
+        final long block = record(id, side);
+        if (epochOf(store.slabs(), block) == epoch) {
+            return block;
+        }
+        final long copy = allocateEdges(store, capacity(block), epoch);
+        copyEdges(block, copy, size(id, side));
+        release(block);
+        setRecord(id, side, copy);
+        return copy;
+    }
+
+    private void copyEdges(final long from, final long to, final int size) {
+        final ByteBuffer[] slabs = store.slabs();
+        for (int i = 0; i < size; i++) {
+            putEdge(slabs, to, i, node(slabs, from, i), weight(slabs, from, i));
+        }
+    }
+
+    private void putWeight(final long block, final int index, final int weight) {
+        SlabAllocator.slab(store.slabs(), block).putInt(weightOffset(block, index), weight);
+    }
+
+    private int find(final Node node) {
+        return find(slots.chunks(), records.chunks(), store.slabs(), node);
+    }
+
+    private void remove(final int hash, final int id) {
+        final int mask = slots.length() - 1;
+        for (int slot = hash & mask; slots.get(slot) != EMPTY; slot = (slot + 1) & mask) {
+            if ((int) slots.get(slot) == id) {
+                slots.set(slot, DELETED);
+                tombstones++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rehash into a new table, twice as large unless tombstones filled it. Snapshots keep the old one.
+     */
+    private void rehash() {
+        final SharedLongArray old = slots;
+        slots = newSlots(nodeCount * 4 > old.length() ? old.length() * 2 : old.length());
+        tombstones = 0;
+        for (int slot = 0; slot < old.length(); slot++) {
+            final long entry = old.get(slot);
+            if ((int) entry >= 0) {
+                insert(slots, (int) (entry >>> 32), (int) entry);
+            }
+        }
+    }
+
+    /**
+     * @return long  previous content of the slot taken, {@link #EMPTY} or {@link #DELETED}
+     */
+    private static long insert(final SharedLongArray slots, final int hash, final int id) {
+        final int mask = slots.length() - 1;
+        int slot = hash & mask;
+        while ((int) slots.get(slot) >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        final long previous = slots.get(slot);
+        slots.set(slot, (long) hash << 32 | id);
+        return previous;
+    }
+
+    private static SharedLongArray newSlots(final int capacity) {
+        final SharedLongArray slots = new SharedLongArray(EMPTY);
+        slots.ensureLength(capacity);
+        return slots;
+    }
+
+    /**
+     * @return int  table capacity keeping the load below a half
+     */
+    private static int slotCapacity(final int nodeCount) {
+        int capacity = INITIAL_SLOTS;
+        while (capacity < 2 * (nodeCount + 1)) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return int  id of the node in the frozen or current arrays, {@code -1} if node does not exist
+     */
+    static int find(final long[][] slots, final long[][] records, final ByteBuffer[] slabs, final Node node) {
+        final int hash = spread(node.hashCode());
+        final int mask = SharedLongArray.length(slots) - 1;
+        long entry;
+        for (int slot = hash & mask; (entry = SharedLongArray.get(slots, slot)) != EMPTY; slot = (slot + 1) & mask) {
+            final int id = (int) entry;
+            if (id >= 0 && (int) (entry >>> 32) == hash
+                    && nameEquals(slabs, SharedLongArray.get(records, id * RECORD_LONGS + NAME), node.getName())) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    static int size(final long sizes, final int side) {
+        return side == OUTGOING ? (int) (sizes >>> 32) : (int) sizes;
+    }
+
+    static int node(final ByteBuffer[] slabs, final long block, final int index) {
+        return SlabAllocator.slab(slabs, block).getInt(SlabAllocator.offset(block) + EDGE_HEADER_BYTES + index * Integer.BYTES);
+    }
+
+    static int weight(final ByteBuffer[] slabs, final long block, final int index) {
+        return SlabAllocator.slab(slabs, block).getInt(weightOffset(block, index));
+    }
+
+    static String readName(final ByteBuffer[] slabs, final long block) {
+        final ByteBuffer slab = SlabAllocator.slab(slabs, block);
+        final int offset = SlabAllocator.offset(block) + NAME_HEADER_BYTES;
+        final int header = slab.getInt(SlabAllocator.offset(block));
+        final char[] chars = new char[header >>> 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (header & 1) == 0 ? (char) (slab.get(offset + i) & 0xFF) : slab.getChar(offset + i * Character.BYTES);
+        }
+        return new String(chars);
+    }
+
+    private static boolean nameEquals(final ByteBuffer[] slabs, final long block, final String name) {
+        final ByteBuffer slab = SlabAllocator.slab(slabs, block);
+        final int offset = SlabAllocator.offset(block) + NAME_HEADER_BYTES;
+        final int header = slab.getInt(SlabAllocator.offset(block));
+        if (header >>> 1 != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            final char stored = (header & 1) == 0 ? (char) (slab.get(offset + i) & 0xFF) : slab.getChar(offset + i * Character.BYTES);
+            if (stored != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long writeName(final SlabAllocator store, final String name) {
+        boolean latin1 = true;
+        for (int i = 0; i < name.length() && latin1; i++) {
+            latin1 = name.charAt(i) <= 0xFF;
+        }
+        final long block = store.allocate(NAME_HEADER_BYTES + name.length() * (latin1 ? 1 : Character.BYTES));
+        final ByteBuffer slab = SlabAllocator.slab(store.slabs(), block);
+        final int offset = SlabAllocator.offset(block) + NAME_HEADER_BYTES;
+        slab.putInt(SlabAllocator.offset(block), name.length() << 1 | (latin1 ? 0 : 1));
+        for (int i = 0; i < name.length(); i++) {
+            if (latin1) {
+                slab.put(offset + i, (byte) name.charAt(i));
+            } else {
+                slab.putChar(offset + i * Character.BYTES, name.charAt(i));
+            }
+        }
+        return block;
+    }
+
+    /**
+     * @return long  edge block with room for at least the given edges, owned in the epoch
+     */
+    private static long allocateEdges(final SlabAllocator store, final int capacity, final long epoch) {
+        final long block = store.allocate(EDGE_HEADER_BYTES + capacity * 2 * Integer.BYTES);
+        SlabAllocator.slab(store.slabs(), block).putLong(SlabAllocator.offset(block), epoch);
+        return block;
+    }
+
+    private static long epochOf(final ByteBuffer[] slabs, final long block) {
+        return SlabAllocator.slab(slabs, block).getLong(SlabAllocator.offset(block));
+    }
+
+    private static int capacity(final long block) {
+        return (SlabAllocator.blockBytes(block) - EDGE_HEADER_BYTES) / (2 * Integer.BYTES);
+    }
+
+    private static int weightOffset(final long block, final int index) {
+        return SlabAllocator.offset(block) + EDGE_HEADER_BYTES + (capacity(block) + index) * Integer.BYTES;
+    }
+
+    private static void putEdge(final ByteBuffer[] slabs, final long block, final int index, final int node, final int weight) {
+        final ByteBuffer slab = SlabAllocator.slab(slabs, block);
+        slab.putInt(SlabAllocator.offset(block) + EDGE_HEADER_BYTES + index * Integer.BYTES, node);
+        slab.putInt(weightOffset(block, index), weight);
+    }
+
+    /**
+     * Enqueued once the snapshot is unreachable, none of its blocks is read any more
+     */
+    private static final class SnapshotReference extends PhantomReference<OffHeapGraphSnapshot> {
+
+        private final long epoch;
+
+        SnapshotReference(final OffHeapGraphSnapshot snapshot, final long epoch,
+                          final ReferenceQueue<OffHeapGraphSnapshot> queue) {
+            super(snapshot, queue);
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.Map;
+
+import javax.annotation.concurrent.Immutable;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+
+import static com.collibra.backend.challenge.graph.OffHeapGraphEngine.INCOMING;
+import static com.collibra.backend.challenge.graph.OffHeapGraphEngine.NAME;
+import static com.collibra.backend.challenge.graph.OffHeapGraphEngine.OUTGOING;
+import static com.collibra.backend.challenge.graph.OffHeapGraphEngine.RECORD_LONGS;
+import static com.collibra.backend.challenge.graph.OffHeapGraphEngine.SIZES;
+
+/**
+ * Snapshot of the {@link OffHeapGraphEngine}: frozen chunks of its node records and name table, and the slabs
+ * holding the blocks they point to. Edges are copied into the scratch arrays of the {@link Adjacency}, nodes are
+ * decoded from their names on every {@link #nodeAt} call. The engine reuses the blocks only once the garbage collector
+ * found this snapshot unreachable, so every method reading them keeps it reachable until it is done.
+ */
+@Immutable
+final class OffHeapGraphSnapshot extends GraphSnapshot {
+
+    private final long version;
+    private final int nodeCount;
+    private final int idBound;
+    private final long[][] slots;
+    private final long[][] records;
+    private final ByteBuffer[] slabs;
+    /**
+     * {@link EdgeWeights#key} of the node pair -> weights, only for pairs with more than one edge
+     */
+    private final Map<Long, EdgeWeights> parallel;
+
+    OffHeapGraphSnapshot(final long version, final int nodeCount, final int idBound, final long[][] slots,
+                         final long[][] records, final ByteBuffer[] slabs, final Map<Long, EdgeWeights> parallel) {
+        this.version = version;
+        this.nodeCount = nodeCount;
+        this.idBound = idBound;
+        this.slots = slots;
+        this.records = records;
+        this.slabs = slabs;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    int idOf(final Node node) {
+        try {
+            return OffHeapGraphEngine.find(slots, records, slabs, node);
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    @Override
+    Node nodeAt(final int id) {
+        final long name = SharedLongArray.get(records, id * RECORD_LONGS + NAME);
+        if (name == SlabAllocator.NONE) {
+            return null;
+        }
+        try {
+            return new Node(OffHeapGraphEngine.readName(slabs, name));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    @Override
+    int idBound() {
+        return idBound;
+    }
+
+    @Override
+    void outgoing(final int id, final Adjacency adjacency) {
+        copyEdges(id, OUTGOING, adjacency);
+    }
+
+    @Override
+    void incoming(final int id, final Adjacency adjacency) {
+        copyEdges(id, INCOMING, adjacency);
+    }
+
+    @Override
+    EdgeWeights parallelEdges(final int source, final int target) {
+        return parallel.isEmpty() ? null : parallel.get(EdgeWeights.key(source, target)).getOrNull();
+    }
+
+    private void copyEdges(final int id, final int side, final Adjacency adjacency) {
+        final int size = OffHeapGraphEngine.size(SharedLongArray.get(records, id * RECORD_LONGS + SIZES), side);
+        adjacency.reserve(size);
+        if (size == 0) {
+            return;
+        }
+        final long block = SharedLongArray.get(records, id * RECORD_LONGS + side);
+        try {
+            for (int i = 0; i < size; i++) {
+                adjacency.nodes[i] = OffHeapGraphEngine.node(slabs, block, i);
+                adjacency.weights[i] = OffHeapGraphEngine.weight(slabs, block, i);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table from a node pair, {@link EdgeWeights#key}{@code (owner, node)}, to the index of the
+ * entry of the node in an adjacency list of the owner. Engines keep it only for lists longer than
+ * {@link AdjacencyList#SCAN_LIMIT} and scan the shorter ones, so adding an edge costs the same at any degree.
+ * Linear probing with backward shift deletion, removals leave no tombstones behind.
+ */
+@NotThreadSafe
+final class PairSlots {
+
+    static final int NONE = -1;
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return int  index of the entry of the pair, {@link #NONE} if the pair is not in the table
+     */
+    int get(final long key) {
+        final int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slots[slot];
+            }
+        }
+        return NONE;
+    }
+
+    void put(final long key, final int index) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        slots[slot] = index;
+    }
+
+    void remove(final long key) {
+        final int mask = keys.length - 1;
+        int hole = hash(key) & mask;
+        while (keys[hole] != key) {
+            if (keys[hole] == EMPTY) {
+                return;
+            }
+            hole = (hole + 1) & mask;
+        }
+        // pull back every following key of the run which may not sit behind the hole
+        for (int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            final int home = hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        if (size * 8 < keys.length && keys.length > INITIAL_CAPACITY) {
+            resize(keys.length / 2);
+        }
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldSlots = slots;
+        keys = newKeys(capacity);
+        slots = new int[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                put(oldKeys[slot], oldSlots[slot]);
+            }
+        }
+    }
+
+    private static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static long[] newKeys(final int capacity) {
+        final long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
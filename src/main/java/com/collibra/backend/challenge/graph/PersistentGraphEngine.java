@@ -0,0 +1,97 @@
+package com.collibra.backend.challenge.graph;
+
+/**
+ * Engine publishing a new {@link PersistentGraphSnapshot} after every mutation, or once after a batch of them
+ */
+final class PersistentGraphEngine implements GraphEngine {
+
+    private volatile PersistentGraphSnapshot snapshot = PersistentGraphSnapshot.EMPTY;
+    /**
+     * Latest version, ahead of the published {@link #snapshot} while a batch is applied
+     */
+    private PersistentGraphSnapshot current = PersistentGraphSnapshot.EMPTY;
+    private boolean batch;
+
+    @Override
+    public GraphSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean containsNode(final Node node) {
+        return current.containsNode(node);
+    }
+
+    @Override
+    public int idOf(final Node node) {
+        return current.idOf(node);
+    }
+
+    @Override
+    public boolean addNode(final Node node) {
+        if (current.containsNode(node)) {
+            return false;
+        }
+        publish(current.withNode(node));
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(final Edge edge) {
+        final int source = current.idOf(edge.getSource());
+        final int target = current.idOf(edge.getTarget());
+        if (source < 0 || target < 0) {
+            return false;
+        }
+        if (source != target) {
+            publish(current.withEdge(source, target, edge.getWeight()));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeNode(final Node node) {
+        final int id = current.idOf(node);
+        if (id < 0) {
+            return false;
+        }
+        publish(current.withoutNode(id));
+        return true;
+    }
+
+    @Override
+    public boolean removeEdge(final Node source, final Node target) {
+        final int sourceId = current.idOf(source);
+        final int targetId = current.idOf(target);
+        if (sourceId < 0 || targetId < 0) {
+            return false;
+        }
+        if (current.containsEdges(sourceId, targetId)) {
+            publish(current.withoutEdges(sourceId, targetId));
+        }
+        return true;
+    }
+
+    @Override
+    public void load(final GraphImage image) {
+        publish(PersistentGraphSnapshot.of(current.getVersion(), image));
+    }
+
+    @Override
+    public void beginBatch() {
+        batch = true;
+    }
+
+    @Override
+    public void endBatch() {
+        batch = false;
+        snapshot = current;
+    }
+
+    private void publish(final PersistentGraphSnapshot next) {
+        current = next;
+        if (!batch) {
+            snapshot = next;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Vector;
+
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Snapshot kept in persistent collections: a mutation copies only the edge lists of the nodes it touches
+ * plus O(log n) trie nodes, and shares everything else with the previous version.
+ */
+@Immutable
+final class PersistentGraphSnapshot extends GraphSnapshot {
+
+    static final PersistentGraphSnapshot EMPTY = new PersistentGraphSnapshot(0, HashMap.empty(), Vector.empty(),
+            Vector.empty(), Vector.empty(), HashMap.empty(), List.empty());
+
+    private final long version;
+    private final Map<Node, Integer> ids;
+    /**
+     * id -> node, {@code null} for ids of removed nodes
+     */
+    private final Vector<Node> nodes;
+    private final Vector<AdjacencyList> outgoing;
+    private final Vector<AdjacencyList> incoming;
+    /**
+     * {@link EdgeWeights#key} of the node pair -> weights, only for pairs with more than one edge
+     */
+    private final Map<Long, EdgeWeights> parallel;
+    private final List<Integer> freeIds;
+
+    private PersistentGraphSnapshot(final long version, final Map<Node, Integer> ids, final Vector<Node> nodes,
+                                    final Vector<AdjacencyList> outgoing, final Vector<AdjacencyList> incoming,
+                                    final Map<Long, EdgeWeights> parallel, final List<Integer> freeIds) {
+        this.version = version;
+        this.ids = ids;
+        this.nodes = nodes;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.parallel = parallel;
+        this.freeIds = freeIds;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return ids.size();
+    }
+
+    @Override
+    int idOf(final Node node) {
+        return ids.get(node).getOrElse(-1);
+    }
+
+    @Override
+    Node nodeAt(final int id) {
+        return nodes.get(id);
+    }
+
+    @Override
+    int idBound() {
+        return nodes.size();
+    }
+
+    @Override
+    void outgoing(final int id, final Adjacency adjacency) {
+        outgoing.get(id).fill(adjacency);
+    }
+
+    @Override
+    void incoming(final int id, final Adjacency adjacency) {
+        incoming.get(id).fill(adjacency);
+    }
+
+    @Override
+    EdgeWeights parallelEdges(final int source, final int target) {
+        return parallel.isEmpty() ? null : parallel.get(EdgeWeights.key(source, target)).getOrNull();
+    }
+
+    /**
+     * Snapshot of a whole image, built without the intermediate version of every single mutation
+     *
+     * @param baseVersion   version the image is applied on, versions stay increasing for the query cache
+     */
+    static PersistentGraphSnapshot of(final long baseVersion, final GraphImage image) {
+        final Node[] nodeArray = image.getNodes();
+        Map<Node, Integer> ids = HashMap.empty();
+        for (int id = 0; id < nodeArray.length; id++) {
+            ids = ids.put(nodeArray[id], id);
+        }
+        checkArgument(ids.size() == nodeArray.length, "Graph image contains duplicate nodes");
+        final java.util.Map<Long, EdgeWeights> parallel = new java.util.HashMap<>();
+        final AdjacencyList[] outgoing = AdjacencyList.group(nodeArray.length, image.getEdgeCount(),
+                image.getSources(), image.getTargets(), image.getWeights(), parallel);
+        EdgeWeights.mergeCounts(parallel, image);
+        final AdjacencyList[] incoming = AdjacencyList.group(nodeArray.length, image.getEdgeCount(),
+                image.getTargets(), image.getSources(), image.getWeights(), null);
+        long edgeCount = 0;
+        for (AdjacencyList list : outgoing) {
+            edgeCount += list.size();
+        }
+        return new PersistentGraphSnapshot(baseVersion + 1 + nodeArray.length + edgeCount, ids, Vector.of(nodeArray),
+                Vector.of(outgoing), Vector.of(incoming), HashMap.ofAll(parallel), List.empty());
+    }
+
+    PersistentGraphSnapshot withNode(final Node node) {
+        if (freeIds.isEmpty()) {
+            return new PersistentGraphSnapshot(version + 1, ids.put(node, nodes.size()), nodes.append(node),
+                    outgoing.append(AdjacencyList.EMPTY), incoming.append(AdjacencyList.EMPTY), parallel, freeIds);
+        }
+        final int id = freeIds.head();
+        return new PersistentGraphSnapshot(version + 1, ids.put(node, id), nodes.update(id, node),
+                outgoing, incoming, parallel, freeIds.tail());
+    }
+
+    /**
+     * An edge parallel to an existing one only joins the weights of the pair, the adjacency entry changes
+     * if it is lighter than all before
+     */
+    PersistentGraphSnapshot withEdge(final int source, final int target, final int weight) {
+        final AdjacencyList targets = outgoing.get(source);
+        final int index = targets.indexOf(target);
+        if (index < 0) {
+            return new PersistentGraphSnapshot(version + 1, ids, nodes,
+                    outgoing.update(source, targets.with(target, weight)),
+                    incoming.update(target, incoming.get(target).with(source, weight)),
+                    parallel, freeIds);
+        }
+        final int lightest = targets.weight(index);
+        final long key = EdgeWeights.key(source, target);
+        final Map<Long, EdgeWeights> newParallel = parallel.put(key,
+                parallel.get(key).getOrElse(() -> EdgeWeights.of(lightest)).with(weight));
+        if (weight >= lightest) {
+            return new PersistentGraphSnapshot(version + 1, ids, nodes, outgoing, incoming, newParallel, freeIds);
+        }
+        final AdjacencyList sources = incoming.get(target);
+        return new PersistentGraphSnapshot(version + 1, ids, nodes,
+                outgoing.update(source, targets.withWeight(index, weight)),
+                incoming.update(target, sources.withWeight(sources.indexOf(source), weight)),
+                newParallel, freeIds);
+    }
+
+    PersistentGraphSnapshot withoutNode(final int id) {
+        Vector<AdjacencyList> newOutgoing = outgoing;
+        Map<Long, EdgeWeights> newParallel = parallel;
+        final AdjacencyList sources = incoming.get(id);
+        for (int i = 0; i < sources.size(); i++) {
+            final int source = sources.node(i);
+            newOutgoing = newOutgoing.update(source, newOutgoing.get(source).without(id));
+            newParallel = newParallel.remove(EdgeWeights.key(source, id));
+        }
+        Vector<AdjacencyList> newIncoming = incoming;
+        final AdjacencyList targets = outgoing.get(id);
+        for (int i = 0; i < targets.size(); i++) {
+            final int target = targets.node(i);
+            newIncoming = newIncoming.update(target, newIncoming.get(target).without(id));
+            newParallel = newParallel.remove(EdgeWeights.key(id, target));
+        }
+        return new PersistentGraphSnapshot(version + 1, ids.remove(nodes.get(id)), nodes.update(id, (Node) null),
+                newOutgoing.update(id, AdjacencyList.EMPTY), newIncoming.update(id, AdjacencyList.EMPTY),
+                newParallel, freeIds.prepend(id));
+    }
+
+    boolean containsEdges(final int source, final int target) {
+        return outgoing.get(source).contains(target);
+    }
+
+    PersistentGraphSnapshot withoutEdges(final int source, final int target) {
+        return new PersistentGraphSnapshot(version + 1, ids, nodes,
+                outgoing.update(source, outgoing.get(source).without(target)),
+                incoming.update(target, incoming.get(target).without(source)),
+                parallel.remove(EdgeWeights.key(source, target)), freeIds);
+    }
+}
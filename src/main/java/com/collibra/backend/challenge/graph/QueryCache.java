@@ -0,0 +1,77 @@
+package com.collibra.backend.challenge.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.vavr.collection.List;
+import lombok.Value;
+
+/**
+ * Bounded cache of query results. Keys carry the version of the snapshot the answer was computed on, so a mutation
+ * invalidates all previous answers at once without touching the cache: entries of old versions are never hit again
+ * and age out through the LRU eviction.
+ */
+final class QueryCache {
+
+    private static final int ENTRY_OVERHEAD_IN_BYTES = 160;
+    private static final int LIST_ELEMENT_IN_BYTES = 24;
+
+    private final Cache<QueryKey, Object> cache;
+
+    QueryCache(final long maxBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(QueryCache::estimateBytes)
+                .recordStats()
+                .build();
+    }
+
+    int findTheShortestPath(final GraphSnapshot snapshot, final Node source, final Node target) {
+        final QueryKey key = new QueryKey(snapshot.getVersion(), QueryType.SHORTEST_PATH, source, target, 0);
+        final Integer cached = (Integer) cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final int result = snapshot.findTheShortestPath(source, target);
+        cache.put(key, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Node> findAllCloserNodesThan(final GraphSnapshot snapshot, final Node node, final int weight) {
+        final QueryKey key = new QueryKey(snapshot.getVersion(), QueryType.CLOSER_THAN, node, null, weight);
+        final List<Node> cached = (List<Node>) cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final List<Node> result = snapshot.findAllCloserNodesThan(node, weight);
+        cache.put(key, result);
+        return result;
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static int estimateBytes(final QueryKey key, final Object value) {
+        if (value instanceof List) {
+            return ENTRY_OVERHEAD_IN_BYTES + LIST_ELEMENT_IN_BYTES * ((List<?>) value).size();
+        }
+        return ENTRY_OVERHEAD_IN_BYTES;
+    }
+
+    private enum QueryType {
+        SHORTEST_PATH,
+        CLOSER_THAN
+    }
+
+    @Value
+    private static class QueryKey {
+
+        private final long version;
+        private final QueryType type;
+        private final Node source;
+        private final Node target;
+        private final int weight;
+    }
+}
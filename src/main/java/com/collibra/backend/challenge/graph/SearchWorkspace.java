@@ -0,0 +1,174 @@
+package com.collibra.backend.challenge.graph;
+
+import java.util.Arrays;
+
+/**
+ * State of one Dijkstra or A* search: tentative distances, heap priorities (equal to distances unless
+ * an A* potential is added) and an indexed binary min-heap of node ids ordered by priority.
+ * Arrays are reused between searches and invalidated by bumping an epoch instead of clearing them,
+ * so a search allocates nothing once the arrays have grown to the graph size. Used by one search at a time.
+ */
+final class SearchWorkspace {
+
+    private static final int NOT_IN_HEAP = -1;
+
+    final Adjacency adjacency = new Adjacency();
+    private long[] distance = new long[0];
+    private long[] priority = new long[0];
+    private int[] reachedEpoch = new int[0];
+    private int[] heapPosition = new int[0];
+    private int[] heap = new int[0];
+    private int heapSize;
+    private int epoch;
+    private int settled;
+
+    /**
+     * Forget the previous search and make room for node ids below {@code idBound}
+     */
+    void reset(final int idBound) {
+        for (int i = 0; i < heapSize; i++) {
+            heapPosition[heap[i]] = NOT_IN_HEAP;
+        }
+        heapSize = 0;
+        settled = 0;
+        if (distance.length < idBound) {
+            final int capacity = Math.max(idBound, distance.length * 2);
+            distance = Arrays.copyOf(distance, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            reachedEpoch = Arrays.copyOf(reachedEpoch, capacity);
+            final int oldLength = heapPosition.length;
+            heapPosition = Arrays.copyOf(heapPosition, capacity);
+            Arrays.fill(heapPosition, oldLength, capacity, NOT_IN_HEAP);
+            heap = new int[capacity];
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(reachedEpoch, 0);
+            epoch = 1;
+        }
+    }
+
+    boolean isReached(final int id) {
+        return reachedEpoch[id] == epoch;
+    }
+
+    /**
+     * @return boolean  {@code true} if the node was polled, so its distance is final
+     */
+    boolean isSettled(final int id) {
+        return reachedEpoch[id] == epoch && heapPosition[id] == NOT_IN_HEAP;
+    }
+
+    /**
+     * @return long  tentative distance, final once the node was polled
+     */
+    long distance(final int id) {
+        return distance[id];
+    }
+
+    /**
+     * Record a path of the given length to the node, keeping the shorter one
+     *
+     * @return boolean  {@code true} if the distance of the node improved
+     */
+    boolean offer(final int id, final long newDistance) {
+        return offer(id, newDistance, newDistance);
+    }
+
+    /**
+     * Record a path of the given length to the node, queued by the given priority
+     *
+     * @param newPriority   heap key, must shrink whenever the distance of the node shrinks
+     * @return boolean      {@code true} if the distance of the node improved
+     */
+    boolean offer(final int id, final long newDistance, final long newPriority) {
+        if (reachedEpoch[id] != epoch) {
+            reachedEpoch[id] = epoch;
+            distance[id] = newDistance;
+            priority[id] = newPriority;
+            heap[heapSize] = id;
+            heapPosition[id] = heapSize;
+            siftUp(heapSize++);
+            return true;
+        }
+        if (newDistance < distance[id] && heapPosition[id] != NOT_IN_HEAP) {
+            distance[id] = newDistance;
+            priority[id] = newPriority;
+            siftUp(heapPosition[id]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return int  number of nodes polled since the last reset
+     */
+    int settled() {
+        return settled;
+    }
+
+    boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * @return long  priority of the first queued node, its distance for searches without potential
+     */
+    long peekDistance() {
+        return priority[heap[0]];
+    }
+
+    /**
+     * Remove the closest queued node, its distance is final
+     *
+     * @return int  id of the removed node
+     */
+    int poll() {
+        settled++;
+        final int result = heap[0];
+        heapPosition[result] = NOT_IN_HEAP;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPosition[heap[0]] = 0;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int position) {
+        final int id = heap[position];
+        final long key = priority[id];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (priority[heap[parent]] <= key) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(id, position);
+    }
+
+    private void siftDown(int position) {
+        final int id = heap[position];
+        final long key = priority[id];
+        final int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < heapSize && priority[heap[child + 1]] < priority[heap[child]]) {
+                child++;
+            }
+            if (key <= priority[heap[child]]) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(id, position);
+    }
+
+    private void move(final int id, final int position) {
+        heap[position] = id;
+        heapPosition[id] = position;
+    }
+}
@@ -0,0 +1,96 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * Growable long array in fixed size chunks, copied on write chunk by chunk so frozen copies share every chunk the
+ * writer did not touch since. {@link #freeze} copies the chunk references only and starts a new epoch; the first
+ * write to a chunk in an epoch copies that chunk. Frozen copies are read with {@link #get(long[][], int)}.
+ */
+@NotThreadSafe
+final class SharedLongArray {
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long fill;
+    private long[][] chunks = new long[0][];
+    /**
+     * Epoch the chunk was created or copied in, the writer owns the chunks of the current epoch
+     */
+    private long[] chunkEpochs = new long[0];
+    private long epoch;
+
+    /**
+     * @param fill  value of every element never set
+     */
+    SharedLongArray(final long fill) {
+        this.fill = fill;
+    }
+
+    static long get(final long[][] chunks, final int index) {
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    /**
+     * @return int  number of elements of frozen chunks
+     */
+    static int length(final long[][] chunks) {
+        return chunks.length << CHUNK_BITS;
+    }
+
+    long get(final int index) {
+        return get(chunks, index);
+    }
+
+    /**
+     * @return int  number of elements, a multiple of the chunk size
+     */
+    int length() {
+        return length(chunks);
+    }
+
+    void set(final int index, final long value) {
+        final int chunk = index >>> CHUNK_BITS;
+        if (chunkEpochs[chunk] != epoch) {
+            chunks[chunk] = chunks[chunk].clone();
+            chunkEpochs[chunk] = epoch;
+        }
+        chunks[chunk][index & CHUNK_MASK] = value;
+    }
+
+    /**
+     * Grow to hold at least the given number of elements, new elements are filled
+     */
+    void ensureLength(final int length) {
+        final int chunkCount = (int) (((long) length + CHUNK_MASK) >>> CHUNK_BITS);
+        if (chunkCount <= chunks.length) {
+            return;
+        }
+        final int oldCount = chunks.length;
+        chunks = Arrays.copyOf(chunks, Math.max(chunkCount, oldCount + (oldCount >> 1)));
+        chunkEpochs = Arrays.copyOf(chunkEpochs, chunks.length);
+        for (int chunk = oldCount; chunk < chunks.length; chunk++) {
+            chunks[chunk] = new long[CHUNK_SIZE];
+            Arrays.fill(chunks[chunk], fill);
+            chunkEpochs[chunk] = epoch;
+        }
+    }
+
+    /**
+     * @return long[][]     chunks as of now, never changed by later writes
+     */
+    long[][] freeze() {
+        epoch++;
+        return chunks.clone();
+    }
+
+    /**
+     * @return long[][]     current chunks for reads of the writer, changed by its later writes
+     */
+    long[][] chunks() {
+        return chunks;
+    }
+}
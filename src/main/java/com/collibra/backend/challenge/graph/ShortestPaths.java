@@ -0,0 +1,422 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dijkstra and A* searches over a {@link GraphSnapshot} using {@link SearchWorkspace}s borrowed from a bounded pool
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ShortestPaths {
+
+    /**
+     * Workspaces kept between searches, two per processor for the two sides of a search. More concurrent searches
+     * allocate their own and drop them afterwards, so sessions on virtual threads do not each keep graph sized arrays.
+     */
+    private static final int MAX_IDLE_WORKSPACES = 2 * Runtime.getRuntime().availableProcessors();
+    private static final Queue<SearchWorkspace> IDLE_WORKSPACES = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger IDLE_WORKSPACE_COUNT = new AtomicInteger();
+
+    /**
+     * Bidirectional Dijkstra: forward from source over outgoing edges, backward from target over incoming edges,
+     * always expanding the side with the closer frontier. Every edge reaching a node already seen by the other side
+     * gives a candidate path; the search stops once both frontiers together are not shorter than the best candidate,
+     * or when either side runs out of nodes.
+     *
+     * @return long  length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    static long distance(final GraphSnapshot graph, final int source, final int target) {
+        final SearchWorkspace forward = borrow();
+        final SearchWorkspace backward = borrow();
+        try {
+            return distance(graph, source, target, forward, backward);
+        } finally {
+            release(backward);
+            release(forward);
+        }
+    }
+
+    /**
+     * {@link #distance(GraphSnapshot, int, int)} in the given workspaces, which tell the nodes it settled afterwards
+     */
+    static long distance(final GraphSnapshot graph, final int source, final int target,
+                         final SearchWorkspace forward, final SearchWorkspace backward) {
+        forward.reset(graph.idBound());
+        backward.reset(graph.idBound());
+        if (source == target) {
+            return 0;
+        }
+        forward.offer(source, 0);
+        backward.offer(target, 0);
+        long best = Long.MAX_VALUE;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            final long forwardFrontier = forward.peekDistance();
+            final long backwardFrontier = backward.peekDistance();
+            if (forwardFrontier + backwardFrontier >= best) {
+                break;
+            }
+            if (forwardFrontier <= backwardFrontier) {
+                final int current = forward.poll();
+                graph.outgoing(current, forward.adjacency);
+                best = expand(forward, backward, current, best);
+            } else {
+                final int current = backward.poll();
+                graph.incoming(current, backward.adjacency);
+                best = expand(backward, forward, current, best);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Bidirectional A* guided by {@code landmarks}, which must have been built for this snapshot. Both sides use the
+     * average of the bounds towards target and from source as potential, which turns the search into the
+     * bidirectional Dijkstra above over reduced edge costs. Priorities are doubled to keep the average integral.
+     * Nodes the index proves off every source to target path are never queued, so an unreachable target is usually
+     * answered without any search.
+     *
+     * @return long  length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    static long guidedDistance(final GraphSnapshot graph, final int source, final int target, final LandmarkIndex landmarks) {
+        final SearchWorkspace forward = borrow();
+        final SearchWorkspace backward = borrow();
+        try {
+            return guidedDistance(graph, source, target, landmarks, forward, backward);
+        } finally {
+            release(backward);
+            release(forward);
+        }
+    }
+
+    /**
+     * {@link #guidedDistance(GraphSnapshot, int, int, LandmarkIndex)} in the given workspaces, which tell the nodes
+     * it settled afterwards
+     */
+    static long guidedDistance(final GraphSnapshot graph, final int source, final int target, final LandmarkIndex landmarks,
+                               final SearchWorkspace forward, final SearchWorkspace backward) {
+        forward.reset(graph.idBound());
+        backward.reset(graph.idBound());
+        if (source == target) {
+            return 0;
+        }
+        final long bound = landmarks.lowerBound(source, target);
+        if (bound == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        forward.offer(source, 0, bound);
+        backward.offer(target, 0, bound);
+        long best = Long.MAX_VALUE;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            final long forwardFrontier = forward.peekDistance();
+            final long backwardFrontier = backward.peekDistance();
+            if (best != Long.MAX_VALUE && forwardFrontier + backwardFrontier >= 2 * best) {
+                break;
+            }
+            if (forwardFrontier <= backwardFrontier) {
+                final int current = forward.poll();
+                graph.outgoing(current, forward.adjacency);
+                best = expandGuided(forward, backward, current, best, landmarks, source, target, true);
+            } else {
+                final int current = backward.poll();
+                graph.incoming(current, backward.adjacency);
+                best = expandGuided(backward, forward, current, best, landmarks, source, target, false);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Complete single source search, used to build {@link LandmarkIndex}
+     *
+     * @param forward   {@code true} to follow outgoing edges (distances from source),
+     *                  {@code false} to follow incoming edges (distances to source)
+     * @param into      receives the distance of every id, {@code Long.MAX_VALUE} if not reachable
+     */
+    static void distances(final GraphSnapshot graph, final int source, final boolean forward, final long[] into) {
+        Arrays.fill(into, Long.MAX_VALUE);
+        final SearchWorkspace workspace = borrow();
+        try {
+            distances(graph, source, forward, into, workspace);
+        } finally {
+            release(workspace);
+        }
+    }
+
+    private static void distances(final GraphSnapshot graph, final int source, final boolean forward, final long[] into,
+                                  final SearchWorkspace workspace) {
+        workspace.reset(graph.idBound());
+        workspace.offer(source, 0);
+        final Adjacency adjacency = workspace.adjacency;
+        while (!workspace.isEmpty()) {
+            final int current = workspace.poll();
+            final long currentDistance = workspace.distance(current);
+            into[current] = currentDistance;
+            if (forward) {
+                graph.outgoing(current, adjacency);
+            } else {
+                graph.incoming(current, adjacency);
+            }
+            for (int i = adjacency.from; i < adjacency.to; i++) {
+                workspace.offer(adjacency.nodes[i], currentDistance + adjacency.weights[i]);
+            }
+        }
+    }
+
+    /**
+     * Distances from one source to many targets. A point to point search to the first target other than source,
+     * A* if landmarks are given, tells how many nodes a search per target settles. A forward search from source may
+     * then settle half of that per target, as much as the forward half of a bidirectional search, and stops as soon
+     * as every target is settled. Each target it did not settle is found by a backward search meeting it.
+     *
+     * @param targets       ids of the targets in any order, repeated and negative ids are allowed
+     * @param landmarks     index built for this snapshot, {@code null} to use bidirectional Dijkstra
+     * @return long[]       distance of every target in the given order,
+     *                      {@code Long.MAX_VALUE} if not reachable or the id is negative
+     */
+    static long[] distancesTo(final GraphSnapshot graph, final int source, final int[] targets, final LandmarkIndex landmarks) {
+        final SearchWorkspace forward = borrow();
+        final SearchWorkspace backward = borrow();
+        try {
+            return distancesTo(graph, source, targets, landmarks, forward, backward);
+        } finally {
+            release(backward);
+            release(forward);
+        }
+    }
+
+    private static long[] distancesTo(final GraphSnapshot graph, final int source, final int[] targets, final LandmarkIndex landmarks,
+                                      final SearchWorkspace forward, final SearchWorkspace backward) {
+        int first = 0;
+        while (first < targets.length && (targets[first] < 0 || targets[first] == source)) {
+            first++;
+        }
+        if (first == targets.length) {
+            return distancesTo(graph, source, targets, Long.MAX_VALUE, forward, backward);
+        }
+        final long firstDistance = landmarks == null
+                ? distance(graph, source, targets[first], forward, backward)
+                : guidedDistance(graph, source, targets[first], landmarks, forward, backward);
+        final long settledPerTarget = Math.max(1, (forward.settled() + backward.settled()) / 2);
+        final int[] others = targets.clone();
+        others[first] = -1;
+        final long[] distances = distancesTo(graph, source, others, settledPerTarget, forward, backward);
+        distances[first] = firstDistance;
+        return distances;
+    }
+
+    /**
+     * Single source Dijkstra over outgoing edges which stops as soon as every target is settled. Where balls grow
+     * quickly, a forward ball reaching targets far apart settles far more than point to point searches together, so
+     * it stops growing after {@code settledPerTarget} nodes per target. The targets it did not settle are then found
+     * by backward searches meeting that ball, the second half of a bidirectional search whose first half is shared.
+     *
+     * @param targets           ids of the targets in any order, repeated and negative ids are allowed
+     * @param settledPerTarget  nodes the forward search may settle per target before it stops growing
+     * @return long[]           distance of every target in the given order,
+     *                          {@code Long.MAX_VALUE} if not reachable or the id is negative
+     */
+    static long[] distancesTo(final GraphSnapshot graph, final int source, final int[] targets, final long settledPerTarget,
+                              final SearchWorkspace forward, final SearchWorkspace backward) {
+        final int[] pending = targets.clone();
+        Arrays.sort(pending);
+        int remaining = 0;
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] >= 0 && (i == 0 || pending[i] != pending[i - 1])) {
+                remaining++;
+            }
+        }
+        final long budget = settledPerTarget > Long.MAX_VALUE / Math.max(1, remaining) ? Long.MAX_VALUE : remaining * settledPerTarget;
+        forward.reset(graph.idBound());
+        backward.reset(0);
+        if (remaining > 0) {
+            forward.offer(source, 0);
+        }
+        long radius = 0;
+        while (!forward.isEmpty() && remaining > 0 && forward.settled() < budget) {
+            final int current = forward.poll();
+            radius = forward.distance(current);
+            if (Arrays.binarySearch(pending, current) >= 0) {
+                remaining--;
+            }
+            relax(graph, forward, current, Long.MAX_VALUE);
+        }
+        final long[] distances = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            final int target = targets[i];
+            if (target < 0) {
+                distances[i] = Long.MAX_VALUE;
+            } else if (forward.isSettled(target)) {
+                distances[i] = forward.distance(target);
+            } else {
+                distances[i] = forward.isEmpty() ? Long.MAX_VALUE : distanceFromBall(graph, forward, backward, radius, target);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Backward Dijkstra from target over incoming edges against a forward search which stopped growing, improving the
+     * best path through every node the forward search reached. A path not found yet leaves the settled part of the
+     * forward ball at a node at least {@code radius} from source and not yet settled by the backward search, so the
+     * search stops once the backward frontier plus the radius is not shorter than the best path.
+     *
+     * @param radius    distance of the last node the forward search settled
+     * @return long     length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    private static long distanceFromBall(final GraphSnapshot graph, final SearchWorkspace forward, final SearchWorkspace backward,
+                                         final long radius, final int target) {
+        backward.reset(graph.idBound());
+        backward.offer(target, 0);
+        long best = forward.isReached(target) ? forward.distance(target) : Long.MAX_VALUE;
+        while (!backward.isEmpty() && backward.peekDistance() + radius < best) {
+            final int current = backward.poll();
+            graph.incoming(current, backward.adjacency);
+            best = expand(backward, forward, current, best);
+        }
+        return best;
+    }
+
+    /**
+     * Complete single source search over outgoing edges
+     *
+     * @return Map<Node, Long>  distance from source of every node other than source which is reachable from it
+     */
+    static Map<Node, Long> reachable(final GraphSnapshot graph, final int source) {
+        final SearchWorkspace workspace = borrow();
+        try {
+            workspace.reset(graph.idBound());
+            workspace.offer(source, 0);
+            Map<Node, Long> result = HashMap.empty();
+            while (!workspace.isEmpty()) {
+                final int current = workspace.poll();
+                if (current != source) {
+                    result = result.put(graph.nodeAt(current), workspace.distance(current));
+                }
+                relax(graph, workspace, current, Long.MAX_VALUE);
+            }
+            return result;
+        } finally {
+            release(workspace);
+        }
+    }
+
+    /**
+     * @return List<Node>   nodes other than source with distance from source lower than limit
+     */
+    static List<Node> withinRadius(final GraphSnapshot graph, final int source, final long limit) {
+        final SearchWorkspace workspace = borrow();
+        try {
+            workspace.reset(graph.idBound());
+            workspace.offer(source, 0);
+            List<Node> result = List.empty();
+            while (!workspace.isEmpty() && workspace.peekDistance() < limit) {
+                final int current = workspace.poll();
+                if (current != source) {
+                    result = result.prepend(graph.nodeAt(current));
+                }
+                relax(graph, workspace, current, limit);
+            }
+            return result;
+        } finally {
+            release(workspace);
+        }
+    }
+
+    /**
+     * @return SearchWorkspace  idle workspace of the pool, a new one if there is none
+     */
+    private static SearchWorkspace borrow() {
+        final SearchWorkspace workspace = IDLE_WORKSPACES.poll();
+        if (workspace == null) {
+            return new SearchWorkspace();
+        }
+        IDLE_WORKSPACE_COUNT.decrementAndGet();
+        return workspace;
+    }
+
+    /**
+     * Give a workspace back to the pool, or drop it if the pool is full
+     */
+    private static void release(final SearchWorkspace workspace) {
+        if (IDLE_WORKSPACE_COUNT.incrementAndGet() <= MAX_IDLE_WORKSPACES) {
+            IDLE_WORKSPACES.offer(workspace);
+        } else {
+            IDLE_WORKSPACE_COUNT.decrementAndGet();
+        }
+    }
+
+    /**
+     * Offer neighbours of the node just polled by {@code side}, whose edges are in {@code side.adjacency},
+     * and improve the best path through nodes already reached by the other side
+     *
+     * @return long  length of the best path found so far
+     */
+    private static long expand(final SearchWorkspace side, final SearchWorkspace other, final int current, long best) {
+        final long currentDistance = side.distance(current);
+        final Adjacency adjacency = side.adjacency;
+        for (int i = adjacency.from; i < adjacency.to; i++) {
+            final int next = adjacency.nodes[i];
+            final long distance = currentDistance + adjacency.weights[i];
+            if (distance >= best) {
+                continue;
+            }
+            side.offer(next, distance);
+            if (other.isReached(next)) {
+                best = Math.min(best, distance + other.distance(next));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * {@link #expand} with landmark potentials: neighbours whose lower bound through them is not below the best path
+     * are skipped, the others are queued by twice their distance plus the bound still ahead minus the bound behind
+     *
+     * @return long  length of the best path found so far
+     */
+    private static long expandGuided(final SearchWorkspace side, final SearchWorkspace other, final int current, long best,
+                                     final LandmarkIndex landmarks, final int source, final int target, final boolean forward) {
+        final long currentDistance = side.distance(current);
+        final Adjacency adjacency = side.adjacency;
+        for (int i = adjacency.from; i < adjacency.to; i++) {
+            final int next = adjacency.nodes[i];
+            final long distance = currentDistance + adjacency.weights[i];
+            if (distance >= best || side.isReached(next) && distance >= side.distance(next)) {
+                continue;
+            }
+            final long ahead = forward ? landmarks.lowerBound(next, target) : landmarks.lowerBound(source, next);
+            if (ahead == Long.MAX_VALUE || distance + ahead >= best) {
+                continue;
+            }
+            final long behind = forward ? landmarks.lowerBound(source, next) : landmarks.lowerBound(next, target);
+            side.offer(next, distance, 2 * distance + ahead - behind);
+            if (other.isReached(next)) {
+                best = Math.min(best, distance + other.distance(next));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Offer all neighbours of the current node which are closer than the limit
+     */
+    private static void relax(final GraphSnapshot graph, final SearchWorkspace workspace, final int current, final long limit) {
+        final long currentDistance = workspace.distance(current);
+        final Adjacency adjacency = workspace.adjacency;
+        graph.outgoing(current, adjacency);
+        for (int i = adjacency.from; i < adjacency.to; i++) {
+            final long distance = currentDistance + adjacency.weights[i];
+            if (distance < limit) {
+                workspace.offer(adjacency.nodes[i], distance);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.collibra.backend.challenge.graph;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Allocates blocks of power of two sizes from large buffers outside the Java heap, direct buffers or memory mapped
+ * files. A freed block goes to the free list of its size and is handed out again before the slabs grow, so the space
+ * of removed nodes is reused. When the free list of a size is empty and the current slab is full, the smallest larger
+ * free block is split in halves before a new slab is added. Slabs start small and double up to the maximum slab size,
+ * a block larger than that gets a buffer of its own. Freed halves are not merged back and slabs are never returned,
+ * the buffers are released with the allocator.
+ * <p>
+ * An address packs the size class, the slab and the offset into one long. Buffers of a slab never move, readers
+ * keep the array of {@link #slabs()} taken when they were created and read every block allocated before it.
+ * Allocating and freeing is for one thread at a time.
+ */
+@NotThreadSafe
+final class SlabAllocator {
+
+    static final long NONE = -1;
+    static final int MIN_SIZE_CLASS = 4;
+    private static final int MAX_SIZE_CLASS = 30;
+    private static final int FIRST_SLAB_BYTES = 1 << 16;
+
+    private final int maxSlabBytes;
+    /**
+     * Directory of the files mapped as slabs, {@code null} for direct buffers
+     */
+    private final Path directory;
+    private ByteBuffer[] slabs = new ByteBuffer[0];
+    /**
+     * Bump pointer into the last regular slab, {@code -1} before the first one
+     */
+    private int current = -1;
+    private int top;
+    private final long[][] freeBlocks = new long[MAX_SIZE_CLASS + 1][];
+    private final int[] freeCounts = new int[MAX_SIZE_CLASS + 1];
+    private long reservedBytes;
+    private long usedBytes;
+
+    /**
+     * @param maxSlabBytes  size slabs grow to, a power of two
+     * @param directory     directory for memory mapped slab files, deleted right after mapping,
+     *                      {@code null} for direct buffers
+     */
+    SlabAllocator(final int maxSlabBytes, final Path directory) {
+        checkArgument(Integer.bitCount(maxSlabBytes) == 1 && maxSlabBytes >= FIRST_SLAB_BYTES
+                && maxSlabBytes <= 1 << MAX_SIZE_CLASS, "Slab size must be a power of two from 64 KB to 1 GB: %s", maxSlabBytes);
+        this.maxSlabBytes = maxSlabBytes;
+        this.directory = directory;
+        for (int sizeClass = 0; sizeClass <= MAX_SIZE_CLASS; sizeClass++) {
+            freeBlocks[sizeClass] = new long[0];
+        }
+    }
+
+    /**
+     * @return long  address of a block of at least the given bytes, its content is undefined
+     */
+    long allocate(final int bytes) {
+        final int sizeClass = sizeClass(bytes);
+        final int blockBytes = 1 << sizeClass;
+        usedBytes += blockBytes;
+        if (freeCounts[sizeClass] > 0) {
+            return freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        }
+        final boolean fitsCurrent = current >= 0 && top + blockBytes <= slabs[current].capacity();
+        if (!fitsCurrent) {
+            final long split = split(sizeClass);
+            if (split != NONE) {
+                return split;
+            }
+        }
+        if (blockBytes > maxSlabBytes) {
+            return address(sizeClass, addSlab(blockBytes), 0);
+        }
+        if (!fitsCurrent) {
+            if (current >= 0) {
+                freeTail();
+            }
+            current = addSlab(current < 0 ? FIRST_SLAB_BYTES : Math.min(maxSlabBytes, 2 * slabs[current].capacity()));
+            top = 0;
+            if (blockBytes > slabs[current].capacity()) {
+                return address(sizeClass, addSlab(blockBytes), 0);
+            }
+        }
+        final long address = address(sizeClass, current, top);
+        top += blockBytes;
+        return address;
+    }
+
+    void free(final long address) {
+        push(address);
+        usedBytes -= blockBytes(address);
+    }
+
+    /**
+     * @return ByteBuffer[]     slabs allocated so far, the array is replaced, never changed, when a slab is added
+     */
+    ByteBuffer[] slabs() {
+        return slabs;
+    }
+
+    /**
+     * @return long  bytes of all slabs
+     */
+    long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * @return long  bytes of the blocks handed out and not freed
+     */
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    static ByteBuffer slab(final ByteBuffer[] slabs, final long address) {
+        return slabs[(int) (address >>> 32) & 0xFFFFFF];
+    }
+
+    static int offset(final long address) {
+        return (int) address;
+    }
+
+    static int blockBytes(final long address) {
+        return 1 << sizeClass(address);
+    }
+
+    private static int sizeClass(final long address) {
+        return (int) (address >>> 56);
+    }
+
+    private static int sizeClass(final int bytes) {
+        checkArgument(bytes > 0 && bytes <= 1 << MAX_SIZE_CLASS, "Block size out of range: %s", bytes);
+        return Math.max(MIN_SIZE_CLASS, 32 - Integer.numberOfLeadingZeros(bytes - 1));
+    }
+
+    private static long address(final int sizeClass, final int slab, final int offset) {
+        return (long) sizeClass << 56 | (long) slab << 32 | offset;
+    }
+
+    private void push(final long address) {
+        final int sizeClass = sizeClass(address);
+        if (freeCounts[sizeClass] == freeBlocks[sizeClass].length) {
+            freeBlocks[sizeClass] = Arrays.copyOf(freeBlocks[sizeClass], Math.max(16, 2 * freeCounts[sizeClass]));
+        }
+        freeBlocks[sizeClass][freeCounts[sizeClass]++] = address;
+    }
+
+    /**
+     * Take the smallest free block larger than the size class and halve it down to the size class, the upper halves
+     * go to the free lists of their sizes
+     *
+     * @return long  address of the lower part of the block, {@code NONE} if there is no larger free block
+     */
+    private long split(final int sizeClass) {
+        int larger = sizeClass + 1;
+        while (larger <= MAX_SIZE_CLASS && freeCounts[larger] == 0) {
+            larger++;
+        }
+        if (larger > MAX_SIZE_CLASS) {
+            return NONE;
+        }
+        final long block = freeBlocks[larger][--freeCounts[larger]];
+        final int slab = (int) (block >>> 32) & 0xFFFFFF;
+        for (int half = larger - 1; half >= sizeClass; half--) {
+            push(address(half, slab, offset(block) + (1 << half)));
+        }
+        return address(sizeClass, slab, offset(block));
+    }
+
+    /**
+     * Hand the rest of the current slab to the free lists in the largest blocks fitting, offsets stay aligned
+     * because every block is at least as aligned as its size
+     */
+    private void freeTail() {
+        final int capacity = slabs[current].capacity();
+        while (capacity - top >= 1 << MIN_SIZE_CLASS) {
+            final int sizeClass = Math.min(Integer.numberOfTrailingZeros(top), 31 - Integer.numberOfLeadingZeros(capacity - top));
+            push(address(sizeClass, current, top));
+            top += 1 << sizeClass;
+        }
+    }
+
+    private int addSlab(final int bytes) {
+        final ByteBuffer slab = directory == null ? ByteBuffer.allocateDirect(bytes) : map(bytes);
+        slab.order(ByteOrder.nativeOrder());
+        slabs = Arrays.copyOf(slabs, slabs.length + 1);
+        slabs[slabs.length - 1] = slab;
+        reservedBytes += bytes;
+        return slabs.length - 1;
+    }
+
+    private ByteBuffer map(final int bytes) {
+        try {
+            final Path file = Files.createTempFile(directory, "graph-slab-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not map graph slab in " + directory, e);
+        }
+    }
+}
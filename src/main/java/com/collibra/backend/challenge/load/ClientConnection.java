@@ -0,0 +1,79 @@
+package com.collibra.backend.challenge.load;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client side of one session: lines are written and answers read in order
+ */
+@NotThreadSafe
+final class ClientConnection implements Closeable {
+
+    private static final int TIMEOUT_IN_MS = 60_000;
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    private ClientConnection(final Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Connect and read the welcome line of the server
+     */
+    static ClientConnection open(final String host, final int port) throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), TIMEOUT_IN_MS);
+            socket.setSoTimeout(TIMEOUT_IN_MS);
+            socket.setTcpNoDelay(true);
+            final ClientConnection connection = new ClientConnection(socket);
+            connection.readLine();
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Buffer a line, it is sent with the next {@link #flush}
+     */
+    void write(final String message) throws IOException {
+        out.write(message);
+        out.write('\n');
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * @throws EOFException if the server closed the connection
+     */
+    String readLine() throws IOException {
+        final String line = in.readLine();
+        if (line == null) {
+            throw new EOFException("Connection closed by the server");
+        }
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,124 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Settings of {@link LoadGenerator}, read from {@code -Dload.*} system properties like the server configuration
+ */
+@Value
+@Builder
+public class LoadConfiguration {
+
+    public static final String HOST_PROPERTY = "load.host";
+    public static final String PORT_PROPERTY = "load.port";
+    /**
+     * {@code -Dload.sessions=16} concurrent sessions driving the generated mix
+     */
+    public static final String SESSIONS_PROPERTY = "load.sessions";
+    /**
+     * {@code -Dload.rate=1000} messages per second of all sessions together, sent on schedule whether answers are late or not
+     */
+    public static final String RATE_PROPERTY = "load.rate";
+    public static final String DURATION_PROPERTY = "load.duration";
+    /**
+     * {@code -Dload.warmup=10} seconds of load at the start which are left out of the report
+     */
+    public static final String WARMUP_PROPERTY = "load.warmup";
+    /**
+     * {@code -Dload.mix=SHORTEST_PATH=40,ADD_EDGE=20} relative weights of the generated commands
+     */
+    public static final String MIX_PROPERTY = "load.mix";
+    /**
+     * {@code -Dload.nodes=1000} nodes the commands refer to, {@code node-0} to {@code node-999}
+     */
+    public static final String NODES_PROPERTY = "load.nodes";
+    /**
+     * {@code -Dload.setup-edges=3} edges per node added with the nodes before the load starts, {@code -1} skips the setup
+     */
+    public static final String SETUP_EDGES_PROPERTY = "load.setup-edges";
+    /**
+     * {@code -Dload.replay=logs/trace.bin} replays the sessions of a trace file instead of generating the mix
+     */
+    public static final String REPLAY_PROPERTY = "load.replay";
+    /**
+     * {@code -Dload.replay-speed=2} replays a trace twice as fast as it was recorded
+     */
+    public static final String REPLAY_SPEED_PROPERTY = "load.replay-speed";
+    public static final String SEED_PROPERTY = "load.seed";
+
+    private static final String DEFAULT_MIX = "SHORTEST_PATH=40,CLOSER_THAN=20,ADD_EDGE=20,ADD_NODE=10,REMOVE_EDGE=5,REMOVE_NODE=5";
+
+    @Builder.Default
+    private final String host = "localhost";
+    @Builder.Default
+    private final int port = 50_000;
+    @Builder.Default
+    private final int sessions = 16;
+    @Builder.Default
+    private final double rate = 1_000;
+    @Builder.Default
+    private final int durationInSeconds = 60;
+    @Builder.Default
+    private final int warmupInSeconds = 10;
+    @Builder.Default
+    private final Map<CommandType, Integer> mix = parseMix(DEFAULT_MIX);
+    @Builder.Default
+    private final int nodes = 1_000;
+    @Builder.Default
+    private final int setupEdges = 3;
+    /**
+     * {@code null} to generate the mix
+     */
+    private final String replayFile;
+    @Builder.Default
+    private final double replaySpeed = 1;
+    @Builder.Default
+    private final long seed = 42;
+
+    /**
+     * @return LoadConfiguration    configuration with defaults for every missing property
+     */
+    public static LoadConfiguration fromSystemProperties() {
+        final LoadConfiguration defaults = LoadConfiguration.builder().build();
+        return LoadConfiguration.builder()
+                .host(System.getProperty(HOST_PROPERTY, defaults.getHost()))
+                .port(Integer.getInteger(PORT_PROPERTY, defaults.getPort()))
+                .sessions(Integer.getInteger(SESSIONS_PROPERTY, defaults.getSessions()))
+                .rate(Double.parseDouble(System.getProperty(RATE_PROPERTY, String.valueOf(defaults.getRate()))))
+                .durationInSeconds(Integer.getInteger(DURATION_PROPERTY, defaults.getDurationInSeconds()))
+                .warmupInSeconds(Integer.getInteger(WARMUP_PROPERTY, defaults.getWarmupInSeconds()))
+                .mix(parseMix(System.getProperty(MIX_PROPERTY, DEFAULT_MIX)))
+                .nodes(Integer.getInteger(NODES_PROPERTY, defaults.getNodes()))
+                .setupEdges(Integer.getInteger(SETUP_EDGES_PROPERTY, defaults.getSetupEdges()))
+                .replayFile(System.getProperty(REPLAY_PROPERTY))
+                .replaySpeed(Double.parseDouble(System.getProperty(REPLAY_SPEED_PROPERTY, String.valueOf(defaults.getReplaySpeed()))))
+                .seed(Long.getLong(SEED_PROPERTY, defaults.getSeed()))
+                .build();
+    }
+
+    /**
+     * @param mix   comma separated {@code <command type>=<weight>}, e.g. {@code SHORTEST_PATH=3,ADD_NODE=1}
+     * @throws IllegalArgumentException if a command is a greeting, goodbye or batch, or a weight is not positive
+     */
+    static Map<CommandType, Integer> parseMix(final String mix) {
+        final Map<CommandType, Integer> weights = new EnumMap<>(CommandType.class);
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.trim().split("=");
+            checkArgument(parts.length == 2, "Mix entry is not <command>=<weight>: %s", entry);
+            final CommandType type = CommandType.valueOf(parts[0].trim().toUpperCase());
+            checkArgument(Workload.isStandalone(type), "Command can not be part of the mix: %s", type);
+            final int weight = Integer.parseInt(parts[1].trim());
+            checkArgument(weight > 0, "Weight of %s must be positive: %s", type, weight);
+            weights.put(type, weight);
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+}
@@ -0,0 +1,163 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.load.LoadSession.Step;
+import lombok.RequiredArgsConstructor;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Open-loop load against a running server, configured by {@code -Dload.*} system properties, see {@link LoadConfiguration}:
+ * {@code java -Dload.rate=5000 -cp <jar> com.collibra.backend.challenge.load.LoadGenerator}.
+ * Prints the response times of every second and a report of the whole run after warmup.
+ */
+@RequiredArgsConstructor
+public final class LoadGenerator {
+
+    private static final long START_DELAY_IN_MS = 100;
+    private static final int SETUP_CHUNK = 1_000;
+
+    private final LoadConfiguration configuration;
+    private final PrintStream out;
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        checkArgument(args.length == 0, "Usage: LoadGenerator, settings are -Dload.* system properties");
+        new LoadGenerator(LoadConfiguration.fromSystemProperties(), System.out).run();
+    }
+
+    /**
+     * Set up the graph, run all sessions and print the report
+     *
+     * @return LoadStats    answers of the run
+     */
+    LoadStats run() throws IOException, InterruptedException {
+        final Workload workload = new Workload(configuration.getMix(), configuration.getNodes());
+        if (configuration.getSetupEdges() >= 0) {
+            setUp(workload);
+        }
+        final LoadStats stats = new LoadStats();
+        final ExecutorService sessions = Executors.newCachedThreadPool(daemonThreads("load-session-"));
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("load-scheduler-"));
+        final long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(START_DELAY_IN_MS);
+        final CountDownLatch done;
+        try {
+            if (configuration.getReplayFile() == null) {
+                done = new CountDownLatch(configuration.getSessions());
+                for (int i = 0; i < configuration.getSessions(); i++) {
+                    final Random random = new Random(configuration.getSeed() + i + 1);
+                    final LoadSession session = new LoadSession(configuration, workload, stats, "load-" + i, startNanos,
+                            LoadPlans.generated(configuration, workload, random, i), random);
+                    sessions.execute(countingDown(session, done));
+                }
+            } else {
+                final Collection<List<Step>> plans = LoadPlans.replayed(Paths.get(configuration.getReplayFile()), configuration.getReplaySpeed());
+                out.printf(Locale.ROOT, "Replaying %d sessions of %s%n", plans.size(), configuration.getReplayFile());
+                done = new CountDownLatch(plans.size());
+                int i = 0;
+                for (List<Step> plan : plans) {
+                    final Random random = new Random(configuration.getSeed() + i + 1);
+                    final LoadSession session = new LoadSession(configuration, workload, stats, "replay-" + i++, startNanos,
+                            plan.iterator(), random);
+                    // connect when the first line is due, a recorded session may start long after the trace
+                    scheduler.schedule(() -> sessions.execute(countingDown(session, done)),
+                            startNanos + plan.get(0).getOffsetNanos() - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            }
+            report(stats, startNanos, done);
+        } finally {
+            scheduler.shutdownNow();
+            sessions.shutdownNow();
+        }
+        return stats;
+    }
+
+    private void report(final LoadStats stats, final long startNanos, final CountDownLatch done) throws InterruptedException {
+        final long warmupNanos = TimeUnit.SECONDS.toNanos(configuration.getWarmupInSeconds());
+        final long secondNanos = TimeUnit.SECONDS.toNanos(1);
+        long countedNanos = 0;
+        long intervalStart = startNanos;
+        boolean finished = false;
+        while (!finished) {
+            final long intervalEnd = intervalStart + secondNanos;
+            finished = done.await(intervalEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+            final long now = System.nanoTime();
+            final boolean counted = intervalStart - startNanos >= warmupNanos;
+            final Histogram interval = stats.nextInterval(counted);
+            if (counted) {
+                countedNanos += now - intervalStart;
+            }
+            out.println(String.format(Locale.ROOT, "%6.1f s ", (now - startNanos) / 1e9)
+                    + LoadStats.format(counted ? "" : "warmup", interval));
+            intervalStart = now;
+        }
+        stats.report(out, countedNanos / 1e9);
+    }
+
+    /**
+     * Add nodes {@code node-0} to {@code node-<nodes - 1>} and random edges between them, pipelined in chunks
+     */
+    private void setUp(final Workload workload) throws IOException {
+        final Random random = new Random(configuration.getSeed());
+        final int nodes = configuration.getNodes();
+        final long lines = nodes + (long) nodes * configuration.getSetupEdges();
+        final long startNanos = System.nanoTime();
+        try (ClientConnection connection = ClientConnection.open(configuration.getHost(), configuration.getPort())) {
+            connection.write(workload.message(CommandType.GREETING, random, "load-setup"));
+            connection.flush();
+            connection.readLine();
+            int pending = 0;
+            for (long line = 0; line < lines; line++) {
+                connection.write(line < nodes
+                        ? "ADD NODE " + Workload.node((int) line)
+                        : "ADD EDGE " + Workload.node((int) (line % nodes)) + " " + Workload.node(random.nextInt(nodes))
+                        + " " + Workload.randomWeight(random));
+                if (++pending == SETUP_CHUNK || line == lines - 1) {
+                    connection.flush();
+                    for (; pending > 0; pending--) {
+                        connection.readLine();
+                    }
+                }
+            }
+            connection.write(workload.message(CommandType.GOODBYE, random, "load-setup"));
+            connection.flush();
+            connection.readLine();
+        }
+        out.printf(Locale.ROOT, "Set up %d nodes and %d edges in %.1f s%n", nodes, lines - nodes,
+                (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    private static Runnable countingDown(final Runnable session, final CountDownLatch done) {
+        return () -> {
+            try {
+                session.run();
+            } finally {
+                done.countDown();
+            }
+        };
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.load.LoadSession.Step;
+import com.collibra.backend.challenge.server.trace.TraceEvent;
+import com.collibra.backend.challenge.server.trace.TraceReader;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Plans of the sessions: generated at a fixed rate from the mix, or replayed from a trace file
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class LoadPlans {
+
+    /**
+     * Open-loop plan of one of {@code sessions} sessions: lines of all sessions together are due {@code rate} times
+     * per second, interleaved evenly. The session greets first and says goodbye after warmup and duration.
+     *
+     * @param index     index of the session, from 0
+     */
+    static Iterator<Step> generated(final LoadConfiguration configuration, final Workload workload, final Random random,
+                                    final int index) {
+        final double gapNanos = TimeUnit.SECONDS.toNanos(1) / configuration.getRate();
+        final double intervalNanos = gapNanos * configuration.getSessions();
+        final long endNanos = TimeUnit.SECONDS.toNanos(configuration.getWarmupInSeconds() + configuration.getDurationInSeconds());
+        final long phaseNanos = (long) (gapNanos * index);
+        return new Iterator<Step>() {
+            private long line = -1;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                return !done;
+            }
+
+            @Override
+            public Step next() {
+                if (done) {
+                    throw new NoSuchElementException();
+                }
+                if (line < 0) {
+                    line++;
+                    return new Step(phaseNanos, CommandType.GREETING);
+                }
+                final long offsetNanos = phaseNanos + (long) (intervalNanos * ++line);
+                if (offsetNanos >= endNanos) {
+                    done = true;
+                    return new Step(endNanos, CommandType.GOODBYE);
+                }
+                return new Step(offsetNanos, workload.nextCommand(random));
+            }
+        };
+    }
+
+    /**
+     * Plans of the sessions recorded in a trace file, in the order of their first line. Offsets are relative to
+     * the earliest line of the trace and divided by {@code speed}. A session whose greeting is not in the trace
+     * greets with its first line.
+     *
+     * @throws IllegalArgumentException if the file is not a trace file or has no lines
+     */
+    static Collection<List<Step>> replayed(final Path file, final double speed) throws IOException {
+        checkArgument(speed > 0, "Replay speed must be positive: %s", speed);
+        final Map<UUID, List<TraceEvent>> events = new LinkedHashMap<>();
+        TraceReader.read(file, event -> events.computeIfAbsent(event.getSessionId(), id -> new ArrayList<>()).add(event));
+        checkArgument(!events.isEmpty(), "Trace file has no lines: %s", file);
+        final Instant start = events.values().stream()
+                .flatMap(List::stream)
+                .map(TraceEvent::getTimestamp)
+                .min(Comparator.naturalOrder())
+                .get();
+        final List<List<Step>> sessions = new ArrayList<>(events.size());
+        for (List<TraceEvent> session : events.values()) {
+            final List<Step> steps = new ArrayList<>(session.size() + 1);
+            for (TraceEvent event : session) {
+                final long offsetNanos = (long) (Duration.between(start, event.getTimestamp()).toNanos() / speed);
+                if (steps.isEmpty() && event.getCommand() != CommandType.GREETING) {
+                    steps.add(new Step(offsetNanos, CommandType.GREETING));
+                }
+                steps.add(new Step(offsetNanos, event.getCommand()));
+            }
+            sessions.add(steps);
+        }
+        sessions.sort(Comparator.comparingLong(steps -> steps.get(0).getOffsetNanos()));
+        return sessions;
+    }
+}
@@ -0,0 +1,104 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One client session sending the lines of its plan on schedule. A line is sent when it is due even if answers
+ * of earlier lines are late; only the answers are read in order. Lines of a batch are answered by {@code END BATCH},
+ * their response time ends with it.
+ */
+@Slf4j
+@NotThreadSafe
+@RequiredArgsConstructor
+final class LoadSession implements Runnable {
+
+    private static final String BATCH_STARTED = "BATCH STARTED";
+
+    private final LoadConfiguration configuration;
+    private final Workload workload;
+    private final LoadStats stats;
+    private final String clientName;
+    /**
+     * {@link System#nanoTime()} the step offsets are relative to
+     */
+    private final long startNanos;
+    private final Iterator<Step> plan;
+    private final Random random;
+
+    /**
+     * Line of a plan
+     */
+    @Value
+    static class Step {
+        /**
+         * Nanoseconds from the start of the load when the line is due
+         */
+        private final long offsetNanos;
+        /**
+         * {@code null} for a line the server does not understand
+         */
+        private final CommandType command;
+    }
+
+    @Value
+    private static class Pending {
+        private final CommandType command;
+        private final long dueNanos;
+        private final long sentNanos;
+    }
+
+    @Override
+    public void run() {
+        try (ClientConnection connection = ClientConnection.open(configuration.getHost(), configuration.getPort())) {
+            final Deque<Pending> batch = new ArrayDeque<>();
+            boolean inBatch = false;
+            while (plan.hasNext()) {
+                final Step step = plan.next();
+                final long dueNanos = startNanos + step.getOffsetNanos();
+                waitUntil(dueNanos);
+                final CommandType command = step.getCommand();
+                final long sentNanos = System.nanoTime();
+                connection.write(workload.message(command, random, clientName));
+                connection.flush();
+                if (inBatch && command != CommandType.END_BATCH) {
+                    batch.add(new Pending(command, dueNanos, sentNanos));
+                    continue;
+                }
+                if (inBatch) {
+                    while (!batch.isEmpty()) {
+                        final Pending pending = batch.poll();
+                        stats.record(pending.getCommand(), pending.getDueNanos(), pending.getSentNanos(), connection.readLine());
+                    }
+                    inBatch = false;
+                }
+                final String answer = connection.readLine();
+                stats.record(command, dueNanos, sentNanos, answer);
+                if (command == CommandType.GOODBYE) {
+                    return;
+                }
+                inBatch = command == CommandType.BEGIN_BATCH && BATCH_STARTED.equals(answer);
+            }
+        } catch (IOException e) {
+            log.warn("Session {} failed: {}", clientName, e.toString());
+            stats.sessionFailed();
+        }
+    }
+
+    private static void waitUntil(final long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
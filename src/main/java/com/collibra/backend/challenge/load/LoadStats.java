@@ -0,0 +1,168 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Answers of all sessions. Response time is measured from the time a line was due, not from the time it was sent,
+ * so a stalled server is charged for every line that waited behind a late answer (coordinated omission correction).
+ * Service time, from sending to answer, is what a closed-loop client would report.
+ */
+@ThreadSafe
+final class LoadStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String UNKNOWN_COMMAND = "UNKNOWN";
+
+    /**
+     * By command ordinal, unknown lines last
+     */
+    private final Recorder[] responseTimes = new Recorder[CommandType.values().length + 1];
+    private final Recorder serviceTimes = newRecorder();
+    private final LongAdder errorAnswers = new LongAdder();
+    private final LongAdder failedSessions = new LongAdder();
+    /**
+     * Guards the histograms below, which hold the counted intervals
+     */
+    private final Lock lock = new ReentrantLock();
+    private final Histogram[] totalResponseTimes = new Histogram[responseTimes.length];
+    private final Histogram[] intervals = new Histogram[responseTimes.length];
+    private final Histogram totalServiceTimes = newHistogram();
+    private Histogram serviceInterval;
+    private long countedErrorAnswers;
+
+    LoadStats() {
+        for (int i = 0; i < responseTimes.length; i++) {
+            responseTimes[i] = newRecorder();
+            totalResponseTimes[i] = newHistogram();
+        }
+    }
+
+    /**
+     * @param type          command of the answered line, {@code null} if it was not a known command
+     * @param dueNanos      {@link System#nanoTime()} when the line was due
+     * @param sentNanos     {@link System#nanoTime()} when the line was sent
+     */
+    void record(final CommandType type, final long dueNanos, final long sentNanos, final String answer) {
+        final long now = System.nanoTime();
+        responseTimes[type == null ? responseTimes.length - 1 : type.ordinal()].recordValue(clamp(now - dueNanos));
+        serviceTimes.recordValue(clamp(now - sentNanos));
+        if (answer.startsWith("ERROR") || answer.startsWith("SORRY")) {
+            errorAnswers.increment();
+        }
+    }
+
+    void sessionFailed() {
+        failedSessions.increment();
+    }
+
+    /**
+     * Take what was recorded since the last call
+     *
+     * @param counted       {@code true} to add it to the report, {@code false} during warmup
+     * @return Histogram    response times of all commands since the last call
+     */
+    Histogram nextInterval(final boolean counted) {
+        lock.lock();
+        try {
+            final Histogram all = newHistogram();
+            for (int i = 0; i < responseTimes.length; i++) {
+                intervals[i] = responseTimes[i].getIntervalHistogram(intervals[i]);
+                all.add(intervals[i]);
+                if (counted) {
+                    totalResponseTimes[i].add(intervals[i]);
+                }
+            }
+            serviceInterval = serviceTimes.getIntervalHistogram(serviceInterval);
+            final long errors = errorAnswers.sumThenReset();
+            if (counted) {
+                totalServiceTimes.add(serviceInterval);
+                countedErrorAnswers += errors;
+            }
+            return all;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Print the counted intervals
+     *
+     * @param seconds   length of the counted intervals
+     */
+    void report(final PrintStream out, final double seconds) {
+        lock.lock();
+        try {
+            final Histogram all = newHistogram();
+            for (Histogram histogram : totalResponseTimes) {
+                all.add(histogram);
+            }
+            out.printf(Locale.ROOT, "%d answers in %.1f s, %.1f answers/s, %d error answers, %d failed sessions%n",
+                    all.getTotalCount(), seconds, all.getTotalCount() / seconds, countedErrorAnswers, failedSessions.sum());
+            out.println("Response time from due time, corrected for coordinated omission (ms):");
+            out.println(format("  all", all));
+            for (int i = 0; i < totalResponseTimes.length; i++) {
+                if (totalResponseTimes[i].getTotalCount() > 0) {
+                    out.println(format("  " + (i < CommandType.values().length ? CommandType.values()[i].name() : UNKNOWN_COMMAND),
+                            totalResponseTimes[i]));
+                }
+            }
+            out.println("Service time from sending (ms):");
+            out.println(format("  all", totalServiceTimes));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return long    answers of the counted intervals
+     */
+    long getAnswerCount() {
+        lock.lock();
+        try {
+            long count = 0;
+            for (Histogram histogram : totalResponseTimes) {
+                count += histogram.getTotalCount();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getFailedSessions() {
+        return failedSessions.sum();
+    }
+
+    static String format(final String name, final Histogram histogram) {
+        final StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-15s count=%d", name, histogram.getTotalCount()));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(Locale.ROOT, " p%s=%.3f", String.valueOf(percentile).replace(".0", "").replace(".", ""),
+                    histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        return line.append(String.format(Locale.ROOT, " max=%.3f", histogram.getMaxValue() / 1e6)).toString();
+    }
+
+    private static long clamp(final long nanos) {
+        return Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    private static Recorder newRecorder() {
+        return new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+}
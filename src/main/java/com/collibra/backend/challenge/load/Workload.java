@@ -0,0 +1,102 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Picks commands of the mix by weight and writes client lines for them. Every line refers to nodes
+ * {@code node-0} to {@code node-<nodes - 1>}, so adds and removals keep the graph around the same size.
+ */
+@ThreadSafe
+final class Workload {
+
+    static final String UNKNOWN_MESSAGE = "WHAT IS THIS?";
+    private static final int MAX_WEIGHT = 100;
+
+    private final int nodes;
+    private final CommandType[] types;
+    private final int[] cumulativeWeights;
+
+    Workload(final Map<CommandType, Integer> mix, final int nodes) {
+        this.nodes = nodes;
+        this.types = mix.keySet().toArray(new CommandType[0]);
+        this.cumulativeWeights = new int[types.length];
+        int total = 0;
+        for (int i = 0; i < types.length; i++) {
+            total += mix.get(types[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * @return boolean  {@code true} if lines of the command can be sent at any time of a session
+     */
+    static boolean isStandalone(final CommandType type) {
+        return type != CommandType.GREETING && type != CommandType.GOODBYE
+                && type != CommandType.BEGIN_BATCH && type != CommandType.END_BATCH;
+    }
+
+    static String node(final int index) {
+        return "node-" + index;
+    }
+
+    CommandType nextCommand(final Random random) {
+        final int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= value) {
+            i++;
+        }
+        return types[i];
+    }
+
+    /**
+     * @param type          command of the line, {@code null} for a line the server does not understand
+     * @param clientName    name the session introduces itself with
+     * @return String       client line without line separator
+     */
+    String message(final CommandType type, final Random random, final String clientName) {
+        if (type == null) {
+            return UNKNOWN_MESSAGE;
+        }
+        switch (type) {
+            case GREETING:
+                return "HI, I AM " + clientName;
+            case GOODBYE:
+                return "BYE MATE!";
+            case ADD_NODE:
+                return "ADD NODE " + randomNode(random);
+            case REMOVE_NODE:
+                return "REMOVE NODE " + randomNode(random);
+            case ADD_EDGE:
+                return "ADD EDGE " + randomNode(random) + " " + randomNode(random) + " " + randomWeight(random);
+            case REMOVE_EDGE:
+                return "REMOVE EDGE " + randomNode(random) + " " + randomNode(random);
+            case SHORTEST_PATH:
+                return "SHORTEST PATH " + randomNode(random) + " " + randomNode(random);
+            case CLOSER_THAN:
+                return "CLOSER THAN " + randomWeight(random) + " " + randomNode(random);
+            case BEGIN_BATCH:
+                return "BEGIN BATCH";
+            case END_BATCH:
+                return "END BATCH";
+            case STATS:
+                return "STATS";
+            case DISTANCES:
+                return "DISTANCES FROM " + randomNode(random) + " TO " + randomNode(random) + "," + randomNode(random)
+                        + "," + randomNode(random) + "," + randomNode(random);
+            default:
+                throw new IllegalArgumentException("Unknown command: " + type);
+        }
+    }
+
+    static int randomWeight(final Random random) {
+        return 1 + random.nextInt(MAX_WEIGHT);
+    }
+
+    private String randomNode(final Random random) {
+        return node(random.nextInt(nodes));
+    }
+}
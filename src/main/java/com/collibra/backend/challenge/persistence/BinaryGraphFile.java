@@ -0,0 +1,137 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.Node;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reader and writer of {@link GraphFileFormat#BINARY}, all ints are big endian:
+ * <pre>
+ * int          magic, its first byte is not valid UTF-8 so a text file is never taken for a binary one
+ * int          format version
+ * int          node count N
+ * int          edge count E
+ * N times      int length, UTF-8 bytes of the node name
+ * E times      int source, int target, int weight  (source and target are indexes of the nodes above)
+ *              version 2 only: long count of parallel edges of the record
+ * </pre>
+ * Images without counted records are written as version 1, both versions are read.
+ * Edge records have a fixed size, so the edge section is split into chunks mapped and decoded in parallel.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BinaryGraphFile {
+
+    private static final int MAGIC = 0x89475246;
+    private static final int FORMAT_VERSION = 1;
+    private static final int COUNTED_FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int EDGE_BYTES = 12;
+    private static final int COUNTED_EDGE_BYTES = EDGE_BYTES + Long.BYTES;
+    private static final int MIN_CHUNK_EDGES = 1 << 16;
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    static boolean startsWithMagic(final FileChannel channel) throws IOException {
+        final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        int read = 0;
+        while (magic.hasRemaining() && read >= 0) {
+            read = channel.read(magic, magic.position());
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    static GraphImage read(final FileChannel channel, final ExecutorService executor, final int parallelism) throws IOException {
+        final long size = channel.size();
+        final MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+        checkArgument(size >= HEADER_BYTES && head.getInt(0) == MAGIC, "Not a binary graph file");
+        final int version = head.getInt(4);
+        checkArgument(version == FORMAT_VERSION || version == COUNTED_FORMAT_VERSION,
+                "Unsupported binary graph file version: %s", version);
+        final int edgeBytes = version == FORMAT_VERSION ? EDGE_BYTES : COUNTED_EDGE_BYTES;
+        final int nodeCount = head.getInt(8);
+        final int edgeCount = head.getInt(12);
+        checkArgument(nodeCount >= 0 && edgeCount >= 0, "Negative node or edge count");
+        final Node[] nodes = new Node[nodeCount];
+        int position = HEADER_BYTES;
+        for (int i = 0; i < nodeCount; i++) {
+            checkArgument((long) position + Integer.BYTES <= head.limit(), "Truncated node section");
+            final int length = head.getInt(position);
+            checkArgument(length > 0 && (long) position + Integer.BYTES + length <= head.limit(), "Truncated node section");
+            final byte[] name = new byte[length];
+            head.position(position + Integer.BYTES);
+            head.get(name);
+            nodes[i] = new Node(new String(name, StandardCharsets.UTF_8));
+            position += Integer.BYTES + length;
+        }
+        final long edgeOffset = position;
+        checkArgument(size == edgeOffset + (long) edgeCount * edgeBytes, "File size does not match edge count %s", edgeCount);
+        final int[] sources = new int[edgeCount];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        final long[] counts = version == FORMAT_VERSION ? null : new long[edgeCount];
+        final int maxChunkEdges = MAX_CHUNK_BYTES / edgeBytes;
+        final int chunkCount = Math.max(1, Math.max(Math.min(parallelism, edgeCount / MIN_CHUNK_EDGES),
+                (edgeCount + maxChunkEdges - 1) / maxChunkEdges));
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            final int from = (int) ((long) edgeCount * i / chunkCount);
+            final int to = (int) ((long) edgeCount * (i + 1) / chunkCount);
+            tasks.add(() -> {
+                final MappedByteBuffer edges = channel.map(FileChannel.MapMode.READ_ONLY,
+                        edgeOffset + (long) from * edgeBytes, (long) (to - from) * edgeBytes);
+                for (int edge = from; edge < to; edge++) {
+                    sources[edge] = edges.getInt();
+                    targets[edge] = edges.getInt();
+                    weights[edge] = edges.getInt();
+                    if (counts != null) {
+                        counts[edge] = edges.getLong();
+                    }
+                    checkArgument(sources[edge] >= 0 && sources[edge] < nodeCount && targets[edge] >= 0
+                            && targets[edge] < nodeCount && weights[edge] > 0 && (counts == null || counts[edge] > 0),
+                            "Invalid edge %s", edge);
+                }
+                return null;
+            });
+        }
+        GraphFileLoader.invokeAll(executor, tasks);
+        return new GraphImage(nodes, edgeCount, sources, targets, weights, counts);
+    }
+
+    static void write(final GraphImage image, final Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(image.getCounts() == null ? FORMAT_VERSION : COUNTED_FORMAT_VERSION);
+            out.writeInt(image.getNodes().length);
+            out.writeInt(image.getEdgeCount());
+            for (Node node : image.getNodes()) {
+                final byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            for (int i = 0; i < image.getEdgeCount(); i++) {
+                out.writeInt(image.getSources()[i]);
+                out.writeInt(image.getTargets()[i]);
+                out.writeInt(image.getWeights()[i]);
+                if (image.getCounts() != null) {
+                    out.writeLong(image.count(i));
+                }
+            }
+        }
+    }
+}
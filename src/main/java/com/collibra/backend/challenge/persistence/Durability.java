@@ -0,0 +1,31 @@
+package com.collibra.backend.challenge.persistence;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * What a client answer promises about its mutation, selected with {@code -Dgraph.log.durability=<name>}
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Durability {
+
+    /**
+     * Mutation is forced to disk before the answer. Sessions waiting at the same time share one write and force
+     * (group commit), so throughput grows with the number of concurrent writers instead of being one force per mutation.
+     */
+    SYNC(true),
+
+    /**
+     * Mutations are written and forced every flush interval. A crash loses at most the last interval.
+     */
+    INTERVAL(true),
+
+    /**
+     * Mutations are written every flush interval but never forced. Survives a crash of the process,
+     * not of the operating system.
+     */
+    NONE(false);
+
+    private final boolean force;
+}
@@ -0,0 +1,62 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.GraphImage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Formats of graph files loaded by {@link GraphFileLoader}. The format of a file is detected from its first bytes.
+ */
+public enum GraphFileFormat {
+
+    /**
+     * One node or edge per line, {@code <node>} or {@code <source> <target> <weight>} separated by spaces or tabs.
+     * Edges create missing nodes, blank lines and lines starting with {@code #} are ignored.
+     */
+    TEXT {
+        @Override
+        GraphImage read(final FileChannel channel, final ExecutorService executor, final int parallelism) throws IOException {
+            return TextGraphFile.read(channel, executor, parallelism);
+        }
+
+        @Override
+        public void write(final GraphImage image, final Path file) throws IOException {
+            TextGraphFile.write(image, file);
+        }
+    },
+
+    /**
+     * Length prefixed UTF-8 node names followed by fixed size {@code (source, target, weight)} records,
+     * see {@link BinaryGraphFile}. Several times smaller and faster to load than the text format.
+     */
+    BINARY {
+        @Override
+        GraphImage read(final FileChannel channel, final ExecutorService executor, final int parallelism) throws IOException {
+            return BinaryGraphFile.read(channel, executor, parallelism);
+        }
+
+        @Override
+        public void write(final GraphImage image, final Path file) throws IOException {
+            BinaryGraphFile.write(image, file);
+        }
+    };
+
+    /**
+     * @param executor      runs the chunks of the file in parallel
+     * @param parallelism   number of chunks the file is split into, at least
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    abstract GraphImage read(final FileChannel channel, final ExecutorService executor, final int parallelism) throws IOException;
+
+    /**
+     * Write the image to the file, replacing it
+     */
+    public abstract void write(final GraphImage image, final Path file) throws IOException;
+
+    static GraphFileFormat detect(final FileChannel channel) throws IOException {
+        return BinaryGraphFile.startsWithMagic(channel) ? BINARY : TEXT;
+    }
+}
@@ -0,0 +1,113 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphImage;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warm start of the server: reads a graph file through memory mapped chunks parsed in parallel and fills the empty
+ * graph in one step, without going through the message processors.
+ */
+@Slf4j
+@Getter
+@RequiredArgsConstructor
+public final class GraphFileLoader {
+
+    /**
+     * {@code -Dgraph.load.file=<path>} graph file loaded before the server starts, see {@link GraphFileFormat}
+     */
+    public static final String FILE_PROPERTY = "graph.load.file";
+    /**
+     * {@code -Dgraph.load.threads=4} threads parsing the graph file, number of cores by default
+     */
+    public static final String THREADS_PROPERTY = "graph.load.threads";
+
+    private final int threads;
+
+    public static GraphFileLoader fromSystemProperties() {
+        return new GraphFileLoader(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Load the file into the graph and log the load time and rate
+     *
+     * @param file      graph file in any {@link GraphFileFormat}
+     * @param graph     empty graph
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws IllegalStateException if the graph is not empty
+     */
+    public void load(final Path file, final DirectedGraph graph) throws IOException {
+        final long start = System.nanoTime();
+        final GraphImage image = read(file);
+        final long parsed = System.nanoTime();
+        graph.load(image);
+        final long loaded = System.nanoTime();
+        log.info("Loaded {} nodes and {} edges from {} in {} ms (parsing {} ms, building {} ms), {} edges/s",
+                image.getNodes().length, image.totalEdgeCount(), file,
+                TimeUnit.NANOSECONDS.toMillis(loaded - start), TimeUnit.NANOSECONDS.toMillis(parsed - start),
+                TimeUnit.NANOSECONDS.toMillis(loaded - parsed),
+                image.getEdgeCount() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, loaded - start));
+    }
+
+    /**
+     * @param file          graph file in any {@link GraphFileFormat}
+     * @throws IllegalArgumentException if the file is malformed
+     * @return GraphImage   nodes and edges of the file
+     */
+    public GraphImage read(final Path file) throws IOException {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "graph-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return GraphFileFormat.detect(channel).read(channel, executor, threads);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the tasks and wait for all of them
+     *
+     * @return List<T>  results in the order of the tasks
+     */
+    static <T> List<T> invokeAll(final ExecutorService executor, final List<Callable<T>> tasks) throws IOException {
+        try {
+            final List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading graph file");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Can not read graph file", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphJournal;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import com.collibra.backend.challenge.graph.Node;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append only write ahead log of graph mutations. Records are encoded into an in memory buffer under the mutation
+ * lock and written by whoever flushes next: a session waiting for {@link Durability#SYNC} or the background flusher.
+ * One write and force covers every record appended since the previous flush, so concurrent sessions share it.
+ * <p>
+ * Record: {@code int length, payload, int CRC32 of payload}. Payload: {@code byte type, names as int length and
+ * UTF-8 bytes, int weight of added edges}. A record torn by a crash fails the length or checksum check on recovery
+ * and is cut off together with everything behind it.
+ * <p>
+ * Records are appended to {@code <file>}. A {@link #checkpoint} renames it to the segment {@code <file>.<sequence>},
+ * named after the sequence number of its last record, and starts an empty {@code <file>}. Segments contained in a
+ * stored snapshot are removed with {@link #deleteSegments}.
+ */
+@Slf4j
+@ThreadSafe
+public final class MutationLog implements GraphJournal, Closeable {
+
+    /**
+     * {@code -Dgraph.log.file=<path>} mutation log replayed on startup and appended afterwards, disabled by default
+     */
+    public static final String FILE_PROPERTY = "graph.log.file";
+    /**
+     * {@code -Dgraph.log.durability=sync} see {@link Durability}
+     */
+    public static final String DURABILITY_PROPERTY = "graph.log.durability";
+    /**
+     * {@code -Dgraph.log.flush-interval=100} ms between background flushes of {@link Durability#INTERVAL} and
+     * {@link Durability#NONE}
+     */
+    public static final String FLUSH_INTERVAL_PROPERTY = "graph.log.flush-interval";
+    private static final long DEFAULT_FLUSH_INTERVAL_IN_MS = 100;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final int REPLAY_BATCH_SIZE = 10_000;
+
+    private final Path file;
+    private final Durability durability;
+    /**
+     * Guarded by {@link #flushLock}
+     */
+    private FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    /**
+     * Guards {@link #pending}, {@link #checksum} and {@link #appendedSequence}
+     */
+    private final Lock appendLock = new ReentrantLock();
+    /**
+     * Held while writing, sessions waiting for it are flushed together by the next holder
+     */
+    private final Lock flushLock = new ReentrantLock();
+    private final CRC32 checksum = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    /**
+     * Guarded by {@link #flushLock}
+     */
+    private ByteBuffer writing = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appendedSequence;
+    private volatile long flushedSequence;
+    /**
+     * First write error, the log can not tell which records reached the disk afterwards and refuses further flushes
+     */
+    private volatile IOException failure;
+
+    /**
+     * Open the log for appending, call {@link #recover} before the first mutation
+     */
+    public MutationLog(final Path file, final Durability durability, final long flushIntervalInMs) throws IOException {
+        this.file = file;
+        this.durability = durability;
+        this.channel = open(file);
+        this.flusher = durability == Durability.SYNC ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "mutation-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flusher != null) {
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalInMs, flushIntervalInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static MutationLog fromSystemProperties(final Path file) throws IOException {
+        return new MutationLog(file,
+                Durability.valueOf(System.getProperty(DURABILITY_PROPERTY, Durability.INTERVAL.name()).toUpperCase()),
+                Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL_IN_MS));
+    }
+
+    /**
+     * Replay the whole log into the graph, see {@link #recover(DirectedGraph, long)}
+     */
+    public long recover(final DirectedGraph graph) throws IOException {
+        return recover(graph, 0);
+    }
+
+    /**
+     * Replay the segments following the snapshot and the current file into the graph, cut off a torn tail
+     * and attach the log to the graph
+     *
+     * @param graph             graph which already contains everything the log was started on, usually a snapshot
+     * @param snapshotSequence  sequence number of the last record contained in the graph, {@code 0} for none
+     * @throws IOException if a segment other than the current file is damaged
+     * @return long             number of replayed records
+     */
+    public long recover(final DirectedGraph graph, final long snapshotSequence) throws IOException {
+        final long start = System.nanoTime();
+        long records = 0;
+        for (long segment : segments(file)) {
+            if (segment > snapshotSequence) {
+                try (FileChannel segmentChannel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ)) {
+                    records += replay(segmentChannel, segmentFile(segment), graph, false);
+                }
+            }
+        }
+        records += replay(channel, file, graph, true);
+        appendedSequence = snapshotSequence + records;
+        flushedSequence = appendedSequence;
+        final long elapsed = System.nanoTime() - start;
+        log.info("Replayed {} records from {} in {} ms, {} records/s", records, file, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                records * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+        graph.setJournal(this);
+        return records;
+    }
+
+    /**
+     * @param current   whether the file is appended to, only its torn tail is cut off
+     * @return long     number of replayed records
+     */
+    private static long replay(final FileChannel source, final Path path, final DirectedGraph graph, final boolean current) throws IOException {
+        long validBytes = 0;
+        long records = 0;
+        final List<GraphMutation> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(source.position(0)), 1 << 16));
+        while (true) {
+            final byte[] payload = readPayload(in);
+            if (payload == null) {
+                break;
+            }
+            batch.add(decode(ByteBuffer.wrap(payload)));
+            validBytes += Integer.BYTES + payload.length + Integer.BYTES;
+            records++;
+            if (batch.size() == REPLAY_BATCH_SIZE) {
+                graph.applyBatch(batch, false);
+                batch.clear();
+            }
+        }
+        graph.applyBatch(batch, false);
+        if (validBytes < source.size()) {
+            if (!current) {
+                throw new IOException("Damaged mutation log segment " + path + " at byte " + validBytes);
+            }
+            log.warn("Cutting off {} bytes of incomplete records at the end of {}", source.size() - validBytes, path);
+            source.truncate(validBytes);
+        }
+        source.position(validBytes);
+        return records;
+    }
+
+    @Override
+    public long append(final GraphMutation mutation) {
+        final byte[] source = mutation.getSource().getName().getBytes(StandardCharsets.UTF_8);
+        final byte[] target = mutation.getTarget() == null ? null : mutation.getTarget().getName().getBytes(StandardCharsets.UTF_8);
+        final int length = 1 + Integer.BYTES + source.length + (target == null ? 0 : Integer.BYTES + target.length)
+                + (mutation.getEdge() == null ? 0 : Integer.BYTES);
+        appendLock.lock();
+        try {
+            ensureCapacity(Integer.BYTES + length + Integer.BYTES);
+            pending.putInt(length);
+            final int payload = pending.position();
+            pending.put((byte) mutation.getType().ordinal());
+            pending.putInt(source.length).put(source);
+            if (target != null) {
+                pending.putInt(target.length).put(target);
+            }
+            if (mutation.getEdge() != null) {
+                pending.putInt(mutation.getEdge().getWeight());
+            }
+            checksum.reset();
+            checksum.update(pending.array(), payload, length);
+            pending.putInt((int) checksum.getValue());
+            return ++appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the log can not be written, the mutation is applied but not acknowledged
+     */
+    @Override
+    public void awaitDurable(final long sequence) {
+        if (durability != Durability.SYNC || flushedSequence >= sequence) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if (flushedSequence < sequence) {
+                flush(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not write mutation log " + file, e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Force everything appended so far and move it to a new segment. Holds the mutation lock while forcing,
+     * which is fine once per snapshot.
+     *
+     * @throws UncheckedIOException if the log can not be written or renamed
+     */
+    @Override
+    public long checkpoint() {
+        flushLock.lock();
+        try {
+            flush(true);
+            if (channel.size() > 0) {
+                Files.move(file, segmentFile(flushedSequence), StandardCopyOption.ATOMIC_MOVE);
+                final FileChannel segment = channel;
+                try {
+                    channel = open(file);
+                    forceDirectory(file);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                segment.close();
+            }
+            return flushedSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not start a new segment of mutation log " + file, e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments whose records are all contained in a stored snapshot
+     *
+     * @param sequence  sequence number of the last record contained in the snapshot
+     * @return int      number of deleted segments
+     */
+    public int deleteSegments(final long sequence) throws IOException {
+        int deleted = 0;
+        for (long segment : segments(file)) {
+            if (segment <= sequence) {
+                Files.deleteIfExists(segmentFile(segment));
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return long     sequence number of the last appended record, it counts every record since the log was created
+     */
+    public long appendedSequence() {
+        appendLock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Flush and force everything appended so far and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            // no shutdownNow, interrupting a write closes the channel
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushLock.lock();
+        try {
+            flush(true);
+            channel.close();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write and possibly force every record appended so far, called with {@link #flushLock} held
+     */
+    private void flush(final boolean force) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        final long sequence;
+        appendLock.lock();
+        try {
+            final ByteBuffer appended = pending;
+            pending = writing;
+            writing = appended;
+            sequence = appendedSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            writing.flip();
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            writing.clear();
+            if (force) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        flushedSequence = sequence;
+    }
+
+    private void flushInBackground() {
+        flushLock.lock();
+        try {
+            if (flushedSequence < appendedSequence()) {
+                flush(durability.isForce());
+            }
+        } catch (IOException e) {
+            log.error("Can not write mutation log {}", file, e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Path segmentFile(final long sequence) {
+        return file.resolveSibling(file.getFileName() + "." + sequence);
+    }
+
+    /**
+     * @return List<Long>   sequence numbers of the segments of the log, ascending
+     */
+    private static List<Long> segments(final Path file) throws IOException {
+        final String prefix = file.getFileName() + ".";
+        final List<Long> segments = new ArrayList<>();
+        try (Stream<Path> siblings = Files.list(file.toAbsolutePath().getParent())) {
+            siblings.map(sibling -> sibling.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.length() > prefix.length()
+                            && name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(prefix.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static FileChannel open(final Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Make a rename or new file in the directory of the file durable, where the platform supports it
+     */
+    static void forceDirectory(final Path file) {
+        try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            log.debug("Can not force directory of {}", file, e);
+        }
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (pending.remaining() < bytes) {
+            final ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+    }
+
+    /**
+     * @return byte[]   payload of the next record, {@code null} at the end of the log or at a torn record
+     */
+    private static byte[] readPayload(final DataInputStream in) throws IOException {
+        try {
+            final int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            final CRC32 checksum = new CRC32();
+            checksum.update(payload);
+            return in.readInt() == (int) checksum.getValue() ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static GraphMutation decode(final ByteBuffer payload) {
+        final GraphMutation.Type type = GraphMutation.Type.values()[payload.get()];
+        final Node source = readNode(payload);
+        switch (type) {
+            case ADD_NODE:
+                return GraphMutation.addNode(source);
+            case REMOVE_NODE:
+                return GraphMutation.removeNode(source);
+            case ADD_EDGE:
+                final Node target = readNode(payload);
+                return GraphMutation.addEdge(Edge.builder().source(source).target(target).weight(payload.getInt()).build());
+            case REMOVE_EDGE:
+                return GraphMutation.removeEdge(source, readNode(payload));
+            default:
+                throw new IllegalArgumentException("Unknown mutation: " + type);
+        }
+    }
+
+    private static Node readNode(final ByteBuffer payload) {
+        final byte[] name = new byte[payload.getInt()];
+        payload.get(name);
+        return new Node(new String(name, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,167 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphCheckpoint;
+import com.collibra.backend.challenge.graph.GraphImage;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Point in time snapshots of the graph, so a restart loads the latest snapshot and replays only the mutation log
+ * written after it. A snapshot is a {@link GraphFileFormat#BINARY} file {@code <log file>.<sequence>.snapshot},
+ * named after the sequence number of the last mutation it contains. It is copied from an immutable
+ * {@link com.collibra.backend.challenge.graph.GraphSnapshot} in the background, queries and mutations go on
+ * meanwhile. Once it is stored, older snapshots and the log segments it contains are deleted.
+ */
+@Slf4j
+@ThreadSafe
+public final class SnapshotWriter implements Closeable {
+
+    /**
+     * {@code -Dgraph.snapshot.interval=300000} ms between snapshots of a graph with a mutation log, {@code 0} disables them
+     */
+    public static final String INTERVAL_PROPERTY = "graph.snapshot.interval";
+    private static final long DEFAULT_INTERVAL_IN_MS = 300_000;
+    private static final String SUFFIX = ".snapshot";
+
+    private final Path logFile;
+    private final MutationLog mutationLog;
+    private final DirectedGraph graph;
+    private final ScheduledExecutorService scheduler;
+    /**
+     * One snapshot at a time
+     */
+    private final Lock lock = new ReentrantLock();
+    private volatile long lastSequence;
+
+    /**
+     * @param mutationLog   log attached to the graph by {@link MutationLog#recover}
+     * @param intervalInMs  ms between background snapshots, {@code 0} writes them on {@link #write} only
+     */
+    public SnapshotWriter(final Path logFile, final MutationLog mutationLog, final DirectedGraph graph,
+                          final long intervalInMs) throws IOException {
+        this.logFile = logFile;
+        this.mutationLog = mutationLog;
+        this.graph = graph;
+        this.lastSequence = latest(logFile).map(SnapshotWriter::sequenceOf).getOrElse(0L);
+        this.scheduler = intervalInMs <= 0 ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::writeInBackground, intervalInMs, intervalInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static SnapshotWriter fromSystemProperties(final Path logFile, final MutationLog mutationLog,
+                                                      final DirectedGraph graph) throws IOException {
+        return new SnapshotWriter(logFile, mutationLog, graph, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_IN_MS));
+    }
+
+    /**
+     * @return Option<Path>     snapshot of the log with the highest sequence number, empty if there is none
+     */
+    public static Option<Path> latest(final Path logFile) throws IOException {
+        return snapshots(logFile).maxBy(SnapshotWriter::sequenceOf);
+    }
+
+    /**
+     * @return long     sequence number of the last mutation contained in the snapshot file
+     */
+    public static long sequenceOf(final Path snapshot) {
+        final String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.', name.length() - SUFFIX.length() - 1) + 1,
+                name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Store a snapshot of the graph now, then delete older snapshots and log segments
+     *
+     * @return long     sequence number of the last mutation contained in the snapshot
+     */
+    public long write() throws IOException {
+        lock.lock();
+        try {
+            final long start = System.nanoTime();
+            final GraphCheckpoint checkpoint = graph.checkpoint();
+            final GraphImage image = checkpoint.getSnapshot().toImage();
+            final long copied = System.nanoTime();
+            final Path snapshot = logFile.resolveSibling(logFile.getFileName() + "." + checkpoint.getSequence() + SUFFIX);
+            final Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            GraphFileFormat.BINARY.write(image, temporary);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            MutationLog.forceDirectory(snapshot);
+            for (Path older : snapshots(logFile)) {
+                if (sequenceOf(older) < checkpoint.getSequence()) {
+                    Files.deleteIfExists(older);
+                }
+            }
+            final int segments = mutationLog.deleteSegments(checkpoint.getSequence());
+            lastSequence = checkpoint.getSequence();
+            final long elapsed = System.nanoTime() - start;
+            log.info("Wrote snapshot of {} nodes and {} edges up to log record {} to {} in {} ms (copying {} ms), "
+                            + "{} log segments deleted", image.getNodes().length, image.totalEdgeCount(),
+                    checkpoint.getSequence(), snapshot, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    TimeUnit.NANOSECONDS.toMillis(copied - start), segments);
+            return checkpoint.getSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop background snapshots, waiting for a running one
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeInBackground() {
+        try {
+            if (mutationLog.appendedSequence() != lastSequence) {
+                write();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Can not write snapshot of {}", logFile, e);
+        }
+    }
+
+    private static List<Path> snapshots(final Path logFile) throws IOException {
+        final String prefix = logFile.getFileName() + ".";
+        try (Stream<Path> siblings = Files.list(logFile.toAbsolutePath().getParent())) {
+            return List.ofAll(siblings::iterator).filter(sibling -> {
+                final String name = sibling.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(SUFFIX) && name.length() > prefix.length() + SUFFIX.length()
+                        && name.substring(prefix.length(), name.length() - SUFFIX.length()).chars().allMatch(Character::isDigit);
+            });
+        }
+    }
+}
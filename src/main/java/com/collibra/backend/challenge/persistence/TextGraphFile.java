@@ -0,0 +1,398 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.Node;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reader and writer of {@link GraphFileFormat#TEXT}. The file is split into chunks at arbitrary byte offsets,
+ * every chunk is mapped on its own and owns the lines starting in it. Chunks intern names by their bytes, so a
+ * string is decoded once per distinct name of a chunk instead of once per token. Names of all chunks are merged
+ * into node ids afterwards.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class TextGraphFile {
+
+    /**
+     * A chunk is mapped together with the rest of its last line, both have to fit into a single mapping
+     */
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    static GraphImage read(final FileChannel channel, final ExecutorService executor, final int parallelism) throws IOException {
+        final long size = channel.size();
+        return readChunks(channel, executor, Math.max(1, Math.max(Math.min(parallelism, size / MIN_CHUNK_BYTES),
+                (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES)));
+    }
+
+    /**
+     * @param chunkCount    number of chunks the file is split into
+     */
+    static GraphImage readChunks(final FileChannel channel, final ExecutorService executor, final long chunkCount) throws IOException {
+        final long size = channel.size();
+        checkArgument(chunkCount > 0 && chunkCount >= (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES, "Chunks too large: %s", chunkCount);
+        final List<Callable<Chunk>> tasks = new ArrayList<>();
+        for (long i = 0; i < chunkCount; i++) {
+            final long start = size * i / chunkCount;
+            final long end = size * (i + 1) / chunkCount;
+            tasks.add(() -> new Chunk(channel, start, end).parse());
+        }
+        return merge(GraphFileLoader.invokeAll(executor, tasks));
+    }
+
+    static void write(final GraphImage image, final Path file) throws IOException {
+        final Node[] nodes = image.getNodes();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Node node : nodes) {
+                writer.write(node.getName());
+                writer.write('\n');
+            }
+            for (int i = 0; i < image.getEdgeCount(); i++) {
+                final String line = nodes[image.getSources()[i]].getName() + ' ' + nodes[image.getTargets()[i]].getName()
+                        + ' ' + image.getWeights()[i] + '\n';
+                // the text format has no counts, parallel edges are written one line each
+                for (long k = 0; k < image.count(i); k++) {
+                    writer.write(line);
+                }
+            }
+        }
+    }
+
+    private static GraphImage merge(final List<Chunk> chunks) {
+        long nameCount = 0;
+        long edgeCount = 0;
+        for (Chunk chunk : chunks) {
+            nameCount += chunk.nameCount;
+            edgeCount += chunk.edgeCount;
+        }
+        checkArgument(edgeCount < Integer.MAX_VALUE, "Too many edges: %s", edgeCount);
+        final Map<String, Integer> ids = new HashMap<>((int) Math.min(nameCount * 4 / 3 + 1, Integer.MAX_VALUE));
+        final List<Node> nodes = new ArrayList<>();
+        final int[] sources = new int[(int) edgeCount];
+        final int[] targets = new int[(int) edgeCount];
+        final int[] weights = new int[(int) edgeCount];
+        int position = 0;
+        for (Chunk chunk : chunks) {
+            final int[] nodeIds = new int[chunk.nameCount];
+            for (int name = 0; name < chunk.nameCount; name++) {
+                nodeIds[name] = ids.computeIfAbsent(chunk.name(name), newName -> {
+                    nodes.add(new Node(newName));
+                    return nodes.size() - 1;
+                });
+            }
+            for (int i = 0; i < chunk.edgeCount; i++) {
+                sources[position] = nodeIds[chunk.sources[i]];
+                targets[position] = nodeIds[chunk.targets[i]];
+                weights[position++] = chunk.weights[i];
+            }
+        }
+        return new GraphImage(nodes.toArray(new Node[0]), position, sources, targets, weights);
+    }
+
+    /**
+     * Lines starting in {@code [start, end)} of the file, with names replaced by ids local to the chunk
+     */
+    private static final class Chunk {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final int EMPTY = -1;
+        private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+        private static final int BATCH_LINES = 64;
+        private static final int TOKENS_PER_LINE = 3;
+
+        /**
+         * Starts one byte before the chunk, to tell whether the chunk starts with a new line
+         */
+        private final MappedByteBuffer buffer;
+        private final long offset;
+        private final int end;
+        /**
+         * Open addressing table of {@code hash << 32 | record offset}. A record of the arena is the name id, the length
+         * and the bytes of a name. Lookups of a large table are cache misses, so a lookup touches the slot and the
+         * record only: names are not compared in place, that would touch random pages of the whole file.
+         */
+        private long[] slots = newSlots(INITIAL_CAPACITY);
+        private byte[] arena = new byte[INITIAL_CAPACITY * 16];
+        private int arenaSize;
+        /**
+         * Record offset of every name id
+         */
+        private int[] records = new int[INITIAL_CAPACITY];
+        private int nameCount;
+        private int[] sources = new int[INITIAL_CAPACITY];
+        private int[] targets = new int[INITIAL_CAPACITY];
+        private int[] weights = new int[INITIAL_CAPACITY];
+        private int edgeCount;
+        /**
+         * Lines of the current batch: start, token count and start, end and hash of every token
+         */
+        private final int[] lineStarts = new int[BATCH_LINES];
+        private final int[] tokenCounts = new int[BATCH_LINES];
+        private final int[] tokenStarts = new int[BATCH_LINES * TOKENS_PER_LINE];
+        private final int[] tokenEnds = new int[BATCH_LINES * TOKENS_PER_LINE];
+        private final int[] tokenHashes = new int[BATCH_LINES * TOKENS_PER_LINE];
+        /**
+         * Sink of {@link #touch}, keeps its loads from being optimized away
+         */
+        private long touched;
+
+        Chunk(final FileChannel channel, final long start, final long end) throws IOException {
+            this.offset = start == 0 ? 0 : start - 1;
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(channel.size() - offset, Integer.MAX_VALUE));
+            this.end = (int) (end - offset);
+        }
+
+        Chunk parse() {
+            final int limit = buffer.limit();
+            int position = 0;
+            if (offset > 0) {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+                position++;
+            }
+            while (position < end) {
+                int lines = 0;
+                while (lines < BATCH_LINES && position < end) {
+                    position = tokenize(lines++, position, limit);
+                }
+                touch(lines);
+                for (int line = 0; line < lines; line++) {
+                    resolve(line);
+                }
+            }
+            return this;
+        }
+
+        String name(final int name) {
+            final int record = records[name];
+            return new String(arena, record + RECORD_HEADER_BYTES, readInt(record + Integer.BYTES), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Split the line into tokens of the batch and hash its names, a comment line has no tokens
+         *
+         * @return int  position after the line
+         */
+        private int tokenize(final int line, final int lineStart, final int limit) {
+            lineStarts[line] = lineStart;
+            int tokenCount = 0;
+            int position = skipBlanks(lineStart, limit);
+            if (position < limit && buffer.get(position) == '#') {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+            }
+            while (position < limit && buffer.get(position) != '\n') {
+                if (tokenCount == TOKENS_PER_LINE) {
+                    throw malformed(lineStart);
+                }
+                final int token = line * TOKENS_PER_LINE + tokenCount++;
+                tokenStarts[token] = position;
+                position = tokenEnd(position, limit);
+                tokenEnds[token] = position;
+                position = skipBlanks(position, limit);
+            }
+            tokenCounts[line] = tokenCount;
+            for (int name = 0; name < Math.min(2, tokenCount); name++) {
+                final int token = line * TOKENS_PER_LINE + name;
+                int hash = 0;
+                for (int i = tokenStarts[token]; i < tokenEnds[token]; i++) {
+                    hash = 31 * hash + buffer.get(i);
+                }
+                tokenHashes[token] = hash;
+            }
+            return position + 1;
+        }
+
+        /**
+         * Load the slots and records the names of the batch will look up. The loads do not depend on each other,
+         * so their cache misses overlap instead of being paid one after another by {@link #intern}.
+         */
+        private void touch(final int lines) {
+            final int mask = slots.length - 1;
+            long sum = 0;
+            for (int line = 0; line < lines; line++) {
+                for (int name = 0; name < Math.min(2, tokenCounts[line]); name++) {
+                    final long entry = slots[spread(tokenHashes[line * TOKENS_PER_LINE + name]) & mask];
+                    if (entry != EMPTY) {
+                        sum += arena[(int) entry];
+                    }
+                }
+            }
+            touched += sum;
+        }
+
+        private void resolve(final int line) {
+            final int token = line * TOKENS_PER_LINE;
+            switch (tokenCounts[line]) {
+                case 0:
+                    break;
+                case 1:
+                    intern(tokenStarts[token], tokenEnds[token], tokenHashes[token]);
+                    break;
+                case 3:
+                    addEdge(intern(tokenStarts[token], tokenEnds[token], tokenHashes[token]),
+                            intern(tokenStarts[token + 1], tokenEnds[token + 1], tokenHashes[token + 1]),
+                            parseWeight(tokenStarts[token + 2], tokenEnds[token + 2], lineStarts[line]));
+                    break;
+                default:
+                    throw malformed(lineStarts[line]);
+            }
+        }
+
+        private int skipBlanks(int position, final int limit) {
+            while (position < limit && isBlank(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        private int tokenEnd(int position, final int limit) {
+            while (position < limit && buffer.get(position) != '\n' && !isBlank(buffer.get(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        private int parseWeight(final int start, final int tokenEnd, final int lineStart) {
+            long weight = 0;
+            for (int position = start; position < tokenEnd; position++) {
+                final int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformed(lineStart);
+                }
+                weight = weight * 10 + digit;
+                if (weight > Integer.MAX_VALUE) {
+                    throw malformed(lineStart);
+                }
+            }
+            if (weight == 0) {
+                throw malformed(lineStart);
+            }
+            return (int) weight;
+        }
+
+        private int intern(final int start, final int tokenEnd, final int hash) {
+            if ((nameCount + 1) * 2 > slots.length) {
+                rehash();
+            }
+            final int mask = slots.length - 1;
+            int slot = spread(hash) & mask;
+            for (; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+                final int record = (int) slots[slot];
+                if ((int) (slots[slot] >>> 32) == hash && sameBytes(record, start, tokenEnd)) {
+                    return readInt(record);
+                }
+            }
+            if (nameCount == records.length) {
+                records = Arrays.copyOf(records, nameCount * 2);
+            }
+            final int length = tokenEnd - start;
+            if (arenaSize + RECORD_HEADER_BYTES + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + RECORD_HEADER_BYTES + length));
+            }
+            writeInt(arenaSize, nameCount);
+            writeInt(arenaSize + Integer.BYTES, length);
+            for (int i = 0; i < length; i++) {
+                arena[arenaSize + RECORD_HEADER_BYTES + i] = buffer.get(start + i);
+            }
+            records[nameCount] = arenaSize;
+            slots[slot] = (long) hash << 32 | arenaSize;
+            arenaSize += RECORD_HEADER_BYTES + length;
+            return nameCount++;
+        }
+
+        private boolean sameBytes(final int record, final int start, final int tokenEnd) {
+            if (readInt(record + Integer.BYTES) != tokenEnd - start) {
+                return false;
+            }
+            for (int i = 0; i < tokenEnd - start; i++) {
+                if (arena[record + RECORD_HEADER_BYTES + i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int readInt(final int position) {
+            return (arena[position] & 0xFF) << 24 | (arena[position + 1] & 0xFF) << 16
+                    | (arena[position + 2] & 0xFF) << 8 | arena[position + 3] & 0xFF;
+        }
+
+        private void writeInt(final int position, final int value) {
+            arena[position] = (byte) (value >>> 24);
+            arena[position + 1] = (byte) (value >>> 16);
+            arena[position + 2] = (byte) (value >>> 8);
+            arena[position + 3] = (byte) value;
+        }
+
+        private void rehash() {
+            final long[] oldSlots = slots;
+            slots = newSlots(oldSlots.length * 2);
+            final int mask = slots.length - 1;
+            for (long entry : oldSlots) {
+                if (entry != EMPTY) {
+                    int slot = spread((int) (entry >>> 32)) & mask;
+                    while (slots[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = entry;
+                }
+            }
+        }
+
+        private void addEdge(final int source, final int target, final int weight) {
+            if (edgeCount == sources.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                weights = Arrays.copyOf(weights, edgeCount * 2);
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = target;
+            weights[edgeCount++] = weight;
+        }
+
+        private IllegalArgumentException malformed(final int lineStart) {
+            return new IllegalArgumentException("Malformed line at byte " + (offset + lineStart)
+                    + ", expected <node> or <source> <target> <weight> with positive int weight");
+        }
+
+        private static boolean isBlank(final byte character) {
+            return character == ' ' || character == '\t' || character == '\r';
+        }
+
+        private static long[] newSlots(final int capacity) {
+            final long[] result = new long[capacity];
+            Arrays.fill(result, EMPTY);
+            return result;
+        }
+
+        /**
+         * Names often differ in their last characters only, which gives runs of consecutive hashes.
+         * Multiplying scatters them, linear probing would degrade to long clusters otherwise.
+         */
+        private static int spread(final int hash) {
+            final int scattered = hash * 0x9E3779B9;
+            return scattered ^ (scattered >>> 16);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.collibra.backend.challenge.replication;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import com.collibra.backend.challenge.stats.ReplicationStats;
+import com.collibra.backend.challenge.stats.ServerStats;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Follower side of the replication: marks the graph read only and applies the mutation feed of the leader to it,
+ * see {@link ReplicationProtocol}. A lost connection is retried, the follower resumes after the last applied
+ * mutation if the leader still has it, otherwise it starts again from a snapshot. The graph answers queries
+ * all the time, a snapshot replaces it in one step.
+ */
+@Slf4j
+@ThreadSafe
+public final class ReplicationFollower implements Closeable {
+
+    /**
+     * {@code -Dserver.replication.leader=localhost:50100} replication port of the leader, the server follows it
+     */
+    public static final String LEADER_PROPERTY = "server.replication.leader";
+    private static final long RETRY_DELAY_IN_MS = 1_000;
+    /**
+     * The leader sends a heartbeat every second, a silent connection is given up after this
+     */
+    private static final int TIMEOUT_IN_MS = 10_000;
+
+    private final DirectedGraph graph;
+    private final InetSocketAddress leader;
+    private final ReplicationStats stats;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    /**
+     * Leader run the graph is a replica of, {@code 0} for none. Used by the follower thread only.
+     */
+    private long epoch;
+    /**
+     * Sequence number of the last applied mutation. Used by the follower thread only.
+     */
+    private long applied;
+
+    /**
+     * Mark the graph read only and start following the leader
+     *
+     * @param graph     graph without journal, filled by the leader
+     */
+    public ReplicationFollower(final DirectedGraph graph, final InetSocketAddress leader, final ReplicationStats stats) {
+        this.graph = graph;
+        this.leader = leader;
+        this.stats = stats;
+        graph.setReadOnly(true);
+        stats.setRole(ReplicationStats.Role.FOLLOWER);
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return Option   follower if {@code -Dserver.replication.leader=<host>:<port>} is set
+     * @throws IllegalArgumentException if the property is not {@code <host>:<port>}
+     */
+    public static Option<ReplicationFollower> fromSystemProperties(final DirectedGraph graph) {
+        final String leader = System.getProperty(LEADER_PROPERTY);
+        if (leader == null) {
+            return Option.none();
+        }
+        final int separator = leader.lastIndexOf(':');
+        checkArgument(separator > 0, "Replication leader is not <host>:<port>: %s", leader);
+        return Option.of(new ReplicationFollower(graph,
+                new InetSocketAddress(leader.substring(0, separator), Integer.parseInt(leader.substring(separator + 1))),
+                ServerStats.getInstance().getReplication()));
+    }
+
+    /**
+     * Stop following, the graph keeps its last state
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        thread.interrupt();
+        final Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(leader, TIMEOUT_IN_MS);
+                connection.setSoTimeout(TIMEOUT_IN_MS);
+                connection.setTcpNoDelay(true);
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                ReplicationProtocol.writeHeader(out);
+                out.writeLong(epoch);
+                out.writeLong(applied);
+                out.flush();
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+                ReplicationProtocol.readHeader(in);
+                log.info("Following leader {} from sequence {}", leader, applied);
+                while (!closed) {
+                    receive(in);
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Replication from leader {} interrupted, retrying in {} ms: {}", leader, RETRY_DELAY_IN_MS, e.toString());
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void receive(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case ReplicationProtocol.SNAPSHOT:
+                final long start = System.nanoTime();
+                final long snapshotEpoch = in.readLong();
+                final long sequence = in.readLong();
+                final GraphImage image = ReplicationProtocol.readImage(in);
+                graph.replace(image);
+                epoch = snapshotEpoch;
+                applied = sequence;
+                stats.getSnapshots().increment();
+                stats.getAppliedSequence().set(applied);
+                stats.getLeaderSequence().set(Math.max(applied, stats.getLeaderSequence().get()));
+                log.info("Loaded snapshot of {} nodes and {} edges up to sequence {} in {} ms", image.getNodes().length,
+                        image.totalEdgeCount(), sequence, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                break;
+            case ReplicationProtocol.MUTATIONS:
+                final long first = in.readLong();
+                final int count = in.readInt();
+                final long leaderSequence = in.readLong();
+                final long lastAppendedAtMillis = in.readLong();
+                if (first != applied + 1) {
+                    throw new IOException("Expected mutation " + (applied + 1) + " but got " + first);
+                }
+                final List<GraphMutation> mutations = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    mutations.add(ReplicationProtocol.readMutation(in));
+                }
+                apply(mutations);
+                stats.getLeaderSequence().set(leaderSequence);
+                stats.getAppliedSequence().set(applied);
+                stats.getLagMillis().set(Math.max(0, System.currentTimeMillis() - lastAppendedAtMillis));
+                break;
+            case ReplicationProtocol.HEARTBEAT:
+                final long heartbeatSequence = in.readLong();
+                stats.getLeaderSequence().set(heartbeatSequence);
+                if (heartbeatSequence == applied) {
+                    stats.getLagMillis().set(0);
+                }
+                break;
+            default:
+                throw new IOException("Unknown replication frame " + type);
+        }
+    }
+
+    /**
+     * The leader sends only mutations which changed its graph, one without effect here means the replica diverged
+     *
+     * @throws IOException if the replica diverged, it is replaced by a snapshot after reconnecting
+     */
+    private void apply(final List<GraphMutation> mutations) throws IOException {
+        final boolean[] results = graph.applyBatch(mutations, false);
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                epoch = 0;
+                throw new IOException("Replica diverged at mutation " + (applied + 1 + i) + ": " + mutations.get(i));
+            }
+        }
+        applied += mutations.size();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RETRY_DELAY_IN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.collibra.backend.challenge.replication;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphCheckpoint;
+import com.collibra.backend.challenge.graph.GraphJournal;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import com.collibra.backend.challenge.stats.ReplicationStats;
+import com.collibra.backend.challenge.stats.ServerStats;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Leader side of the replication: attached to the graph as its journal, it numbers every applied mutation,
+ * keeps the latest {@code backlog} of them in a ring and streams them to the followers connected to its port,
+ * see {@link ReplicationProtocol}. Replication is asynchronous, clients get their answer before followers apply
+ * the mutation. A follower of another leader run or behind the ring first gets a snapshot of the graph taken
+ * together with its sequence number, then the mutations after it.
+ * <p>
+ * Journal calls go on to the journal the graph had before, e.g. the mutation log.
+ */
+@Slf4j
+@ThreadSafe
+public final class ReplicationLeader implements GraphJournal, Closeable {
+
+    /**
+     * {@code -Dserver.replication.port=50100} port followers connect to, the server leads the replication
+     */
+    public static final String PORT_PROPERTY = "server.replication.port";
+    /**
+     * {@code -Dserver.replication.backlog=100000} latest mutations kept for followers which reconnect,
+     * a follower further behind gets a snapshot
+     */
+    public static final String BACKLOG_PROPERTY = "server.replication.backlog";
+    private static final int DEFAULT_BACKLOG = 100_000;
+    private static final int MAX_FRAME_MUTATIONS = 1_024;
+    private static final long HEARTBEAT_INTERVAL_IN_MS = 1_000;
+
+    private final DirectedGraph graph;
+    private final GraphJournal delegate;
+    private final ReplicationStats stats;
+    /**
+     * Identifies this run of the leader, sequence numbers start from 0 on every run
+     */
+    private final long epoch = new SecureRandom().nextLong() | 1;
+    private final ServerSocket serverSocket;
+    private final ExecutorService senders;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    /**
+     * Guards the ring and {@link #sequence}, taken under the mutation lock of the graph by {@link #append}
+     */
+    private final Lock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    /**
+     * Mutation {@code s} is at {@code s % backlog} while {@code s > sequence - backlog}
+     */
+    private final GraphMutation[] mutations;
+    private final long[] appendedAtMillis;
+    private long sequence;
+    private volatile boolean closed;
+
+    /**
+     * Listen for followers and attach to the graph as its journal
+     *
+     * @param delegate  journal the graph had so far, {@link GraphJournal#DISABLED} for none
+     * @param port      port followers connect to, {@code 0} for any free port
+     */
+    public ReplicationLeader(final DirectedGraph graph, final GraphJournal delegate, final int port, final int backlog,
+                             final ReplicationStats stats) throws IOException {
+        checkArgument(backlog > 0, "Replication backlog must be positive: %s", backlog);
+        this.graph = graph;
+        this.delegate = delegate;
+        this.stats = stats;
+        this.mutations = new GraphMutation[backlog];
+        this.appendedAtMillis = new long[backlog];
+        this.serverSocket = new ServerSocket(port);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "replication-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        stats.setRole(ReplicationStats.Role.LEADER);
+        graph.setJournal(this);
+        final Thread acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Replication leader of epoch {} listening on port {}", Long.toHexString(epoch), getPort());
+    }
+
+    /**
+     * @param delegate  journal the graph had so far, {@link GraphJournal#DISABLED} for none
+     * @return Option   leader if {@code -Dserver.replication.port} is set
+     */
+    public static Option<ReplicationLeader> fromSystemProperties(final DirectedGraph graph, final GraphJournal delegate) throws IOException {
+        final Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null) {
+            return Option.none();
+        }
+        return Option.of(new ReplicationLeader(graph, delegate, port, Integer.getInteger(BACKLOG_PROPERTY, DEFAULT_BACKLOG),
+                ServerStats.getInstance().getReplication()));
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public long append(final GraphMutation mutation) {
+        final long journalSequence = delegate.append(mutation);
+        lock.lock();
+        try {
+            final int slot = (int) (++sequence % mutations.length);
+            mutations[slot] = mutation;
+            appendedAtMillis[slot] = System.currentTimeMillis();
+            stats.getLeaderSequence().set(sequence);
+            stats.getAppliedSequence().set(sequence);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return journalSequence;
+    }
+
+    @Override
+    public void awaitDurable(final long sequence) {
+        delegate.awaitDurable(sequence);
+    }
+
+    @Override
+    public long checkpoint() {
+        return delegate.checkpoint();
+    }
+
+    /**
+     * Stop accepting followers and disconnect the connected ones
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        senders.shutdownNow();
+        for (Socket follower : followers) {
+            follower.close();
+        }
+        lock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                final Socket socket = serverSocket.accept();
+                senders.execute(() -> send(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.error("Can not accept replication followers", e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void send(final Socket socket) {
+        stats.getFollowers().increment();
+        followers.add(socket);
+        try (Socket follower = socket) {
+            follower.setTcpNoDelay(true);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(follower.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(follower.getOutputStream(), 1 << 16));
+            ReplicationProtocol.readHeader(in);
+            final long followerEpoch = in.readLong();
+            final long applied = in.readLong();
+            ReplicationProtocol.writeHeader(out);
+            log.info("Follower {} connected at sequence {} of epoch {}", follower.getRemoteSocketAddress(), applied,
+                    Long.toHexString(followerEpoch));
+            long next = followerEpoch == epoch && isAvailable(applied + 1) ? applied + 1 : sendSnapshot(out) + 1;
+            final List<GraphMutation> frame = new ArrayList<>(MAX_FRAME_MUTATIONS);
+            while (!closed) {
+                final long leaderSequence;
+                final boolean available;
+                long lastAppendedAtMillis = 0;
+                lock.lock();
+                try {
+                    if (sequence < next) {
+                        appended.await(HEARTBEAT_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+                    }
+                    leaderSequence = sequence;
+                    available = isAvailable(next);
+                    if (available) {
+                        for (long s = next; s <= leaderSequence && frame.size() < MAX_FRAME_MUTATIONS; s++) {
+                            frame.add(mutations[(int) (s % mutations.length)]);
+                            lastAppendedAtMillis = appendedAtMillis[(int) (s % mutations.length)];
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (!available) {
+                    log.warn("Follower {} fell behind the replication backlog, sending a snapshot", follower.getRemoteSocketAddress());
+                    next = sendSnapshot(out) + 1;
+                    continue;
+                }
+                if (frame.isEmpty()) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(leaderSequence);
+                } else {
+                    out.writeByte(ReplicationProtocol.MUTATIONS);
+                    out.writeLong(next);
+                    out.writeInt(frame.size());
+                    out.writeLong(leaderSequence);
+                    out.writeLong(lastAppendedAtMillis);
+                    for (GraphMutation mutation : frame) {
+                        ReplicationProtocol.writeMutation(out, mutation);
+                    }
+                    next += frame.size();
+                    frame.clear();
+                }
+                if (next > leaderSequence) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.toString());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+            stats.getFollowers().decrement();
+        }
+    }
+
+    /**
+     * @return long     sequence number of the last mutation contained in the snapshot
+     */
+    private long sendSnapshot(final DataOutputStream out) throws IOException {
+        final long start = System.nanoTime();
+        final GraphCheckpoint checkpoint = graph.snapshot(this::currentSequence);
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        out.writeLong(epoch);
+        out.writeLong(checkpoint.getSequence());
+        ReplicationProtocol.writeImage(out, checkpoint.getSnapshot().toImage());
+        out.flush();
+        stats.getSnapshots().increment();
+        log.info("Sent snapshot of {} nodes up to sequence {} in {} ms", checkpoint.getSnapshot().getNodeCount(),
+                checkpoint.getSequence(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return checkpoint.getSequence();
+    }
+
+    /**
+     * @return boolean  {@code true} if mutation {@code next} and all after it can be sent from the ring
+     */
+    private boolean isAvailable(final long next) {
+        lock.lock();
+        try {
+            return next > sequence - mutations.length && next <= sequence + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentSequence() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.collibra.backend.challenge.replication;
+
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import com.collibra.backend.challenge.graph.Node;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary protocol between {@link ReplicationLeader} and {@link ReplicationFollower}, all numbers big endian.
+ * <pre>
+ * follower:    int magic, int version, long epoch, long applied sequence   (epoch 0 if it never followed)
+ * leader:      int magic, int version, then frames
+ *
+ * SNAPSHOT     byte 1, long epoch, long sequence, int node count N, N names, int edge count E,
+ *              E times int source, int target, int weight, long count of parallel edges   (indexes of the nodes above)
+ * MUTATIONS    byte 2, long first sequence, int count, long leader sequence, long append time of the last (epoch ms),
+ *              count mutations: byte type, source name, target name unless node mutation, int weight if added edge
+ * HEARTBEAT    byte 3, long leader sequence
+ * </pre>
+ * Names are an int length and UTF-8 bytes. Sequence numbers count the mutations of one leader run, identified by
+ * its epoch; a follower of another epoch or too far behind gets a snapshot first.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x47524550;
+    static final int VERSION = 2;
+    static final byte SNAPSHOT = 1;
+    static final byte MUTATIONS = 2;
+    static final byte HEARTBEAT = 3;
+    private static final int MAX_NAME_BYTES = 1024 * 1024;
+
+    static void writeHeader(final DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * @throws IOException if the peer does not speak the protocol
+     */
+    static void readHeader(final DataInputStream in) throws IOException {
+        final int magic = in.readInt();
+        final int version = in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a replication peer of version " + VERSION + ": " + Integer.toHexString(magic) + " " + version);
+        }
+    }
+
+    static void writeImage(final DataOutputStream out, final GraphImage image) throws IOException {
+        out.writeInt(image.getNodes().length);
+        for (Node node : image.getNodes()) {
+            writeName(out, node);
+        }
+        out.writeInt(image.getEdgeCount());
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            out.writeInt(image.getSources()[i]);
+            out.writeInt(image.getTargets()[i]);
+            out.writeInt(image.getWeights()[i]);
+            out.writeLong(image.count(i));
+        }
+    }
+
+    static GraphImage readImage(final DataInputStream in) throws IOException {
+        final Node[] nodes = new Node[checkCount(in.readInt())];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = readName(in);
+        }
+        final int edgeCount = checkCount(in.readInt());
+        final int[] sources = new int[edgeCount];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        final long[] counts = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sources[i] = in.readInt();
+            targets[i] = in.readInt();
+            weights[i] = in.readInt();
+            counts[i] = in.readLong();
+            if (sources[i] < 0 || sources[i] >= nodes.length || targets[i] < 0 || targets[i] >= nodes.length) {
+                throw new IOException("Edge " + i + " of the snapshot refers to a missing node");
+            }
+            if (counts[i] <= 0) {
+                throw new IOException("Edge " + i + " of the snapshot counts no edges");
+            }
+        }
+        return new GraphImage(nodes, edgeCount, sources, targets, weights, counts);
+    }
+
+    static void writeMutation(final DataOutputStream out, final GraphMutation mutation) throws IOException {
+        out.writeByte(mutation.getType().ordinal());
+        writeName(out, mutation.getSource());
+        if (mutation.getTarget() != null) {
+            writeName(out, mutation.getTarget());
+        }
+        if (mutation.getEdge() != null) {
+            out.writeInt(mutation.getEdge().getWeight());
+        }
+    }
+
+    static GraphMutation readMutation(final DataInputStream in) throws IOException {
+        final int type = in.readUnsignedByte();
+        if (type >= GraphMutation.Type.values().length) {
+            throw new IOException("Unknown mutation type " + type);
+        }
+        final Node source = readName(in);
+        switch (GraphMutation.Type.values()[type]) {
+            case ADD_NODE:
+                return GraphMutation.addNode(source);
+            case REMOVE_NODE:
+                return GraphMutation.removeNode(source);
+            case ADD_EDGE:
+                final Node target = readName(in);
+                return GraphMutation.addEdge(Edge.builder().source(source).target(target).weight(in.readInt()).build());
+            case REMOVE_EDGE:
+            default:
+                return GraphMutation.removeEdge(source, readName(in));
+        }
+    }
+
+    private static void writeName(final DataOutputStream out, final Node node) throws IOException {
+        final byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(name.length);
+        out.write(name);
+    }
+
+    private static Node readName(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length <= 0 || length > MAX_NAME_BYTES) {
+            throw new IOException("Invalid node name length " + length);
+        }
+        final byte[] name = new byte[length];
+        in.readFully(name);
+        return new Node(new String(name, StandardCharsets.UTF_8));
+    }
+
+    private static int checkCount(final int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Negative count " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,57 @@
+package com.collibra.backend.challenge.server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strategy used by {@link MultiClientSocketServer} to run blocking {@link SocketServer} sessions
+ */
+public enum ConnectionExecutorType {
+
+    /**
+     * Fixed pool of platform threads with an unbounded queue. Sessions above pool size wait in the queue.
+     */
+    FIXED {
+        @Override
+        ExecutorService create(final ServerConfiguration configuration) {
+            return Executors.newFixedThreadPool(configuration.getWorkerThreads());
+        }
+    },
+
+    /**
+     * Fixed pool of platform threads with a bounded queue. Sessions above queue capacity are rejected.
+     */
+    BOUNDED {
+        @Override
+        ExecutorService create(final ServerConfiguration configuration) {
+            return new ThreadPoolExecutor(configuration.getWorkerThreads(), configuration.getWorkerThreads(),
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.getQueueCapacity()));
+        }
+    },
+
+    /**
+     * New virtual thread per session. Requires JDK with virtual threads (21+).
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService create(final ServerConfiguration configuration) {
+            try {
+                return (ExecutorService) MethodHandles.publicLookup()
+                        .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                        .invoke();
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException("Virtual threads are not supported by JVM " + Runtime.version(), e);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not create virtual thread executor", e);
+            }
+        }
+    };
+
+    abstract ExecutorService create(final ServerConfiguration configuration);
+
+}
@@ -1,5 +1,8 @@
 package com.collibra.backend.challenge.server;
 
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -8,24 +11,81 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 @Slf4j
 @RequiredArgsConstructor
 public class MultiClientSocketServer {
 
-    private static final int TIMEOUT_IN_MS = 30_000;
-    private final int port;
+    private final ServerConfiguration configuration;
 
+    /**
+     * Accept connections until the process ends. When {@code maxSessions} sessions are active
+     * the server stops accepting, so further clients wait in the accept backlog of the OS.
+     */
     @SneakyThrows(IOException.class)
     public void start() {
-        log.info("Multi client server socket stared and listening on port {}", port);
-        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        try (final ServerSocket serverSocket = new ServerSocket(port)) {
+        try (final ServerSocket serverSocket = new ServerSocket(configuration.getPort(), configuration.getAcceptBacklog())) {
+            serve(serverSocket);
+        }
+    }
+
+    /**
+     * Accept connections of the server socket until it is closed. Sessions already running are finished.
+     */
+    @SneakyThrows({IOException.class, InterruptedException.class})
+    void serve(final ServerSocket serverSocket) {
+        final ExecutorService executor = configuration.getExecutor().create(configuration);
+        final Semaphore sessions = new Semaphore(configuration.getMaxSessions());
+        final CoreMessageProcessor messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+        log.info("Multi client server socket stared with {} executor and listening on port {}", configuration.getExecutor(), serverSocket.getLocalPort());
+        try {
             while (true) {
-                Socket socket = serverSocket.accept();
-                executor.submit(new SocketServer(socket, TIMEOUT_IN_MS));
+                sessions.acquire();
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    sessions.release();
+                    throw e;
+                }
+                submit(executor, sessions, socket, messageProcessor);
             }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Start the session of the socket, or close it and give its permit back if that fails for any reason
+     */
+    private void submit(final ExecutorService executor, final Semaphore sessions, final Socket socket,
+                        final CoreMessageProcessor messageProcessor) {
+        try {
+            final SocketServer socketServer = new SocketServer(socket, configuration.getTimeoutInMs(), messageProcessor);
+            executor.execute(() -> {
+                try {
+                    socketServer.run();
+                } finally {
+                    sessions.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Connection rejected, executor queue is full");
+            reject(sessions, socket);
+        } catch (Exception e) {
+            log.warn("Can not start session", e);
+            reject(sessions, socket);
+        }
+    }
+
+    private static void reject(final Semaphore sessions, final Socket socket) {
+        sessions.release();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.warn("Can not close client socket", e);
         }
     }
 
@@ -0,0 +1,168 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded selector loop serving many {@link NioSession}s.
+ * Idle sessions are detected by a deadline queue owned by the loop instead of a blocked read per client.
+ */
+@Slf4j
+final class NioEventLoop implements Runnable {
+
+    private final Selector selector;
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<IdleDeadline> deadlines = new PriorityQueue<>();
+    private final long timeoutInNanos;
+    private final CoreMessageProcessor messageProcessor;
+
+    NioEventLoop(final int timeoutInMs, final CoreMessageProcessor messageProcessor) throws IOException {
+        this.selector = Selector.open();
+        this.timeoutInNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
+        this.messageProcessor = messageProcessor;
+    }
+
+    /**
+     * Hand over accepted channel to this loop. Safe to call from any thread.
+     *
+     * @param channel   accepted client channel
+     */
+    void register(final SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                selector.select(selectTimeoutInMs());
+                final long now = System.nanoTime();
+                registerPendingChannels(now);
+                handleSelectedKeys(now);
+                expireIdleSessions(now);
+            } catch (IOException e) {
+                log.error("Unexpected exception occurred in event loop", e);
+            }
+        }
+    }
+
+    private long selectTimeoutInMs() {
+        final IdleDeadline next = deadlines.peek();
+        if (next == null) {
+            return 0;
+        }
+        final long delay = TimeUnit.NANOSECONDS.toMillis(next.deadlineNanos - System.nanoTime());
+        return Math.max(1, delay);
+    }
+
+    private void registerPendingChannels(final long now) {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            NioSession session = null;
+            try {
+                channel.configureBlocking(false);
+                final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                session = new NioSession(channel, key, messageProcessor, now);
+                key.attach(session);
+                deadlines.add(new IdleDeadline(now + timeoutInNanos, session));
+                log.info("Starting new single client session");
+                session.sendWelcomeMessage();
+            } catch (IOException e) {
+                log.warn("Can not register client channel", e);
+                if (session != null) {
+                    session.close();
+                } else {
+                    closeQuietly(channel);
+                }
+            }
+        }
+    }
+
+    private void handleSelectedKeys(final long now) {
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            final NioSession session = (NioSession) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    session.onWritable();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    session.onReadable(now);
+                }
+            } catch (IOException | CancelledKeyException e) {
+                log.debug("Client connection lost", e);
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Deadlines are re-armed lazily: an entry whose session was active meanwhile is pushed back
+     * with a deadline computed from the last activity, so activity itself never touches the queue.
+     */
+    private void expireIdleSessions(final long now) {
+        IdleDeadline next;
+        while ((next = deadlines.peek()) != null && next.deadlineNanos - now <= 0) {
+            deadlines.poll();
+            final NioSession session = next.session;
+            if (!session.isOpen()) {
+                continue;
+            }
+            if (session.isClosing()) {
+                session.close();
+                continue;
+            }
+            final long deadline = session.getLastActivityNanos() + timeoutInNanos;
+            if (deadline - now > 0) {
+                deadlines.add(new IdleDeadline(deadline, session));
+                continue;
+            }
+            try {
+                session.onTimeout(TimeUnit.NANOSECONDS.toMillis(timeoutInNanos));
+                if (session.isOpen()) {
+                    deadlines.add(new IdleDeadline(now + timeoutInNanos, session));
+                }
+            } catch (IOException | CancelledKeyException e) {
+                session.close();
+            }
+        }
+    }
+
+    private static void closeQuietly(final SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Can not close client channel", e);
+        }
+    }
+
+    private static final class IdleDeadline implements Comparable<IdleDeadline> {
+
+        private final long deadlineNanos;
+        private final NioSession session;
+
+        private IdleDeadline(final long deadlineNanos, final NioSession session) {
+            this.deadlineNanos = deadlineNanos;
+            this.session = session;
+        }
+
+        @Override
+        public int compareTo(final IdleDeadline other) {
+            return Long.compare(deadlineNanos - other.deadlineNanos, 0);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.server.trace.TraceOutcome;
+import com.collibra.backend.challenge.server.trace.TraceRecorder;
+import com.collibra.backend.challenge.stats.ServerStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * State of a single client connection served by {@link NioEventLoop}.
+ * Only the owning event loop thread touches an instance.
+ */
+@Slf4j
+final class NioSession {
+
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_PENDING_OUTPUT = 256 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final CoreMessageProcessor messageProcessor;
+    private final Session session = Session.start();
+    private final TraceRecorder traceRecorder = TraceRecorder.getInstance();
+    private final ServerStats stats = ServerStats.getInstance();
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private boolean skipLineFeed;
+    private boolean closeAfterFlush;
+    private long lastActivityNanos;
+    private boolean closed;
+
+    NioSession(final SocketChannel channel, final SelectionKey key, final CoreMessageProcessor messageProcessor, final long nowNanos) {
+        this.channel = channel;
+        this.key = key;
+        this.messageProcessor = messageProcessor;
+        this.lastActivityNanos = nowNanos;
+        stats.sessionOpened();
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    boolean isClosing() {
+        return closeAfterFlush;
+    }
+
+    void sendWelcomeMessage() throws IOException {
+        queueAnswer(messageProcessor.getWelcomeMessage(session));
+        flush();
+    }
+
+    /**
+     * Read whatever is available, answer every complete line in order and write the answers back in one go
+     *
+     * @param nowNanos  current {@link System#nanoTime()} used for idle tracking
+     */
+    void onReadable(final long nowNanos) throws IOException {
+        final int read = channel.read(readBuffer);
+        if (read < 0) {
+            close();
+            return;
+        }
+        if (read > 0) {
+            lastActivityNanos = nowNanos;
+            stats.getReceivedBytes().add(read);
+        }
+        readBuffer.flip();
+        processLines();
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            growReadBuffer();
+        }
+        flush();
+    }
+
+    void onWritable() throws IOException {
+        flush();
+    }
+
+    /**
+     * Say goodbye to a client which did not send anything during the idle period and close the connection
+     *
+     * @param timeoutInMs   idle period of the event loop
+     */
+    void onTimeout(final long timeoutInMs) throws IOException {
+        try {
+            queueAnswer(messageProcessor.getTimeoutMessage(session, timeoutInMs));
+        } catch (IllegalStateException e) {
+            log.debug("Closing idle session without client name");
+        }
+        closeAfterFlush = true;
+        flush();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stats.sessionClosed();
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Can not close client channel", e);
+        }
+        log.info("Single client session closed");
+    }
+
+    private void processLines() {
+        int lineStart = readBuffer.position();
+        for (int i = readBuffer.position(); i < readBuffer.limit(); i++) {
+            final byte current = readBuffer.get(i);
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (current == LF) {
+                    lineStart = i + 1;
+                    continue;
+                }
+            }
+            if (current == LF || current == CR) {
+                answer(decode(lineStart, i));
+                skipLineFeed = current == CR;
+                lineStart = i + 1;
+            }
+        }
+        readBuffer.position(lineStart);
+    }
+
+    private String decode(final int from, final int to) {
+        return new String(readBuffer.array(), readBuffer.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private void answer(final String clientMessage) {
+        if (clientMessage.isEmpty()) {
+            return;
+        }
+        final boolean traced = traceRecorder.isTraced(session);
+        final long start = traced ? System.nanoTime() : 0;
+        TraceOutcome outcome;
+        try {
+            final String serverAnswer = messageProcessor.process(session, clientMessage);
+            if (serverAnswer != null) {
+                queueAnswer(serverAnswer);
+            }
+            outcome = serverAnswer != null ? TraceOutcome.ANSWERED : TraceOutcome.QUEUED;
+        } catch (MessageProcessingException e) {
+            queueAnswer(e.getMessage());
+            outcome = TraceOutcome.of(e);
+        } catch (RuntimeException e) {
+            log.error("Unexpected exception occurred", e);
+            closeAfterFlush = true;
+            outcome = TraceOutcome.FAILED;
+        }
+        if (traced) {
+            traceRecorder.record(session, start, outcome);
+        }
+    }
+
+    private void queueAnswer(final String serverAnswer) {
+        final byte[] bytes = (serverAnswer + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        if (writeBuffer.remaining() < bytes.length) {
+            final ByteBuffer grown = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + bytes.length));
+            writeBuffer.flip();
+            grown.put(writeBuffer);
+            writeBuffer = grown;
+        }
+        writeBuffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        writeBuffer.flip();
+        stats.getSentBytes().add(channel.write(writeBuffer));
+        writeBuffer.compact();
+        final boolean pending = writeBuffer.position() > 0;
+        if (!pending && closeAfterFlush) {
+            close();
+            return;
+        }
+        int interest = pending ? SelectionKey.OP_WRITE : 0;
+        if (!closeAfterFlush && writeBuffer.position() < MAX_PENDING_OUTPUT) {
+            interest |= SelectionKey.OP_READ;
+        }
+        key.interestOps(interest);
+    }
+
+    private void growReadBuffer() {
+        if (readBuffer.capacity() >= MAX_LINE_LENGTH) {
+            log.warn("Client line exceeds {} bytes, closing session", MAX_LINE_LENGTH);
+            close();
+            return;
+        }
+        final ByteBuffer grown = ByteBuffer.allocate(readBuffer.capacity() * 2);
+        readBuffer.flip();
+        grown.put(readBuffer);
+        readBuffer = grown;
+    }
+}
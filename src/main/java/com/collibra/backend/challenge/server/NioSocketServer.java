@@ -0,0 +1,50 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Selector based server. Accepted connections are spread round robin over a small set of
+ * {@link NioEventLoop}s, so the number of sessions is not bound to the number of threads.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class NioSocketServer {
+
+    private final ServerConfiguration configuration;
+
+    @SneakyThrows(IOException.class)
+    public void start() {
+        final NioEventLoop[] eventLoops = startEventLoops();
+        try (final ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(configuration.getPort()), configuration.getAcceptBacklog());
+            log.info("NIO server socket started with {} event loops and listening on port {}", eventLoops.length, configuration.getPort());
+            int next = 0;
+            while (true) {
+                final SocketChannel channel = serverChannel.accept();
+                eventLoops[next].register(channel);
+                next = (next + 1) % eventLoops.length;
+            }
+        }
+    }
+
+    private NioEventLoop[] startEventLoops() throws IOException {
+        final NioEventLoop[] eventLoops = new NioEventLoop[Math.max(1, configuration.getEventLoops())];
+        final CoreMessageProcessor messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new NioEventLoop(configuration.getTimeoutInMs(), messageProcessor);
+            final Thread thread = new Thread(eventLoops[i], "nio-event-loop-" + i);
+            thread.start();
+        }
+        return eventLoops;
+    }
+}
@@ -0,0 +1,58 @@
+package com.collibra.backend.challenge.server;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ServerConfiguration {
+
+    public static final String MODE_PROPERTY = "server.mode";
+    public static final String PORT_PROPERTY = "server.port";
+    public static final String TIMEOUT_PROPERTY = "server.timeout";
+    public static final String EVENT_LOOPS_PROPERTY = "server.nio.event-loops";
+    public static final String EXECUTOR_PROPERTY = "server.executor";
+    public static final String WORKER_THREADS_PROPERTY = "server.executor.threads";
+    public static final String QUEUE_CAPACITY_PROPERTY = "server.executor.queue-capacity";
+    public static final String MAX_SESSIONS_PROPERTY = "server.max-sessions";
+    public static final String ACCEPT_BACKLOG_PROPERTY = "server.accept-backlog";
+
+    @Builder.Default
+    private final ServerMode mode = ServerMode.BLOCKING;
+    @Builder.Default
+    private final int port = 50_000;
+    @Builder.Default
+    private final int timeoutInMs = 30_000;
+    @Builder.Default
+    private final int eventLoops = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    private final ConnectionExecutorType executor = ConnectionExecutorType.FIXED;
+    @Builder.Default
+    private final int workerThreads = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    private final int queueCapacity = 1_024;
+    @Builder.Default
+    private final int maxSessions = Integer.MAX_VALUE;
+    @Builder.Default
+    private final int acceptBacklog = 50;
+
+    /**
+     * Build configuration from JVM system properties, e.g. {@code -Dserver.mode=nio}
+     *
+     * @return ServerConfiguration  configuration with defaults for every missing property
+     */
+    public static ServerConfiguration fromSystemProperties() {
+        final ServerConfiguration defaults = ServerConfiguration.builder().build();
+        return ServerConfiguration.builder()
+                .mode(ServerMode.valueOf(System.getProperty(MODE_PROPERTY, defaults.getMode().name()).toUpperCase()))
+                .port(Integer.getInteger(PORT_PROPERTY, defaults.getPort()))
+                .timeoutInMs(Integer.getInteger(TIMEOUT_PROPERTY, defaults.getTimeoutInMs()))
+                .eventLoops(Integer.getInteger(EVENT_LOOPS_PROPERTY, defaults.getEventLoops()))
+                .executor(ConnectionExecutorType.valueOf(System.getProperty(EXECUTOR_PROPERTY, defaults.getExecutor().name()).toUpperCase()))
+                .workerThreads(Integer.getInteger(WORKER_THREADS_PROPERTY, defaults.getWorkerThreads()))
+                .queueCapacity(Integer.getInteger(QUEUE_CAPACITY_PROPERTY, defaults.getQueueCapacity()))
+                .maxSessions(Integer.getInteger(MAX_SESSIONS_PROPERTY, defaults.getMaxSessions()))
+                .acceptBacklog(Integer.getInteger(ACCEPT_BACKLOG_PROPERTY, defaults.getAcceptBacklog()))
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.collibra.backend.challenge.server;
+
+public enum ServerMode {
+
+    /**
+     * Thread per connection, blocking socket streams
+     */
+    BLOCKING,
+
+    /**
+     * Selector based event loops, non-blocking channels
+     */
+    NIO
+
+}
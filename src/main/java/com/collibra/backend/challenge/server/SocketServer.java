@@ -2,43 +2,67 @@ package com.collibra.backend.challenge.server;
 
 import com.collibra.backend.challenge.core.CoreMessageProcessor;
 import com.collibra.backend.challenge.core.MessageProcessingException;
-import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.server.trace.TraceOutcome;
+import com.collibra.backend.challenge.server.trace.TraceRecorder;
+import com.collibra.backend.challenge.stats.ServerStats;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
-import java.time.Instant;
-import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Blocking session of a single client. Messages are answered in order; answers are buffered and flushed once
+ * no further input is waiting, so a client pipelining many messages gets them back in a few writes.
+ * Answers stay buffered while the rest of a partially received line is awaited.
+ */
 @Slf4j
 public class SocketServer implements Runnable {
 
-    private static final String CLIENT_PREFIX = "[CLIENT] ";
-    private static final String SERVER_PREFIX = "[SERVER] ";
     private final CoreMessageProcessor messageProcessor;
+    private final TraceRecorder traceRecorder = TraceRecorder.getInstance();
+    private final ServerStats stats = ServerStats.getInstance();
+    private final Session session = Session.start();
     private final Socket socket;
+    private final int timeoutInMs;
     private PrintWriter out;
 
     @SneakyThrows(SocketException.class)
-    SocketServer(final Socket socket, final int timeoutInMs) {
+    SocketServer(final Socket socket, final int timeoutInMs, final CoreMessageProcessor messageProcessor) {
         this.socket = socket;
         this.socket.setSoTimeout(timeoutInMs);
-        this.messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance(), UUID.randomUUID(), Instant.now());
+        this.timeoutInMs = timeoutInMs;
+        this.messageProcessor = messageProcessor;
     }
 
     public void run() {
         log.info("Starting new single client socket server");
-        try (final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-            out = new PrintWriter(socket.getOutputStream(), true);
+        stats.sessionOpened();
+        try (final BufferedReader in = new BufferedReader(new InputStreamReader(
+                new CountingInputStream(socket.getInputStream(), stats.getReceivedBytes())))) {
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new CountingOutputStream(socket.getOutputStream(), stats.getSentBytes()))), false);
             sendWelcomeMessage();
+            out.flush();
             String clientMessage;
             while ((clientMessage = in.readLine()) != null) {
                 sendAnswer(clientMessage);
+                if (!in.ready()) {
+                    out.flush();
+                }
             }
         } catch (SocketTimeoutException e) {
             sendTimeoutMessage();
@@ -48,6 +72,7 @@ public class SocketServer implements Runnable {
             if (out != null) {
                 out.close();
             }
+            stats.sessionClosed();
             log.info("Single client socket server closed");
         }
     }
@@ -56,25 +81,83 @@ public class SocketServer implements Runnable {
         if (clientMessage.isEmpty()) {
             return;
         }
-        log.debug(CLIENT_PREFIX + clientMessage);
+        final boolean traced = traceRecorder.isTraced(session);
+        final long start = traced ? System.nanoTime() : 0;
+        TraceOutcome outcome = TraceOutcome.FAILED;
         try {
-            final String serverAnswer = messageProcessor.process(clientMessage);
-            log.debug(SERVER_PREFIX + serverAnswer);
-            out.println(serverAnswer);
+            final String serverAnswer = messageProcessor.process(session, clientMessage);
+            if (serverAnswer != null) {
+                out.println(serverAnswer);
+            }
+            outcome = serverAnswer != null ? TraceOutcome.ANSWERED : TraceOutcome.QUEUED;
         } catch (MessageProcessingException e) {
-            log.debug(SERVER_PREFIX + e.getMessage());
             out.println(e.getMessage());
+            outcome = TraceOutcome.of(e);
+        } finally {
+            if (traced) {
+                traceRecorder.record(session, start, outcome);
+            }
         }
     }
 
     private void sendWelcomeMessage() {
-        log.debug(SERVER_PREFIX + messageProcessor.getWelcomeMessage());
-        out.println(messageProcessor.getWelcomeMessage());
+        out.println(messageProcessor.getWelcomeMessage(session));
     }
 
     private void sendTimeoutMessage() {
-        log.debug(SERVER_PREFIX + messageProcessor.getTimeoutMessage());
-        out.println(messageProcessor.getTimeoutMessage());
+        out.println(messageProcessor.getTimeoutMessage(session, timeoutInMs));
+    }
+
+    /**
+     * Adds the bytes of every read to the counter, reads are buffered chunks so this is not per byte in practice
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder counter;
+
+        CountingInputStream(final InputStream in, final LongAdder counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read >= 0) {
+                counter.increment();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counter.add(read);
+            }
+            return read;
+        }
     }
 
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final LongAdder counter;
+
+        CountingOutputStream(final OutputStream out, final LongAdder counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            counter.increment();
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            out.write(buffer, offset, length);
+            counter.add(length);
+        }
+    }
 }
@@ -0,0 +1,101 @@
+package com.collibra.backend.challenge.server.trace;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring of trace events of a stripe of sessions with one producer at a time, serialized by a lock held only to write
+ * one event, and a single consumer, the trace writer, which takes no lock. An event takes {@value #LONGS_PER_EVENT}
+ * longs, the same layout as a record of the trace file. A full ring drops new events instead of making the producer
+ * wait.
+ */
+@ThreadSafe
+final class TraceBuffer {
+
+    static final int LONGS_PER_EVENT = 4;
+    static final int EVENT_BYTES = LONGS_PER_EVENT * Long.BYTES;
+
+    /**
+     * Serializes producers, so the ring has a single one
+     */
+    private final Lock producerLock = new ReentrantLock();
+    private final long[] events;
+    private final int capacity;
+    /**
+     * Next event to drain, written by the consumer only
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Next event to write, written by the producer only, under the producer lock
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Producer's last view of {@link #head}, so the producer reads the consumer's counter only when the ring looks full
+     */
+    private long cachedHead;
+    /**
+     * Written by the producer only, under the producer lock
+     */
+    private volatile long dropped;
+
+    /**
+     * @param capacity  number of events, a power of two
+     */
+    TraceBuffer(final int capacity) {
+        this.capacity = capacity;
+        this.events = new long[capacity * LONGS_PER_EVENT];
+    }
+
+    /**
+     * Called by any producer thread
+     *
+     * @return boolean  {@code false} if the ring is full and the event was dropped
+     */
+    boolean offer(final long sessionHigh, final long sessionLow, final long timestamp, final long details) {
+        producerLock.lock();
+        try {
+            final long position = tail.get();
+            if (position - cachedHead >= capacity) {
+                cachedHead = head.get();
+                if (position - cachedHead >= capacity) {
+                    dropped++;
+                    return false;
+                }
+            }
+            final int index = (int) (position & (capacity - 1)) * LONGS_PER_EVENT;
+            events[index] = sessionHigh;
+            events[index + 1] = sessionLow;
+            events[index + 2] = timestamp;
+            events[index + 3] = details;
+            tail.lazySet(position + 1);
+            return true;
+        } finally {
+            producerLock.unlock();
+        }
+    }
+
+    /**
+     * Move as many events as fit into the output, called by the consumer only
+     *
+     * @return int  number of drained events
+     */
+    int drainTo(final ByteBuffer out) {
+        final long first = head.get();
+        final int count = (int) Math.min(tail.get() - first, out.remaining() / EVENT_BYTES);
+        for (int i = 0; i < count; i++) {
+            final int index = (int) ((first + i) & (capacity - 1)) * LONGS_PER_EVENT;
+            for (int j = 0; j < LONGS_PER_EVENT; j++) {
+                out.putLong(events[index + j]);
+            }
+        }
+        head.lazySet(first + count);
+        return count;
+    }
+
+    long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,40 @@
+package com.collibra.backend.challenge.server.trace;
+
+import com.collibra.backend.challenge.core.CommandType;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Client line recorded by {@link TraceRecorder}, decoded by {@link TraceReader}
+ */
+@Value
+public class TraceEvent {
+
+    private final UUID sessionId;
+    private final Instant timestamp;
+    /**
+     * {@code null} if the line was not a known command
+     */
+    private final CommandType command;
+    private final TraceOutcome outcome;
+    private final long latencyNanos;
+
+    static TraceEvent decode(final long sessionHigh, final long sessionLow, final long epochNanos, final long details) {
+        final int command = (int) (details >>> 8 & 0xFF);
+        return new TraceEvent(new UUID(sessionHigh, sessionLow),
+                Instant.ofEpochSecond(0, epochNanos),
+                command == 0 ? null : CommandType.values()[command - 1],
+                TraceOutcome.values()[(int) (details & 0xFF)],
+                details >>> 16);
+    }
+
+    /**
+     * @return String   one line of text, columns separated by spaces
+     */
+    public String format() {
+        return String.format("%s %s %-13s %-11s %10.1f us", timestamp, sessionId, command == null ? "-" : command,
+                outcome, latencyNanos / 1_000.0);
+    }
+}
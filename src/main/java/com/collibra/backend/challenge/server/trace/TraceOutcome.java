@@ -0,0 +1,39 @@
+package com.collibra.backend.challenge.server.trace;
+
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.UnsupportedCommandException;
+
+/**
+ * How the server answered a traced client line, stored as its ordinal in the trace file
+ */
+public enum TraceOutcome {
+
+    /**
+     * Regular answer
+     */
+    ANSWERED,
+
+    /**
+     * No answer yet, the line was queued in a batch
+     */
+    QUEUED,
+
+    /**
+     * Error answer of a known command, e.g. a missing node
+     */
+    ERROR,
+
+    /**
+     * Line is not a command of the protocol
+     */
+    UNSUPPORTED,
+
+    /**
+     * Unexpected exception, the session was closed
+     */
+    FAILED;
+
+    public static TraceOutcome of(final MessageProcessingException e) {
+        return e instanceof UnsupportedCommandException ? UNSUPPORTED : ERROR;
+    }
+}
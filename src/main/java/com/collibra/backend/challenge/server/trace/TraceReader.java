@@ -0,0 +1,50 @@
+package com.collibra.backend.challenge.server.trace;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Renders a trace file written by {@link TraceRecorder} as text, one line per event:
+ * {@code java -cp <jar> com.collibra.backend.challenge.server.trace.TraceReader logs/trace.bin}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TraceReader {
+
+    public static void main(final String[] args) throws IOException {
+        checkArgument(args.length == 1, "Usage: TraceReader <trace file>");
+        read(Paths.get(args[0]), event -> System.out.println(event.format()));
+    }
+
+    /**
+     * Pass every event of the file to the consumer in the order written, a torn last event is ignored
+     *
+     * @throws IllegalArgumentException if the file is not a trace file
+     */
+    public static void read(final Path file, final Consumer<TraceEvent> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            checkArgument(in.readInt() == TraceRecorder.MAGIC, "Not a trace file: %s", file);
+            final int version = in.readInt();
+            checkArgument(version == TraceRecorder.FORMAT_VERSION, "Unsupported trace file version: %s", version);
+            while (true) {
+                final TraceEvent event;
+                try {
+                    event = TraceEvent.decode(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                } catch (EOFException e) {
+                    return;
+                }
+                consumer.accept(event);
+            }
+        }
+    }
+}
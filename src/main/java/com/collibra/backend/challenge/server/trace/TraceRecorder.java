@@ -0,0 +1,288 @@
+package com.collibra.backend.challenge.server.trace;
+
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Records every client line of the traced sessions (session, time, command, outcome, latency) without touching
+ * the logging framework. Sessions are spread over a fixed number of stripes, each with its own {@link TraceBuffer},
+ * so memory does not grow with the threads answering clients and the lines of a session stay in order; a background
+ * writer drains the buffers into a binary file read by {@link TraceReader}.
+ * When tracing is off the hot path costs one volatile read. Controlled at runtime through {@link TraceRecorderMXBean}.
+ * <p>
+ * File: {@code int magic, int format version}, then events of four longs: session id high and low bits,
+ * epoch nanos of the line, {@code latency nanos << 16 | command ordinal + 1 << 8 | outcome ordinal}.
+ */
+@Slf4j
+@ThreadSafe
+public final class TraceRecorder implements TraceRecorderMXBean, Closeable {
+
+    /**
+     * {@code -Dserver.trace.enabled=true} traces client lines from startup, off by default
+     */
+    public static final String ENABLED_PROPERTY = "server.trace.enabled";
+    /**
+     * {@code -Dserver.trace.file=logs/trace.bin} file the trace is appended to
+     */
+    public static final String FILE_PROPERTY = "server.trace.file";
+    /**
+     * {@code -Dserver.trace.sample-every=10} traces every tenth session, all of them by default
+     */
+    public static final String SAMPLE_EVERY_PROPERTY = "server.trace.sample-every";
+    /**
+     * {@code -Dserver.trace.buffer-events=16384} events buffered per stripe until the writer drains them
+     */
+    public static final String BUFFER_EVENTS_PROPERTY = "server.trace.buffer-events";
+    /**
+     * {@code -Dserver.trace.stripes=8} buffers sessions are spread over, the number of cores by default
+     */
+    public static final String STRIPES_PROPERTY = "server.trace.stripes";
+    public static final String OBJECT_NAME = "com.collibra.backend.challenge:type=TraceRecorder";
+    static final int MAGIC = 0x54524345;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String DEFAULT_FILE = "logs/trace.bin";
+    private static final int DEFAULT_BUFFER_EVENTS = 16384;
+    private static final long DRAIN_INTERVAL_IN_MS = 100;
+    private static final long MAX_LATENCY_NANOS = (1L << 48) - 1;
+
+    private static final TraceRecorder INSTANCE = fromSystemProperties();
+
+    private final Path file;
+    private final int bufferEvents;
+    private final long epochNanosAtStart = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final long nanoTimeAtStart = System.nanoTime();
+    private final TraceBuffer[] buffers;
+    /**
+     * Guards the writer state: {@link #writer}, {@link #output} and {@link #channel}
+     */
+    private final Lock writerLock = new ReentrantLock();
+    private final ByteBuffer output = ByteBuffer.allocateDirect(1024 * TraceBuffer.EVENT_BYTES);
+    private ScheduledExecutorService writer;
+    private FileChannel channel;
+    private volatile boolean enabled;
+    private volatile int sampleEvery;
+    private volatile long writtenEvents;
+
+    /**
+     * @param bufferEvents  events per stripe, rounded up to a power of two
+     * @param stripes       number of buffers sessions are spread over
+     */
+    public TraceRecorder(final Path file, final int sampleEvery, final int bufferEvents, final int stripes) {
+        checkArgument(bufferEvents > 0 && bufferEvents <= 1 << 24, "Buffer events out of range: %s", bufferEvents);
+        checkArgument(stripes > 0 && stripes <= 1024, "Stripes out of range: %s", stripes);
+        this.file = file;
+        this.bufferEvents = bufferEvents == 1 ? 1 : Integer.highestOneBit(bufferEvents - 1) << 1;
+        this.buffers = new TraceBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new TraceBuffer(this.bufferEvents);
+        }
+        setSampleEvery(sampleEvery);
+    }
+
+    public static TraceRecorder fromSystemProperties() {
+        final TraceRecorder recorder = new TraceRecorder(Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE)),
+                Integer.getInteger(SAMPLE_EVERY_PROPERTY, 1), Integer.getInteger(BUFFER_EVENTS_PROPERTY, DEFAULT_BUFFER_EVENTS),
+                Integer.getInteger(STRIPES_PROPERTY, Runtime.getRuntime().availableProcessors()));
+        recorder.setEnabled(Boolean.getBoolean(ENABLED_PROPERTY));
+        return recorder;
+    }
+
+    /**
+     * @return TraceRecorder    recorder of the server, configured with system properties
+     */
+    public static TraceRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Expose the recorder as {@value #OBJECT_NAME}, e.g. to switch it on in jconsole
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            log.warn("Can not register {}", OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Cheap check before measuring a line, so untraced lines do not even read the clock
+     */
+    public boolean isTraced(final Session session) {
+        final int every = sampleEvery;
+        return enabled && (every == 1 || Math.floorMod(session.getId().getLeastSignificantBits(), every) == 0);
+    }
+
+    /**
+     * Record the line the session just processed, call only if {@link #isTraced} returned {@code true} for it
+     *
+     * @param startNanos    {@link System#nanoTime()} when processing of the line started
+     */
+    public void record(final Session session, final long startNanos, final TraceOutcome outcome) {
+        final long latency = Math.min(System.nanoTime() - startNanos, MAX_LATENCY_NANOS);
+        final CommandType command = session.getLastCommandType();
+        final long details = latency << 16 | (command == null ? 0 : command.ordinal() + 1) << 8 | outcome.ordinal();
+        // sampling looks at the low bits, the stripe at the high ones, so sampled sessions use all stripes
+        final long high = session.getId().getMostSignificantBits();
+        buffers[Math.floorMod(high, buffers.length)].offer(high, session.getId().getLeastSignificantBits(),
+                epochNanosAtStart + startNanos - nanoTimeAtStart, details);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        if (enabled) {
+            writerLock.lock();
+            try {
+                if (writer == null) {
+                    writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "trace-writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    writer.scheduleWithFixedDelay(this::drainInBackground, DRAIN_INTERVAL_IN_MS, DRAIN_INTERVAL_IN_MS,
+                            TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                writerLock.unlock();
+            }
+        }
+        this.enabled = enabled;
+        log.info("Tracing of client lines {}", enabled ? "enabled, writing to " + file : "disabled");
+    }
+
+    @Override
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    @Override
+    public void setSampleEvery(final int sampleEvery) {
+        checkArgument(sampleEvery > 0, "Sample every must be positive: %s", sampleEvery);
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public String getFile() {
+        return file.toString();
+    }
+
+    @Override
+    public long getWrittenEvents() {
+        return writtenEvents;
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        long dropped = 0;
+        for (TraceBuffer buffer : buffers) {
+            dropped += buffer.getDropped();
+        }
+        return dropped;
+    }
+
+    /**
+     * Write every buffered event to the file now
+     */
+    public void drain() throws IOException {
+        writerLock.lock();
+        try {
+            for (TraceBuffer buffer : buffers) {
+                // at most one ring per pass, a busy stripe must not keep the writer on its buffer
+                int drained = 0;
+                while (drained < bufferEvents) {
+                    final int count = buffer.drainTo(output);
+                    drained += count;
+                    writtenEvents += count;
+                    if (output.hasRemaining()) {
+                        break;
+                    }
+                    write();
+                }
+            }
+            write();
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Stop the writer after writing what is buffered
+     */
+    @Override
+    public void close() throws IOException {
+        enabled = false;
+        writerLock.lock();
+        try {
+            if (writer != null) {
+                writer.shutdown();
+                writer = null;
+            }
+            drain();
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void drainInBackground() {
+        try {
+            drain();
+        } catch (IOException e) {
+            log.error("Can not write trace to {}", file, e);
+        }
+    }
+
+    /**
+     * Append the output buffer to the file, opened on the first event, called with {@link #writerLock} held
+     */
+    private void write() throws IOException {
+        output.flip();
+        if (output.hasRemaining()) {
+            if (channel == null) {
+                if (file.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(file.toAbsolutePath().getParent());
+                }
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                if (channel.size() == 0) {
+                    final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION);
+                    header.flip();
+                    channel.write(header);
+                }
+            }
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+        }
+        output.clear();
+    }
+}
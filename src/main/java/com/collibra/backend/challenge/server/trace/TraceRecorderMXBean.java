@@ -0,0 +1,27 @@
+package com.collibra.backend.challenge.server.trace;
+
+/**
+ * Runtime control of {@link TraceRecorder}, registered as {@value TraceRecorder#OBJECT_NAME}
+ */
+public interface TraceRecorderMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return int  every how many sessions one is traced, {@code 1} traces all of them
+     */
+    int getSampleEvery();
+
+    void setSampleEvery(int sampleEvery);
+
+    String getFile();
+
+    long getWrittenEvents();
+
+    /**
+     * @return long number of events lost because the writer fell behind
+     */
+    long getDroppedEvents();
+}
@@ -0,0 +1,18 @@
+package com.collibra.backend.challenge.stats;
+
+import lombok.Getter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processing time and error answers of one command of the protocol
+ */
+@Getter
+@ThreadSafe
+public final class CommandStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+}
@@ -0,0 +1,27 @@
+package com.collibra.backend.challenge.stats;
+
+import lombok.Getter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Use of the connected component index of the graph, which answers queries between separated nodes without a search
+ */
+@Getter
+@ThreadSafe
+public final class ComponentStats {
+
+    /**
+     * Queries checked against the index
+     */
+    private final LongAdder checks = new LongAdder();
+    /**
+     * Checked queries answered by the index alone, source and target were in different components
+     */
+    private final LongAdder shortCircuits = new LongAdder();
+    /**
+     * Index rebuilds after removals left it too coarse, or after the graph was loaded
+     */
+    private final LongAdder rebuilds = new LongAdder();
+}
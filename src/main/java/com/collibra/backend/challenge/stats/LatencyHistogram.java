@@ -0,0 +1,39 @@
+package com.collibra.backend.challenge.stats;
+
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of durations in nanoseconds since startup. Recording is two atomic increments without allocation,
+ * cheap enough for every client line. Readers copy the counts while recording goes on, so a copy may miss values
+ * recorded during the copy. Values keep two significant digits, longer than an hour are counted as an hour.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final AtomicHistogram histogram = new AtomicHistogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    public void record(final long nanos) {
+        histogram.recordValue(Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+    }
+
+    /**
+     * @param startNanos    {@link System#nanoTime()} when the measured work started
+     */
+    public void recordSince(final long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return Histogram    copy of everything recorded so far
+     */
+    public Histogram snapshot() {
+        return histogram.copy();
+    }
+}
@@ -0,0 +1,55 @@
+package com.collibra.backend.challenge.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Position of a replication leader or follower in the mutation feed of the leader
+ */
+@Getter
+@ThreadSafe
+public final class ReplicationStats {
+
+    public enum Role {
+        LEADER,
+        FOLLOWER
+    }
+
+    /**
+     * {@code null} unless the server replicates
+     */
+    @Setter
+    private volatile Role role;
+    /**
+     * Sequence number of the last mutation the leader appended, as far as known to a follower
+     */
+    private final AtomicLong leaderSequence = new AtomicLong();
+    /**
+     * Sequence number of the last mutation applied to the graph of this server
+     */
+    private final AtomicLong appliedSequence = new AtomicLong();
+    /**
+     * Milliseconds from the leader appending the last applied mutation until a follower applied it,
+     * {@code 0} once a follower heard from the leader that it is caught up
+     */
+    private final AtomicLong lagMillis = new AtomicLong();
+    /**
+     * Followers connected to a leader
+     */
+    private final LongAdder followers = new LongAdder();
+    /**
+     * Snapshots a leader sent or a follower loaded
+     */
+    private final LongAdder snapshots = new LongAdder();
+
+    /**
+     * @return long     mutations the follower has not applied yet
+     */
+    public long getLagRecords() {
+        return Math.max(0, leaderSequence.get() - appliedSequence.get());
+    }
+}
@@ -0,0 +1,190 @@
+package com.collibra.backend.challenge.stats;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the running server since startup, read by the {@code STATS} command and
+ * {@link StatsHttpServer}. Components look up what they record into once and keep the reference, so recording
+ * is a clock read and a wait-free histogram update.
+ */
+@Getter
+@ThreadSafe
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ServerStats {
+
+    private static final ServerStats INSTANCE = new ServerStats();
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+    private static final String[] QUANTILES = {"0.5", "0.99", "0.999"};
+    private static final double NANOS_PER_MICROSECOND = 1_000;
+    private static final double NANOS_PER_SECOND = 1_000_000_000;
+
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentMap<String, CommandStats> commands = new ConcurrentHashMap<>();
+    /**
+     * Time mutations wait for the mutation lock of the graph
+     */
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    /**
+     * Time mutations hold the mutation lock of the graph
+     */
+    private final LatencyHistogram lockHold = new LatencyHistogram();
+    private final LongAdder activeSessions = new LongAdder();
+    private final LongAdder totalSessions = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final ReplicationStats replication = new ReplicationStats();
+    private final ComponentStats components = new ComponentStats();
+
+    public static ServerStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param name              command name, e.g. {@code ADD_NODE}
+     * @return CommandStats     statistics of the command, created on first use
+     */
+    public CommandStats command(final String name) {
+        return commands.computeIfAbsent(name, ignored -> new CommandStats());
+    }
+
+    public void sessionOpened() {
+        totalSessions.increment();
+        activeSessions.increment();
+    }
+
+    public void sessionClosed() {
+        activeSessions.decrement();
+    }
+
+    /**
+     * Single line answer of the {@code STATS} command, durations in microseconds. Commands not used yet are left out.
+     *
+     * @return String   e.g. {@code SESSIONS active=1 total=3; BYTES in=120 out=64; LOCK_WAIT count=2 p50=0.1 ...}
+     */
+    public String summary() {
+        final StringBuilder summary = new StringBuilder()
+                .append("SESSIONS active=").append(activeSessions.sum()).append(" total=").append(totalSessions.sum())
+                .append("; BYTES in=").append(receivedBytes.sum()).append(" out=").append(sentBytes.sum());
+        appendSummary(summary.append("; LOCK_WAIT"), lockWait.snapshot());
+        appendSummary(summary.append("; LOCK_HOLD"), lockHold.snapshot());
+        final ReplicationStats.Role role = replication.getRole();
+        if (role != null) {
+            summary.append("; REPLICATION role=").append(role)
+                    .append(" leader=").append(replication.getLeaderSequence().get())
+                    .append(" applied=").append(replication.getAppliedSequence().get())
+                    .append(" lag=").append(replication.getLagRecords())
+                    .append(" lag_ms=").append(replication.getLagMillis().get())
+                    .append(" followers=").append(replication.getFollowers().sum())
+                    .append(" snapshots=").append(replication.getSnapshots().sum());
+        }
+        summary.append("; COMPONENTS checks=").append(components.getChecks().sum())
+                .append(" short_circuits=").append(components.getShortCircuits().sum())
+                .append(" rebuilds=").append(components.getRebuilds().sum());
+        for (Map.Entry<String, CommandStats> command : new TreeMap<>(commands).entrySet()) {
+            final Histogram latency = command.getValue().getLatency().snapshot();
+            if (latency.getTotalCount() > 0) {
+                summary.append("; ").append(command.getKey()).append(" errors=").append(command.getValue().getErrors().sum());
+                appendSummary(summary, latency);
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * @return String   every statistic in the Prometheus text exposition format, durations as summaries in seconds
+     */
+    public String toPrometheusText() {
+        final StringBuilder text = new StringBuilder();
+        final Map<String, CommandStats> sortedCommands = new TreeMap<>(commands);
+        header(text, "graph_command_duration_seconds", "summary", "Time to answer a client line by command");
+        for (Map.Entry<String, CommandStats> command : sortedCommands.entrySet()) {
+            appendSummary(text, "graph_command_duration_seconds", "command=\"" + command.getKey() + "\",",
+                    command.getValue().getLatency().snapshot());
+        }
+        header(text, "graph_command_errors_total", "counter", "Error answers by command");
+        for (Map.Entry<String, CommandStats> command : sortedCommands.entrySet()) {
+            text.append("graph_command_errors_total{command=\"").append(command.getKey()).append("\"} ")
+                    .append(command.getValue().getErrors().sum()).append('\n');
+        }
+        header(text, "graph_lock_wait_seconds", "summary", "Time mutations wait for the graph mutation lock");
+        appendSummary(text, "graph_lock_wait_seconds", "", lockWait.snapshot());
+        header(text, "graph_lock_hold_seconds", "summary", "Time mutations hold the graph mutation lock");
+        appendSummary(text, "graph_lock_hold_seconds", "", lockHold.snapshot());
+        appendValue(text, "server_sessions_active", "gauge", "Connected clients", activeSessions.sum());
+        appendValue(text, "server_sessions_total", "counter", "Accepted clients", totalSessions.sum());
+        appendValue(text, "server_received_bytes_total", "counter", "Bytes read from clients", receivedBytes.sum());
+        appendValue(text, "server_sent_bytes_total", "counter", "Bytes written to clients", sentBytes.sum());
+        appendValue(text, "graph_component_checks_total", "counter", "Queries checked against the component index",
+                components.getChecks().sum());
+        appendValue(text, "graph_component_short_circuits_total", "counter",
+                "Queries answered by the component index without a search", components.getShortCircuits().sum());
+        appendValue(text, "graph_component_rebuilds_total", "counter", "Rebuilds of the component index",
+                components.getRebuilds().sum());
+        if (replication.getRole() != null) {
+            appendValue(text, "replication_leader_sequence", "gauge", "Last mutation appended by the leader",
+                    replication.getLeaderSequence().get());
+            appendValue(text, "replication_applied_sequence", "gauge", "Last mutation applied to this graph",
+                    replication.getAppliedSequence().get());
+            appendValue(text, "replication_lag_records", "gauge", "Mutations of the leader not applied yet",
+                    replication.getLagRecords());
+            header(text, "replication_lag_seconds", "gauge", "Delay of the last applied mutation behind the leader");
+            text.append("replication_lag_seconds ").append(replication.getLagMillis().get() / 1_000.0).append('\n');
+            appendValue(text, "replication_followers", "gauge", "Followers connected to the leader",
+                    replication.getFollowers().sum());
+            appendValue(text, "replication_snapshots_total", "counter", "Snapshots sent by the leader or loaded by the follower",
+                    replication.getSnapshots().sum());
+        }
+        return text.toString();
+    }
+
+    private static void appendSummary(final StringBuilder summary, final Histogram histogram) {
+        summary.append(" count=").append(histogram.getTotalCount());
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            summary.append(' ').append(PERCENTILE_NAMES[i]).append('=')
+                    .append(microseconds(histogram.getValueAtPercentile(PERCENTILES[i])));
+        }
+        summary.append(" max=").append(microseconds(histogram.getMaxValue()));
+    }
+
+    /**
+     * The sum is estimated from the mean of the histogram, it does not keep the exact sum of the values
+     */
+    private static void appendSummary(final StringBuilder text, final String name, final String labels,
+                                      final Histogram histogram) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            text.append(name).append('{').append(labels).append("quantile=\"").append(QUANTILES[i]).append("\"} ")
+                    .append(histogram.getValueAtPercentile(PERCENTILES[i]) / NANOS_PER_SECOND).append('\n');
+        }
+        final String suffixLabels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        text.append(name).append("_sum").append(suffixLabels).append(' ')
+                .append(histogram.getMean() * histogram.getTotalCount() / NANOS_PER_SECOND).append('\n')
+                .append(name).append("_count").append(suffixLabels).append(' ').append(histogram.getTotalCount()).append('\n');
+    }
+
+    private static void appendValue(final StringBuilder text, final String name, final String type, final String help,
+                                    final long value) {
+        header(text, name, type, help);
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void header(final StringBuilder text, final String name, final String type, final String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String microseconds(final long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / NANOS_PER_MICROSECOND);
+    }
+}
@@ -0,0 +1,76 @@
+package com.collibra.backend.challenge.stats;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plain HTTP endpoint {@code GET /metrics} answering {@link ServerStats} in the Prometheus text format. It listens
+ * on the loopback interface only, scrape it through a local agent.
+ */
+@Slf4j
+public final class StatsHttpServer implements Closeable {
+
+    /**
+     * {@code -Dserver.stats.http-port=9100} serves the statistics on that local port, {@code 0} (default) disables it
+     */
+    public static final String PORT_PROPERTY = "server.stats.http-port";
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ServerStats stats;
+    private final HttpServer server;
+
+    /**
+     * @param port  local port, {@code 0} picks a free one
+     */
+    public StatsHttpServer(final ServerStats stats, final int port) throws IOException {
+        this.stats = stats;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+        log.info("Serving statistics on http://{}:{}{}", server.getAddress().getHostString(), getPort(), PATH);
+    }
+
+    /**
+     * @return Option<StatsHttpServer>  started server, empty if the endpoint is not configured
+     */
+    public static Option<StatsHttpServer> fromSystemProperties(final ServerStats stats) throws IOException {
+        final int port = Integer.getInteger(PORT_PROPERTY, 0);
+        return port <= 0 ? Option.none() : Option.of(new StatsHttpServer(stats, port));
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final byte[] body = stats.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
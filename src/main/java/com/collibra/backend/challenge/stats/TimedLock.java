@@ -0,0 +1,177 @@
+package com.collibra.backend.challenge.stats;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReentrantLock} recording how long threads wait for it and how long they hold it. Only the outermost
+ * acquisition of a reentrant hold is measured. A free unfair lock is taken without reading the clock for the wait.
+ * Awaiting a condition releases the lock, so it ends the measured hold and a new one starts once the lock is back.
+ */
+@ThreadSafe
+@RequiredArgsConstructor
+public final class TimedLock implements Lock {
+
+    private final ReentrantLock delegate;
+    private final LatencyHistogram waitTime;
+    private final LatencyHistogram holdTime;
+    /**
+     * Written and read by the owner of the lock only
+     */
+    private long acquiredAtNanos;
+
+    @Override
+    public void lock() {
+        if (!delegate.isFair() && delegate.tryLock()) {
+            acquiredWithoutWaiting();
+            return;
+        }
+        final long start = System.nanoTime();
+        delegate.lock();
+        acquired(start);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        final long start = System.nanoTime();
+        delegate.lockInterruptibly();
+        acquired(start);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!delegate.tryLock()) {
+            return false;
+        }
+        acquiredWithoutWaiting();
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
+        final long start = System.nanoTime();
+        if (!delegate.tryLock(time, unit)) {
+            return false;
+        }
+        acquired(start);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (delegate.getHoldCount() == 1) {
+            holdTime.recordSince(acquiredAtNanos);
+        }
+        delegate.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new TimedCondition(delegate.newCondition());
+    }
+
+    private void acquiredWithoutWaiting() {
+        if (delegate.getHoldCount() == 1) {
+            acquiredAtNanos = System.nanoTime();
+            waitTime.record(0);
+        }
+    }
+
+    private void acquired(final long startNanos) {
+        if (delegate.getHoldCount() == 1) {
+            acquiredAtNanos = System.nanoTime();
+            waitTime.record(acquiredAtNanos - startNanos);
+        }
+    }
+
+    /**
+     * Record the hold up to an await, which releases every hold of the lock
+     *
+     * @return boolean  {@code true} if the current thread holds the lock, otherwise the await fails
+     */
+    private boolean releasing() {
+        if (!delegate.isHeldByCurrentThread()) {
+            return false;
+        }
+        holdTime.recordSince(acquiredAtNanos);
+        return true;
+    }
+
+    private void reacquired(final boolean held) {
+        if (held) {
+            acquiredAtNanos = System.nanoTime();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private final class TimedCondition implements Condition {
+
+        private final Condition condition;
+
+        @Override
+        public void await() throws InterruptedException {
+            final boolean held = releasing();
+            try {
+                condition.await();
+            } finally {
+                reacquired(held);
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            final boolean held = releasing();
+            try {
+                condition.awaitUninterruptibly();
+            } finally {
+                reacquired(held);
+            }
+        }
+
+        @Override
+        public long awaitNanos(final long nanosTimeout) throws InterruptedException {
+            final boolean held = releasing();
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                reacquired(held);
+            }
+        }
+
+        @Override
+        public boolean await(final long time, final TimeUnit unit) throws InterruptedException {
+            final boolean held = releasing();
+            try {
+                return condition.await(time, unit);
+            } finally {
+                reacquired(held);
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(final Date deadline) throws InterruptedException {
+            final boolean held = releasing();
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                reacquired(held);
+            }
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to insert {@code edgeCount} edges through the protocol, one {@code ADD EDGE} message at a time against
+ * one {@code BEGIN BATCH} ... {@code END BATCH}. Messages are processed in memory, so the score leaves out the
+ * network round trips the batch saves in addition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class BatchInsertBenchmark {
+
+    @Param({"PERSISTENT", "COMPACT"})
+    private GraphEngineType engine;
+
+    @Param("100000")
+    private int nodeCount;
+
+    @Param("1000000")
+    private int edgeCount;
+
+    private String[] messages;
+    private CoreMessageProcessor messageProcessor;
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void createMessages() {
+        final Random random = new Random(42);
+        messages = new String[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            messages[i] = "ADD EDGE node-" + random.nextInt(nodeCount) + " node-" + random.nextInt(nodeCount) + " "
+                    + (1 + random.nextInt(GraphGenerator.MAX_WEIGHT));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createGraph() {
+        final DirectedGraph graph = GraphGenerator.freshGraph(engine);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(new Node("node-" + i));
+        }
+        messageProcessor = new CoreMessageProcessor(graph);
+        session = Session.start();
+    }
+
+    @Benchmark
+    public long lineByLine() {
+        long length = 0;
+        for (String message : messages) {
+            length += messageProcessor.process(session, message).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long batch() {
+        messageProcessor.process(session, "BEGIN BATCH");
+        for (String message : messages) {
+            messageProcessor.process(session, message);
+        }
+        return messageProcessor.process(session, "END BATCH").length();
+    }
+}
@@ -0,0 +1,136 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.benchmark.GraphGenerator.GraphShape;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public {@link DirectedGraph} API on random, grid, scale-free and re-announced graphs of {@code nodeCount} nodes.
+ * The query cache is disabled, so every query runs the search. Mutations add and remove a node or an edge between
+ * two extra nodes, the graph stays the same during the run. {@link #shortestPathToOtherComponent} asks for a path
+ * into a separate ring a tenth of the size, which a search answers only after settling one side completely.
+ * {@link #shortestPathsFromOneSource} and {@link #distancesFromOneSource} compare {@code targetCount} point to point
+ * searches with one single source search to the same number of targets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-D" + DirectedGraph.CACHE_MAX_BYTES_PROPERTY + "=0")
+public class DirectedGraphBenchmark {
+
+    @Param({"RANDOM", "GRID", "SCALE_FREE", "REANNOUNCED"})
+    private GraphShape shape;
+
+    @Param("PERSISTENT")
+    private GraphEngineType engine;
+
+    @Param("10000")
+    private int nodeCount;
+
+    @Param("4")
+    private int edgesPerNode;
+
+    @Param("50")
+    private int closerThanLimit;
+
+    @Param("16")
+    private int targetCount;
+
+    private final Node addedNode = new Node("benchmark-node");
+    private final Node source = new Node("benchmark-source");
+    private final Node target = new Node("benchmark-target");
+    private Edge edge;
+    private DirectedGraph graph;
+    private List<Node> nodes;
+    private final List<Node> island = new ArrayList<>();
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphGenerator.freshGraph(engine);
+        nodes = GraphGenerator.generate(shape, graph, nodeCount, edgesPerNode, 42);
+        random = new Random(7);
+        graph.addNode(source);
+        graph.addNode(target);
+        for (int i = 0; i < nodeCount / 10; i++) {
+            island.add(new Node("benchmark-island-" + i));
+            graph.addNode(island.get(i));
+        }
+        for (int i = 0; i < island.size(); i++) {
+            final Node next = island.get((i + 1) % island.size());
+            graph.addEdge(GraphGenerator.edge(island.get(i), next, random));
+            graph.addEdge(GraphGenerator.edge(next, island.get(i), random));
+        }
+        edge = GraphGenerator.edge(source, target, random);
+    }
+
+    @Benchmark
+    public boolean addRemoveNode() {
+        return graph.addNode(addedNode) & graph.removeNode(addedNode);
+    }
+
+    @Benchmark
+    public boolean addRemoveEdge() {
+        return graph.addEdge(edge) & graph.removeEdge(source, target);
+    }
+
+    @Benchmark
+    public int shortestPath() {
+        return graph.findTheShortestPath(randomNode(), randomNode());
+    }
+
+    @Benchmark
+    public int shortestPathToOtherComponent() {
+        return graph.findTheShortestPath(randomNode(), island.get(random.nextInt(island.size())));
+    }
+
+    @Benchmark
+    public int shortestPathsFromOneSource() {
+        final Node from = randomNode();
+        int sum = 0;
+        for (int i = 0; i < targetCount; i++) {
+            sum += graph.findTheShortestPath(from, randomNode());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int distancesFromOneSource() {
+        final Node from = randomNode();
+        final Node[] targets = new Node[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targets[i] = randomNode();
+        }
+        return graph.findDistances(from, io.vavr.collection.List.of(targets)).length;
+    }
+
+    @Benchmark
+    public int closerThan() {
+        return graph.findAllCloserNodesThan(randomNode(), closerThanLimit).size();
+    }
+
+    private Node randomNode() {
+        return nodes.get(random.nextInt(nodes.size()));
+    }
+}
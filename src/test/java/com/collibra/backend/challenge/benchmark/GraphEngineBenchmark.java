@@ -0,0 +1,71 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the storage engines on the same random graph. Run with {@code -prof gc} to compare
+ * allocation per query, see {@link GraphEngineFootprint} for retained heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphEngineBenchmark {
+
+    @Param({"PERSISTENT", "COMPACT", "OFF_HEAP"})
+    private GraphEngineType engine;
+
+    @Param("50000")
+    private int nodeCount;
+
+    @Param("4")
+    private int edgesPerNode;
+
+    @Param("50")
+    private int closerThanLimit;
+
+    private DirectedGraph graph;
+    private List<Node> nodes;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphGenerator.freshGraph(engine);
+        nodes = GraphGenerator.random(graph, nodeCount, edgesPerNode, 42);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public int shortestPath() {
+        return graph.findTheShortestPath(randomNode(), randomNode());
+    }
+
+    @Benchmark
+    public int closerThan() {
+        return graph.findAllCloserNodesThan(randomNode(), closerThanLimit).size();
+    }
+
+    private Node randomNode() {
+        return nodes.get(random.nextInt(nodes.size()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Retained heap and direct buffer memory of every storage engine for the same random graph.
+ * Usage: {@code GraphEngineFootprint [nodeCount] [edgesPerNode] [announcements]}, run with a fixed heap
+ * ({@code -Xms = -Xmx}). With more than one announcement every edge is added that many times.
+ */
+public final class GraphEngineFootprint {
+
+    private GraphEngineFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int edgesPerNode = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int announcements = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        for (GraphEngineType engine : GraphEngineType.values()) {
+            GraphGenerator.freshGraph(engine);
+            final long before = usedHeap();
+            final long directBefore = bufferBytes("direct");
+            final DirectedGraph graph = GraphGenerator.freshGraph(engine);
+            GraphGenerator.random(graph, nodeCount, edgesPerNode, announcements, 42);
+            graph.getSnapshot();
+            final long after = usedHeap();
+            final long direct = bufferBytes("direct") - directBefore;
+            System.out.printf("%-10s nodes=%d edges=%d announcements=%d retained=%d MB (%d bytes/edge) direct=%d MB (%d bytes/edge)%n",
+                    engine, nodeCount, (long) nodeCount * edgesPerNode, announcements, (after - before) >> 20,
+                    (after - before) / ((long) nodeCount * edgesPerNode), direct >> 20, direct / ((long) nodeCount * edgesPerNode));
+        }
+    }
+
+    static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @param pool  {@code direct} or {@code mapped}
+     * @return long memory of the buffers of the pool
+     */
+    static long bufferBytes(final String pool) {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(bean -> bean.getName().equals(pool))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,115 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Garbage collection pauses and memory of one storage engine under a mix of queries and mutations on a large random
+ * graph. Usage: {@code GraphEngineGcPauses [engine] [nodeCount] [edgesPerNode] [seconds] [queryThreads]}, run every
+ * engine in a JVM of its own with the same heap settings. Prints the heap retained after building, the memory of
+ * direct and mapped buffers, the resident set size of the process and the count, total and longest pause of the
+ * collections during the mixed phase.
+ */
+public final class GraphEngineGcPauses {
+
+    private GraphEngineGcPauses() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        final GraphEngineType engine = GraphEngineType.valueOf(args.length > 0 ? args[0].toUpperCase() : "OFF_HEAP");
+        final int nodeCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        final int edgesPerNode = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        final int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        final int queryThreads = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        final long start = System.nanoTime();
+        final DirectedGraph graph = GraphGenerator.freshGraph(engine);
+        final List<Node> nodes = GraphGenerator.random(graph, nodeCount, edgesPerNode, 42);
+        graph.getSnapshot();
+        System.out.printf("%-10s nodes=%d edges=%d built in %d s, heap=%d MB direct=%d MB mapped=%d MB rss=%d MB%n",
+                engine, nodeCount, (long) nodeCount * edgesPerNode, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                GraphEngineFootprint.usedHeap() >> 20, GraphEngineFootprint.bufferBytes("direct") >> 20,
+                GraphEngineFootprint.bufferBytes("mapped") >> 20, rss() >> 20);
+
+        final AtomicLong collections = new AtomicLong();
+        final AtomicLong pauseMillis = new AtomicLong();
+        final LongAccumulator maxPauseMillis = new LongAccumulator(Math::max, 0);
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    final GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    collections.incrementAndGet();
+                    pauseMillis.addAndGet(info.getGcInfo().getDuration());
+                    maxPauseMillis.accumulate(info.getGcInfo().getDuration());
+                }
+            }, null, null);
+        }
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final AtomicLong queries = new AtomicLong();
+        final Thread[] threads = new Thread[queryThreads];
+        for (int i = 0; i < queryThreads; i++) {
+            final Random random = new Random(i);
+            threads[i] = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    graph.findTheShortestPath(nodes.get(random.nextInt(nodeCount)), nodes.get(random.nextInt(nodeCount)));
+                    queries.incrementAndGet();
+                }
+            }, "query-" + i);
+            threads[i].start();
+        }
+        final Random random = new Random(-1);
+        long mutations = 0;
+        while (System.nanoTime() < end) {
+            final Node source = nodes.get(random.nextInt(nodeCount));
+            final Node target = nodes.get(random.nextInt(nodeCount));
+            final int operation = random.nextInt(10);
+            if (operation < 6) {
+                graph.addEdge(GraphGenerator.edge(source, target, random));
+            } else if (operation < 9) {
+                graph.removeEdge(source, target);
+            } else {
+                graph.removeNode(source);
+                graph.addNode(source);
+                graph.addEdge(Edge.builder().source(source).target(target).weight(1).build());
+            }
+            mutations++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%-10s %d s: queries=%d mutations=%d gc count=%d total=%d ms max=%d ms, "
+                        + "direct=%d MB mapped=%d MB rss=%d MB%n", engine, seconds, queries.get(), mutations,
+                collections.get(), pauseMillis.get(), maxPauseMillis.get(),
+                GraphEngineFootprint.bufferBytes("direct") >> 20, GraphEngineFootprint.bufferBytes("mapped") >> 20, rss() >> 20);
+    }
+
+    /**
+     * @return long  resident set size of this process, {@code 0} where {@code /proc} is not available
+     */
+    private static long rss() throws IOException {
+        if (!Files.exists(Paths.get("/proc/self/status"))) {
+            return 0;
+        }
+        return Files.readAllLines(Paths.get("/proc/self/status")).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                .findFirst()
+                .orElse(0);
+    }
+}
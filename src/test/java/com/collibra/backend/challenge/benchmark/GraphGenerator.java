@@ -0,0 +1,180 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic graphs for benchmarks
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class GraphGenerator {
+
+    public static final int MAX_WEIGHT = 100;
+    /**
+     * Times every edge of a {@link GraphShape#REANNOUNCED} graph is added
+     */
+    public static final int ANNOUNCEMENTS = 20;
+
+    public enum GraphShape {
+        RANDOM,
+        GRID,
+        SCALE_FREE,
+        /**
+         * Random graph whose edges are re-announced by clients, every one is added {@link #ANNOUNCEMENTS} times
+         */
+        REANNOUNCED
+    }
+
+    /**
+     * Drop the {@link DirectedGraph} singleton, so the next {@link DirectedGraph#getInstance()} starts empty
+     */
+    public static DirectedGraph freshGraph() {
+        return freshGraph(GraphEngineType.PERSISTENT);
+    }
+
+    @SneakyThrows(ReflectiveOperationException.class)
+    public static DirectedGraph freshGraph(final GraphEngineType engine) {
+        final Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        System.setProperty(DirectedGraph.ENGINE_PROPERTY, engine.name());
+        try {
+            return DirectedGraph.getInstance();
+        } finally {
+            System.clearProperty(DirectedGraph.ENGINE_PROPERTY);
+        }
+    }
+
+    /**
+     * @param edgesPerNode  outgoing edges per node of random and scale-free graphs, a grid node has up to four
+     * @return List<Node>   created nodes
+     */
+    public static List<Node> generate(final GraphShape shape, final DirectedGraph graph, final int nodeCount,
+                                      final int edgesPerNode, final long seed) {
+        switch (shape) {
+            case GRID:
+                return grid(graph, nodeCount, seed);
+            case SCALE_FREE:
+                return scaleFree(graph, nodeCount, edgesPerNode, seed);
+            case REANNOUNCED:
+                return random(graph, nodeCount, edgesPerNode, ANNOUNCEMENTS, seed);
+            case RANDOM:
+            default:
+                return random(graph, nodeCount, edgesPerNode, seed);
+        }
+    }
+
+    /**
+     * Uniform random graph, every node gets {@code edgesPerNode} outgoing edges to random targets
+     *
+     * @return List<Node>   created nodes
+     */
+    public static List<Node> random(final DirectedGraph graph, final int nodeCount, final int edgesPerNode, final long seed) {
+        return random(graph, nodeCount, edgesPerNode, 1, seed);
+    }
+
+    /**
+     * Uniform random graph whose edges are announced repeatedly: after the first round every round adds each edge
+     * again, like clients re-announcing the edges they know. One in ten re-announcements brings a new random weight.
+     *
+     * @param announcements times every edge is added
+     * @return List<Node>   created nodes
+     */
+    public static List<Node> random(final DirectedGraph graph, final int nodeCount, final int edgesPerNode,
+                                    final int announcements, final long seed) {
+        final Random random = new Random(seed);
+        final List<Node> nodes = addNodes(graph, nodeCount);
+        final Edge[] edges = new Edge[nodeCount * edgesPerNode];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = edge(nodes.get(i / edgesPerNode), nodes.get(random.nextInt(nodeCount)), random);
+            graph.addEdge(edges[i]);
+        }
+        for (int round = 1; round < announcements; round++) {
+            for (int i = 0; i < edges.length; i++) {
+                graph.addEdge(random.nextInt(10) == 0 ? edge(edges[i].getSource(), edges[i].getTarget(), random) : edges[i]);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Scale-free graph grown by preferential attachment (Barabasi-Albert): every new node links to
+     * {@code edgesPerNode} existing nodes chosen proportionally to their degree, in a random direction
+     *
+     * @return List<Node>   created nodes
+     */
+    public static List<Node> scaleFree(final DirectedGraph graph, final int nodeCount, final int edgesPerNode, final long seed) {
+        final Random random = new Random(seed);
+        final List<Node> nodes = addNodes(graph, nodeCount);
+        final List<Node> endpoints = new ArrayList<>(2 * nodeCount * edgesPerNode);
+        endpoints.add(nodes.get(0));
+        for (int i = 1; i < nodeCount; i++) {
+            final Node node = nodes.get(i);
+            for (int j = 0; j < edgesPerNode; j++) {
+                final Node other = endpoints.get(random.nextInt(endpoints.size()));
+                graph.addEdge(random.nextBoolean() ? edge(node, other, random) : edge(other, node, random));
+                endpoints.add(other);
+                endpoints.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Square grid like a road network, every node is linked both ways to its right and lower neighbour.
+     * Shortest paths are long, so searches settle a large part of the graph.
+     *
+     * @param nodeCount     rounded down to a square number
+     * @return List<Node>   created nodes, row by row
+     */
+    public static List<Node> grid(final DirectedGraph graph, final int nodeCount, final long seed) {
+        final Random random = new Random(seed);
+        final int side = (int) Math.sqrt(nodeCount);
+        final List<Node> nodes = addNodes(graph, side * side);
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                final Node node = nodes.get(row * side + column);
+                if (column + 1 < side) {
+                    link(graph, node, nodes.get(row * side + column + 1), random);
+                }
+                if (row + 1 < side) {
+                    link(graph, node, nodes.get((row + 1) * side + column), random);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    public static Edge edge(final Node source, final Node target, final Random random) {
+        return Edge.builder()
+                .source(source)
+                .target(target)
+                .weight(1 + random.nextInt(MAX_WEIGHT))
+                .build();
+    }
+
+    private static void link(final DirectedGraph graph, final Node node, final Node neighbour, final Random random) {
+        graph.addEdge(edge(node, neighbour, random));
+        graph.addEdge(edge(neighbour, node, random));
+    }
+
+    private static List<Node> addNodes(final DirectedGraph graph, final int nodeCount) {
+        final List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            final Node node = new Node("node-" + i);
+            graph.addNode(node);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
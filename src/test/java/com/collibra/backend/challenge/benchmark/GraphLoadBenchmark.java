@@ -0,0 +1,143 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.Node;
+import com.collibra.backend.challenge.persistence.GraphFileFormat;
+import com.collibra.backend.challenge.persistence.GraphFileLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm start: time to load a random graph file of {@code edgeCount} edges into an empty graph,
+ * see {@link GraphFileLoader}. The file is written once per trial, so the page cache is warm.
+ * {@link HubIngest} builds a graph through {@code ADD EDGE} instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class GraphLoadBenchmark {
+
+    @Param({"TEXT", "BINARY"})
+    private GraphFileFormat format;
+
+    @Param({"PERSISTENT", "COMPACT"})
+    private GraphEngineType engine;
+
+    @Param("1000000")
+    private int nodeCount;
+
+    @Param("10000000")
+    private int edgeCount;
+
+    private Path file;
+    private DirectedGraph graph;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        final Random random = new Random(42);
+        final Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new Node("node-" + i);
+        }
+        final int[] sources = new int[edgeCount];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sources[i] = random.nextInt(nodeCount);
+            targets[i] = random.nextInt(nodeCount);
+            weights[i] = 1 + random.nextInt(GraphGenerator.MAX_WEIGHT);
+        }
+        file = Files.createTempFile("graph-load-benchmark", "." + format.name().toLowerCase());
+        format.write(new GraphImage(nodes, edgeCount, sources, targets, weights), file);
+    }
+
+    @Setup(Level.Invocation)
+    public void createGraph() {
+        graph = GraphGenerator.freshGraph(engine);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        GraphFileLoader.fromSystemProperties().load(file, graph);
+        return graph.getSnapshot().getNodeCount();
+    }
+
+    /**
+     * Ingest through {@code ADD EDGE} instead of the loader: a hub linked both ways to {@code degree} spokes, every
+     * pair announced {@code announcements} times with a random weight, like clients re-announcing the edges of a high
+     * fan-out node. Every announcement after the first looks up the entry of its pair in the long lists of the hub.
+     */
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgs = "-Xmx4g")
+    public static class HubIngest {
+
+        @Param({"PERSISTENT", "COMPACT", "OFF_HEAP"})
+        private GraphEngineType engine;
+
+        @Param("20000")
+        private int degree;
+
+        @Param("3")
+        private int announcements;
+
+        private DirectedGraph graph;
+        private Node hub;
+        private Node[] spokes;
+
+        @Setup(Level.Invocation)
+        public void createGraph() {
+            graph = GraphGenerator.freshGraph(engine);
+            hub = new Node("hub");
+            graph.addNode(hub);
+            spokes = new Node[degree];
+            for (int i = 0; i < degree; i++) {
+                spokes[i] = new Node("spoke-" + i);
+                graph.addNode(spokes[i]);
+            }
+        }
+
+        @Benchmark
+        public int addEdges() {
+            final Random random = new Random(42);
+            for (int round = 0; round < announcements; round++) {
+                for (Node spoke : spokes) {
+                    graph.addEdge(Edge.builder().source(hub).target(spoke).weight(1 + random.nextInt(GraphGenerator.MAX_WEIGHT)).build());
+                    graph.addEdge(Edge.builder().source(spoke).target(hub).weight(1 + random.nextInt(GraphGenerator.MAX_WEIGHT)).build());
+                }
+            }
+            return graph.getSnapshot().getNodeCount();
+        }
+    }
+}
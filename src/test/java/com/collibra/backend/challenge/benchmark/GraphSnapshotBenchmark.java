@@ -0,0 +1,95 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Query latency with and without a concurrent writer. With snapshot reads the {@code queries} and
+ * {@code queriesUnderWrites} groups should report the same percentiles for {@code shortestPath}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphSnapshotBenchmark {
+
+    @Param("10000")
+    private int nodeCount;
+
+    @Param("4")
+    private int edgesPerNode;
+
+    /**
+     * Pause of the writer between mutations, keeps the write load steady instead of saturating a core
+     */
+    @Param("100")
+    private int writeIntervalMicros;
+
+    private DirectedGraph graph;
+    private List<Node> nodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphGenerator.freshGraph();
+        nodes = GraphGenerator.random(graph, nodeCount, edgesPerNode, 42);
+    }
+
+    @Benchmark
+    @Group("queries")
+    @GroupThreads(3)
+    public int shortestPath() {
+        return query();
+    }
+
+    @Benchmark
+    @Group("queriesUnderWrites")
+    @GroupThreads(3)
+    public int shortestPathUnderWrites() {
+        return query();
+    }
+
+    @Benchmark
+    @Group("queriesUnderWrites")
+    @GroupThreads(1)
+    public boolean mutation() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(writeIntervalMicros));
+        final Random random = ThreadLocalRandom.current();
+        final Node source = randomNode(random);
+        final Node target = randomNode(random);
+        if (random.nextBoolean()) {
+            return graph.addEdge(GraphGenerator.edge(source, target, random));
+        }
+        return graph.removeEdge(source, target);
+    }
+
+    private int query() {
+        final Random random = ThreadLocalRandom.current();
+        return graph.findTheShortestPath(randomNode(random), randomNode(random));
+    }
+
+    private Node randomNode(final Random random) {
+        return nodes.get(random.nextInt(nodes.size()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second of a single session: parsing, dispatch and answer of a mix of commands including error
+ * answers. The graph does not change during the run, so queries are answered from the result cache and the score
+ * is dominated by the message handling itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageProcessingBenchmark {
+
+    private static final String[] MESSAGES = {
+            "HI, I AM benchmark-client",
+            "SHORTEST PATH node-1 node-2",
+            "CLOSER THAN 50 node-3",
+            "ADD NODE node-4",
+            "REMOVE EDGE node-5 missing-node",
+            "ADD EDGE node-6 missing-node 5",
+            "SHORTEST PATH node-7 missing-node",
+            "UNKNOWN COMMAND"
+    };
+
+    private CoreMessageProcessor messageProcessor;
+    private Session session;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final DirectedGraph graph = GraphGenerator.freshGraph();
+        GraphGenerator.random(graph, 1_000, 3, 42);
+        messageProcessor = new CoreMessageProcessor(graph);
+        session = Session.start();
+    }
+
+    @Benchmark
+    public String process() {
+        final String message = MESSAGES[next];
+        next = (next + 1) % MESSAGES.length;
+        try {
+            return messageProcessor.process(session, message);
+        } catch (MessageProcessingException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Node;
+import com.collibra.backend.challenge.persistence.Durability;
+import com.collibra.backend.challenge.persistence.MutationLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@code ADD NODE} with a {@link MutationLog} attached. Run with {@code -t 1} and {@code -t 8}
+ * to see group commit: with {@link Durability#SYNC} concurrent sessions share one force.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class MutationLogBenchmark {
+
+    @Param({"SYNC", "INTERVAL", "NONE"})
+    private Durability durability;
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private Path file;
+    private MutationLog mutationLog;
+    private DirectedGraph graph;
+
+    @Setup(Level.Trial)
+    public void openLog() throws IOException {
+        file = Files.createTempFile("mutation-log-benchmark", ".log");
+        mutationLog = new MutationLog(file, durability, 100);
+        graph = GraphGenerator.freshGraph();
+        mutationLog.recover(graph);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        mutationLog.close();
+        Files.delete(file);
+    }
+
+    @State(Scope.Thread)
+    public static class Names {
+        private String prefix;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void createPrefix(final MutationLogBenchmark benchmark) {
+            prefix = "session-" + benchmark.sessions.incrementAndGet() + "-";
+        }
+    }
+
+    @Benchmark
+    public boolean addNode(final Names names) {
+        return graph.addNode(new Node(names.prefix + names.next++));
+    }
+}
@@ -0,0 +1,105 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.benchmark.GraphGenerator.GraphShape;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import com.collibra.backend.challenge.graph.SearchProbe;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point to point search: bidirectional against one directional Dijkstra and A* over landmarks, run through
+ * {@link SearchProbe}; {@code settled / queries} is the average number of nodes settled per query.
+ * The landmark index build time and size are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortestPathBenchmark {
+
+    @Param({"RANDOM", "GRID", "SCALE_FREE", "REANNOUNCED"})
+    private GraphShape shape;
+
+    @Param("100000")
+    private int nodeCount;
+
+    @Param("3")
+    private int edgesPerNode;
+
+    @Param("16")
+    private int landmarkCount;
+
+    private SearchProbe probe;
+    private int idBound;
+    private Random random;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Settled {
+
+        public long settled;
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            settled = 0;
+            queries = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final DirectedGraph graph = GraphGenerator.freshGraph(GraphEngineType.COMPACT);
+        final List<Node> nodes = GraphGenerator.generate(shape, graph, nodeCount, edgesPerNode, 42);
+        probe = new SearchProbe(graph.getSnapshot());
+        idBound = probe.idBound();
+        random = new Random(7);
+        final long start = System.nanoTime();
+        final int landmarks = probe.buildLandmarks(landmarkCount);
+        System.out.printf("%nLandmark index: %d landmarks built in %d ms, %d bytes per landmark%n", landmarks,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), probe.bytesPerLandmark());
+    }
+
+    @Benchmark
+    public long bidirectional(final Settled counters) {
+        final long distance = probe.bidirectional(random.nextInt(idBound), random.nextInt(idBound));
+        counters.settled += probe.settled();
+        counters.queries++;
+        return distance;
+    }
+
+    @Benchmark
+    public long unidirectional(final Settled counters) {
+        final long distance = probe.unidirectional(random.nextInt(idBound), random.nextInt(idBound));
+        counters.settled += probe.settled();
+        counters.queries++;
+        return distance;
+    }
+
+    @Benchmark
+    public long landmarks(final Settled counters) {
+        final long distance = probe.landmarks(random.nextInt(idBound), random.nextInt(idBound));
+        counters.settled += probe.settled();
+        counters.queries++;
+        return distance;
+    }
+}
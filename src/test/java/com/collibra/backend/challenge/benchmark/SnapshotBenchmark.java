@@ -0,0 +1,116 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.Node;
+import com.collibra.backend.challenge.persistence.Durability;
+import com.collibra.backend.challenge.persistence.GraphFileLoader;
+import com.collibra.backend.challenge.persistence.MutationLog;
+import com.collibra.backend.challenge.persistence.SnapshotWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to write a snapshot of a random graph of {@code edgeCount} edges with {@link SnapshotWriter} and to restore
+ * it into an empty graph, see {@link GraphFileLoader}. Snapshots are written to the page cache, the score leaves out
+ * waiting for the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SnapshotBenchmark {
+
+    @Param({"PERSISTENT", "COMPACT"})
+    private GraphEngineType engine;
+
+    @Param("1000000")
+    private int nodeCount;
+
+    @Param({"1000000", "10000000"})
+    private int edgeCount;
+
+    private Path directory;
+    private MutationLog mutationLog;
+    private SnapshotWriter snapshotWriter;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void createGraph() throws IOException {
+        final Random random = new Random(42);
+        final Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new Node("node-" + i);
+        }
+        final int[] sources = new int[edgeCount];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sources[i] = random.nextInt(nodeCount);
+            targets[i] = random.nextInt(nodeCount);
+            weights[i] = 1 + random.nextInt(GraphGenerator.MAX_WEIGHT);
+        }
+        final DirectedGraph graph = GraphGenerator.freshGraph(engine);
+        graph.load(new GraphImage(nodes, edgeCount, sources, targets, weights));
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        final Path logFile = directory.resolve("graph.log");
+        mutationLog = new MutationLog(logFile, Durability.NONE, 100);
+        mutationLog.recover(graph);
+        snapshotWriter = new SnapshotWriter(logFile, mutationLog, graph, 0);
+        snapshotWriter.write();
+        snapshot = SnapshotWriter.latest(logFile).get();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        mutationLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyGraph {
+        private DirectedGraph graph;
+
+        @Setup(Level.Invocation)
+        public void createGraph(final SnapshotBenchmark benchmark) {
+            graph = GraphGenerator.freshGraph(benchmark.engine);
+        }
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        return snapshotWriter.write();
+    }
+
+    @Benchmark
+    public int restore(final EmptyGraph target) throws IOException {
+        GraphFileLoader.fromSystemProperties().load(snapshot, target.graph);
+        return target.graph.getSnapshot().getNodeCount();
+    }
+}
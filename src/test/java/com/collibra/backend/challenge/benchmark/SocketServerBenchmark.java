@@ -0,0 +1,145 @@
+package com.collibra.backend.challenge.benchmark;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.server.MultiClientSocketServer;
+import com.collibra.backend.challenge.server.NioSocketServer;
+import com.collibra.backend.challenge.server.ServerConfiguration;
+import com.collibra.backend.challenge.server.ServerMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/answer round trips of concurrent clients against a server on the loopback interface, one connection per
+ * benchmark thread: run with {@code -t <clients>}. The server runs in the benchmark JVM on a free port, its graph is
+ * a random graph of {@code nodeCount} nodes. The score includes the client side of the protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SocketServerBenchmark {
+
+    private static final long CONNECT_TIMEOUT_IN_MS = 10_000;
+
+    @Param({"BLOCKING", "NIO"})
+    private ServerMode mode;
+
+    @Param("10000")
+    private int nodeCount;
+
+    private int port;
+
+    @Setup(Level.Trial)
+    public void startServer(final BenchmarkParams params) throws IOException, InterruptedException {
+        GraphGenerator.random(GraphGenerator.freshGraph(), nodeCount, 3, 42);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        final ServerConfiguration configuration = ServerConfiguration.builder()
+                .mode(mode)
+                .port(port)
+                .timeoutInMs((int) TimeUnit.MINUTES.toMillis(10))
+                .workerThreads(params.getThreads())
+                .build();
+        final Thread server = new Thread(() -> {
+            if (mode == ServerMode.NIO) {
+                new NioSocketServer(configuration).start();
+            } else {
+                new MultiClientSocketServer(configuration).start();
+            }
+        }, "benchmark-server");
+        server.setDaemon(true);
+        server.start();
+        awaitServer();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private Socket socket;
+        private BufferedReader in;
+        private Writer out;
+        private Random random;
+        private String nodeName;
+
+        @Setup(Level.Trial)
+        public void connect(final SocketServerBenchmark benchmark, final ThreadParams thread) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), benchmark.port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            random = new Random(thread.getThreadIndex());
+            nodeName = "client-node-" + thread.getThreadIndex();
+            in.readLine();
+            send("HI, I AM client-" + thread.getThreadIndex());
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            send("BYE MATE!");
+            socket.close();
+        }
+
+        String send(final String message) throws IOException {
+            out.write(message);
+            out.write('\n');
+            out.flush();
+            return in.readLine();
+        }
+    }
+
+    @Benchmark
+    public String shortestPath(final Client client) throws IOException {
+        return client.send("SHORTEST PATH node-" + client.random.nextInt(nodeCount) + " node-" + client.random.nextInt(nodeCount));
+    }
+
+    @Benchmark
+    public String addRemoveNode(final Client client) throws IOException {
+        client.send("ADD NODE " + client.nodeName);
+        return client.send("REMOVE NODE " + client.nodeName);
+    }
+
+    private void awaitServer() throws IOException, InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_IN_MS);
+        while (true) {
+            try (Socket ignored = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                return;
+            } catch (ConnectException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.collibra.backend.challenge.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CommandTest {
+
+    private final Command command = new Command();
+
+    @Test
+    void shouldRecognizeCommandAndArgumentsSeparatedByAnyWhitespace() {
+        command.parse("ADD \t EDGE  a\tb 12");
+        assertEquals(CommandType.ADD_EDGE, command.getType());
+        assertEquals(3, command.getArgumentCount());
+        assertEquals("a", command.argument(0));
+        assertEquals("b", command.argument(1));
+        assertEquals(12, command.intArgument(2));
+    }
+
+    @Test
+    void shouldRecognizeCommandsSharingFirstKeyword() {
+        assertEquals(CommandType.ADD_NODE, command.parse("ADD NODE a").getType());
+        assertEquals(CommandType.REMOVE_EDGE, command.parse("REMOVE EDGE a b").getType());
+        assertEquals(CommandType.GREETING, command.parse("HI, I AM John").getType());
+        assertEquals("John", command.argument(0));
+    }
+
+    @Test
+    void shouldNotRecognizeUnknownOrPartialCommands() {
+        assertNull(command.parse("").getType());
+        assertNull(command.parse("ADD").getType());
+        assertNull(command.parse("ADD EDGES a b 1").getType());
+        assertNull(command.parse("ЖADD NODE a").getType());
+    }
+
+    @Test
+    void shouldRejectMissingAndMalformedArguments() {
+        command.parse("CLOSER THAN x a");
+        assertThrows(UnsupportedCommandException.class, () -> command.intArgument(0));
+        assertThrows(UnsupportedCommandException.class, () -> command.argument(2));
+        command.parse("CLOSER THAN 2147483648 a");
+        assertThrows(UnsupportedCommandException.class, () -> command.intArgument(0));
+        command.parse("CLOSER THAN -2147483648 a");
+        assertEquals(Integer.MIN_VALUE, command.intArgument(0));
+        command.parse("CLOSER THAN - a");
+        assertThrows(UnsupportedCommandException.class, () -> command.intArgument(0));
+    }
+
+    @Test
+    void shouldParseIntArgumentsLikeIntegerParseInt() {
+        assertEquals(5, command.parse("ADD EDGE a b +5").intArgument(2));
+        assertEquals(5, command.parse("CLOSER THAN +5 a").intArgument(0));
+        assertEquals(Integer.MAX_VALUE, command.parse("CLOSER THAN +2147483647 a").intArgument(0));
+        assertEquals(7, command.parse("CLOSER THAN 007 a").intArgument(0));
+        command.parse("CLOSER THAN + a");
+        assertThrows(UnsupportedCommandException.class, () -> command.intArgument(0));
+        command.parse("CLOSER THAN +-5 a");
+        assertThrows(UnsupportedCommandException.class, () -> command.intArgument(0));
+    }
+}
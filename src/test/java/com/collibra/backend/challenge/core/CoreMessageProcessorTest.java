@@ -1,8 +1,11 @@
 package com.collibra.backend.challenge.core;
 
+import com.collibra.backend.challenge.core.batch.BatchTooLargeException;
+import com.collibra.backend.challenge.core.batch.BeginBatchProcessor;
 import com.collibra.backend.challenge.core.node.NodeAlreadyExistsException;
 import com.collibra.backend.challenge.core.node.NodeNotFoundException;
 import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Node;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -11,162 +14,272 @@ import java.time.Instant;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CoreMessageProcessorTest {
 
     private CoreMessageProcessor messageProcessor;
+    private Session session;
 
     @BeforeEach
     void setUp() throws NoSuchFieldException, IllegalAccessException {
         Field instance = DirectedGraph.class.getDeclaredField("instance");
         instance.setAccessible(true);
         instance.set(null, null);
-        messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance(), UUID.randomUUID(), Instant.now());
+        messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+        session = Session.start();
     }
 
     @Test
     void shouldThrowUnsupportedException() {
-        assertThrows(MessageProcessingException.class, () -> messageProcessor.process("UNKNOWN"), "SORRY, I DID NOT UNDERSTAND THAT");
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "UNKNOWN"), "SORRY, I DID NOT UNDERSTAND THAT");
     }
 
     @Test
     void shouldReturnGreetingsMessage() throws MessageProcessingException {
-        assertEquals("HI John", messageProcessor.process("HI, I AM John"));
+        assertEquals("HI John", messageProcessor.process(session, "HI, I AM John"));
     }
 
     @Test
     void shouldReturnWelcomeMessage() {
         UUID serverId = UUID.randomUUID();
-        messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance(), serverId, Instant.now());
-        assertEquals("HI, I AM " + serverId.toString(), messageProcessor.getWelcomeMessage());
+        session = new Session(serverId, Instant.now());
+        assertEquals("HI, I AM " + serverId.toString(), messageProcessor.getWelcomeMessage(session));
     }
 
     @Test
     void shouldReturnTimeoutMessage() throws MessageProcessingException {
-        messageProcessor.process("HI, I AM John");
-        assertEquals("BYE John, WE SPOKE FOR 30000 MS", messageProcessor.getTimeoutMessage());
+        messageProcessor.process(session, "HI, I AM John");
+        assertEquals("BYE John, WE SPOKE FOR 5000 MS", messageProcessor.getTimeoutMessage(session, 5_000));
     }
 
     @Test
     void shouldThrowExceptionDuringGettingTimeoutMessageWithoutClientName() {
-        assertThrows(IllegalStateException.class, () -> messageProcessor.getTimeoutMessage(), "Can not generate timeout message without client name");
+        assertThrows(IllegalStateException.class, () -> messageProcessor.getTimeoutMessage(session, 30_000), "Can not generate timeout message without client name");
     }
 
     @Test
     void shouldReturnGoodbyeMessage() throws MessageProcessingException {
-        messageProcessor.process("HI, I AM John");
-        final String result = messageProcessor.process("BYE MATE!");
+        messageProcessor.process(session, "HI, I AM John");
+        final String result = messageProcessor.process(session, "BYE MATE!");
         assertTrue(result.matches("^BYE John, WE SPOKE FOR \\d+ MS*$"));
     }
 
     @Test
     void shouldThrowExceptionDuringGettingGoodbyeMessageWithoutClientName() {
-        assertThrows(IllegalStateException.class, () -> messageProcessor.process("BYE MATE!"), "Can not generate timeout message without client name");
+        assertThrows(IllegalStateException.class, () -> messageProcessor.process(session, "BYE MATE!"), "Can not generate timeout message without client name");
+    }
+
+    @Test
+    void shouldKeepClientNameAndCountersPerSession() throws MessageProcessingException {
+        final Session other = Session.start();
+        messageProcessor.process(session, "HI, I AM John");
+        messageProcessor.process(other, "HI, I AM Jane");
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "UNKNOWN"));
+        assertEquals("BYE John, WE SPOKE FOR 30000 MS", messageProcessor.getTimeoutMessage(session, 30_000));
+        assertEquals("BYE Jane, WE SPOKE FOR 30000 MS", messageProcessor.getTimeoutMessage(other, 30_000));
+        assertEquals(2, session.getMessageCount());
+        assertEquals(1, session.getErrorCount());
+        assertEquals(0, other.getErrorCount());
     }
 
     @Test
     void shouldReturnNodeAddedMessage() throws MessageProcessingException {
-        assertEquals("NODE ADDED", messageProcessor.process("ADD NODE phase2-node1"));
+        assertEquals("NODE ADDED", messageProcessor.process(session, "ADD NODE phase2-node1"));
     }
 
     @Test
     void shouldReturnNodeAlreadyExistsMessage() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        assertThrows(NodeAlreadyExistsException.class, () -> messageProcessor.process("ADD NODE phase2-node1"), "ERROR: NODE ALREADY EXISTS");
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        assertThrows(NodeAlreadyExistsException.class, () -> messageProcessor.process(session, "ADD NODE phase2-node1"), "ERROR: NODE ALREADY EXISTS");
     }
 
     @Test
     void shouldReturnEdgeAddedMessageDuringAdding() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        messageProcessor.process("ADD NODE phase2-node2");
-        assertEquals("EDGE ADDED", messageProcessor.process("ADD EDGE phase2-node1 phase2-node2 12"));
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        messageProcessor.process(session, "ADD NODE phase2-node2");
+        assertEquals("EDGE ADDED", messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node2 12"));
     }
 
     @Test
     void shouldReturnEdgeAddedMessageDuringAddingEdgeWithTwoSameNodes() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        assertEquals("EDGE ADDED", messageProcessor.process("ADD EDGE phase2-node1 phase2-node1 5"));
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        assertEquals("EDGE ADDED", messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node1 5"));
     }
 
     @Test
     void shouldReturnNodeNotFoundMessage() {
-        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process("ADD EDGE phase2-node1 phase2-node2 12"), "ERROR: NODE NOT FOUND");
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node2 12"), "ERROR: NODE NOT FOUND");
     }
 
     @Test
     void shouldReturnNodeRemovedMessage() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        assertEquals("NODE REMOVED", messageProcessor.process("REMOVE NODE phase2-node1"));
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        assertEquals("NODE REMOVED", messageProcessor.process(session, "REMOVE NODE phase2-node1"));
     }
 
     @Test
     void shouldReturnNodeNotFoundMessageDuringRemoving() {
-        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process("REMOVE NODE phase2-node1"), "ERROR: NODE NOT FOUND");
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "REMOVE NODE phase2-node1"), "ERROR: NODE NOT FOUND");
     }
 
     @Test
     void shouldReturnEdgeRemovedMessage() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        messageProcessor.process("ADD NODE phase2-node2");
-        messageProcessor.process("ADD EDGE phase2-node1 phase2-node2 18");
-        assertEquals("EDGE REMOVED", messageProcessor.process("REMOVE EDGE phase2-node1 phase2-node2"));
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        messageProcessor.process(session, "ADD NODE phase2-node2");
+        messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node2 18");
+        assertEquals("EDGE REMOVED", messageProcessor.process(session, "REMOVE EDGE phase2-node1 phase2-node2"));
     }
 
     @Test
     void shouldThrowExceptionDuringCreatingEdgeWithNonPositiveWeight() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase2-node1");
-        messageProcessor.process("ADD NODE phase2-node2");
-        assertThrows(IllegalArgumentException.class, () -> messageProcessor.process("ADD EDGE phase2-node1 phase2-node2 0"), "Weight must be positive: 0");
-        assertThrows(MessageProcessingException.class, () -> messageProcessor.process("ADD EDGE phase2-node1 phase2-node2 -1"), "SORRY, I DID NOT UNDERSTAND THAT");
+        messageProcessor.process(session, "ADD NODE phase2-node1");
+        messageProcessor.process(session, "ADD NODE phase2-node2");
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node2 0"), "SORRY, I DID NOT UNDERSTAND THAT");
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "ADD EDGE phase2-node1 phase2-node2 -1"), "SORRY, I DID NOT UNDERSTAND THAT");
     }
 
     @Test
     void shouldReturnNodeNotFoundMessageDuringEdgeRemoving() {
-        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process("REMOVE EDGE phase2-node1 phase2-node2"), "ERROR: NODE NOT FOUND");
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "REMOVE EDGE phase2-node1 phase2-node2"), "ERROR: NODE NOT FOUND");
     }
 
     @Test
     void shouldCalculateTheShortestDistanceBetweenTwoExistingNodes() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase3-node1");
-        messageProcessor.process("ADD NODE phase3-node2");
-        messageProcessor.process("ADD NODE phase3-node3");
-        messageProcessor.process("ADD EDGE phase3-node1 phase3-node2 12");
-        messageProcessor.process("ADD EDGE phase3-node2 phase3-node3 4");
-        assertEquals("16", messageProcessor.process("SHORTEST PATH phase3-node1 phase3-node3"));
+        messageProcessor.process(session, "ADD NODE phase3-node1");
+        messageProcessor.process(session, "ADD NODE phase3-node2");
+        messageProcessor.process(session, "ADD NODE phase3-node3");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node2 12");
+        messageProcessor.process(session, "ADD EDGE phase3-node2 phase3-node3 4");
+        assertEquals("16", messageProcessor.process(session, "SHORTEST PATH phase3-node1 phase3-node3"));
     }
 
     @Test
     void shouldCalculateTheShortestDistanceBetweenNonExistingNodes() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase3-node1");
-        messageProcessor.process("ADD NODE phase3-node2");
-        messageProcessor.process("ADD EDGE phase3-node1 phase3-node2 12");
-        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process("SHORTEST PATH phase3-node1 phase3-node3"), "ERROR: NODE NOT FOUND");
+        messageProcessor.process(session, "ADD NODE phase3-node1");
+        messageProcessor.process(session, "ADD NODE phase3-node2");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node2 12");
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "SHORTEST PATH phase3-node1 phase3-node3"), "ERROR: NODE NOT FOUND");
     }
 
     @Test
     void shouldCalculateTheShortestDistanceBetweenNonConnectedNodes() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase3-node1");
-        messageProcessor.process("ADD NODE phase3-node2");
-        messageProcessor.process("ADD NODE phase3-node3");
-        messageProcessor.process("ADD EDGE phase3-node1 phase3-node2 12");
-        assertEquals(String.valueOf(Integer.MAX_VALUE), messageProcessor.process("SHORTEST PATH phase3-node1 phase3-node3"));
+        messageProcessor.process(session, "ADD NODE phase3-node1");
+        messageProcessor.process(session, "ADD NODE phase3-node2");
+        messageProcessor.process(session, "ADD NODE phase3-node3");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node2 12");
+        assertEquals(String.valueOf(Integer.MAX_VALUE), messageProcessor.process(session, "SHORTEST PATH phase3-node1 phase3-node3"));
     }
 
     @Test
     void shouldFindAllCloserNodesThan() throws MessageProcessingException {
-        messageProcessor.process("ADD NODE phase3-node1");
-        messageProcessor.process("ADD NODE phase3-node2");
-        messageProcessor.process("ADD NODE phase3-node3");
-        messageProcessor.process("ADD NODE phase3-node4");
-        messageProcessor.process("ADD EDGE phase3-node1 phase3-node3 10");
-        messageProcessor.process("ADD EDGE phase3-node1 phase3-node2 12");
-        messageProcessor.process("ADD EDGE phase3-node2 phase3-node4 15");
-        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process("CLOSER THAN 5 phase3-node5"), "ERROR: NODE NOT FOUND");
-        assertEquals("", messageProcessor.process("CLOSER THAN 0 phase3-node1"));
-        assertEquals("phase3-node3", messageProcessor.process("CLOSER THAN 11 phase3-node1"));
-        assertEquals("phase3-node2,phase3-node3", messageProcessor.process("CLOSER THAN 13 phase3-node1"));
-
-    }
-}
\ No newline at end of file
+        messageProcessor.process(session, "ADD NODE phase3-node1");
+        messageProcessor.process(session, "ADD NODE phase3-node2");
+        messageProcessor.process(session, "ADD NODE phase3-node3");
+        messageProcessor.process(session, "ADD NODE phase3-node4");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node3 10");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node2 12");
+        messageProcessor.process(session, "ADD EDGE phase3-node2 phase3-node4 15");
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "CLOSER THAN 5 phase3-node5"), "ERROR: NODE NOT FOUND");
+        assertEquals("", messageProcessor.process(session, "CLOSER THAN 0 phase3-node1"));
+        assertEquals("phase3-node3", messageProcessor.process(session, "CLOSER THAN 11 phase3-node1"));
+        assertEquals("phase3-node2,phase3-node3", messageProcessor.process(session, "CLOSER THAN 13 phase3-node1"));
+
+    }
+
+    @Test
+    void shouldCalculateDistancesFromOneSourceToManyTargets() throws MessageProcessingException {
+        messageProcessor.process(session, "ADD NODE phase3-node1");
+        messageProcessor.process(session, "ADD NODE phase3-node2");
+        messageProcessor.process(session, "ADD NODE phase3-node3");
+        messageProcessor.process(session, "ADD NODE phase3-node4");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node2 12");
+        messageProcessor.process(session, "ADD EDGE phase3-node2 phase3-node3 4");
+        messageProcessor.process(session, "ADD EDGE phase3-node1 phase3-node3 20");
+        assertEquals("16,12,0," + Integer.MAX_VALUE + ",16",
+                messageProcessor.process(session, "DISTANCES FROM phase3-node1 TO phase3-node3,phase3-node2,phase3-node1,phase3-node4,phase3-node3"));
+        assertEquals("phase3-node2:12,phase3-node3:16", messageProcessor.process(session, "DISTANCES FROM phase3-node1"));
+        assertEquals("", messageProcessor.process(session, "DISTANCES FROM phase3-node4"));
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "DISTANCES FROM phase3-node1 TO phase3-node2,phase3-node5"));
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "DISTANCES FROM phase3-node5 TO phase3-node2"));
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "DISTANCES FROM phase3-node5"));
+        assertThrows(UnsupportedCommandException.class, () -> messageProcessor.process(session, "DISTANCES FROM phase3-node1 phase3-node2"));
+        assertThrows(UnsupportedCommandException.class, () -> messageProcessor.process(session, "DISTANCES FROM phase3-node1 TO ,"));
+    }
+
+    @Test
+    void shouldApplyBatchAndAnswerEveryItemAtTheEnd() throws MessageProcessingException {
+        assertEquals("BATCH STARTED", messageProcessor.process(session, "BEGIN BATCH"));
+        assertNull(messageProcessor.process(session, "ADD NODE batch-node1"));
+        assertNull(messageProcessor.process(session, "ADD NODE batch-node2"));
+        assertNull(messageProcessor.process(session, "ADD NODE batch-node1"));
+        assertNull(messageProcessor.process(session, "ADD EDGE batch-node1 batch-node2 7"));
+        assertNull(messageProcessor.process(session, "SHORTEST PATH batch-node1 batch-node2"));
+        assertNull(messageProcessor.process(session, "REMOVE NODE batch-node3"));
+        assertEquals(String.join(System.lineSeparator(),
+                "NODE ADDED", "NODE ADDED", "ERROR: NODE ALREADY EXISTS", "EDGE ADDED",
+                "SORRY, I DID NOT UNDERSTAND THAT", "ERROR: NODE NOT FOUND", "BATCH APPLIED, 3 OF 6 SUCCEEDED"),
+                messageProcessor.process(session, "END BATCH"));
+        assertEquals("7", messageProcessor.process(session, "SHORTEST PATH batch-node1 batch-node2"));
+    }
+
+    @Test
+    void shouldApplyNothingWhenAnyItemOfAtomicBatchFails() throws MessageProcessingException {
+        messageProcessor.process(session, "BEGIN BATCH ATOMIC");
+        messageProcessor.process(session, "ADD NODE batch-node1");
+        messageProcessor.process(session, "REMOVE NODE batch-node1");
+        messageProcessor.process(session, "ADD EDGE batch-node1 batch-node1 1");
+        assertEquals(String.join(System.lineSeparator(),
+                "NODE ADDED", "NODE REMOVED", "ERROR: NODE NOT FOUND", "BATCH REJECTED, 1 OF 3 FAILED"),
+                messageProcessor.process(session, "END BATCH"));
+        assertThrows(NodeNotFoundException.class, () -> messageProcessor.process(session, "REMOVE NODE batch-node1"));
+
+        messageProcessor.process(session, "BEGIN BATCH ATOMIC");
+        messageProcessor.process(session, "ADD NODE batch-node1");
+        messageProcessor.process(session, "ADD EDGE batch-node1 batch-node1 1");
+        assertEquals(String.join(System.lineSeparator(), "NODE ADDED", "EDGE ADDED", "BATCH APPLIED, 2 OF 2 SUCCEEDED"),
+                messageProcessor.process(session, "END BATCH"));
+        assertEquals("NODE REMOVED", messageProcessor.process(session, "REMOVE NODE batch-node1"));
+    }
+
+    @Test
+    void shouldSayGoodbyeInsideBatchAndDiscardIt() throws MessageProcessingException {
+        messageProcessor.process(session, "HI, I AM John");
+        messageProcessor.process(session, "BEGIN BATCH");
+        assertNull(messageProcessor.process(session, "ADD NODE batch-node1"));
+        assertNull(messageProcessor.process(session, "BYE MATE! now"));
+        assertTrue(messageProcessor.process(session, "BYE MATE!").startsWith("BYE John, WE SPOKE FOR "));
+        assertThrows(UnsupportedCommandException.class, () -> messageProcessor.process(session, "END BATCH"));
+        assertFalse(DirectedGraph.getInstance().getSnapshot().containsNode(new Node("batch-node1")));
+    }
+
+    @Test
+    void shouldRejectBatchWithMoreItemsThanAllowed() throws MessageProcessingException {
+        System.setProperty(BeginBatchProcessor.MAX_ITEMS_PROPERTY, "2");
+        try {
+            messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+        } finally {
+            System.clearProperty(BeginBatchProcessor.MAX_ITEMS_PROPERTY);
+        }
+        messageProcessor.process(session, "BEGIN BATCH");
+        messageProcessor.process(session, "ADD NODE batch-node1");
+        messageProcessor.process(session, "ADD NODE batch-node2");
+        messageProcessor.process(session, "ADD NODE batch-node3");
+        assertThrows(BatchTooLargeException.class, () -> messageProcessor.process(session, "END BATCH"), "ERROR: BATCH TOO LARGE");
+        assertEquals(0, DirectedGraph.getInstance().getSnapshot().getNodeCount());
+
+        messageProcessor.process(session, "BEGIN BATCH");
+        messageProcessor.process(session, "ADD NODE batch-node1");
+        messageProcessor.process(session, "ADD NODE batch-node2");
+        assertEquals(String.join(System.lineSeparator(), "NODE ADDED", "NODE ADDED", "BATCH APPLIED, 2 OF 2 SUCCEEDED"),
+                messageProcessor.process(session, "END BATCH"));
+    }
+
+    @Test
+    void shouldRejectEndOfBatchWithoutBeginning() {
+        assertThrows(UnsupportedCommandException.class, () -> messageProcessor.process(session, "END BATCH"));
+    }
+}
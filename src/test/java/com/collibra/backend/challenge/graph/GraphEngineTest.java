@@ -0,0 +1,167 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Applies the same random mutations to an engine and to a brute force model and compares query answers
+ */
+class GraphEngineTest {
+
+    private static final int NODES = 40;
+    private static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldAnswerQueriesLikeBruteForceAfterRandomMutations(final GraphEngineType type) {
+        final GraphEngine engine = type.create();
+        final Model model = new Model();
+        final Random random = new Random(7);
+        for (int round = 0; round < 3_000; round++) {
+            final int source = random.nextInt(NODES);
+            final int target = random.nextInt(NODES);
+            final int operation = random.nextInt(20);
+            if (operation < 4) {
+                assertEquals(model.addNode(source), engine.addNode(node(source)));
+            } else if (operation < 12) {
+                final int weight = 1 + random.nextInt(30);
+                assertEquals(model.addEdge(source, target, weight), engine.addEdge(edge(source, target, weight)));
+            } else if (operation < 13) {
+                assertEquals(model.removeNode(source), engine.removeNode(node(source)));
+            } else if (operation < 15) {
+                assertEquals(model.removeEdge(source, target), engine.removeEdge(node(source), node(target)));
+            } else {
+                assertQueries(engine.snapshot(), model, source, target, random.nextInt(60));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldPublishBatchAsOneSnapshot(final GraphEngineType type) {
+        final GraphEngine engine = type.create();
+        engine.addNode(node(0));
+        engine.beginBatch();
+        engine.addNode(node(1));
+        engine.addEdge(edge(0, 1, 5));
+        final GraphSnapshot before = engine.snapshot();
+        engine.removeNode(node(0));
+        assertEquals(1, before.getNodeCount());
+        assertEquals(1, engine.snapshot().getNodeCount());
+        assertEquals(before.getVersion(), engine.snapshot().getVersion());
+        assertEquals(-1, engine.snapshot().idOf(node(1)));
+        engine.endBatch();
+        final GraphSnapshot after = engine.snapshot();
+        assertEquals(1, after.getNodeCount());
+        assertEquals(-1, after.idOf(node(0)));
+        assertEquals(0, after.findTheShortestPath(node(1), node(1)));
+        assertEquals(before.getVersion() + 3, after.getVersion());
+    }
+
+    private static void assertQueries(final GraphSnapshot snapshot, final Model model, final int source, final int target, final int limit) {
+        final long[] distances = model.distancesFrom(source);
+        final int expectedPath = !model.exists[source] || !model.exists[target] ? -1
+                : distances[target] >= UNREACHABLE ? Integer.MAX_VALUE : (int) distances[target];
+        assertEquals(expectedPath, snapshot.findTheShortestPath(node(source), node(target)));
+        if (expectedPath >= 0) {
+            final int sourceId = snapshot.idOf(node(source));
+            final int targetId = snapshot.idOf(node(target));
+            final long unidirectional = new SearchProbe(snapshot).unidirectional(sourceId, targetId);
+            assertEquals(expectedPath, (int) Math.min(unidirectional, Integer.MAX_VALUE));
+            final long guided = ShortestPaths.guidedDistance(snapshot, sourceId, targetId, LandmarkIndex.build(snapshot, 3));
+            assertEquals(expectedPath, (int) Math.min(guided, Integer.MAX_VALUE));
+        }
+        if (model.exists[source]) {
+            List<Node> expected = List.empty();
+            for (int i = 0; i < NODES; i++) {
+                if (i != source && model.exists[i] && distances[i] < limit) {
+                    expected = expected.append(node(i));
+                }
+            }
+            assertEquals(expected.sorted(), snapshot.findAllCloserNodesThan(node(source), limit).sorted());
+        }
+    }
+
+    private static Node node(final int id) {
+        return new Node("node-" + id);
+    }
+
+    private static Edge edge(final int source, final int target, final int weight) {
+        return Edge.builder().source(node(source)).target(node(target)).weight(weight).build();
+    }
+
+    private static final class Model {
+
+        private final boolean[] exists = new boolean[NODES];
+        private final long[][] weight = new long[NODES][NODES];
+
+        private Model() {
+            for (long[] row : weight) {
+                Arrays.fill(row, UNREACHABLE);
+            }
+        }
+
+        boolean addNode(final int node) {
+            if (exists[node]) {
+                return false;
+            }
+            exists[node] = true;
+            return true;
+        }
+
+        boolean addEdge(final int source, final int target, final int edgeWeight) {
+            if (!exists[source] || !exists[target]) {
+                return false;
+            }
+            if (source != target) {
+                weight[source][target] = Math.min(weight[source][target], edgeWeight);
+            }
+            return true;
+        }
+
+        boolean removeNode(final int node) {
+            if (!exists[node]) {
+                return false;
+            }
+            exists[node] = false;
+            for (int i = 0; i < NODES; i++) {
+                weight[node][i] = UNREACHABLE;
+                weight[i][node] = UNREACHABLE;
+            }
+            return true;
+        }
+
+        boolean removeEdge(final int source, final int target) {
+            if (!exists[source] || !exists[target]) {
+                return false;
+            }
+            weight[source][target] = UNREACHABLE;
+            return true;
+        }
+
+        /**
+         * Bellman-Ford over the weight matrix
+         */
+        long[] distancesFrom(final int source) {
+            final long[] distances = new long[NODES];
+            Arrays.fill(distances, UNREACHABLE);
+            distances[source] = 0;
+            for (int round = 0; round < NODES; round++) {
+                for (int from = 0; from < NODES; from++) {
+                    for (int to = 0; to < NODES; to++) {
+                        if (distances[from] + weight[from][to] < distances[to]) {
+                            distances[to] = distances[from] + weight[from][to];
+                        }
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.collibra.backend.challenge.graph;
+
+import com.collibra.backend.challenge.stats.ComponentStats;
+import com.collibra.backend.challenge.stats.ServerStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.reflect.Field;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphSnapshotTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+    private static final Node C = new Node("C");
+
+    private DirectedGraph graph;
+
+    private void setUp(final GraphEngineType engine) throws NoSuchFieldException, IllegalAccessException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        System.setProperty(DirectedGraph.ENGINE_PROPERTY, engine.name());
+        try {
+            graph = DirectedGraph.getInstance();
+        } finally {
+            System.clearProperty(DirectedGraph.ENGINE_PROPERTY);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldIncreaseVersionOnlyWhenGraphChanges(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        graph.addNode(A);
+        graph.addNode(B);
+        assertEquals(2, graph.getVersion());
+        graph.addNode(A);
+        graph.addEdge(edge(A, A, 1));
+        graph.removeEdge(A, B);
+        assertEquals(2, graph.getVersion());
+        graph.addEdge(edge(A, B, 1));
+        assertEquals(3, graph.getVersion());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldKeepOldSnapshotUnchangedAfterMutations(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addEdge(edge(A, B, 3));
+        graph.addEdge(edge(B, C, 4));
+        final GraphSnapshot before = graph.getSnapshot();
+
+        graph.removeNode(B);
+
+        assertEquals(7, before.findTheShortestPath(A, C));
+        assertTrue(before.containsNode(B));
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(A, C));
+        assertFalse(graph.getSnapshot().containsNode(B));
+        assertEquals(before.getVersion() + 1, graph.getVersion());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldUseLightestOfParallelEdges(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addEdge(edge(A, B, 9));
+        graph.addEdge(edge(A, B, 2));
+        graph.addEdge(edge(A, B, 5));
+        assertEquals(2, graph.findTheShortestPath(A, B));
+        assertEquals(0, graph.findTheShortestPath(A, A));
+        graph.removeEdge(A, B);
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(A, B));
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldKeepOneAdjacencyEntryPerPairButAllParallelEdgesInImage(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        for (int weight : new int[]{7, 4, 7, 9, 4, 7}) {
+            graph.addEdge(edge(A, B, weight));
+        }
+        graph.addEdge(edge(B, C, 1));
+        assertSingleEntries(graph.getSnapshot());
+        final GraphImage image = graph.getSnapshot().toImage();
+        assertEquals(4, image.getEdgeCount());
+        assertEquals(7, image.totalEdgeCount());
+
+        setUp(engine);
+        graph.load(image);
+        final GraphSnapshot loaded = graph.getSnapshot();
+        assertSingleEntries(loaded);
+        assertEquals(5, loaded.findTheShortestPath(A, C));
+        assertArrayEquals(new int[]{1, 4, 4, 7, 7, 7, 9}, expandedWeights(loaded.toImage()));
+
+        graph.removeEdge(A, B);
+        graph.addEdge(edge(A, B, 8));
+        assertEquals(2, graph.getSnapshot().toImage().getEdgeCount());
+        assertEquals(9, graph.findTheShortestPath(A, C));
+        graph.removeNode(B);
+        assertEquals(0, graph.getSnapshot().toImage().getEdgeCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldCollapseParallelEdgesOfLongListsOnLoad(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        final int targets = 2 * AdjacencyList.SCAN_LIMIT;
+        final Node[] nodes = new Node[targets + 1];
+        final int[] sources = new int[3 * targets];
+        final int[] edgeTargets = new int[3 * targets];
+        final int[] weights = new int[3 * targets];
+        nodes[0] = A;
+        for (int i = 0; i < 3 * targets; i++) {
+            nodes[1 + i % targets] = new Node("T" + i % targets);
+            edgeTargets[i] = 1 + i % targets;
+            weights[i] = 10 - i / targets;
+        }
+        graph.load(new GraphImage(nodes, 3 * targets, sources, edgeTargets, weights));
+
+        final GraphSnapshot snapshot = graph.getSnapshot();
+        final Adjacency adjacency = new Adjacency();
+        snapshot.outgoing(snapshot.idOf(A), adjacency);
+        assertEquals(targets, adjacency.to - adjacency.from);
+        assertEquals(8, snapshot.findTheShortestPath(A, nodes[targets]));
+        assertEquals(3 * targets, snapshot.toImage().getEdgeCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldCountParallelEdgesBeyondIntRangeInImage(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        final long many = 3L * Integer.MAX_VALUE;
+        graph.load(new GraphImage(new Node[]{A, B, C}, 4, new int[]{0, 0, 0, 1}, new int[]{1, 1, 1, 2},
+                new int[]{5, 3, 5, 1}, new long[]{many, 2, Long.MAX_VALUE, 1}));
+        assertEquals(4, graph.findTheShortestPath(A, C));
+
+        final GraphImage image = graph.getSnapshot().toImage();
+        assertEquals(3, image.getEdgeCount());
+        assertEquals(Long.MAX_VALUE, image.totalEdgeCount());
+        setUp(engine);
+        graph.load(image);
+        graph.addEdge(edge(A, B, 5));
+        final GraphImage reloaded = graph.getSnapshot().toImage();
+        assertEquals(image.getEdgeCount(), reloaded.getEdgeCount());
+        for (int i = 0; i < reloaded.getEdgeCount(); i++) {
+            final boolean lightest = reloaded.getWeights()[i] == 3;
+            final long expected = reloaded.getTargets()[i] == 2 ? 1 : lightest ? 2 : Long.MAX_VALUE;
+            assertEquals(expected, reloaded.count(i));
+        }
+    }
+
+    /**
+     * @return int[]    weights of all edges of the image, one per parallel edge, in ascending order
+     */
+    private static int[] expandedWeights(final GraphImage image) {
+        final IntStream.Builder weights = IntStream.builder();
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            for (long k = 0; k < image.count(i); k++) {
+                weights.add(image.getWeights()[i]);
+            }
+        }
+        return weights.build().sorted().toArray();
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldFindEntryOfPairInListsGrowingAndShrinkingAcrossScanLimit(final GraphEngineType engine)
+            throws ReflectiveOperationException {
+        setUp(engine);
+        final int degree = 2 * AdjacencyList.SCAN_LIMIT + 1;
+        final Node[] spokes = new Node[degree];
+        graph.addNode(A);
+        for (int i = 0; i < degree; i++) {
+            spokes[i] = new Node("S" + i);
+            graph.addNode(spokes[i]);
+            graph.addEdge(edge(A, spokes[i], 10));
+            graph.addEdge(edge(spokes[i], A, 10));
+        }
+        for (int i = 0; i < degree; i++) {
+            graph.addEdge(edge(A, spokes[i], 5));
+            graph.addEdge(edge(spokes[i], A, 5));
+        }
+        assertDegree(degree, degree);
+        // removals move the last entry into the hole and shrink the lists below the limit
+        for (int i = 0; i < degree; i += 3) {
+            graph.removeEdge(A, spokes[i]);
+            graph.removeNode(spokes[i + 1]);
+        }
+        for (int i = 0; i < degree; i++) {
+            final int expected = i % 3 == 0 ? Integer.MAX_VALUE : i % 3 == 1 ? -1 : 5;
+            assertEquals(expected, graph.findTheShortestPath(A, spokes[i]));
+        }
+        for (int i = 0; i < degree; i += 3) {
+            graph.addNode(spokes[i + 1]);
+            graph.addEdge(edge(A, spokes[i], 3));
+            graph.addEdge(edge(A, spokes[i + 1], 3));
+            graph.addEdge(edge(A, spokes[i + 1], 4));
+        }
+        assertDegree(degree, degree - (degree + 1) / 3);
+        for (int i = 0; i < degree; i++) {
+            assertEquals(i % 3 == 2 ? 5 : 3, graph.findTheShortestPath(A, spokes[i]));
+        }
+    }
+
+    private void assertDegree(final int outgoing, final int incoming) {
+        final GraphSnapshot snapshot = graph.getSnapshot();
+        final Adjacency adjacency = new Adjacency();
+        snapshot.outgoing(snapshot.idOf(A), adjacency);
+        assertEquals(outgoing, adjacency.to - adjacency.from);
+        snapshot.incoming(snapshot.idOf(A), adjacency);
+        assertEquals(incoming, adjacency.to - adjacency.from);
+    }
+
+    private void assertSingleEntries(final GraphSnapshot snapshot) {
+        final Adjacency adjacency = new Adjacency();
+        snapshot.outgoing(snapshot.idOf(A), adjacency);
+        assertEquals(1, adjacency.to - adjacency.from);
+        assertEquals(4, adjacency.weights[adjacency.from]);
+        snapshot.incoming(snapshot.idOf(B), adjacency);
+        assertEquals(1, adjacency.to - adjacency.from);
+        assertEquals(4, adjacency.weights[adjacency.from]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldRemoveIncomingAndOutgoingEdgesWithNode(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addEdge(edge(A, B, 1));
+        graph.addEdge(edge(B, C, 1));
+        graph.removeNode(B);
+        graph.addNode(B);
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(A, B));
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(B, C));
+        assertEquals(-1, graph.findTheShortestPath(A, new Node("D")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldFindNodesWithinRadiusThroughShorterDetours(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        final Node d = new Node("D");
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addNode(d);
+        graph.addEdge(edge(A, C, 20));
+        graph.addEdge(edge(A, B, 3));
+        graph.addEdge(edge(B, C, 4));
+        graph.addEdge(edge(C, d, 10));
+        graph.addEdge(edge(d, A, 1));
+        assertEquals(io.vavr.collection.List.empty(), graph.findAllCloserNodesThan(A, 3));
+        assertEquals(io.vavr.collection.List.of(B), graph.findAllCloserNodesThan(A, 4));
+        assertEquals(io.vavr.collection.List.of(B, C), graph.findAllCloserNodesThan(A, 17).sorted());
+        assertEquals(io.vavr.collection.List.of(B, C, d), graph.findAllCloserNodesThan(A, 18).sorted());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldFindDistancesToManyTargetsWithOneSearch(final GraphEngineType engine) throws ReflectiveOperationException {
+        setUp(engine);
+        final Node d = new Node("D");
+        final Node e = new Node("E");
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addNode(d);
+        graph.addNode(e);
+        graph.addEdge(edge(A, C, 20));
+        graph.addEdge(edge(A, B, 3));
+        graph.addEdge(edge(B, C, 4));
+        graph.addEdge(edge(C, d, 10));
+        graph.addEdge(edge(d, A, 1));
+        final GraphSnapshot snapshot = graph.getSnapshot();
+        final int[] targets = {snapshot.idOf(B), -1, snapshot.idOf(e)};
+        final SearchWorkspace forward = new SearchWorkspace();
+        final SearchWorkspace backward = new SearchWorkspace();
+        // the search stops once B is settled and E proved unreachable
+        assertArrayEquals(new long[]{3, Long.MAX_VALUE, Long.MAX_VALUE},
+                ShortestPaths.distancesTo(snapshot, snapshot.idOf(A), targets, Integer.MAX_VALUE, forward, backward));
+        assertEquals(4, forward.settled() + backward.settled());
+        // settling one node per target, the forward ball is A and B, a backward search from E finds nothing
+        assertArrayEquals(new long[]{3, Long.MAX_VALUE, Long.MAX_VALUE},
+                ShortestPaths.distancesTo(snapshot, snapshot.idOf(A), targets, 1, forward, backward));
+        assertEquals(3, forward.settled() + backward.settled());
+        // the forward ball is A alone, the backward search from D meets it at B reached from A
+        assertArrayEquals(new long[]{17}, ShortestPaths.distancesTo(snapshot, snapshot.idOf(A), new int[]{snapshot.idOf(d)}, 1, forward, backward));
+        assertEquals(4, forward.settled() + backward.settled());
+        assertArrayEquals(new int[]{17, 7, Integer.MAX_VALUE, 0, -1, 7},
+                graph.findDistances(A, io.vavr.collection.List.of(d, C, e, A, new Node("F"), C)));
+        assertArrayEquals(new int[]{-1, -1}, graph.findDistances(new Node("F"), io.vavr.collection.List.of(A, B)));
+        assertEquals(io.vavr.collection.HashMap.of(B, 3, C, 7, d, 17), graph.findAllDistances(A));
+        assertEquals(io.vavr.collection.HashMap.empty(), graph.findAllDistances(e));
+        for (Node source : io.vavr.collection.List.of(A, B, C, d, e)) {
+            for (Node target : io.vavr.collection.List.of(A, B, C, d, e)) {
+                assertEquals(graph.findTheShortestPath(source, target), graph.findDistances(source, io.vavr.collection.List.of(target))[0]);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldAttachLandmarkIndexToLatestSnapshotInBackground(final GraphEngineType engine) throws ReflectiveOperationException, InterruptedException {
+        System.setProperty(DirectedGraph.LANDMARKS_PROPERTY, "2");
+        System.setProperty(DirectedGraph.LANDMARKS_REBUILD_DELAY_PROPERTY, "0");
+        try {
+            setUp(engine);
+        } finally {
+            System.clearProperty(DirectedGraph.LANDMARKS_PROPERTY);
+            System.clearProperty(DirectedGraph.LANDMARKS_REBUILD_DELAY_PROPERTY);
+        }
+        final Node d = new Node("D");
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addNode(d);
+        graph.addEdge(edge(A, B, 3));
+        graph.addEdge(edge(B, C, 4));
+        graph.addEdge(edge(A, C, 9));
+        final GraphSnapshot snapshot = graph.getSnapshot();
+        for (int attempt = 0; attempt < 500 && snapshot.landmarks() == null; attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(snapshot.getVersion(), snapshot.landmarks().getVersion());
+        assertEquals(7, snapshot.findTheShortestPath(A, C));
+        assertEquals(Integer.MAX_VALUE, snapshot.findTheShortestPath(C, A));
+        assertEquals(Integer.MAX_VALUE, snapshot.findTheShortestPath(A, d));
+        graph.removeEdge(B, C);
+        assertEquals(9, graph.findTheShortestPath(A, C));
+    }
+
+    @Test
+    void shouldRebuildLandmarkIndexOnlyAfterQuietPeriod() throws ReflectiveOperationException, InterruptedException {
+        System.setProperty(DirectedGraph.LANDMARKS_PROPERTY, "2");
+        System.setProperty(DirectedGraph.LANDMARKS_REBUILD_DELAY_PROPERTY, "1000");
+        try {
+            setUp(GraphEngineType.PERSISTENT);
+        } finally {
+            System.clearProperty(DirectedGraph.LANDMARKS_PROPERTY);
+            System.clearProperty(DirectedGraph.LANDMARKS_REBUILD_DELAY_PROPERTY);
+        }
+        // mutations keep coming for longer than the delay, each one pushes the rebuild back
+        for (int i = 0; i < 30; i++) {
+            graph.addNode(new Node("N" + i));
+            Thread.sleep(50);
+            assertNull(graph.getSnapshot().landmarks());
+        }
+        final GraphSnapshot snapshot = graph.getSnapshot();
+        for (int attempt = 0; attempt < 500 && snapshot.landmarks() == null; attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(snapshot.getVersion(), snapshot.landmarks().getVersion());
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldAnswerSeparatedNodesFromComponentIndex(final GraphEngineType engine) throws ReflectiveOperationException, InterruptedException {
+        System.setProperty(DirectedGraph.COMPONENTS_REBUILD_REMOVALS_PROPERTY, "1");
+        try {
+            setUp(engine);
+        } finally {
+            System.clearProperty(DirectedGraph.COMPONENTS_REBUILD_REMOVALS_PROPERTY);
+        }
+        final ComponentStats stats = ServerStats.getInstance().getComponents();
+        final long checks = stats.getChecks().sum();
+        final long shortCircuits = stats.getShortCircuits().sum();
+        final long rebuilds = stats.getRebuilds().sum();
+        graph.addNode(A);
+        graph.addNode(B);
+        graph.addNode(C);
+        graph.addEdge(edge(A, B, 3));
+
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(A, C));
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(C, B));
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(B, A));
+        assertEquals(checks + 3, stats.getChecks().sum());
+        assertEquals(shortCircuits + 2, stats.getShortCircuits().sum());
+
+        graph.addEdge(edge(C, A, 2));
+        assertEquals(5, graph.findTheShortestPath(C, B));
+        // the index was built from the empty graph, after a single removal the next search starts a rebuild
+        graph.removeEdge(C, A);
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(C, B));
+        assertEquals(shortCircuits + 2, stats.getShortCircuits().sum());
+        for (int attempt = 0; attempt < 500 && stats.getShortCircuits().sum() == shortCircuits + 2; attempt++) {
+            Thread.sleep(10);
+            assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(C, B));
+        }
+        assertEquals(shortCircuits + 3, stats.getShortCircuits().sum());
+        assertTrue(stats.getRebuilds().sum() > rebuilds);
+        graph.addEdge(edge(B, C, 4));
+        assertEquals(7, graph.findTheShortestPath(A, C));
+
+        final GraphImage image = graph.getSnapshot().toImage();
+        setUp(engine);
+        graph.addNode(C);
+        graph.replace(image);
+        assertEquals(7, graph.findTheShortestPath(A, C));
+        graph.removeEdge(A, B);
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(A, C));
+        assertEquals(shortCircuits + 3, stats.getShortCircuits().sum());
+        assertEquals(-1, graph.findTheShortestPath(A, new Node("D")));
+    }
+
+    private static Edge edge(final Node source, final Node target, final int weight) {
+        return Edge.builder().source(source).target(target).weight(weight).build();
+    }
+}
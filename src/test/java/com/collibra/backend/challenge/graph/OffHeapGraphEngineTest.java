@@ -0,0 +1,142 @@
+package com.collibra.backend.challenge.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapGraphEngineTest {
+
+    private static final int SLAB_BYTES = 1 << 16;
+    private static final int NODES = 200;
+
+    @Test
+    void shouldKeepOldSnapshotIntactWhileBlocksAreReplacedAndReused() {
+        final OffHeapGraphEngine engine = new OffHeapGraphEngine(SLAB_BYTES, null);
+        final Random random = new Random(11);
+        for (int i = 0; i < NODES; i++) {
+            engine.addNode(node(i));
+        }
+        for (int i = 0; i < 4 * NODES; i++) {
+            engine.addEdge(edge(random.nextInt(NODES), random.nextInt(NODES), 10 + random.nextInt(90)));
+        }
+        final GraphSnapshot old = engine.snapshot();
+        final List<String> expected = edges(old.toImage());
+        for (int round = 0; round < 5_000; round++) {
+            final int source = random.nextInt(NODES);
+            final int target = random.nextInt(NODES);
+            final int operation = random.nextInt(10);
+            if (operation < 5) {
+                engine.addEdge(edge(source, target, 1 + random.nextInt(100)));
+            } else if (operation < 7) {
+                engine.removeEdge(node(source), node(target));
+            } else if (operation < 8) {
+                engine.removeNode(node(source));
+                engine.addNode(new Node("other-" + round));
+            } else {
+                engine.snapshot().findTheShortestPath(node(source), node(target));
+            }
+            if (round % 1_000 == 0) {
+                System.gc();
+            }
+        }
+        assertEquals(expected, edges(old.toImage()));
+    }
+
+    @Test
+    void shouldReuseSpaceOfRemovedNodes() throws InterruptedException {
+        final OffHeapGraphEngine engine = new OffHeapGraphEngine(SLAB_BYTES, null);
+        long reserved = 0;
+        for (int cycle = 0; cycle < 10; cycle++) {
+            for (int i = 0; i < NODES; i++) {
+                engine.addNode(node(i));
+            }
+            for (int i = 0; i < NODES; i++) {
+                engine.addEdge(edge(i, (i + 1) % NODES, 1));
+                engine.addEdge(edge(i, (i + 7) % NODES, 2));
+                engine.snapshot();
+            }
+            for (int i = 0; i < NODES; i++) {
+                engine.removeNode(node(i));
+                engine.snapshot();
+            }
+            awaitReclaimed(engine);
+            if (cycle == 0) {
+                reserved = engine.reservedBytes();
+            }
+        }
+        assertEquals(0, engine.usedBytes());
+        // without reuse every cycle would add as much as the first, snapshots collected later may add some
+        assertTrue(engine.reservedBytes() <= 2 * reserved, engine.reservedBytes() + " > 2 * " + reserved);
+    }
+
+    @Test
+    void shouldSplitFreedLargeBlocksForSmallerOnes() {
+        final SlabAllocator allocator = new SlabAllocator(SLAB_BYTES, null);
+        final List<Long> large = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            large.add(allocator.allocate(SLAB_BYTES));
+        }
+        large.forEach(allocator::free);
+        final long reserved = allocator.getReservedBytes();
+        final List<Long> small = new ArrayList<>();
+        for (int i = 0; i < 8 * SLAB_BYTES / 64; i++) {
+            small.add(allocator.allocate(64));
+        }
+        // every small block was cut out of the freed large ones, none needed a new slab
+        assertEquals(reserved, allocator.getReservedBytes());
+        assertEquals(8L * SLAB_BYTES, allocator.getUsedBytes());
+        assertEquals(small.size(), small.stream().distinct().count());
+        small.forEach(allocator::free);
+        assertEquals(0, allocator.getUsedBytes());
+    }
+
+    @Test
+    void shouldMapSlabsFromFilesInDirectory(@TempDir final Path directory) {
+        final OffHeapGraphEngine engine = new OffHeapGraphEngine(SLAB_BYTES, directory);
+        engine.load(new GraphImage(new Node[]{node(0), node(1), node(2)}, 4,
+                new int[]{0, 1, 0, 0}, new int[]{1, 2, 2, 2}, new int[]{3, 4, 9, 8}));
+        engine.addNode(new Node("été 日本"));
+        engine.addEdge(edge(2, 0, 1));
+        final GraphSnapshot snapshot = engine.snapshot();
+        assertEquals(4, snapshot.getNodeCount());
+        assertEquals(7, snapshot.findTheShortestPath(node(0), node(2)));
+        assertEquals(1, snapshot.findTheShortestPath(node(2), node(0)));
+        assertTrue(snapshot.containsNode(new Node("été 日本")));
+        assertEquals(new Node("été 日本"), snapshot.nodeAt(snapshot.idOf(new Node("été 日本"))));
+        assertTrue(engine.reservedBytes() > 0);
+    }
+
+    private static void awaitReclaimed(final OffHeapGraphEngine engine) throws InterruptedException {
+        engine.addNode(node(-1));
+        engine.removeNode(node(-1));
+        for (int attempt = 0; attempt < 50 && engine.usedBytes() > 0; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> edges(final GraphImage image) {
+        final List<String> edges = new ArrayList<>();
+        for (int i = 0; i < image.getEdgeCount(); i++) {
+            edges.add(image.getNodes()[image.getSources()[i]].getName() + "->"
+                    + image.getNodes()[image.getTargets()[i]].getName() + ":" + image.getWeights()[i] + "x" + image.count(i));
+        }
+        edges.sort(null);
+        return edges;
+    }
+
+    private static Node node(final int id) {
+        return new Node("node-" + id);
+    }
+
+    private static Edge edge(final int source, final int target, final int weight) {
+        return Edge.builder().source(node(source)).target(node(target)).weight(weight).build();
+    }
+}
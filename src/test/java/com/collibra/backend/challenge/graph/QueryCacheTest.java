@@ -0,0 +1,58 @@
+package com.collibra.backend.challenge.graph;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryCacheTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+
+    private final PersistentGraphEngine engine = new PersistentGraphEngine();
+    private QueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new QueryCache(1024 * 1024);
+        engine.addNode(A);
+        engine.addNode(B);
+        engine.addEdge(Edge.builder().source(A).target(B).weight(3).build());
+    }
+
+    @Test
+    void shouldAnswerRepeatedQueriesFromCache() {
+        assertEquals(3, cache.findTheShortestPath(engine.snapshot(), A, B));
+        assertEquals(3, cache.findTheShortestPath(engine.snapshot(), A, B));
+        assertEquals(List.of(B), cache.findAllCloserNodesThan(engine.snapshot(), A, 4));
+        assertEquals(List.of(B), cache.findAllCloserNodesThan(engine.snapshot(), A, 4));
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    void shouldNotReturnAnswersOfPreviousVersion() {
+        assertEquals(3, cache.findTheShortestPath(engine.snapshot(), A, B));
+        engine.removeEdge(A, B);
+        assertEquals(Integer.MAX_VALUE, cache.findTheShortestPath(engine.snapshot(), A, B));
+        assertEquals(List.empty(), cache.findAllCloserNodesThan(engine.snapshot(), A, 4));
+        assertEquals(0, cache.stats().hitCount());
+    }
+
+    @Test
+    void shouldNotCacheFailedQueries() {
+        assertThrows(IllegalArgumentException.class, () -> cache.findAllCloserNodesThan(engine.snapshot(), new Node("C"), 4));
+        assertEquals(0, cache.stats().loadCount());
+    }
+
+    @Test
+    void shouldEvictEntriesAboveMemoryLimit() {
+        cache = new QueryCache(0);
+        cache.findTheShortestPath(engine.snapshot(), A, B);
+        cache.findTheShortestPath(engine.snapshot(), A, B);
+        assertEquals(0, cache.stats().hitCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.collibra.backend.challenge.graph;
+
+/**
+ * Point to point searches over one snapshot for tests and benchmarks outside the graph package, in workspaces of its
+ * own which tell the nodes the last search settled. Also holds the plain one directional Dijkstra, the reference
+ * the bidirectional search and A* are compared against.
+ */
+public final class SearchProbe {
+
+    private final GraphSnapshot snapshot;
+    private final SearchWorkspace forward = new SearchWorkspace();
+    private final SearchWorkspace backward = new SearchWorkspace();
+    private LandmarkIndex landmarks;
+
+    public SearchProbe(final GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @return int  upper bound (exclusive) of node ids of the snapshot
+     */
+    public int idBound() {
+        return snapshot.idBound();
+    }
+
+    /**
+     * Build the landmark index {@link #landmarks} searches with
+     *
+     * @return int  number of landmarks, fewer than requested if the snapshot has fewer nodes
+     */
+    public int buildLandmarks(final int count) {
+        landmarks = LandmarkIndex.build(snapshot, count);
+        return landmarks.getLandmarkCount();
+    }
+
+    /**
+     * @return long  bytes the landmark index takes per landmark
+     */
+    public long bytesPerLandmark() {
+        return landmarks.getBytesPerLandmark();
+    }
+
+    /**
+     * @return int  nodes settled by the last search, both directions together
+     */
+    public int settled() {
+        return forward.settled() + backward.settled();
+    }
+
+    /**
+     * @return long  length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    public long bidirectional(final int source, final int target) {
+        return ShortestPaths.distance(snapshot, source, target, forward, backward);
+    }
+
+    /**
+     * @return long  length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    public long landmarks(final int source, final int target) {
+        return ShortestPaths.guidedDistance(snapshot, source, target, landmarks, forward, backward);
+    }
+
+    /**
+     * Plain one directional Dijkstra
+     *
+     * @return long  length of the shortest path, {@code Long.MAX_VALUE} if target is not reachable
+     */
+    public long unidirectional(final int source, final int target) {
+        forward.reset(snapshot.idBound());
+        backward.reset(0);
+        forward.offer(source, 0);
+        final Adjacency adjacency = forward.adjacency;
+        while (!forward.isEmpty()) {
+            final int current = forward.poll();
+            final long currentDistance = forward.distance(current);
+            if (current == target) {
+                return currentDistance;
+            }
+            snapshot.outgoing(current, adjacency);
+            for (int i = adjacency.from; i < adjacency.to; i++) {
+                forward.offer(adjacency.nodes[i], currentDistance + adjacency.weights[i]);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
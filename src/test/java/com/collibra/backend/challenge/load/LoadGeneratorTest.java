@@ -0,0 +1,145 @@
+package com.collibra.backend.challenge.load;
+
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.server.MultiClientSocketServer;
+import com.collibra.backend.challenge.server.ServerConfiguration;
+import com.collibra.backend.challenge.server.trace.TraceOutcome;
+import com.collibra.backend.challenge.server.trace.TraceRecorder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    private static int port;
+
+    /**
+     * One server for all tests, it accepts until the JVM ends
+     */
+    @BeforeAll
+    static void startServer() throws IOException, InterruptedException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        final ServerConfiguration configuration = ServerConfiguration.builder()
+                .port(port)
+                .build();
+        final Thread server = new Thread(() -> new MultiClientSocketServer(configuration).start(), "test-server");
+        server.setDaemon(true);
+        server.start();
+        while (true) {
+            try (Socket ignored = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                return;
+            } catch (ConnectException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void shouldSendGeneratedMixAtTargetRate() throws Exception {
+        final LoadConfiguration configuration = configuration()
+                .sessions(2)
+                .rate(100)
+                .durationInSeconds(2)
+                .warmupInSeconds(0)
+                .build();
+        final ByteArrayOutputStream report = new ByteArrayOutputStream();
+        final LoadStats stats = new LoadGenerator(configuration, new PrintStream(report, true, StandardCharsets.UTF_8.name())).run();
+
+        assertEquals(0, stats.getFailedSessions());
+        // 200 lines of the mix plus greeting and goodbye of both sessions
+        assertTrue(stats.getAnswerCount() >= 196 && stats.getAnswerCount() <= 204, "Answers: " + stats.getAnswerCount());
+        final String text = report.toString(StandardCharsets.UTF_8.name());
+        assertTrue(text.contains("Set up 20 nodes and 40 edges"), text);
+        assertTrue(text.contains("0 failed sessions"), text);
+        assertTrue(text.contains("SHORTEST_PATH"), text);
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void shouldReplaySessionsOfTrace() throws Exception {
+        final Path trace = directory.resolve("trace.bin");
+        final TraceRecorder recorder = new TraceRecorder(trace, 1, 64, 4);
+        recorder.setEnabled(true);
+        final CoreMessageProcessor processor = new CoreMessageProcessor(DirectedGraph.getInstance());
+        final Session session = Session.start();
+        for (String message : new String[]{"HI, I AM recorded", "ADD NODE A", "BEGIN BATCH", "ADD NODE B",
+                "ADD EDGE A B 1", "END BATCH", "SHORTEST PATH A B", "BYE MATE!"}) {
+            record(recorder, processor, session, message);
+        }
+        // a session whose greeting was not traced
+        record(recorder, processor, Session.start(), "CLOSER THAN 5 A");
+        recorder.close();
+
+        final LoadConfiguration configuration = configuration()
+                .warmupInSeconds(0)
+                .replayFile(trace.toString())
+                .replaySpeed(10)
+                .build();
+        final ByteArrayOutputStream report = new ByteArrayOutputStream();
+        final LoadStats stats = new LoadGenerator(configuration, new PrintStream(report, true, StandardCharsets.UTF_8.name())).run();
+
+        assertEquals(0, stats.getFailedSessions());
+        // all eight lines of the first session, the added greeting and the line of the second
+        assertEquals(10, stats.getAnswerCount());
+        assertTrue(report.toString(StandardCharsets.UTF_8.name()).contains("Replaying 2 sessions"));
+    }
+
+    @Test
+    void shouldParseMix() {
+        final Map<CommandType, Integer> mix = LoadConfiguration.parseMix("shortest_path=3, ADD_NODE=1");
+        assertEquals(2, mix.size());
+        assertEquals(3, mix.get(CommandType.SHORTEST_PATH));
+        assertEquals(1, mix.get(CommandType.ADD_NODE));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfiguration.parseMix("BEGIN_BATCH=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfiguration.parseMix("ADD_NODE=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfiguration.parseMix("ADD_NODE"));
+    }
+
+    private LoadConfiguration.LoadConfigurationBuilder configuration() {
+        return LoadConfiguration.builder()
+                .host(InetAddress.getLoopbackAddress().getHostAddress())
+                .port(port)
+                .nodes(20)
+                .setupEdges(2);
+    }
+
+    private static void record(final TraceRecorder recorder, final CoreMessageProcessor processor, final Session session,
+                               final String message) throws InterruptedException {
+        final long start = System.nanoTime();
+        TraceOutcome outcome;
+        try {
+            outcome = processor.process(session, message) == null ? TraceOutcome.QUEUED : TraceOutcome.ANSWERED;
+        } catch (MessageProcessingException e) {
+            outcome = TraceOutcome.of(e);
+        }
+        recorder.record(session, start, outcome);
+        Thread.sleep(5);
+    }
+}
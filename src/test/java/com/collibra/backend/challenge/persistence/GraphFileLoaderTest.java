@@ -0,0 +1,170 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.GraphImage;
+import com.collibra.backend.challenge.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GraphFileLoaderTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+    private static final Node C = new Node("C");
+
+    @TempDir
+    Path directory;
+
+    private final GraphFileLoader loader = new GraphFileLoader(2);
+    private DirectedGraph graph;
+
+    private void setUp(final GraphEngineType engine) throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        System.setProperty(DirectedGraph.ENGINE_PROPERTY, engine.name());
+        try {
+            graph = DirectedGraph.getInstance();
+        } finally {
+            System.clearProperty(DirectedGraph.ENGINE_PROPERTY);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldLoadTextFileIntoEmptyGraph(final GraphEngineType engine) throws Exception {
+        setUp(engine);
+        final Path file = Files.write(directory.resolve("graph.txt"),
+                "A\nA B 5\r\n\n  B\tC 2\nC C 1\nD\nA C 9".getBytes(StandardCharsets.UTF_8));
+        loader.load(file, graph);
+        assertEquals(4, graph.getSnapshot().getNodeCount());
+        assertEquals(7, graph.findTheShortestPath(A, C));
+        assertEquals(Integer.MAX_VALUE, graph.findTheShortestPath(C, A));
+        assertEquals(-1, graph.findTheShortestPath(A, new Node("E")));
+        graph.addEdge(Edge.builder().source(C).target(A).weight(1).build());
+        assertEquals(1, graph.findTheShortestPath(C, A));
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldLoadBinaryFileWrittenFromImage(final GraphEngineType engine) throws Exception {
+        setUp(engine);
+        final Path file = directory.resolve("graph.bin");
+        GraphFileFormat.BINARY.write(new GraphImage(new Node[]{A, B, C}, 2, new int[]{0, 1}, new int[]{1, 2}, new int[]{3, 4}), file);
+        loader.load(file, graph);
+        assertEquals(3, graph.getSnapshot().getNodeCount());
+        assertEquals(7, graph.findTheShortestPath(A, C));
+    }
+
+    @Test
+    void shouldReadCountsOfParallelEdgesFromBinaryFile() throws IOException {
+        final Path file = directory.resolve("counted.bin");
+        GraphFileFormat.BINARY.write(new GraphImage(new Node[]{A, B, C}, 3, new int[]{0, 0, 1}, new int[]{1, 1, 2},
+                new int[]{3, 5, 4}, new long[]{2, 5L * Integer.MAX_VALUE, 1}), file);
+        final GraphImage image = loader.read(file);
+        assertEquals(3, image.getEdgeCount());
+        assertEquals(2, image.count(0));
+        assertEquals(5L * Integer.MAX_VALUE, image.count(1));
+        assertEquals(1, image.count(2));
+        assertEquals(5L * Integer.MAX_VALUE + 3, image.totalEdgeCount());
+    }
+
+    @Test
+    void shouldReadSameImageFromAnyNumberOfChunks() throws IOException {
+        final Path file = directory.resolve("random.txt");
+        GraphFileFormat.TEXT.write(randomImage(), file);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (FileChannel channel = FileChannel.open(file)) {
+            final GraphImage expected = TextGraphFile.readChunks(channel, executor, 1);
+            for (int chunkCount : new int[]{2, 7, 64, 1000}) {
+                final GraphImage image = TextGraphFile.readChunks(channel, executor, chunkCount);
+                assertArrayEquals(expected.getNodes(), image.getNodes());
+                assertEquals(expected.getEdgeCount(), image.getEdgeCount());
+                assertArrayEquals(expected.getSources(), image.getSources());
+                assertArrayEquals(expected.getTargets(), image.getTargets());
+                assertArrayEquals(expected.getWeights(), image.getWeights());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldReadWhatWasWrittenInBothFormats() throws IOException {
+        final GraphImage image = randomImage();
+        for (GraphFileFormat format : GraphFileFormat.values()) {
+            final Path file = directory.resolve(format.name());
+            format.write(image, file);
+            final GraphImage read = loader.read(file);
+            assertEquals(image.getEdgeCount(), read.getEdgeCount());
+            for (int i = 0; i < image.getEdgeCount(); i++) {
+                assertEquals(image.getNodes()[image.getSources()[i]], read.getNodes()[read.getSources()[i]]);
+                assertEquals(image.getNodes()[image.getTargets()[i]], read.getNodes()[read.getTargets()[i]]);
+                assertEquals(image.getWeights()[i], read.getWeights()[i]);
+            }
+        }
+    }
+
+    @Test
+    void shouldIgnoreCommentLines() throws IOException {
+        final Path file = Files.write(directory.resolve("comments.txt"),
+                "# nodes and edges\nA B 5\n  \t# A C 1 is not an edge\n#\nB C 2\n#C".getBytes(StandardCharsets.UTF_8));
+        final GraphImage image = loader.read(file);
+        assertArrayEquals(new Node[]{A, B, C}, image.getNodes());
+        assertEquals(2, image.getEdgeCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> loader.read(Files.write(directory.resolve("malformed.txt"), "A B 5 # weight\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void shouldRejectMalformedLines() throws IOException {
+        for (String content : new String[]{"A B\n", "A B 0\n", "A B -1\n", "A B x\n", "A B 2147483648\n", "A B 1 2\n"}) {
+            final Path file = Files.write(directory.resolve("malformed.txt"), content.getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> loader.read(file), content);
+        }
+    }
+
+    @Test
+    void shouldRejectLoadIntoNonEmptyGraph() throws Exception {
+        setUp(GraphEngineType.PERSISTENT);
+        graph.addNode(A);
+        final Path file = Files.write(directory.resolve("graph.txt"), "B\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, () -> loader.load(file, graph));
+    }
+
+    private static GraphImage randomImage() {
+        final Random random = new Random(42);
+        final Node[] nodes = new Node[500];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node("node-" + i);
+        }
+        final int edgeCount = 5_000;
+        final int[] sources = new int[edgeCount];
+        final int[] targets = new int[edgeCount];
+        final int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sources[i] = random.nextInt(nodes.length);
+            targets[i] = random.nextInt(nodes.length);
+            weights[i] = 1 + random.nextInt(100);
+        }
+        return new GraphImage(nodes, edgeCount, sources, targets, weights);
+    }
+}
@@ -0,0 +1,147 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphMutation;
+import com.collibra.backend.challenge.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MutationLogTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+    private static final Node C = new Node("C");
+
+    @TempDir
+    Path directory;
+
+    private static DirectedGraph freshGraph() throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        return DirectedGraph.getInstance();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    void shouldRestoreGraphFromLog(final Durability durability) throws Exception {
+        final Path file = directory.resolve("graph.log");
+        DirectedGraph graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, durability, 10)) {
+            assertEquals(0, mutationLog.recover(graph));
+            graph.addNode(A);
+            graph.addNode(B);
+            graph.addNode(C);
+            graph.addNode(C);
+            graph.addEdge(edge(A, B, 5));
+            graph.addEdge(edge(B, C, 2));
+            graph.addEdge(edge(A, C, 9));
+            graph.removeEdge(A, C);
+            graph.addEdge(edge(C, A, 1));
+            graph.removeNode(C);
+        }
+        graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, durability, 10)) {
+            assertEquals(9, mutationLog.recover(graph));
+            assertEquals(2, graph.getSnapshot().getNodeCount());
+            assertEquals(5, graph.findTheShortestPath(A, B));
+            assertFalse(graph.getSnapshot().containsNode(C));
+            graph.addNode(C);
+        }
+        graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, durability, 10)) {
+            assertEquals(10, mutationLog.recover(graph));
+            assertEquals(3, graph.getSnapshot().getNodeCount());
+        }
+    }
+
+    @Test
+    void shouldCutOffTornRecordAtTheEnd() throws Exception {
+        final Path file = directory.resolve("graph.log");
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            mutationLog.recover(freshGraph());
+            mutationLog.append(GraphMutation.addNode(A));
+            mutationLog.append(GraphMutation.addNode(B));
+            mutationLog.awaitDurable(2);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        DirectedGraph graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(1, mutationLog.recover(graph));
+            graph.addNode(C);
+        }
+        graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(2, mutationLog.recover(graph));
+            assertEquals(Arrays.asList(true, false, true), Arrays.asList(graph.getSnapshot().containsNode(A),
+                    graph.getSnapshot().containsNode(B), graph.getSnapshot().containsNode(C)));
+        }
+    }
+
+    @Test
+    void shouldLogMutationsOfConcurrentSessions() throws Exception {
+        final Path file = directory.resolve("graph.log");
+        final DirectedGraph graph = freshGraph();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            mutationLog.recover(graph);
+            final List<Future<?>> sessions = new ArrayList<>();
+            for (int session = 0; session < 8; session++) {
+                final int prefix = session;
+                sessions.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        graph.addNode(new Node(prefix + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(800, mutationLog.recover(freshGraph()));
+        }
+        assertEquals(800, DirectedGraph.getInstance().getSnapshot().getNodeCount());
+    }
+
+    @Test
+    void shouldLogOnlyAppliedMutationsOfBatch() throws Exception {
+        final Path file = directory.resolve("graph.log");
+        final DirectedGraph graph = freshGraph();
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            mutationLog.recover(graph);
+            graph.applyBatch(Arrays.asList(GraphMutation.addNode(A), GraphMutation.addNode(A), GraphMutation.addNode(B)), false);
+            graph.applyBatch(Arrays.asList(GraphMutation.addNode(C), GraphMutation.addNode(A)), true);
+        }
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(2, mutationLog.recover(freshGraph()));
+        }
+        assertEquals(2 * (Integer.BYTES + 1 + Integer.BYTES + 1 + Integer.BYTES), Files.size(file));
+    }
+
+    private static Edge edge(final Node source, final Node target, final int weight) {
+        return Edge.builder().source(source).target(target).weight(weight).build();
+    }
+}
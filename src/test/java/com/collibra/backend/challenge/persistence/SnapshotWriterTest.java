@@ -0,0 +1,123 @@
+package com.collibra.backend.challenge.persistence;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphEngineType;
+import com.collibra.backend.challenge.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotWriterTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+    private static final Node C = new Node("C");
+    private static final Node D = new Node("D");
+
+    @TempDir
+    Path directory;
+
+    private static DirectedGraph freshGraph(final GraphEngineType engine) throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        System.setProperty(DirectedGraph.ENGINE_PROPERTY, engine.name());
+        try {
+            return DirectedGraph.getInstance();
+        } finally {
+            System.clearProperty(DirectedGraph.ENGINE_PROPERTY);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GraphEngineType.class)
+    void shouldRestoreSnapshotAndReplayLogWrittenAfterIt(final GraphEngineType engine) throws Exception {
+        final Path file = directory.resolve("graph.log");
+        final DirectedGraph graph = freshGraph(engine);
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            mutationLog.recover(graph);
+            final SnapshotWriter snapshotWriter = new SnapshotWriter(file, mutationLog, graph, 0);
+            graph.addNode(A);
+            graph.addNode(B);
+            graph.addNode(C);
+            graph.addNode(D);
+            graph.addEdge(edge(A, B, 5));
+            graph.addEdge(edge(B, C, 2));
+            graph.addEdge(edge(D, A, 1));
+            graph.removeNode(D);
+            assertEquals(8, snapshotWriter.write());
+            graph.addEdge(edge(A, C, 9));
+            graph.addEdge(edge(A, C, 6));
+            graph.removeNode(B);
+            assertEquals(11, snapshotWriter.write());
+            graph.addNode(B);
+            graph.addEdge(edge(C, B, 3));
+        }
+        assertEquals(Arrays.asList("graph.log", "graph.log.11.snapshot"), files());
+
+        final DirectedGraph restored = freshGraph(engine);
+        final Path snapshot = SnapshotWriter.latest(file).get();
+        new GraphFileLoader(2).load(snapshot, restored);
+        assertEquals(2, restored.getSnapshot().getNodeCount());
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(2, mutationLog.recover(restored, SnapshotWriter.sequenceOf(snapshot)));
+            assertEquals(13, mutationLog.appendedSequence());
+        }
+        assertEquals(3, restored.getSnapshot().getNodeCount());
+        assertEquals(9, restored.findTheShortestPath(A, B));
+        assertFalse(restored.getSnapshot().containsNode(D));
+    }
+
+    @Test
+    void shouldReplaySegmentsOfCheckpointWithoutStoredSnapshot() throws Exception {
+        final Path file = directory.resolve("graph.log");
+        final DirectedGraph graph = freshGraph(GraphEngineType.PERSISTENT);
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            mutationLog.recover(graph);
+            final SnapshotWriter snapshotWriter = new SnapshotWriter(file, mutationLog, graph, 0);
+            graph.addNode(A);
+            assertEquals(1, snapshotWriter.write());
+            graph.addNode(B);
+            // crash between starting the new segment and storing the snapshot
+            assertEquals(2, graph.checkpoint().getSequence());
+            graph.addNode(C);
+        }
+        assertEquals(Arrays.asList("graph.log", "graph.log.1.snapshot", "graph.log.2"), files());
+
+        final DirectedGraph restored = freshGraph(GraphEngineType.PERSISTENT);
+        new GraphFileLoader(2).load(SnapshotWriter.latest(file).get(), restored);
+        try (MutationLog mutationLog = new MutationLog(file, Durability.SYNC, 10)) {
+            assertEquals(2, mutationLog.recover(restored, 1));
+            final SnapshotWriter snapshotWriter = new SnapshotWriter(file, mutationLog, restored, 0);
+            assertEquals(3, snapshotWriter.write());
+        }
+        assertTrue(restored.getSnapshot().containsNode(B));
+        assertTrue(restored.getSnapshot().containsNode(C));
+        assertEquals(Arrays.asList("graph.log", "graph.log.3.snapshot"), files());
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Edge edge(final Node source, final Node target, final int weight) {
+        return Edge.builder().source(source).target(target).weight(weight).build();
+    }
+}
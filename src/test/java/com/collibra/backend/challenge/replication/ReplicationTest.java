@@ -0,0 +1,142 @@
+package com.collibra.backend.challenge.replication;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.ReadOnlyException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.graph.Edge;
+import com.collibra.backend.challenge.graph.GraphJournal;
+import com.collibra.backend.challenge.graph.Node;
+import com.collibra.backend.challenge.stats.ReplicationStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Leader and follower in one JVM, each with its own graph
+ */
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class ReplicationTest {
+
+    private static final Node A = new Node("A");
+    private static final Node B = new Node("B");
+    private static final Node C = new Node("C");
+
+    private final ReplicationStats leaderStats = new ReplicationStats();
+    private final ReplicationStats followerStats = new ReplicationStats();
+    private DirectedGraph leaderGraph;
+    private DirectedGraph followerGraph;
+    private ReplicationLeader leader;
+    private ReplicationFollower follower;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException, IOException {
+        leaderGraph = newGraph();
+        leaderGraph.addNode(A);
+        leaderGraph.addNode(B);
+        leaderGraph.addEdge(edge(A, B, 3));
+        leader = new ReplicationLeader(leaderGraph, GraphJournal.DISABLED, 0, 4, leaderStats);
+        followerGraph = newGraph();
+    }
+
+    @AfterEach
+    void tearDown() throws ReflectiveOperationException, IOException {
+        if (follower != null) {
+            follower.close();
+        }
+        leader.close();
+        newGraph();
+    }
+
+    @Test
+    void shouldCatchUpFromSnapshotAndFollowMutations() {
+        follower = follow();
+        await(() -> followerStats.getSnapshots().sum() == 1);
+        assertEquals(3, followerGraph.findTheShortestPath(A, B));
+
+        leaderGraph.addNode(C);
+        leaderGraph.addEdge(edge(B, C, 4));
+        leaderGraph.addNode(A);
+        assertEquals(2, leaderStats.getLeaderSequence().get());
+        await(() -> followerStats.getAppliedSequence().get() == 2);
+        assertEquals(7, followerGraph.findTheShortestPath(A, C));
+        assertEquals(1, leaderStats.getFollowers().sum());
+
+        leaderGraph.removeNode(B);
+        await(() -> followerStats.getAppliedSequence().get() == 3);
+        assertEquals(Integer.MAX_VALUE, followerGraph.findTheShortestPath(A, C));
+        assertEquals(0, followerStats.getLagRecords());
+    }
+
+    @Test
+    void shouldRejectMutationsOfClientsOnFollower() {
+        follower = follow();
+        await(() -> followerStats.getSnapshots().sum() == 1);
+        final CoreMessageProcessor processor = new CoreMessageProcessor(followerGraph);
+        final Session session = Session.start();
+        processor.process(session, "HI, I AM reader");
+        assertEquals("3", processor.process(session, "SHORTEST PATH A B"));
+        assertThrows(ReadOnlyException.class, () -> processor.process(session, "ADD NODE X"));
+        assertThrows(ReadOnlyException.class, () -> processor.process(session, "REMOVE EDGE A B"));
+        assertThrows(ReadOnlyException.class, () -> processor.process(session, "BEGIN BATCH"));
+        assertFalse(leaderGraph.isReadOnly());
+    }
+
+    @Test
+    void shouldReplaceStaleReplicaBySnapshot() throws IOException {
+        follower = follow();
+        await(() -> followerStats.getSnapshots().sum() == 1);
+        follower.close();
+        // more mutations than the backlog of 4 while nobody follows
+        for (int i = 0; i < 10; i++) {
+            leaderGraph.addNode(new Node("N" + i));
+        }
+        leaderGraph.removeNode(A);
+        leaderGraph.addEdge(edge(B, new Node("N9"), 1));
+        follower = follow();
+        await(() -> followerStats.getSnapshots().sum() == 2 && followerStats.getAppliedSequence().get() == 12);
+        assertEquals(-1, followerGraph.findTheShortestPath(A, B));
+        assertEquals(1, followerGraph.findTheShortestPath(B, new Node("N9")));
+        assertEquals(11, followerGraph.getSnapshot().getNodeCount());
+    }
+
+    private ReplicationFollower follow() {
+        return new ReplicationFollower(followerGraph,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), leader.getPort()), followerStats);
+    }
+
+    private static DirectedGraph newGraph() throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        return DirectedGraph.getInstance();
+    }
+
+    private static Edge edge(final Node source, final Node target, final int weight) {
+        return Edge.builder().source(source).target(target).weight(weight).build();
+    }
+
+    private static void await(final BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,107 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class MultiClientSocketServerTest {
+
+    private static final int WAIT_IN_MS = 300;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+    }
+
+    @Test
+    void shouldStopAcceptingWhileMaxSessionsAreActive() throws Exception {
+        final ServerConfiguration configuration = ServerConfiguration.builder()
+                .executor(ConnectionExecutorType.FIXED)
+                .workerThreads(2)
+                .maxSessions(1)
+                .build();
+        try (final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final CompletableFuture<Void> server = serve(configuration, serverSocket);
+            final Socket first = connect(serverSocket);
+            assertTrue(reader(first).readLine().startsWith("HI, I AM "));
+            try (final Socket second = connect(serverSocket)) {
+                final BufferedReader in = reader(second);
+                // connected in the backlog of the OS, but not accepted while the first session is active
+                assertWaiting(second, in);
+                first.close();
+                assertTrue(in.readLine().startsWith("HI, I AM "));
+            }
+            serverSocket.close();
+            assertThrows(Exception.class, server::join);
+        }
+    }
+
+    @Test
+    void shouldRejectSessionsAboveQueueCapacityOfBoundedExecutor() throws Exception {
+        final ServerConfiguration configuration = ServerConfiguration.builder()
+                .executor(ConnectionExecutorType.BOUNDED)
+                .workerThreads(1)
+                .queueCapacity(1)
+                .build();
+        try (final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final CompletableFuture<Void> server = serve(configuration, serverSocket);
+            final Socket running = connect(serverSocket);
+            assertTrue(reader(running).readLine().startsWith("HI, I AM "));
+            try (final Socket queued = connect(serverSocket); final Socket rejected = connect(serverSocket)) {
+                final BufferedReader queuedIn = reader(queued);
+                assertWaiting(queued, queuedIn);
+                try {
+                    assertNull(reader(rejected).readLine());
+                } catch (SocketException e) {
+                    // connection reset instead of closed
+                }
+                running.close();
+                assertTrue(queuedIn.readLine().startsWith("HI, I AM "));
+            }
+            serverSocket.close();
+            assertThrows(Exception.class, server::join);
+        }
+    }
+
+    private static CompletableFuture<Void> serve(final ServerConfiguration configuration, final ServerSocket serverSocket) {
+        return CompletableFuture.runAsync(() -> new MultiClientSocketServer(configuration).serve(serverSocket));
+    }
+
+    private static Socket connect(final ServerSocket serverSocket) throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    }
+
+    /**
+     * The session of the client has not started, so it got no welcome message
+     */
+    private static void assertWaiting(final Socket client, final BufferedReader in) throws IOException {
+        client.setSoTimeout(WAIT_IN_MS);
+        assertThrows(SocketTimeoutException.class, in::readLine);
+        client.setSoTimeout(0);
+    }
+
+    private static BufferedReader reader(final Socket client) throws IOException {
+        return new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+    }
+}
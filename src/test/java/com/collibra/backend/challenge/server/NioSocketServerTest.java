@@ -0,0 +1,125 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link NioEventLoop} serving clients over loopback, like {@link NioSocketServer} does after accepting them
+ */
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class NioSocketServerTest {
+
+    private static final int TIMEOUT_IN_MS = 300;
+
+    private ServerSocketChannel serverChannel;
+    private NioEventLoop eventLoop;
+    private Thread eventLoopThread;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException, IOException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        eventLoop = new NioEventLoop(TIMEOUT_IN_MS, new CoreMessageProcessor(DirectedGraph.getInstance()));
+        eventLoopThread = new Thread(eventLoop, "nio-event-loop-test");
+        eventLoopThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        eventLoopThread.interrupt();
+        eventLoopThread.join();
+        serverChannel.close();
+    }
+
+    @Test
+    void shouldFrameLinesSplitAcrossReadsAndEndedByAnyLineSeparator() throws IOException, InterruptedException {
+        try (final Socket client = connect()) {
+            final BufferedReader in = reader(client);
+            assertTrue(in.readLine().startsWith("HI, I AM "));
+            final OutputStream out = client.getOutputStream();
+            write(out, "HI, I AM Jo");
+            Thread.sleep(50);
+            write(out, "hn\r");
+            Thread.sleep(50);
+            write(out, "\nADD NODE a\rADD NODE a\nADD NODE b\r\n\r\nADD NO");
+            Thread.sleep(50);
+            write(out, "DE c\n");
+            assertEquals("HI John", in.readLine());
+            assertEquals("NODE ADDED", in.readLine());
+            assertEquals("ERROR: NODE ALREADY EXISTS", in.readLine());
+            assertEquals("NODE ADDED", in.readLine());
+            assertEquals("NODE ADDED", in.readLine());
+        }
+        assertEquals(3, DirectedGraph.getInstance().getSnapshot().getNodeCount());
+    }
+
+    @Test
+    void shouldSayGoodbyeWithConfiguredTimeoutAndCloseAfterFlushingIt() throws IOException {
+        try (final Socket client = connect()) {
+            final BufferedReader in = reader(client);
+            assertTrue(in.readLine().startsWith("HI, I AM "));
+            write(client.getOutputStream(), "HI, I AM John\n");
+            assertEquals("HI John", in.readLine());
+            final long start = System.nanoTime();
+            assertEquals("BYE John, WE SPOKE FOR " + TIMEOUT_IN_MS + " MS", in.readLine());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(TIMEOUT_IN_MS / 2));
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    void shouldCloseSessionWhoseLineExceedsLimit() throws IOException {
+        try (final Socket client = connect()) {
+            final BufferedReader in = reader(client);
+            assertTrue(in.readLine().startsWith("HI, I AM "));
+            final byte[] line = new byte[64 * 1024 + 1];
+            Arrays.fill(line, (byte) 'x');
+            try {
+                client.getOutputStream().write(line);
+                assertNull(in.readLine());
+            } catch (SocketException e) {
+                // connection reset by the server while the rest of the line was still being sent
+            }
+        }
+    }
+
+    private Socket connect() throws IOException {
+        final Socket client = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+        eventLoop.register(serverChannel.accept());
+        return client;
+    }
+
+    private static BufferedReader reader(final Socket client) throws IOException {
+        return new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void write(final OutputStream out, final String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,96 @@
+package com.collibra.backend.challenge.server;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import com.collibra.backend.challenge.stats.ServerStats;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class SocketServerTest {
+
+    private static final int PIPELINED_MESSAGES = 100_000;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+    }
+
+    /**
+     * Client writes all messages without waiting for answers, every node is added twice,
+     * so answers alternate between added and already exists when they come back in order
+     */
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void shouldAnswerPipelinedMessagesInOrder() throws Exception {
+        final ServerStats stats = ServerStats.getInstance();
+        final long sessions = stats.getTotalSessions().sum();
+        final long receivedBytes = stats.getReceivedBytes().sum();
+        try (final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final CompletableFuture<Void> server = CompletableFuture.runAsync(() -> serve(serverSocket));
+            try (final Socket client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+                final BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                assertTrue(in.readLine().startsWith("HI, I AM "));
+                final long start = System.nanoTime();
+                final CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> pipeline(client));
+                for (int i = 0; i < PIPELINED_MESSAGES; i++) {
+                    assertEquals(i % 2 == 0 ? "NODE ADDED" : "ERROR: NODE ALREADY EXISTS", in.readLine());
+                }
+                final long elapsed = System.nanoTime() - start;
+                writer.get();
+                log.info("{} pipelined messages answered in {} ms, {} messages/s", PIPELINED_MESSAGES,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), PIPELINED_MESSAGES * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            }
+            server.get();
+        }
+        assertEquals(PIPELINED_MESSAGES / 2, DirectedGraph.getInstance().getSnapshot().getNodeCount());
+        assertEquals(sessions + 1, stats.getTotalSessions().sum());
+        long sentBytes = 0;
+        for (int i = 0; i < PIPELINED_MESSAGES; i++) {
+            sentBytes += ("ADD NODE node-" + i / 2 + "\n").length();
+        }
+        assertEquals(receivedBytes + sentBytes, stats.getReceivedBytes().sum());
+    }
+
+    private static void serve(final ServerSocket serverSocket) {
+        try {
+            new SocketServer(serverSocket.accept(), 30_000, new CoreMessageProcessor(DirectedGraph.getInstance())).run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void pipeline(final Socket client) {
+        try {
+            final Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+            for (int i = 0; i < PIPELINED_MESSAGES; i++) {
+                out.write("ADD NODE node-" + i / 2 + "\n");
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
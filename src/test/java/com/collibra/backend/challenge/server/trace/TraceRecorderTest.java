@@ -0,0 +1,155 @@
+package com.collibra.backend.challenge.server.trace;
+
+import com.collibra.backend.challenge.core.CommandType;
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    private CoreMessageProcessor messageProcessor;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+    }
+
+    @Test
+    void shouldWriteTracedLinesOfAllThreadsToFile() throws Exception {
+        final Path file = directory.resolve("trace.bin");
+        final TraceRecorder recorder = new TraceRecorder(file, 1, 16, 1);
+        recorder.setEnabled(true);
+        final Session session = Session.start();
+        process(recorder, session, "HI, I AM client");
+        process(recorder, session, "ADD NODE A");
+        process(recorder, session, "ADD NODE A");
+        process(recorder, session, "BEGIN BATCH");
+        process(recorder, session, "ADD NODE B");
+        process(recorder, session, "WHAT?");
+        final Thread other = new Thread(() -> process(recorder, Session.start(), "SHORTEST PATH A A"));
+        other.start();
+        other.join();
+        recorder.close();
+
+        final List<TraceEvent> events = new ArrayList<>();
+        TraceReader.read(file, events::add);
+        assertEquals(7, events.size());
+        assertEquals(7, recorder.getWrittenEvents());
+        assertEquals(Arrays.asList(CommandType.GREETING, CommandType.ADD_NODE, CommandType.ADD_NODE,
+                CommandType.BEGIN_BATCH, CommandType.ADD_NODE),
+                events.subList(0, 5).stream().map(TraceEvent::getCommand).collect(Collectors.toList()));
+        assertNull(events.get(5).getCommand());
+        assertEquals(Arrays.asList(TraceOutcome.ANSWERED, TraceOutcome.ANSWERED, TraceOutcome.ERROR,
+                TraceOutcome.ANSWERED, TraceOutcome.QUEUED, TraceOutcome.QUEUED, TraceOutcome.ANSWERED),
+                events.stream().map(TraceEvent::getOutcome).collect(Collectors.toList()));
+        assertEquals(session.getId(), events.get(0).getSessionId());
+        assertTrue(events.get(6).getTimestamp().isAfter(events.get(0).getTimestamp()));
+        assertTrue(events.get(0).getLatencyNanos() > 0);
+    }
+
+    @Test
+    void shouldDropEventsOfFullBufferInsteadOfWaiting() throws Exception {
+        final TraceRecorder recorder = new TraceRecorder(directory.resolve("trace.bin"), 1, 3, 1);
+        recorder.setEnabled(true);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                process(recorder, Session.start(), "ADD NODE A" + i);
+            }
+        });
+        producer.start();
+        producer.join();
+        recorder.close();
+        assertEquals(4, recorder.getWrittenEvents());
+        assertEquals(6, recorder.getDroppedEvents());
+    }
+
+    @Test
+    void shouldKeepLinesOfEverySessionInOrderAcrossStripes() throws Exception {
+        final Path file = directory.resolve("trace.bin");
+        final TraceRecorder recorder = new TraceRecorder(file, 1, 1024, 3);
+        recorder.setEnabled(true);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    final Session session = Session.start();
+                    process(recorder, session, "HI, I AM client");
+                    process(recorder, session, "CLOSER THAN 5 A");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recorder.close();
+
+        final List<TraceEvent> events = new ArrayList<>();
+        TraceReader.read(file, events::add);
+        assertEquals(320, events.size());
+        assertEquals(0, recorder.getDroppedEvents());
+        final Map<UUID, List<CommandType>> commands = new HashMap<>();
+        events.forEach(event -> commands.computeIfAbsent(event.getSessionId(), id -> new ArrayList<>()).add(event.getCommand()));
+        assertEquals(160, commands.size());
+        commands.values().forEach(session -> assertEquals(Arrays.asList(CommandType.GREETING, CommandType.CLOSER_THAN), session));
+    }
+
+    @Test
+    void shouldTraceSampleOfSessions() {
+        final TraceRecorder recorder = new TraceRecorder(directory.resolve("trace.bin"), 4, 16, 1);
+        assertEquals(0, countTraced(recorder));
+        recorder.setEnabled(true);
+        final int traced = countTraced(recorder);
+        assertTrue(traced > 200 && traced < 300, "Traced sessions: " + traced);
+        recorder.setSampleEvery(1);
+        assertEquals(1000, countTraced(recorder));
+    }
+
+    private int countTraced(final TraceRecorder recorder) {
+        int traced = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (recorder.isTraced(Session.start())) {
+                traced++;
+            }
+        }
+        return traced;
+    }
+
+    private void process(final TraceRecorder recorder, final Session session, final String message) {
+        final long start = System.nanoTime();
+        TraceOutcome outcome;
+        try {
+            outcome = messageProcessor.process(session, message) == null ? TraceOutcome.QUEUED : TraceOutcome.ANSWERED;
+        } catch (MessageProcessingException e) {
+            outcome = TraceOutcome.of(e);
+        }
+        if (recorder.isTraced(session)) {
+            recorder.record(session, start, outcome);
+        }
+    }
+}
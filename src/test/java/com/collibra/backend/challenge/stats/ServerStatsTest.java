@@ -0,0 +1,139 @@
+package com.collibra.backend.challenge.stats;
+
+import com.collibra.backend.challenge.core.CoreMessageProcessor;
+import com.collibra.backend.challenge.core.MessageProcessingException;
+import com.collibra.backend.challenge.core.Session;
+import com.collibra.backend.challenge.graph.DirectedGraph;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerStatsTest {
+
+    private final ServerStats stats = ServerStats.getInstance();
+    private CoreMessageProcessor messageProcessor;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        Field instance = DirectedGraph.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        messageProcessor = new CoreMessageProcessor(DirectedGraph.getInstance());
+    }
+
+    @Test
+    void shouldRecordLatencyAndErrorsOfEveryCommand() {
+        final CommandStats addNode = stats.command("ADD_NODE");
+        final long added = addNode.getLatency().snapshot().getTotalCount();
+        final long errors = addNode.getErrors().sum();
+        final long unknown = stats.command("UNKNOWN").getLatency().snapshot().getTotalCount();
+        final long lockHolds = stats.getLockHold().snapshot().getTotalCount();
+        final Session session = Session.start();
+
+        messageProcessor.process(session, "ADD NODE A");
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "ADD NODE A"));
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "WHAT?"));
+        final String summary = messageProcessor.process(session, "STATS");
+
+        assertEquals(added + 2, addNode.getLatency().snapshot().getTotalCount());
+        assertEquals(errors + 1, addNode.getErrors().sum());
+        assertEquals(unknown + 1, stats.command("UNKNOWN").getLatency().snapshot().getTotalCount());
+        // the rejected node is checked under the lock as well
+        assertEquals(lockHolds + 2, stats.getLockHold().snapshot().getTotalCount());
+        assertTrue(summary.startsWith("SESSIONS active="), summary);
+        assertTrue(summary.contains("; ADD_NODE errors=" + (errors + 1) + " count=" + (added + 2) + " p50="), summary);
+        assertTrue(summary.contains("; LOCK_HOLD count="), summary);
+        assertTrue(summary.contains("; COMPONENTS checks="), summary);
+        assertThrows(MessageProcessingException.class, () -> messageProcessor.process(session, "STATS NOW"));
+    }
+
+    @Test
+    void shouldMeasureWaitAndHoldTimeOfOutermostAcquisition() throws Exception {
+        final LatencyHistogram waitTime = new LatencyHistogram();
+        final LatencyHistogram holdTime = new LatencyHistogram();
+        final TimedLock lock = new TimedLock(new ReentrantLock(), waitTime, holdTime);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                lock.lock();
+                lock.unlock();
+                locked.countDown();
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        lock.lock();
+        lock.unlock();
+        holder.join();
+
+        final Histogram waits = waitTime.snapshot();
+        final Histogram holds = holdTime.snapshot();
+        assertEquals(2, waits.getTotalCount());
+        assertEquals(2, holds.getTotalCount());
+        assertTrue(waits.getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(40), "Wait " + waits.getMaxValue());
+        assertTrue(holds.getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(40), "Hold " + holds.getMaxValue());
+    }
+
+    @Test
+    void shouldNotCountAwaitingConditionAsHolding() throws Exception {
+        final LatencyHistogram holdTime = new LatencyHistogram();
+        final TimedLock lock = new TimedLock(new ReentrantLock(), new LatencyHistogram(), holdTime);
+        final Condition condition = lock.newCondition();
+        lock.lock();
+        try {
+            assertFalse(condition.await(200, TimeUnit.MILLISECONDS));
+        } finally {
+            lock.unlock();
+        }
+
+        final Histogram holds = holdTime.snapshot();
+        assertEquals(2, holds.getTotalCount());
+        assertTrue(holds.getMaxValue() < TimeUnit.MILLISECONDS.toNanos(100), "Hold " + holds.getMaxValue());
+        assertThrows(IllegalMonitorStateException.class, condition::await);
+    }
+
+    @Test
+    void shouldServePrometheusTextOnLocalPort() throws Exception {
+        messageProcessor.process(Session.start(), "HI, I AM prometheus");
+        try (StatsHttpServer server = new StatsHttpServer(stats, 0)) {
+            final HttpURLConnection connection = (HttpURLConnection)
+                    new URL("http://localhost:" + server.getPort() + StatsHttpServer.PATH).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            final String text;
+            try (InputStream in = connection.getInputStream()) {
+                text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertTrue(text.contains("# TYPE graph_command_duration_seconds summary\n"), text);
+            assertTrue(text.contains("graph_command_duration_seconds{command=\"GREETING\",quantile=\"0.999\"} "), text);
+            assertTrue(text.contains("graph_command_duration_seconds_count{command=\"GREETING\"} "), text);
+            assertTrue(text.contains("graph_lock_wait_seconds_count "), text);
+            assertTrue(text.contains("server_sessions_active "), text);
+
+            final HttpURLConnection post = (HttpURLConnection)
+                    new URL("http://localhost:" + server.getPort() + StatsHttpServer.PATH).openConnection();
+            post.setRequestMethod("POST");
+            assertEquals(405, post.getResponseCode());
+        }
+    }
+}